@@ -0,0 +1,46 @@
+package de.tbressler.waterrower;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Profiler, which reports the peak number of platform threads of the benchmark process during an
+ * iteration (e.g. to compare the execution modes of the RuntimeBenchmark). The peak includes the
+ * threads of JMH. Run the benchmarks with "-prof de.tbressler.waterrower.PlatformThreadsProfiler".
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class PlatformThreadsProfiler implements InternalProfiler {
+
+    /* The thread bean, which provides the number of platform threads. */
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+
+    @Override
+    public String getDescription() {
+        return "Peak number of platform threads per iteration";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        threadBean.resetPeakThreadCount();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                       IterationResult result) {
+        return List.of(new ScalarResult("peakPlatformThreads", threadBean.getPeakThreadCount(), "threads", AggregationPolicy.MAX));
+    }
+
+}
@@ -0,0 +1,100 @@
+package de.tbressler.waterrower;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Benchmark for the execution modes of the device tasks with 1, 10 and 100 simulated devices.
+ *
+ * Every device executes a task, which blocks for 1 ms (like the pacing of the messages, which
+ * are sent to the WaterRower). The benchmark measures the time until the tasks of all devices are
+ * executed. Run it with "-prof de.tbressler.waterrower.PlatformThreadsProfiler" to report the peak
+ * number of platform threads per iteration.
+ *
+ * Modes:
+ * - pool: Every device has its own scheduled thread pool with 5 threads (WaterRowerInitializer
+ *   without runtime).
+ * - shared: The devices share a WaterRowerRuntime.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuntimeBenchmark {
+
+    /* The time a task of a device blocks (in ms). */
+    private static final long BLOCKING_TIME = 1;
+
+    /* The number of threads of the pool of a device in mode "pool". */
+    private static final int THREAD_POOL_SIZE = 5;
+
+
+    /* The number of simulated devices. */
+    @Param({"1", "10", "100"})
+    public int numberOfDevices;
+
+    /* The execution mode. */
+    @Param({"pool", "shared"})
+    public String mode;
+
+
+    /* The runtime or null in mode "pool". */
+    private WaterRowerRuntime runtime;
+
+    /* The executors of the devices. */
+    private ScheduledExecutorService[] executors;
+
+
+    @Setup
+    public void setUp() {
+        runtime = "shared".equals(mode) ? new WaterRowerRuntime() : null;
+
+        executors = new ScheduledExecutorService[numberOfDevices];
+        for (int i = 0; i < numberOfDevices; i++)
+            executors[i] = (runtime == null) ? Executors.newScheduledThreadPool(THREAD_POOL_SIZE) : runtime.newDeviceExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (ScheduledExecutorService executor : executors)
+            executor.shutdownNow();
+        if (runtime != null)
+            runtime.shutdown();
+    }
+
+
+    @Benchmark
+    public void executeBlockingTaskOfEveryDevice() throws InterruptedException {
+        CountDownLatch executed = new CountDownLatch(numberOfDevices);
+
+        for (ScheduledExecutorService executor : executors) {
+            executor.schedule(() -> {
+                sleepUninterruptibly();
+                executed.countDown();
+            }, 0, MILLISECONDS);
+        }
+
+        executed.await();
+    }
+
+    /* Blocks the current thread. */
+    private static void sleepUninterruptibly() {
+        try {
+            Thread.sleep(BLOCKING_TIME);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
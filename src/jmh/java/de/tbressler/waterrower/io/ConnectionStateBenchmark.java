@@ -0,0 +1,137 @@
+package de.tbressler.waterrower.io;
+
+import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.out.ResetMessage;
+import de.tbressler.waterrower.io.transport.SerialDeviceAddress;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.*;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalIoHandler;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Benchmark for many concurrent senders, which check the connection state and send a message
+ * (like the polling of several subscriptions).
+ *
+ * The communication service is connected to an in-process channel, which discards the messages.
+ *
+ * Modes:
+ * - lockFree: The senders call isConnected() and send() of the communication service.
+ * - fairLock: Baseline with the previous access pattern, isConnected() and send() are both
+ *   guarded by a fair lock.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ConnectionStateBenchmark {
+
+    /* The access mode. */
+    @Param({"lockFree", "fairLock"})
+    public String mode;
+
+
+    /* The event loop group of the in-process channels. */
+    private EventLoopGroup eventLoopGroup;
+
+    /* The communication service under test. */
+    private CommunicationService communicationService;
+
+    /* The fair lock of the baseline. */
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    /* True if the baseline is measured. */
+    private boolean isFairLock;
+
+    /* The message, which is sent. */
+    private final AbstractMessage message = new ResetMessage();
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        isFairLock = "fairLock".equals(mode);
+
+        eventLoopGroup = new MultiThreadIoEventLoopGroup(1, LocalIoHandler.newFactory());
+        LocalAddress address = new LocalAddress("connection-state-benchmark");
+
+        new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ReferenceCountUtil.release(msg);
+                    }
+                })
+                .bind(address).sync();
+
+        // Connects to the in-process channel instead of a serial port:
+        Bootstrap bootstrap = new Bootstrap() {
+            @Override
+            public ChannelFuture connect(SocketAddress remoteAddress) {
+                return new Bootstrap()
+                        .group(eventLoopGroup)
+                        .channel(LocalChannel.class)
+                        .handler(new ChannelInboundHandlerAdapter())
+                        .connect(address);
+            }
+        };
+
+        communicationService = new CommunicationService(bootstrap, new ChannelInitializer(), eventLoopGroup);
+        communicationService.open(new SerialDeviceAddress("benchmark"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        communicationService.close();
+        eventLoopGroup.shutdownGracefully().syncUninterruptibly();
+    }
+
+
+    @Benchmark
+    public boolean send() throws IOException {
+        if (!isConnected())
+            return false;
+
+        if (isFairLock) {
+            lock.lock();
+            try {
+                communicationService.send(message);
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            communicationService.send(message);
+        }
+        return true;
+    }
+
+    /* Returns the connection state in the current mode. */
+    private boolean isConnected() {
+        if (!isFairLock)
+            return communicationService.isConnected();
+
+        lock.lock();
+        try {
+            return communicationService.isConnected();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package de.tbressler.waterrower.io.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static io.netty.handler.codec.Delimiters.lineDelimiter;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Benchmark for the decoding pipeline with a replay of the recorded messages in
+ * docs/simulationdata.txt. One operation decodes the whole replay.
+ *
+ * Pipelines:
+ * - twoStage: DelimiterBasedFrameDecoder and MessageFrameDecoder.
+ * - fused: MessageLineDecoder.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameDecoderBenchmark {
+
+    /* The file with the recorded messages (relative to the project directory). */
+    private static final String SIMULATION_DATA = "docs/simulationdata.txt";
+
+    /* Maximum length of a single frame (same as in ChannelInitializer). */
+    private static final int MAX_FRAME_LENGTH = 32;
+
+    /* The pattern of the data of a recorded message. */
+    private static final Pattern DATA_PATTERN = Pattern.compile("\"data\":\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+
+    /* The decoding pipeline. */
+    @Param({"twoStage", "fused"})
+    public String pipeline;
+
+
+    /* The received bytes of the replay. */
+    private byte[] replay;
+
+    /* The channel with the decoding pipeline. */
+    private EmbeddedChannel channel;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        replay = loadReplay();
+        if (pipeline.equals("fused")) {
+            channel = new EmbeddedChannel(new MessageLineDecoder(new MessageParser(), MAX_FRAME_LENGTH));
+        } else {
+            channel = new EmbeddedChannel(
+                    new DelimiterBasedFrameDecoder(MAX_FRAME_LENGTH, lineDelimiter()),
+                    new MessageFrameDecoder(new MessageParser()));
+        }
+    }
+
+    /* Loads the recorded messages, every message is terminated with CR LF. */
+    private static byte[] loadReplay() throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(SIMULATION_DATA), UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (String line : lines) {
+            Matcher matcher = DATA_PATTERN.matcher(line);
+            if (!matcher.find())
+                continue;
+            String data = matcher.group(1)
+                    .replace("\\r", "")
+                    .replace("\\n", "");
+            out.write((data + "\r\n").getBytes(US_ASCII));
+        }
+
+        return out.toByteArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+
+    @Benchmark
+    public void decodeReplay(Blackhole blackhole) {
+        ByteBuf buffer = wrappedBuffer(replay);
+        channel.writeInbound(buffer);
+
+        Object msg;
+        while ((msg = channel.readInbound()) != null)
+            blackhole.consume(msg);
+    }
+
+}
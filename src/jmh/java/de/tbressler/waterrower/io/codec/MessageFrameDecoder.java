@@ -13,7 +13,11 @@ import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.util.Objects.requireNonNull;
 
 /**
- * Decodes messages (byte > msg).
+ * Decodes messages (byte > msg), which were split into frames by a DelimiterBasedFrameDecoder.
+ *
+ * The decoder was replaced by MessageLineDecoder in the pipeline and is only kept as baseline of
+ * the FrameDecoderBenchmark (pipeline "twoStage"). Like MessageLineDecoder, it sets the receive
+ * time on the decoded message, so both pipelines do the same work.
  *
  * @author Tobias Bressler
  * @version 1.0
@@ -36,8 +40,8 @@ public class MessageFrameDecoder extends ByteToMessageDecoder {
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
 
-        Log.debug("Decoder received new message buffer:\n" +
-                " Buffer: " + bufferToString(in));
+        if (Log.isDebugEnabled())
+            Log.debug("Decoder received new message buffer:\n Buffer: {}", bufferToString(in));
 
         int numberOfBytes = in.readableBytes();
 
@@ -47,20 +51,23 @@ public class MessageFrameDecoder extends ByteToMessageDecoder {
             return;
         }
 
-        byte [] byteArray = new byte[numberOfBytes];
-
-        in.readBytes(byteArray, 0, numberOfBytes);
+        if (Log.isDebugEnabled())
+            Log.debug("Message buffer decoded to: >{}<", in.toString(US_ASCII));
 
-        Log.debug("Message buffer decoded to: >" + new String(byteArray, US_ASCII) + "<");
+        // Decode the message directly from the buffer and consume the frame afterwards.
+        AbstractMessage decodedMessage;
+        try {
+            decodedMessage = parser.decode(in, System.nanoTime());
+        } finally {
+            in.skipBytes(numberOfBytes);
+        }
 
-        // Decode the message.
-         AbstractMessage decodedMessage = parser.decode(byteArray);
-         if (decodedMessage == null) {
-             Log.warn("Couldn't decode bytes to message! Skipping it.");
-             return;
-         }
+        if (decodedMessage == null) {
+            Log.warn("Couldn't decode bytes to message! Skipping it.");
+            return;
+        }
 
-         out.add(decodedMessage);
+        out.add(decodedMessage);
     }
 
 }
@@ -0,0 +1,127 @@
+package de.tbressler.waterrower.io.codec;
+
+import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.out.*;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static de.tbressler.waterrower.io.msg.Memory.DOUBLE_MEMORY;
+import static de.tbressler.waterrower.io.msg.out.ConfigureWorkoutMessage.MessageType.SINGLE_WORKOUT;
+import static de.tbressler.waterrower.model.MemoryLocation.MS_DISTANCE_LOW;
+import static de.tbressler.waterrower.workout.WorkoutUnit.METERS;
+import static io.netty.buffer.Unpooled.buffer;
+import static io.netty.buffer.Unpooled.unreleasableBuffer;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Benchmarks for decoding and encoding the messages of each message family with the
+ * MessageParser.
+ *
+ * The received and the sent messages are parameters of separate states, so that the decode
+ * benchmark runs once per received message and the encode benchmarks run once per sent message.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageParserBenchmark {
+
+    /**
+     * The state of the decode benchmark.
+     */
+    @State(Scope.Thread)
+    public static class DecodeState {
+
+        /* The received messages, one per message family. */
+        @Param({"IDS1E102", "IDD0550007", "IDT054010203", "IV40210", "SS", "SE", "P0A", "PING", "OK", "ERROR", "_WR_"})
+        public String receivedMessage;
+
+        /* The parser. */
+        private MessageParser parser;
+
+        /* The buffer with the received message. */
+        private ByteBuf buffer;
+
+        @Setup
+        public void setUp() {
+            parser = new MessageParser();
+            // The parser doesn't modify the reader index, so the buffer can be decoded again.
+            buffer = unreleasableBuffer(wrappedBuffer(receivedMessage.getBytes(US_ASCII)));
+        }
+
+    }
+
+    /**
+     * The state of the encode benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class EncodeState {
+
+        /* The sent messages, one per message family. */
+        @Param({"read", "start", "reset", "model", "exit", "workout"})
+        public String sentMessage;
+
+        /* The parser. */
+        private MessageParser parser;
+
+        /* The message to encode. */
+        private AbstractMessage message;
+
+        /* The buffer, to which the message is encoded. */
+        private ByteBuf out;
+
+        @Setup
+        public void setUp() {
+            parser = new MessageParser();
+            message = newMessage(sentMessage);
+            out = unreleasableBuffer(buffer(64));
+        }
+
+    }
+
+
+    /* Returns the message of the given family. */
+    private static AbstractMessage newMessage(String family) {
+        switch (family) {
+            case "read":
+                return new ReadMemoryMessage(DOUBLE_MEMORY, MS_DISTANCE_LOW.getLocation());
+            case "start":
+                return new StartCommunicationMessage();
+            case "reset":
+                return new ResetMessage();
+            case "model":
+                return new RequestModelInformationMessage();
+            case "exit":
+                return new ExitCommunicationMessage();
+            case "workout":
+                return new ConfigureWorkoutMessage(SINGLE_WORKOUT, 2000, METERS);
+            default:
+                throw new IllegalArgumentException("Unknown message family '" + family + "'!");
+        }
+    }
+
+
+    @Benchmark
+    public AbstractMessage decode(DecodeState state) {
+        return state.parser.decode(state.buffer);
+    }
+
+    @Benchmark
+    public byte[] encode(EncodeState state) {
+        return state.parser.encode(state.message);
+    }
+
+    @Benchmark
+    public ByteBuf encodeToBuffer(EncodeState state) {
+        state.parser.encode(state.message, state.out.clear());
+        return state.out;
+    }
+
+}
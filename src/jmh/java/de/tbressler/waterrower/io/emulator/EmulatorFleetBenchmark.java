@@ -0,0 +1,195 @@
+package de.tbressler.waterrower.io.emulator;
+
+import de.tbressler.waterrower.IWaterRowerConnectionListener;
+import de.tbressler.waterrower.WaterRower;
+import de.tbressler.waterrower.WaterRowerInitializer;
+import de.tbressler.waterrower.WaterRowerRuntime;
+import de.tbressler.waterrower.model.ErrorCode;
+import de.tbressler.waterrower.model.ModelInformation;
+import de.tbressler.waterrower.subscriptions.values.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.tbressler.waterrower.model.MonitorType.WATER_ROWER_S4;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Benchmark for the cost of a fleet of WaterRowers, which are connected with emulated monitors
+ * (see EmulatorChannel) and share a WaterRowerRuntime. Every WaterRower polls the subscriptions
+ * of a dashboard (distance, duration, velocity, stroke rate, strokes and watts) and runs the
+ * watchdogs, every emulator rows with 24 strokes per minute.
+ *
+ * One operation is a second of the running fleet. The benchmark reports the CPU time of the
+ * process (cpuMillis), the number of notified subscriptions (updates) and the number of errors of
+ * the WaterRowers (errors, should be 0) per second. Divide the CPU time by the number of devices
+ * to get the cost of a single WaterRower. The CPU time includes the emulators, which are cheap
+ * compared to the polling.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = 1)
+@Measurement(iterations = 5, batchSize = 1)
+@Fork(1)
+public class EmulatorFleetBenchmark {
+
+    /* The duration of an operation in ms. */
+    private static final long OPERATION_MILLIS = 1000;
+
+
+    /* The number of WaterRowers. */
+    @Param({"1", "100", "500"})
+    public int numberOfDevices;
+
+
+    /* The shared runtime. */
+    private WaterRowerRuntime runtime;
+
+    /* The WaterRowers of the fleet. */
+    private WaterRower[] waterRowers;
+
+    /* Counted down, when a WaterRower was disconnected. */
+    private CountDownLatch disconnected;
+
+    /* The number of notified subscriptions. */
+    private final AtomicInteger updates = new AtomicInteger();
+
+    /* The number of errors of the WaterRowers. */
+    private final AtomicInteger errors = new AtomicInteger();
+
+    /* The bean, which provides the CPU time of the process. */
+    private final com.sun.management.OperatingSystemMXBean osBean =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+
+    /**
+     * The counters of an operation.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        /* The CPU time of the process in ms. */
+        public long cpuMillis;
+
+        /* The number of notified subscriptions. */
+        public long updates;
+
+        /* The number of errors of the WaterRowers. */
+        public long errors;
+
+    }
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        runtime = new WaterRowerRuntime();
+        waterRowers = new WaterRower[numberOfDevices];
+
+        CountDownLatch connected = new CountDownLatch(numberOfDevices);
+        disconnected = new CountDownLatch(numberOfDevices);
+        for (int i = 0; i < numberOfDevices; i++) {
+            WaterRower waterRower = new WaterRower(new WaterRowerInitializer(runtime, ofMillis(200), ofSeconds(5), EmulatorChannel::new));
+            waterRower.addConnectionListener(new IWaterRowerConnectionListener() {
+                @Override
+                public void onConnected(ModelInformation modelInformation) {
+                    connected.countDown();
+                }
+
+                @Override
+                public void onDisconnected() {
+                    disconnected.countDown();
+                }
+
+                @Override
+                public void onError(ErrorCode errorCode) {
+                    errors.incrementAndGet();
+                }
+            });
+            subscribeDashboard(waterRower);
+            waterRower.connect(new EmulatorAddress("rower-" + i, WATER_ROWER_S4, 24, 4));
+            waterRowers[i] = waterRower;
+        }
+
+        if (!connected.await(30, SECONDS))
+            throw new IllegalStateException("The WaterRowers couldn't be connected in time!");
+    }
+
+    /* Subscribes the values of a dashboard. */
+    private void subscribeDashboard(WaterRower waterRower) {
+        waterRower.subscribe(new DistanceSubscription() {
+            @Override
+            protected void onDistanceUpdated(double distance) {
+                updates.incrementAndGet();
+            }
+        });
+        waterRower.subscribe(new DisplayedDurationSubscription() {
+            @Override
+            protected void onDurationUpdated(long tenthsOfSeconds) {
+                updates.incrementAndGet();
+            }
+
+            @Override
+            protected void onDurationUpdated(Duration duration) {
+                // Not called, the duration is passed in tenths of seconds.
+            }
+        });
+        waterRower.subscribe(new AverageVelocitySubscription() {
+            @Override
+            protected void onVelocityUpdated(double velocity) {
+                updates.incrementAndGet();
+            }
+        });
+        waterRower.subscribe(new AverageStrokeRateSubscription() {
+            @Override
+            protected void onStrokeRateUpdated(double strokeRate) {
+                updates.incrementAndGet();
+            }
+        });
+        waterRower.subscribe(new StrokeCountSubscription() {
+            @Override
+            protected void onStrokeCountUpdated(int strokes) {
+                updates.incrementAndGet();
+            }
+        });
+        waterRower.subscribe(new WattsSubscription() {
+            @Override
+            protected void onWattsUpdated(int watt) {
+                updates.incrementAndGet();
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        for (WaterRower waterRower : waterRowers)
+            waterRower.disconnect();
+        disconnected.await(30, SECONDS);
+        runtime.shutdown();
+    }
+
+
+    @Benchmark
+    public void runFleet(Counters counters) throws InterruptedException {
+        long cpuTime = osBean.getProcessCpuTime();
+        int updatesBefore = updates.get();
+        int errorsBefore = errors.get();
+
+        Thread.sleep(OPERATION_MILLIS);
+
+        counters.cpuMillis += (osBean.getProcessCpuTime() - cpuTime) / 1_000_000;
+        counters.updates += updates.get() - updatesBefore;
+        counters.errors += errors.get() - errorsBefore;
+    }
+
+}
@@ -0,0 +1,103 @@
+package de.tbressler.waterrower.io.replay;
+
+import de.tbressler.waterrower.IWaterRowerConnectionListener;
+import de.tbressler.waterrower.WaterRower;
+import de.tbressler.waterrower.WaterRowerInitializer;
+import de.tbressler.waterrower.WaterRowerRuntime;
+import de.tbressler.waterrower.model.ErrorCode;
+import de.tbressler.waterrower.model.ModelInformation;
+import de.tbressler.waterrower.model.StrokeType;
+import de.tbressler.waterrower.subscriptions.values.StrokeSubscription;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Benchmark for the throughput of the pipeline. The recorded session of docs/simulationdata.txt
+ * (or the file of the system property "replay.file") is replayed as fast as possible through a
+ * live WaterRower with a stroke subscription. One operation is the replay of the whole session,
+ * from the connect until the WaterRower was disconnected at the end of the replay.
+ *
+ * Divide the number of frames (printed at the start of the trial) by the time of an operation to
+ * get the frames per second.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+
+    /* The recorded session. */
+    private Recording recording;
+
+    /* The runtime, which is shared by the WaterRowers of the operations. */
+    private WaterRowerRuntime runtime;
+
+    /* The WaterRower of the current operation. */
+    private WaterRower waterRower;
+
+    /* Counted down, when the WaterRower of the current operation was disconnected. */
+    private CountDownLatch disconnected;
+
+    /* The number of received stroke events, which is consumed by the subscription. */
+    private volatile int strokes;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        recording = Recording.load(Paths.get(System.getProperty("replay.file", "docs/simulationdata.txt")));
+        runtime = new WaterRowerRuntime();
+        System.out.println("Replaying " + recording.size() + " frames per operation.");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        runtime.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        disconnected = new CountDownLatch(1);
+        waterRower = new WaterRower(new WaterRowerInitializer(runtime, ofMillis(200), ofSeconds(5), ReplayChannel::new));
+        waterRower.addConnectionListener(new IWaterRowerConnectionListener() {
+            @Override
+            public void onConnected(ModelInformation modelInformation) {}
+
+            @Override
+            public void onDisconnected() {
+                disconnected.countDown();
+            }
+
+            @Override
+            public void onError(ErrorCode errorCode) {}
+        });
+        waterRower.subscribe(new StrokeSubscription() {
+            @Override
+            protected void onStroke(StrokeType strokeType) {
+                strokes++;
+            }
+        });
+    }
+
+
+    @Benchmark
+    public int replay() throws Exception {
+        waterRower.connect(ReplayAddress.asFastAsPossible(recording));
+        if (!disconnected.await(60, SECONDS))
+            throw new IllegalStateException("The replay didn't finish in time!");
+        return strokes;
+    }
+
+}
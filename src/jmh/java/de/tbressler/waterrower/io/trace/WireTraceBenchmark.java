@@ -0,0 +1,62 @@
+package de.tbressler.waterrower.io.trace;
+
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static de.tbressler.waterrower.io.trace.WireTrace.Direction.INBOUND;
+import static io.netty.buffer.Unpooled.directBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Benchmark for recording a frame in the wire trace, the cost which is added to every received
+ * and sent frame. Run with "-prof gc" to check that recording doesn't allocate.
+ *
+ * Threads:
+ * - 1: A single channel records the frames.
+ * - 4: Several channels record into the same wire trace.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireTraceBenchmark {
+
+    /* The wire trace under test. */
+    private WireTrace wireTrace;
+
+    /* The received bytes of a frame (like in the buffer of the decoder). */
+    private ByteBuf frame;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        wireTrace = new WireTrace();
+        frame = directBuffer(16);
+        frame.writeCharSequence("IDD0550007\r\n", US_ASCII);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        frame.release();
+    }
+
+
+    @Benchmark
+    public void record() {
+        wireTrace.record(INBOUND, frame, frame.readerIndex(), 10);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordConcurrently() {
+        wireTrace.record(INBOUND, frame, frame.readerIndex(), 10);
+    }
+
+}
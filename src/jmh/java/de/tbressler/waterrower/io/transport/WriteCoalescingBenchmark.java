@@ -0,0 +1,140 @@
+package de.tbressler.waterrower.io.transport;
+
+import com.fazecast.jSerialComm.SerialPort;
+import de.tbressler.waterrower.io.codec.MessageFrameEncoder;
+import de.tbressler.waterrower.io.codec.MessageParser;
+import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.out.ConfigureWorkoutMessage;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.nio.NioIoHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.tbressler.waterrower.io.msg.out.ConfigureWorkoutMessage.MessageType.ADD_INTERVAL_WORKOUT;
+import static de.tbressler.waterrower.workout.WorkoutUnit.METERS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Benchmark for sending a burst of messages (e.g. the upload of an interval workout) through a
+ * SerialChannel, with a flush per message or with a single flush per burst.
+ *
+ * The messages are written like the WaterRowerConnector writes them, from a thread outside of the
+ * event loop, and pass the encoder and the write path of the channel, which gathers the flushed
+ * frames. The channel writes to a fake serial port, which accepts all bytes and counts the writes.
+ * The fake port doesn't include the cost of a real write to the port (a system call per write), the
+ * number of writes per message (portWrites / messages) shows how many of them are saved.
+ *
+ * Modes:
+ * - perMessage: Every message is written and flushed on its own (writeAndFlush).
+ * - coalesced: The messages of a burst are written and flushed together (SendPolicy with a burst
+ *   size greater than 1).
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteCoalescingBenchmark {
+
+    /* The number of messages of a burst. */
+    @Param({"1", "10"})
+    public int burstSize;
+
+    /* The send mode. */
+    @Param({"perMessage", "coalesced"})
+    public String mode;
+
+
+    /* The event loop of the channel. */
+    private EventLoopGroup eventLoopGroup;
+
+    /* The serial channel, which writes to the fake port. */
+    private Channel channel;
+
+    /* The number of writes to the fake port. */
+    private final AtomicLong portWrites = new AtomicLong();
+
+    /* The messages of a burst. */
+    private AbstractMessage[] messages;
+
+
+    /**
+     * The counters of the writes to the port.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        /* The number of writes to the port. */
+        public long portWrites;
+
+        /* The number of sent messages. */
+        public long messages;
+
+    }
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // A fake port, which accepts all bytes (stub only, the invocations are not recorded):
+        SerialPort serialPort = mock(SerialPort.class, withSettings().stubOnly());
+        when(serialPort.openPort()).thenReturn(true);
+        when(serialPort.addDataListener(any())).thenReturn(true);
+        when(serialPort.writeBytes(any(byte[].class), anyInt())).thenAnswer(invocation -> {
+            portWrites.incrementAndGet();
+            return invocation.getArgument(1);
+        });
+        when(serialPort.writeBytes(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+            portWrites.incrementAndGet();
+            return invocation.getArgument(1);
+        });
+
+        eventLoopGroup = new MultiThreadIoEventLoopGroup(1, NioIoHandler.newFactory());
+        channel = new Bootstrap()
+                .group(eventLoopGroup)
+                .channelFactory(() -> new SerialChannel(portName -> serialPort))
+                .handler(new MessageFrameEncoder(new MessageParser()))
+                .connect(new SerialDeviceAddress("fake")).syncUninterruptibly().channel();
+
+        messages = new AbstractMessage[burstSize];
+        for (int i = 0; i < burstSize; i++)
+            messages[i] = new ConfigureWorkoutMessage(ADD_INTERVAL_WORKOUT, 500 + i, METERS, 60);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.close().syncUninterruptibly();
+        eventLoopGroup.shutdownGracefully(0, 1, SECONDS).syncUninterruptibly();
+    }
+
+
+    @Benchmark
+    public void sendBurst(Counters counters) {
+        ChannelFuture lastWrite = null;
+        if ("coalesced".equals(mode)) {
+            for (AbstractMessage msg : messages)
+                lastWrite = channel.write(msg);
+            channel.flush();
+        } else {
+            for (AbstractMessage msg : messages)
+                lastWrite = channel.writeAndFlush(msg);
+        }
+        lastWrite.syncUninterruptibly();
+
+        counters.portWrites += portWrites.getAndSet(0);
+        counters.messages += burstSize;
+    }
+
+}
@@ -0,0 +1,121 @@
+package de.tbressler.waterrower.subscriptions;
+
+import de.tbressler.waterrower.io.ChannelInitializer;
+import de.tbressler.waterrower.io.CommunicationService;
+import de.tbressler.waterrower.io.IConnectionListener;
+import de.tbressler.waterrower.io.WaterRowerConnector;
+import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.io.msg.in.StrokeMessage;
+import de.tbressler.waterrower.model.MemoryLocation;
+import de.tbressler.waterrower.model.StrokeType;
+import io.netty.bootstrap.Bootstrap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static de.tbressler.waterrower.io.msg.Memory.SINGLE_MEMORY;
+import static de.tbressler.waterrower.subscriptions.Priority.HIGH;
+import static java.time.Duration.ofHours;
+
+/**
+ * Benchmark for the fan-out of received messages to the subscriptions of the
+ * SubscriptionPollingService.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionDispatchBenchmark {
+
+    /* The number of subscriptions. */
+    @Param({"1", "10", "100"})
+    public int numberOfSubscriptions;
+
+
+    /* The executor service of the polling service. */
+    private ScheduledExecutorService executorService;
+
+    /* The listener of the polling service, which receives the messages. */
+    private IConnectionListener listener;
+
+    /* A received memory message. */
+    private AbstractMessage dataMemoryMessage;
+
+    /* A received stroke message. */
+    private AbstractMessage strokeMessage;
+
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        executorService = Executors.newSingleThreadScheduledExecutor();
+
+        ListenerCapturingConnector connector = new ListenerCapturingConnector(executorService);
+
+        // The polling task is never executed during the benchmark.
+        SubscriptionPollingService pollingService = new SubscriptionPollingService(connector, executorService, ofHours(1));
+        listener = connector.listener;
+
+        MemoryLocation[] locations = MemoryLocation.values();
+        for (int i = 0; i < numberOfSubscriptions; i++)
+            pollingService.subscribe(newMemorySubscription(locations[i % locations.length], blackhole));
+
+        pollingService.start();
+
+        dataMemoryMessage = new DataMemoryMessage(locations[0].getLocation(), 0x01);
+        strokeMessage = new StrokeMessage(StrokeType.START_OF_STROKE);
+    }
+
+    /* Returns a subscription for the memory location. */
+    private static AbstractMemorySubscription newMemorySubscription(MemoryLocation location, Blackhole blackhole) {
+        return new AbstractMemorySubscription(HIGH, SINGLE_MEMORY, location) {
+            @Override
+            protected void handle(DataMemoryMessage msg) {
+                blackhole.consume(msg);
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+
+    @Benchmark
+    public void dispatchDataMemoryMessage() {
+        listener.onMessageReceived(dataMemoryMessage);
+    }
+
+    @Benchmark
+    public void dispatchStrokeMessage() {
+        listener.onMessageReceived(strokeMessage);
+    }
+
+
+    /* A connector, which keeps the listener of the polling service instead of registering it. */
+    private static class ListenerCapturingConnector extends WaterRowerConnector {
+
+        /* The listener of the polling service. */
+        private IConnectionListener listener;
+
+        private ListenerCapturingConnector(ScheduledExecutorService executorService) {
+            super(new CommunicationService(new Bootstrap(), new ChannelInitializer()), executorService);
+        }
+
+        @Override
+        public void addConnectionListener(IConnectionListener listener) {
+            this.listener = listener;
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package de.tbressler.waterrower.subscriptions;
+
+import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.model.MiscFlags;
+import de.tbressler.waterrower.subscriptions.flags.MiscFlagsSubscription;
+import de.tbressler.waterrower.subscriptions.values.DisplayedDurationSubscription;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static de.tbressler.waterrower.model.MemoryLocation.DISPLAY_SEC;
+import static de.tbressler.waterrower.model.MemoryLocation.FMISC_FLAGS;
+
+/**
+ * Benchmark for the updates of the value subscriptions with object callbacks (Duration,
+ * MiscFlags) and with primitive callbacks (tenths of seconds, flags as byte). Run with
+ * "-prof gc" to compare the allocations per update.
+ *
+ * The messages alternate, so that every message is an update.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueSubscriptionBenchmark {
+
+    /* The received duration messages. */
+    private final AbstractMessage[] durationMessages = {
+            new DataMemoryMessage(DISPLAY_SEC.getLocation(), 0x01, 0x23, 0x45),
+            new DataMemoryMessage(DISPLAY_SEC.getLocation(), 0x01, 0x23, 0x46)
+    };
+
+    /* The received flag messages. */
+    private final AbstractMessage[] flagMessages = {
+            new DataMemoryMessage(FMISC_FLAGS.getLocation(), 0x09),
+            new DataMemoryMessage(FMISC_FLAGS.getLocation(), 0x0A)
+    };
+
+    /* The index of the next message. */
+    private int next;
+
+
+    private ISubscription durationObject;
+    private ISubscription durationPrimitive;
+    private ISubscription flagsObject;
+    private ISubscription flagsPrimitive;
+
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        durationObject = new DisplayedDurationSubscription() {
+            @Override
+            protected void onDurationUpdated(Duration duration) {
+                blackhole.consume(duration);
+            }
+        };
+        durationPrimitive = new DisplayedDurationSubscription() {
+            @Override
+            protected void onDurationUpdated(long tenthsOfSeconds) {
+                blackhole.consume(tenthsOfSeconds);
+            }
+            @Override
+            protected void onDurationUpdated(Duration duration) {
+                // Not called, the duration is passed in tenths of seconds.
+            }
+        };
+        flagsObject = new MiscFlagsSubscription() {
+            @Override
+            protected void onMiscFlagsUpdated(MiscFlags flags) {
+                blackhole.consume(flags.isZoneRest());
+            }
+        };
+        flagsPrimitive = new MiscFlagsSubscription() {
+            @Override
+            protected void onMiscFlagsUpdated(int flags) {
+                blackhole.consume(MiscFlags.isZoneRest(flags));
+            }
+            @Override
+            protected void onMiscFlagsUpdated(MiscFlags flags) {
+                // Not called, the flags are passed as byte.
+            }
+        };
+    }
+
+
+    @Benchmark
+    public void durationWithDuration() {
+        durationObject.handle(durationMessages[next ^= 1]);
+    }
+
+    @Benchmark
+    public void durationWithTenthsOfSeconds() {
+        durationPrimitive.handle(durationMessages[next ^= 1]);
+    }
+
+    @Benchmark
+    public void flagsWithMiscFlags() {
+        flagsObject.handle(flagMessages[next ^= 1]);
+    }
+
+    @Benchmark
+    public void flagsWithByte() {
+        flagsPrimitive.handle(flagMessages[next ^= 1]);
+    }
+
+}
@@ -0,0 +1,72 @@
+package de.tbressler.waterrower.utils;
+
+import de.tbressler.waterrower.io.utils.ByteUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.buffer.Unpooled.unreleasableBuffer;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Benchmarks for the conversion between ACH values and integers.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageUtilsBenchmark {
+
+    /* The ACH value. */
+    @Param({"0A", "1E1", "FFFF"})
+    public String ach;
+
+
+    /* The integer value of the ACH value. */
+    private int value;
+
+    /* The buffer with the ACH value. */
+    private ByteBuf buffer;
+
+    /* The buffer, to which the ACH value is written. */
+    private ByteBuf out;
+
+
+    @Setup
+    public void setUp() {
+        value = Integer.parseInt(ach, 16);
+        buffer = unreleasableBuffer(wrappedBuffer(ach.getBytes(US_ASCII)));
+        out = unreleasableBuffer(Unpooled.buffer(8));
+    }
+
+
+    @Benchmark
+    public int achToInt() {
+        return MessageUtils.achToInt(ach);
+    }
+
+    @Benchmark
+    public int achToIntFromBuffer() {
+        return ByteUtils.achToInt(buffer, 0, ach.length());
+    }
+
+    @Benchmark
+    public String intToAch() {
+        return MessageUtils.intToAch(value, ach.length());
+    }
+
+    @Benchmark
+    public ByteBuf writeAch() {
+        ByteUtils.writeAch(out.clear(), value, ach.length());
+        return out;
+    }
+
+}
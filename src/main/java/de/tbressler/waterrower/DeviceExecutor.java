@@ -0,0 +1,274 @@
+package de.tbressler.waterrower;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.util.concurrent.MoreExecutors.newSequentialExecutor;
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * The scheduled executor service of a single device, which is backed by the shared timer and
+ * workers of a WaterRowerRuntime.
+ *
+ * The timer only hands over the due tasks, the tasks are executed by the workers. The tasks of
+ * a device are executed one after another (like a single threaded executor), but the tasks of
+ * different devices are executed in parallel. Therefore a device, which blocks its tasks, doesn't
+ * delay the tasks of the other devices.
+ *
+ * Shutting down the executor cancels all delayed tasks of the device. The shared timer and workers
+ * are not affected.
+ *
+ * The executor is held by the registry of the runtime only while it is in use. Releasing the
+ * executor (e.g. when the device is disconnected) cancels its delayed tasks and removes it from
+ * the registry, so that the runtime doesn't hold the executors of removed devices. The executor
+ * can still be used afterwards (e.g. when the device is connected again), it is added to the
+ * registry again with the next task.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+class DeviceExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+
+    /* The shared timer, which hands over the delayed tasks. */
+    private final ScheduledExecutorService timer;
+
+    /* Executes the tasks of this device one after another on the shared workers. */
+    private final Executor sequentialExecutor;
+
+    /* The registry of the runtime, which holds the executors in use. */
+    private final Set<DeviceExecutor> registry;
+
+    /* True if the executor is in the registry of the runtime. */
+    private final AtomicBoolean isRegistered = new AtomicBoolean();
+
+    /* The delayed tasks, which were not handed over yet. */
+    private final Set<DelayedTask<?>> delayedTasks = ConcurrentHashMap.newKeySet();
+
+    /* The number of tasks, which were handed over but not executed yet. */
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    /* Released when the executor is shut down and all tasks were executed. */
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    /* True if the executor is shut down. */
+    private volatile boolean isShutdown;
+
+
+    /**
+     * The scheduled executor service of a single device.
+     *
+     * @param timer The shared timer, must not be null.
+     * @param workers The shared workers, must not be null.
+     * @param registry The registry of the runtime, which holds the executors in use. Must not be
+     *                 null.
+     */
+    DeviceExecutor(ScheduledExecutorService timer, Executor workers, Set<DeviceExecutor> registry) {
+        this.timer = requireNonNull(timer);
+        this.sequentialExecutor = newSequentialExecutor(requireNonNull(workers));
+        this.registry = requireNonNull(registry);
+    }
+
+
+    /**
+     * Adds the executor to the registry of the runtime, if it is not already registered.
+     */
+    void register() {
+        if (isRegistered.compareAndSet(false, true))
+            registry.add(this);
+    }
+
+    /**
+     * Returns true if the executor belongs to the given registry.
+     *
+     * @param registry The registry of a runtime.
+     * @return True if the executor belongs to the registry.
+     */
+    boolean isOwnedBy(Set<DeviceExecutor> registry) {
+        return this.registry == registry;
+    }
+
+    /**
+     * Cancels the delayed tasks of the device and removes the executor from the registry of the
+     * runtime. The executor is not shut down and is registered again with the next task.
+     */
+    void release() {
+        if (isRegistered.compareAndSet(true, false))
+            registry.remove(this);
+        for (DelayedTask<?> task : delayedTasks)
+            task.cancel(false);
+    }
+
+
+    @Override
+    public void execute(Runnable command) {
+        requireNonNull(command);
+        if (isShutdown)
+            throw new RejectedExecutionException("The executor of the device is shut down!");
+
+        register();
+        activeTasks.incrementAndGet();
+        try {
+            sequentialExecutor.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    taskDone();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            taskDone();
+            throw e;
+        }
+    }
+
+    /* Called when a handed over task is done. */
+    private void taskDone() {
+        if ((activeTasks.decrementAndGet() == 0) && isShutdown)
+            terminated.countDown();
+    }
+
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        requireNonNull(command);
+        return schedule(new DelayedTask<>(Executors.callable(command, null), 0, false), delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        requireNonNull(callable);
+        return schedule(new DelayedTask<>(callable, 0, false), delay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        requireNonNull(command);
+        if (period <= 0)
+            throw new IllegalArgumentException("The period must be greater than 0!");
+        return schedule(new DelayedTask<>(Executors.callable(command, null), unit.toNanos(period), true), initialDelay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        requireNonNull(command);
+        if (delay <= 0)
+            throw new IllegalArgumentException("The delay must be greater than 0!");
+        return schedule(new DelayedTask<>(Executors.callable(command, null), unit.toNanos(delay), false), initialDelay, unit);
+    }
+
+    /* Schedules the delayed task at the shared timer. */
+    private <V> DelayedTask<V> schedule(DelayedTask<V> task, long delay, TimeUnit unit) {
+        if (isShutdown)
+            throw new RejectedExecutionException("The executor of the device is shut down!");
+        register();
+        task.time = System.nanoTime() + unit.toNanos(delay);
+        task.scheduleAtTimer();
+        return task;
+    }
+
+
+    @Override
+    public void shutdown() {
+        isShutdown = true;
+        for (DelayedTask<?> task : delayedTasks)
+            task.cancel(false);
+        if (activeTasks.get() == 0)
+            terminated.countDown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        return emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return isShutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+
+    /* A delayed or periodic task of the device. */
+    private final class DelayedTask<V> extends FutureTask<V> implements ScheduledFuture<V> {
+
+        /* The period in ns, 0 if the task is executed only once. */
+        private final long period;
+
+        /* True if the task is executed at a fixed rate, otherwise with a fixed delay. */
+        private final boolean fixedRate;
+
+        /* The time (System.nanoTime) when the task is due. */
+        private volatile long time;
+
+        /* The future of the shared timer, which hands over the task. */
+        private volatile Future<?> timerFuture;
+
+        DelayedTask(Callable<V> callable, long period, boolean fixedRate) {
+            super(callable);
+            this.period = period;
+            this.fixedRate = fixedRate;
+        }
+
+        /* Hands over the task to the sequential executor when it is due. */
+        void scheduleAtTimer() {
+            delayedTasks.add(this);
+            timerFuture = timer.schedule(() -> {
+                delayedTasks.remove(this);
+                if (isShutdown || isDone())
+                    return;
+                try {
+                    execute(this);
+                } catch (RejectedExecutionException e) {
+                    cancel(false);
+                }
+            }, time - System.nanoTime(), NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            if (period == 0) {
+                super.run();
+            } else if (runAndReset() && !isShutdown) {
+                time = fixedRate ? (time + period) : (System.nanoTime() + period);
+                scheduleAtTimer();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            Future<?> future = timerFuture;
+            if (cancelled && (future != null))
+                future.cancel(false);
+            delayedTasks.remove(this);
+            return cancelled;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(NANOSECONDS), other.getDelay(NANOSECONDS));
+        }
+
+    }
+
+}
@@ -1,5 +1,6 @@
 package de.tbressler.waterrower;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.tbressler.waterrower.io.ConnectionListener;
 import de.tbressler.waterrower.io.IConnectionListener;
 import de.tbressler.waterrower.io.WaterRowerConnector;
@@ -8,12 +9,15 @@ import de.tbressler.waterrower.io.msg.in.ErrorMessage;
 import de.tbressler.waterrower.io.msg.in.HardwareTypeMessage;
 import de.tbressler.waterrower.io.msg.in.ModelInformationMessage;
 import de.tbressler.waterrower.io.msg.out.*;
+import de.tbressler.waterrower.io.replay.SessionRecorder;
+import de.tbressler.waterrower.io.trace.WireTrace;
 import de.tbressler.waterrower.io.transport.SerialDeviceAddress;
 import de.tbressler.waterrower.log.Log;
 import de.tbressler.waterrower.model.ErrorCode;
 import de.tbressler.waterrower.model.ModelInformation;
 import de.tbressler.waterrower.subscriptions.ISubscription;
 import de.tbressler.waterrower.subscriptions.ISubscriptionPollingService;
+import de.tbressler.waterrower.subscriptions.metrics.PollingMetrics;
 import de.tbressler.waterrower.watchdog.DeviceVerificationWatchdog;
 import de.tbressler.waterrower.watchdog.ITimeoutListener;
 import de.tbressler.waterrower.watchdog.PingWatchdog;
@@ -22,16 +26,23 @@ import de.tbressler.waterrower.workout.WorkoutInterval;
 import de.tbressler.waterrower.workout.WorkoutUnit;
 
 import java.io.IOException;
+import java.io.Writer;
+import java.net.SocketAddress;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static de.tbressler.waterrower.io.msg.out.ConfigureWorkoutMessage.MessageType.*;
 import static de.tbressler.waterrower.model.ErrorCode.*;
 import static de.tbressler.waterrower.utils.Compatibility.isSupportedWaterRower;
 import static de.tbressler.waterrower.watchdog.TimeoutReason.DEVICE_NOT_CONFIRMED_TIMEOUT;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 
 /**
  * The entry point of the WaterRower library.
@@ -44,6 +55,18 @@ import static java.util.Objects.requireNonNull;
  */
 public class WaterRower {
 
+    /* The minimal interval between two dumps of the wire trace on errors. */
+    private static final long DUMP_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    /* Writes the dumps of the wire trace on errors, shared by all WaterRower instances. */
+    private static final Executor DUMP_EXECUTOR = newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("waterrower-wire-trace-dump")
+            .setDaemon(true)
+            .build());
+
+    /* The sequence number of the dumps, which makes the file names of the dumps unique. */
+    private static final AtomicLong DUMP_SEQUENCE = new AtomicLong();
+
     /* Handles the connection to the WaterRower. */
     private final WaterRowerConnector connector;
 
@@ -57,6 +80,24 @@ public class WaterRower {
      * compatibility with the library. */
     private final DeviceVerificationWatchdog deviceVerificationWatchdog;
 
+    /* Records the raw frames of the serial connection. */
+    private final WireTrace wireTrace;
+
+    /* Records the received frames of a session. */
+    private final SessionRecorder sessionRecorder;
+
+    /* Releases the threads of the WaterRower, when the WaterRower is disconnected. */
+    private final Runnable releaseTask;
+
+    /* The directory for the dumps of the wire trace on errors (or null). */
+    private volatile Path wireTraceDumpDirectory;
+
+    /* Writes the dumps of the wire trace on errors. */
+    private final Executor dumpExecutor;
+
+    /* The earliest time (System.nanoTime()) of the next dump of the wire trace on errors. */
+    private final AtomicLong nextDumpTime = new AtomicLong(System.nanoTime());
+
     /* All listeners. */
     private final List<IWaterRowerConnectionListener> listeners = new CopyOnWriteArrayList<>();
 
@@ -121,7 +162,38 @@ public class WaterRower {
         this(initializer.getWaterRowerConnector(),
                 initializer.getPingWatchdog(),
                 initializer.getDeviceVerificationWatchdog(),
-                initializer.getSubscriptionPollingService());
+                initializer.getSubscriptionPollingService(),
+                initializer.getWireTrace(),
+                initializer.getSessionRecorder(),
+                initializer.getReleaseTask());
+    }
+
+    /**
+     * The entry point of the WaterRower library.
+     *
+     * This class connects with the WaterRower and exchanges the information between PC and
+     * WaterRower monitor.
+     *
+     * @param connector The connector to the WaterRower, must not be null.
+     * @param pingWatchdog The watchdog that checks if a ping is received periodically, must not
+     *                     be null.
+     * @param deviceVerificationWatchdog The watchdog that checks if the device sends it's model
+     *                                   information in order to verify compatibility with the
+     *                                   library. Must not be null.
+     * @param subscriptionPollingService The subscription polling service, which polls and
+     *                                   handles the subscriptions. Must not be null.
+     * @param wireTrace The wire trace, which records the raw frames of the serial connection.
+     *                  Must not be null.
+     * @param sessionRecorder The recorder, which records the received frames of a session. Must
+     *                        not be null.
+     */
+    WaterRower(WaterRowerConnector connector,
+                  PingWatchdog pingWatchdog,
+                  DeviceVerificationWatchdog deviceVerificationWatchdog,
+                  ISubscriptionPollingService subscriptionPollingService,
+                  WireTrace wireTrace,
+                  SessionRecorder sessionRecorder) {
+        this(connector, pingWatchdog, deviceVerificationWatchdog, subscriptionPollingService, wireTrace, sessionRecorder, () -> {});
     }
 
     /**
@@ -138,11 +210,54 @@ public class WaterRower {
      *                                   library. Must not be null.
      * @param subscriptionPollingService The subscription polling service, which polls and
      *                                   handles the subscriptions. Must not be null.
+     * @param wireTrace The wire trace, which records the raw frames of the serial connection.
+     *                  Must not be null.
+     * @param sessionRecorder The recorder, which records the received frames of a session. Must
+     *                        not be null.
+     * @param releaseTask The task, which releases the threads of the WaterRower, when the
+     *                    WaterRower is disconnected. Must not be null.
      */
     WaterRower(WaterRowerConnector connector,
                   PingWatchdog pingWatchdog,
                   DeviceVerificationWatchdog deviceVerificationWatchdog,
-                  ISubscriptionPollingService subscriptionPollingService) {
+                  ISubscriptionPollingService subscriptionPollingService,
+                  WireTrace wireTrace,
+                  SessionRecorder sessionRecorder,
+                  Runnable releaseTask) {
+        this(connector, pingWatchdog, deviceVerificationWatchdog, subscriptionPollingService, wireTrace, sessionRecorder, releaseTask, DUMP_EXECUTOR);
+    }
+
+    /**
+     * The entry point of the WaterRower library.
+     *
+     * This class connects with the WaterRower and exchanges the information between PC and
+     * WaterRower monitor.
+     *
+     * @param connector The connector to the WaterRower, must not be null.
+     * @param pingWatchdog The watchdog that checks if a ping is received periodically, must not
+     *                     be null.
+     * @param deviceVerificationWatchdog The watchdog that checks if the device sends it's model
+     *                                   information in order to verify compatibility with the
+     *                                   library. Must not be null.
+     * @param subscriptionPollingService The subscription polling service, which polls and
+     *                                   handles the subscriptions. Must not be null.
+     * @param wireTrace The wire trace, which records the raw frames of the serial connection.
+     *                  Must not be null.
+     * @param sessionRecorder The recorder, which records the received frames of a session. Must
+     *                        not be null.
+     * @param releaseTask The task, which releases the threads of the WaterRower, when the
+     *                    WaterRower is disconnected. Must not be null.
+     * @param dumpExecutor The executor, which writes the dumps of the wire trace on errors. Must
+     *                     not be null.
+     */
+    WaterRower(WaterRowerConnector connector,
+                  PingWatchdog pingWatchdog,
+                  DeviceVerificationWatchdog deviceVerificationWatchdog,
+                  ISubscriptionPollingService subscriptionPollingService,
+                  WireTrace wireTrace,
+                  SessionRecorder sessionRecorder,
+                  Runnable releaseTask,
+                  Executor dumpExecutor) {
 
         this.connector = requireNonNull(connector);
         this.connector.addConnectionListener(connectionListener);
@@ -154,17 +269,24 @@ public class WaterRower {
         this.deviceVerificationWatchdog.setTimeoutListener(timeoutListener);
 
         this.subscriptionPollingService = requireNonNull(subscriptionPollingService);
+
+        this.wireTrace = requireNonNull(wireTrace);
+        this.sessionRecorder = requireNonNull(sessionRecorder);
+        this.releaseTask = requireNonNull(releaseTask);
+        this.dumpExecutor = requireNonNull(dumpExecutor);
     }
 
 
     /**
      * Connect to the rowing computer.
      *
-     * @param address The serial port, must not be null.
+     * @param address The address of the WaterRower, must not be null. Usually the serial port
+     *                (see SerialDeviceAddress), the type of the address must match the transport
+     *                of the WaterRowerInitializer.
      *
      * @throws IOException If connect fails.
      */
-    public void connect(SerialDeviceAddress address) throws IOException {
+    public void connect(SocketAddress address) throws IOException {
         Log.debug("Connecting...");
 
         if (connector.isConnected())
@@ -173,6 +295,17 @@ public class WaterRower {
         connector.connect(requireNonNull(address));
     }
 
+    /**
+     * Connect to the rowing computer with the given serial port.
+     *
+     * @param address The serial port, must not be null.
+     *
+     * @throws IOException If connect fails.
+     */
+    public void connect(SerialDeviceAddress address) throws IOException {
+        connect((SocketAddress) address);
+    }
+
 
     /* Handles the task after a successful connect. */
     private void handleOnConnect() {
@@ -227,8 +360,7 @@ public class WaterRower {
 
             ModelInformation modelInformation = ((ModelInformationMessage) msg).getModelInformation();
 
-            Log.debug("Received model information from connected WaterRower:\n" +
-                    " Model: " + modelInformation);
+            Log.debug("Received model information from connected WaterRower:\n Model: {}", modelInformation);
 
             if (isSupportedWaterRower(modelInformation)) {
 
@@ -288,22 +420,18 @@ public class WaterRower {
 
         stopInternalServices();
 
-        // Be polite and send a goodbye.
-        sendExitCommunicationMessage();
-
-        // Disconnect.
-        connector.disconnect();
-    }
-
-    /* Send ExitCommunicationMessage. */
-    private void sendExitCommunicationMessage() {
         try {
-            if (isConnected())
-                connector.send(new ExitCommunicationMessage());
-        } catch (IOException e) {
-            // If the message can not be send, ignore the error. Maybe the connection is already lost and
-            // a "goodbye" can not be send anymore.
-            Log.warn("Couldn't send exit communication message! " + e.getMessage());
+            if (isConnected()) {
+                // Be polite and send a goodbye. The goodbye is written directly before the channel
+                // is closed, because this method may be called by the executor of the send task
+                // (e.g. by a watchdog) and must not wait for it.
+                connector.disconnect(new ExitCommunicationMessage());
+            } else {
+                connector.disconnect();
+            }
+        } finally {
+            // Release the threads (e.g. the executor of the device in a shared runtime).
+            releaseTask.run();
         }
     }
 
@@ -410,7 +538,7 @@ public class WaterRower {
             restInterval = (i == 0) ? -1 : interval.getRestInterval();
             unit = interval.getUnit();
 
-            Log.debug("Sending interval: " + interval);
+            Log.debug("Sending interval: {}", interval);
             messages.add(new ConfigureWorkoutMessage((i == 0) ? START_INTERVAL_WORKOUT : ADD_INTERVAL_WORKOUT, distance, unit, restInterval));
 
             // If this is the last interval, send the end interval message.
@@ -454,6 +582,93 @@ public class WaterRower {
         subscriptionPollingService.unsubscribe(requireNonNull(subscription));
     }
 
+    /**
+     * Returns the metrics of the subscription polling, e.g. the latencies and the answered polls
+     * per memory location and per priority. The metrics can be exported with an IMetricsExporter.
+     *
+     * @return The metrics, never null.
+     */
+    public PollingMetrics getPollingMetrics() {
+        return subscriptionPollingService.getMetrics();
+    }
+
+
+    /**
+     * Dumps the raw frames of the serial connection, which were recorded by the wire trace, to a
+     * memory-mapped file. The dump can be converted to the JSON-lines format of the simulation
+     * data with the WireTraceConverter.
+     *
+     * @param file The file of the dump, must not be null. An existing file is overwritten.
+     * @return The number of frames in the dump.
+     *
+     * @throws IOException If the dump couldn't be written.
+     */
+    public int dumpWireTrace(Path file) throws IOException {
+        return wireTrace.dump(requireNonNull(file));
+    }
+
+    /**
+     * Starts the recording of the received frames. The frames are written in the JSON-lines format
+     * of the simulation data and can be replayed with the ReplayChannel (see
+     * WaterRowerInitializer).
+     *
+     * @param out The writer of the recording, must not be null. The writer is not closed by the
+     *            WaterRower.
+     */
+    public void startRecording(Writer out) {
+        sessionRecorder.start(requireNonNull(out));
+    }
+
+    /**
+     * Stops the recording of the received frames and flushes the writer of the recording.
+     *
+     * @throws IOException If the writer couldn't be flushed.
+     */
+    public void stopRecording() throws IOException {
+        sessionRecorder.stop();
+    }
+
+    /**
+     * Sets the directory for the dumps of the wire trace. If set, the wire trace is dumped to a
+     * new file in this directory, when an error occurred. The dump is written by a background
+     * thread, so that the listeners are not delayed. At most one dump is written every 10
+     * seconds, further errors within this interval don't create a dump, because the frames
+     * before these errors are contained in the first dump (as long as they fit into the wire
+     * trace).
+     *
+     * @param directory The directory of the dumps or null, if the wire trace should not be dumped
+     *                  on errors.
+     */
+    public void setWireTraceDumpDirectory(Path directory) {
+        this.wireTraceDumpDirectory = directory;
+    }
+
+    /* Dumps the wire trace to the dump directory in the background, if it is set and no dump
+       was started during the dump interval. */
+    private void dumpWireTraceOnError(ErrorCode errorCode) {
+        Path directory = wireTraceDumpDirectory;
+        if (directory == null)
+            return;
+
+        long now = System.nanoTime();
+        long next = nextDumpTime.get();
+        if ((now - next < 0) || !nextDumpTime.compareAndSet(next, now + DUMP_INTERVAL)) {
+            Log.debug("Wire trace was dumped recently, skipping dump on error '{}'.", errorCode);
+            return;
+        }
+
+        Path file = directory.resolve("wire-trace-" + System.currentTimeMillis() + "-" + DUMP_SEQUENCE.incrementAndGet()
+                + "-" + errorCode.name().toLowerCase() + ".bin");
+        dumpExecutor.execute(() -> {
+            try {
+                wireTrace.dump(file);
+                Log.info("Wire trace dumped to: {}", file);
+            } catch (IOException e) {
+                Log.error("Couldn't dump the wire trace to: " + file, e);
+            }
+        });
+    }
+
 
     /**
      * Adds the listener.
@@ -466,6 +681,7 @@ public class WaterRower {
 
     /* Notifies listeners when an error occurred. */
     private void fireOnError(ErrorCode errorCode) {
+        dumpWireTraceOnError(errorCode);
         for(IWaterRowerConnectionListener listener : listeners)
             listener.onError(errorCode);
     }
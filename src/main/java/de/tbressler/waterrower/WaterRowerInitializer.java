@@ -3,17 +3,24 @@ package de.tbressler.waterrower;
 import de.tbressler.waterrower.io.ChannelInitializer;
 import de.tbressler.waterrower.io.CommunicationService;
 import de.tbressler.waterrower.io.WaterRowerConnector;
+import de.tbressler.waterrower.io.replay.SessionRecorder;
+import de.tbressler.waterrower.io.trace.WireTrace;
+import de.tbressler.waterrower.io.transport.SerialChannel;
 import de.tbressler.waterrower.subscriptions.ISubscriptionPollingService;
 import de.tbressler.waterrower.subscriptions.SubscriptionPollingService;
 import de.tbressler.waterrower.watchdog.DeviceVerificationWatchdog;
 import de.tbressler.waterrower.watchdog.PingWatchdog;
 import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFactory;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.nio.NioIoHandler;
 
 import java.time.Duration;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
 
 /**
  * Initializes the dependencies of the WaterRower class based on the given parameters.
@@ -36,6 +43,15 @@ public class WaterRowerInitializer {
      * compatibility with the library. */
     private final DeviceVerificationWatchdog deviceVerificationWatchdog;
 
+    /* Records the raw frames of the serial connection. */
+    private final WireTrace wireTrace;
+
+    /* Records the received frames of a session. */
+    private final SessionRecorder sessionRecorder;
+
+    /* Releases the threads of the WaterRower, when the WaterRower is disconnected. */
+    private final Runnable releaseTask;
+
 
     /**
      * Initializes the dependencies of the WaterRower class based on the given parameters.
@@ -54,7 +70,7 @@ public class WaterRowerInitializer {
     /**
      * Initializes the dependencies of the WaterRower class based on the given parameters.
      *
-     * @param messageInterval The interval between the polling messages.
+     * @param messageInterval The interval to check for due polling messages, if no message was due.
      *                        Recommended = 200 ms.
      * @param timeoutInterval The timeout interval for messages, if a message was not received from the WaterRower
      *                        during this interval a timeout error will get fired, must not be null.
@@ -64,15 +80,117 @@ public class WaterRowerInitializer {
      *                       Recommended = 5.
      */
     public WaterRowerInitializer(Duration messageInterval, Duration timeoutInterval, int threadPoolSize) {
-        requireNonNull(timeoutInterval);
+        this(messageInterval, timeoutInterval, threadPoolSize, SerialChannel::new);
+    }
+
+    /**
+     * Initializes the dependencies of the WaterRower class based on the given parameters. The
+     * WaterRower is connected with the given transport instead of a serial port, e.g. with a
+     * replay of a recorded session (see ReplayChannel).
+     *
+     * @param messageInterval The interval to check for due polling messages, if no message was due.
+     *                        Recommended = 200 ms.
+     * @param timeoutInterval The timeout interval for messages, if a message was not received from the WaterRower
+     *                        during this interval a timeout error will get fired, must not be null.
+     *                        Recommended = 5 second.
+     * @param threadPoolSize The number of threads to keep in the pool, which should be used by the WaterRower
+     *                       service even if they are idle.
+     *                       Recommended = 5.
+     * @param channelFactory The factory for the channels of the transport (e.g. ReplayChannel::new). The
+     *                       channels must be compatible with a single threaded event loop (e.g.
+     *                       SerialChannel, TcpChannel). Must not be null.
+     */
+    public WaterRowerInitializer(Duration messageInterval, Duration timeoutInterval, int threadPoolSize,
+                                 ChannelFactory<? extends Channel> channelFactory) {
+        this(new ChannelInitializer(), requireNonNull(channelFactory), newScheduledThreadPool(checkThreadPoolSize(threadPoolSize)),
+                messageInterval, requireNonNull(timeoutInterval));
+    }
+
+    /* Creates the dependencies with the given channel initializer and executor service. */
+    private WaterRowerInitializer(ChannelInitializer channelInitializer, ChannelFactory<? extends Channel> channelFactory,
+                                  ScheduledExecutorService executorService, Duration messageInterval, Duration timeoutInterval) {
+        this(new CommunicationService(new Bootstrap(), channelInitializer, new MultiThreadIoEventLoopGroup(1, NioIoHandler.newFactory()), Runnable::run, channelFactory),
+                channelInitializer, executorService, messageInterval, timeoutInterval, () -> {});
+    }
+
+    /* Returns the given number of threads, if it is at least 1. */
+    private static int checkThreadPoolSize(int threadPoolSize) {
         if (threadPoolSize < 1)
             throw new IllegalArgumentException("The number of threads must be at least 1!");
+        return threadPoolSize;
+    }
+
+    /**
+     * Initializes the dependencies of the WaterRower class based on the given parameters. The
+     * WaterRower uses the threads of the given runtime, which can be shared by many WaterRower
+     * instances.
+     *
+     * @param runtime The runtime, must not be null.
+     * @param timeoutInterval The timeout interval for messages, if a message was not received from the WaterRower
+     *                        during this interval a timeout error will get fired, must not be null.
+     *                        Recommended = 5 second.
+     */
+    public WaterRowerInitializer(WaterRowerRuntime runtime, Duration timeoutInterval) {
+        this(runtime, Duration.ofMillis(200), timeoutInterval);
+    }
+
+    /**
+     * Initializes the dependencies of the WaterRower class based on the given parameters. The
+     * WaterRower uses the threads of the given runtime, which can be shared by many WaterRower
+     * instances. The polling, the watchdogs and the listeners of the WaterRower are executed by
+     * the workers of the runtime.
+     *
+     * @param runtime The runtime, must not be null.
+     * @param messageInterval The interval to check for due polling messages, if no message was due.
+     *                        Recommended = 200 ms.
+     * @param timeoutInterval The timeout interval for messages, if a message was not received from the WaterRower
+     *                        during this interval a timeout error will get fired, must not be null.
+     *                        Recommended = 5 second.
+     */
+    public WaterRowerInitializer(WaterRowerRuntime runtime, Duration messageInterval, Duration timeoutInterval) {
+        this(runtime, messageInterval, timeoutInterval, SerialChannel::new);
+    }
+
+    /**
+     * Initializes the dependencies of the WaterRower class based on the given parameters. The
+     * WaterRower uses the threads of the given runtime, which can be shared by many WaterRower
+     * instances. The WaterRower is connected with the given transport instead of a serial port,
+     * e.g. with a replay of a recorded session (see ReplayChannel).
+     *
+     * @param runtime The runtime, must not be null.
+     * @param messageInterval The interval to check for due polling messages, if no message was due.
+     *                        Recommended = 200 ms.
+     * @param timeoutInterval The timeout interval for messages, if a message was not received from the WaterRower
+     *                        during this interval a timeout error will get fired, must not be null.
+     *                        Recommended = 5 second.
+     * @param channelFactory The factory for the channels of the transport (e.g. ReplayChannel::new). The
+     *                       channels must be compatible with a single threaded event loop (e.g.
+     *                       SerialChannel, TcpChannel). Must not be null.
+     */
+    public WaterRowerInitializer(WaterRowerRuntime runtime, Duration messageInterval, Duration timeoutInterval,
+                                 ChannelFactory<? extends Channel> channelFactory) {
+        this(requireNonNull(runtime), new ChannelInitializer(), requireNonNull(channelFactory), runtime.newDeviceExecutor(),
+                messageInterval, requireNonNull(timeoutInterval));
+    }
 
-        Bootstrap bootstrap = new Bootstrap();
-        CommunicationService communicationService = new CommunicationService(bootstrap, new ChannelInitializer());
-        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(threadPoolSize);
+    /* Creates the dependencies with the given executor of the device. The listeners are notified
+       by the executor of the device and not by the shared event loop. The executor of the device
+       is released, when the WaterRower is disconnected. */
+    private WaterRowerInitializer(WaterRowerRuntime runtime, ChannelInitializer channelInitializer, ChannelFactory<? extends Channel> channelFactory,
+                                  ScheduledExecutorService deviceExecutor, Duration messageInterval, Duration timeoutInterval) {
+        this(new CommunicationService(new Bootstrap(), channelInitializer, runtime.getEventLoopGroup(), deviceExecutor, channelFactory,
+                        runtime.getResolverGroup()),
+                channelInitializer, deviceExecutor, messageInterval, timeoutInterval, () -> runtime.releaseDeviceExecutor(deviceExecutor));
+    }
 
-        connector = new WaterRowerConnector(communicationService);
+    /* Creates the dependencies with the given communication service and executor service. */
+    private WaterRowerInitializer(CommunicationService communicationService, ChannelInitializer channelInitializer,
+                                  ScheduledExecutorService executorService, Duration messageInterval, Duration timeoutInterval,
+                                  Runnable releaseTask) {
+        this.releaseTask = releaseTask;
+        wireTrace = channelInitializer.getWireTrace();
+        sessionRecorder = channelInitializer.getSessionRecorder();
+        connector = new WaterRowerConnector(communicationService, executorService);
         subscriptionPolling = new SubscriptionPollingService(connector, executorService, messageInterval);
         pingWatchdog = new PingWatchdog(timeoutInterval, executorService);
         deviceVerificationWatchdog = new DeviceVerificationWatchdog(timeoutInterval, executorService);
@@ -116,4 +234,32 @@ public class WaterRowerInitializer {
         return subscriptionPolling;
     }
 
+    /**
+     * Returns the wire trace, which records the raw frames of the serial connection.
+     *
+     * @return The wire trace, never null.
+     */
+    WireTrace getWireTrace() {
+        return wireTrace;
+    }
+
+    /**
+     * Returns the recorder, which records the received frames of a session.
+     *
+     * @return The session recorder, never null.
+     */
+    SessionRecorder getSessionRecorder() {
+        return sessionRecorder;
+    }
+
+    /**
+     * Returns the task, which releases the threads of the WaterRower, when the WaterRower is
+     * disconnected (e.g. the executor of the device in a WaterRowerRuntime).
+     *
+     * @return The release task, never null.
+     */
+    Runnable getReleaseTask() {
+        return releaseTask;
+    }
+
 }
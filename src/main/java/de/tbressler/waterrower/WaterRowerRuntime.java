@@ -0,0 +1,250 @@
+package de.tbressler.waterrower;
+
+import de.tbressler.waterrower.io.transport.TcpChannel;
+import de.tbressler.waterrower.log.Log;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * The runtime, which can be shared by many WaterRower instances in one JVM.
+ *
+ * The runtime owns the threads of the WaterRower instances:
+ * - One event loop group for the channels (serial, TCP, ...). The event loops are NIO event
+ *   loops, therefore the group handles the TCP channels as well.
+ * - One resolver group, which resolves the host names of the TCP bridges asynchronously.
+ * - One timer, which hands over the delayed tasks (polling, watchdogs, timeouts) of the devices.
+ * - Workers, which execute the tasks of the devices.
+ *
+ * Every device gets its own executor (see newDeviceExecutor()). The tasks of a device are
+ * executed one after another, the tasks of different devices in parallel. Therefore one slow
+ * device doesn't starve the other devices. The number of workers is bounded (by default the
+ * number of processors, at least 4), the tasks of further busy devices wait for a free worker.
+ * Idle workers are released after a minute, so the number of threads depends on the number of
+ * busy devices and not on the number of devices. The executor of a device is released, when the
+ * WaterRower is disconnected (see releaseDeviceExecutor()).
+ *
+ * The runtime must be shut down explicitly, if it is no longer needed.
+ *
+ * Example:
+ *
+ *   WaterRowerRuntime runtime = new WaterRowerRuntime();
+ *   WaterRower rower1 = new WaterRower(new WaterRowerInitializer(runtime, Duration.ofSeconds(5)));
+ *   WaterRower rower2 = new WaterRower(new WaterRowerInitializer(runtime, Duration.ofSeconds(5)));
+ *   ...
+ *   runtime.shutdown();
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class WaterRowerRuntime {
+
+    /* The time to wait for the event loop group on shutdown (in seconds). */
+    private static final long SHUTDOWN_TIMEOUT = 5;
+
+    /* The time after which idle workers are released (in seconds). */
+    private static final long WORKER_KEEP_ALIVE = 60;
+
+    /* The default maximum number of platform workers. */
+    private static final int DEFAULT_WORKER_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    /* The name prefix of the worker threads. */
+    private static final String WORKER_NAME = "waterrower-worker";
+
+
+    /* The event loop group for the channels. */
+    private final EventLoopGroup eventLoopGroup;
+
+    /* Resolves the host names of the TCP bridges on the event loops of the channels. */
+    private final AddressResolverGroup<InetSocketAddress> resolverGroup = TcpChannel.newResolverGroup();
+
+    /* The timer, which hands over the delayed tasks of the devices. */
+    private final ScheduledExecutorService timer;
+
+    /* The workers, which execute the tasks of the devices. */
+    private final ExecutorService workers;
+
+    /* The executors of the devices, which are in use (see DeviceExecutor.release()). */
+    private final Set<DeviceExecutor> deviceExecutors = ConcurrentHashMap.newKeySet();
+
+    /* True if the runtime is shut down. */
+    private volatile boolean isShutdown;
+
+
+    /**
+     * The runtime, which can be shared by many WaterRower instances in one JVM. The serial
+     * channels share one event loop thread.
+     */
+    public WaterRowerRuntime() {
+        this(1);
+    }
+
+    /**
+     * The runtime, which can be shared by many WaterRower instances in one JVM.
+     *
+     * @param eventLoopThreads The number of threads of the event loop group, which handles the
+     *                         serial channels. Must be at least 1.
+     *                         Recommended = 1.
+     */
+    public WaterRowerRuntime(int eventLoopThreads) {
+        this(eventLoopThreads, DEFAULT_WORKER_THREADS, new DefaultThreadFactory(WORKER_NAME, true));
+    }
+
+    /**
+     * The runtime, which can be shared by many WaterRower instances in one JVM.
+     *
+     * @param eventLoopThreads The number of threads of the event loop group, which handles the
+     *                         serial channels. Must be at least 1.
+     *                         Recommended = 1.
+     * @param workerThreadFactory The factory for the threads of the workers, must not be null.
+     */
+    public WaterRowerRuntime(int eventLoopThreads, ThreadFactory workerThreadFactory) {
+        this(eventLoopThreads, DEFAULT_WORKER_THREADS, workerThreadFactory);
+    }
+
+    /**
+     * The runtime, which can be shared by many WaterRower instances in one JVM.
+     *
+     * @param eventLoopThreads The number of threads of the event loop group, which handles the
+     *                         serial channels. Must be at least 1.
+     *                         Recommended = 1.
+     * @param workerThreads The maximum number of workers, which execute the tasks of the devices.
+     *                      Must be at least 1.
+     *                      Recommended = number of processors.
+     * @param workerThreadFactory The factory for the threads of the workers, must not be null.
+     */
+    public WaterRowerRuntime(int eventLoopThreads, int workerThreads, ThreadFactory workerThreadFactory) {
+        this(eventLoopThreads, newBoundedWorkers(workerThreads, requireNonNull(workerThreadFactory)));
+    }
+
+    /* Creates the runtime with the given workers. */
+    private WaterRowerRuntime(int eventLoopThreads, ExecutorService workers) {
+        if (eventLoopThreads < 1) {
+            workers.shutdown();
+            throw new IllegalArgumentException("The number of event loop threads must be at least 1!");
+        }
+
+        this.workers = workers;
+        eventLoopGroup = new MultiThreadIoEventLoopGroup(eventLoopThreads, new DefaultThreadFactory("waterrower-io", true), NioIoHandler.newFactory());
+        timer = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("waterrower-timer", true));
+    }
+
+    /* Returns the bounded workers. The tasks of further busy devices wait in the queue. Idle
+       workers are released after the keep alive time. */
+    private static ExecutorService newBoundedWorkers(int workerThreads, ThreadFactory workerThreadFactory) {
+        if (workerThreads < 1)
+            throw new IllegalArgumentException("The number of worker threads must be at least 1!");
+
+        // Every device hands over at most one task at a time, therefore the queue holds at most
+        // one task per device.
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(workerThreads, workerThreads, WORKER_KEEP_ALIVE, SECONDS,
+                new LinkedBlockingQueue<>(), workerThreadFactory);
+        workers.allowCoreThreadTimeOut(true);
+        return workers;
+    }
+
+
+    /**
+     * Returns the event loop group for the channels (serial, TCP, ...).
+     *
+     * @return The event loop group, never null.
+     */
+    public EventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    /**
+     * Returns the resolver group, which resolves the host names of the TCP bridges (see
+     * TcpDeviceAddress) on the event loops of the channels. The resolver group is closed, when the
+     * runtime is shut down.
+     *
+     * @return The resolver group, never null.
+     */
+    public AddressResolverGroup<InetSocketAddress> getResolverGroup() {
+        return resolverGroup;
+    }
+
+    /**
+     * Returns a new executor for a single device. The executor uses the shared timer and workers
+     * of this runtime. The tasks of the executor are executed one after another.
+     *
+     * @return The executor of the device, never null.
+     * @throws IllegalStateException if the runtime is already shut down.
+     */
+    public ScheduledExecutorService newDeviceExecutor() {
+        if (isShutdown)
+            throw new IllegalStateException("The runtime is already shut down!");
+
+        DeviceExecutor executor = new DeviceExecutor(timer, workers, deviceExecutors);
+        executor.register();
+        return executor;
+    }
+
+    /**
+     * Releases the executor of a device, e.g. when the WaterRower is disconnected. The delayed
+     * tasks of the device are cancelled and the runtime no longer holds the executor. The executor
+     * is not shut down and can be used again (e.g. when the WaterRower is connected again).
+     *
+     * @param executor The executor of the device (see newDeviceExecutor()), must not be null.
+     * @throws IllegalArgumentException if the executor was not created by this runtime.
+     */
+    public void releaseDeviceExecutor(ScheduledExecutorService executor) {
+        requireNonNull(executor);
+        if (!(executor instanceof DeviceExecutor) || !((DeviceExecutor) executor).isOwnedBy(deviceExecutors))
+            throw new IllegalArgumentException("The executor was not created by this runtime!");
+        ((DeviceExecutor) executor).release();
+    }
+
+    /**
+     * Returns the number of device executors, which are in use (not released).
+     *
+     * @return The number of device executors in use.
+     */
+    public int getDeviceExecutorCount() {
+        return deviceExecutors.size();
+    }
+
+
+    /**
+     * Returns true if the runtime is shut down.
+     *
+     * @return True if shut down.
+     */
+    public boolean isShutdown() {
+        return isShutdown;
+    }
+
+    /**
+     * Shuts down the executors of the devices, the timer, the workers, the resolver group and the
+     * event loop group.
+     * The WaterRower instances, which use this runtime, should be disconnected before.
+     */
+    public void shutdown() {
+        if (isShutdown)
+            return;
+        isShutdown = true;
+
+        Log.debug("Shutting down WaterRower runtime.");
+
+        deviceExecutors.forEach(DeviceExecutor::shutdown);
+        deviceExecutors.clear();
+
+        timer.shutdownNow();
+        workers.shutdown();
+
+        resolverGroup.close();
+        eventLoopGroup.shutdownGracefully(0, SHUTDOWN_TIMEOUT, SECONDS).syncUninterruptibly();
+
+        Log.debug("WaterRower runtime shut down.");
+    }
+
+}
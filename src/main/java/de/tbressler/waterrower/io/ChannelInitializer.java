@@ -1,26 +1,31 @@
 package de.tbressler.waterrower.io;
 
-import de.tbressler.waterrower.io.codec.MessageFrameDecoder;
 import de.tbressler.waterrower.io.codec.MessageFrameEncoder;
+import de.tbressler.waterrower.io.codec.MessageLineDecoder;
 import de.tbressler.waterrower.io.codec.MessageParser;
+import de.tbressler.waterrower.io.replay.SessionRecorder;
+import de.tbressler.waterrower.io.trace.WireTrace;
 import de.tbressler.waterrower.io.transport.SerialChannel;
 import de.tbressler.waterrower.io.transport.SerialChannelConfig;
 import de.tbressler.waterrower.log.Log;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelPipeline;
-import io.netty.handler.codec.DelimiterBasedFrameDecoder;
 
 import static de.tbressler.waterrower.io.transport.SerialChannelConfig.Paritybit.NONE;
 import static de.tbressler.waterrower.io.transport.SerialChannelConfig.Stopbits.STOPBITS_1;
-import static io.netty.handler.codec.Delimiters.lineDelimiter;
 import static java.util.Objects.requireNonNull;
 
 /**
  * Initializes the serial channel and sets up the pipeline for encoding and decoding the messages.
  *
+ * The pipeline can be used with other transports (e.g. a replay of a recorded session or a
+ * serial-over-TCP bridge), only serial channels are configured with the parameters of the
+ * serial port.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
-public class ChannelInitializer extends io.netty.channel.ChannelInitializer<SerialChannel> {
+public class ChannelInitializer extends io.netty.channel.ChannelInitializer<Channel> {
 
     /* Maximum length of a single frame. */
     private static final int MAX_FRAME_LENGTH = 32;
@@ -32,6 +37,12 @@ public class ChannelInitializer extends io.netty.channel.ChannelInitializer<Seri
     /* The message parser. */
     private final MessageParser parser = new MessageParser();
 
+    /* The wire trace, which records the frames of all connections. */
+    private final WireTrace wireTrace = new WireTrace();
+
+    /* The recorder, which records the received frames of a session. */
+    private final SessionRecorder sessionRecorder = new SessionRecorder();
+
 
     /**
      * Initializes the serial channel and sets up the pipeline for encoding and decoding the messages.
@@ -49,13 +60,33 @@ public class ChannelInitializer extends io.netty.channel.ChannelInitializer<Seri
     }
 
 
+    /**
+     * Returns the wire trace, which records the raw frames of the serial connection.
+     *
+     * @return The wire trace, never null.
+     */
+    public WireTrace getWireTrace() {
+        return wireTrace;
+    }
+
+    /**
+     * Returns the recorder, which records the received frames of a session.
+     *
+     * @return The session recorder, never null.
+     */
+    public SessionRecorder getSessionRecorder() {
+        return sessionRecorder;
+    }
+
+
     @Override
-    protected void initChannel(SerialChannel channel) {
+    protected void initChannel(Channel channel) {
         Log.debug("Serial channel initialized. Configuring pipeline and channel...");
 
         checkIfSerialHandlerIsSet();
 
-        configureChannel(channel);
+        if (channel instanceof SerialChannel)
+            configureSerialChannel((SerialChannel) channel);
         configurePipeline(channel);
     }
 
@@ -69,8 +100,13 @@ public class ChannelInitializer extends io.netty.channel.ChannelInitializer<Seri
     }
 
 
-    /* Configures the channel. */
-    private void configureChannel(SerialChannel channel) {
+    /**
+     * Configures the serial channel with the parameters of the serial port of the WaterRower
+     * (19200 baud, 8 data bits, 1 stop bit, no parity), e.g. for a serial-over-TCP bridge.
+     *
+     * @param channel The serial channel, must not be null.
+     */
+    public static void configureSerialChannel(SerialChannel channel) {
         SerialChannelConfig config = channel.config();
         config.setBaudrate(19200);
         config.setDatabits(8);
@@ -81,7 +117,9 @@ public class ChannelInitializer extends io.netty.channel.ChannelInitializer<Seri
     }
 
     /* Logs the serial configuration. */
-    private void logSerialConfiguration(SerialChannelConfig config) {
+    private static void logSerialConfiguration(SerialChannelConfig config) {
+        if (!Log.isDebugEnabled())
+            return;
         Log.debug("Serial channel configured to: " +
                 "\n Baudrate: " + config.getBaudrate() +
                 "\n Databits: " + config.getDatabits() +
@@ -90,15 +128,17 @@ public class ChannelInitializer extends io.netty.channel.ChannelInitializer<Seri
     }
 
     /* Configures the pipeline. */
-    private void configurePipeline(SerialChannel channel) {
+    private void configurePipeline(Channel channel) {
         ChannelPipeline pipeline = channel.pipeline();
 
-        // Decode messages:
-        pipeline.addLast("framer", new DelimiterBasedFrameDecoder(MAX_FRAME_LENGTH, lineDelimiter()));
-        pipeline.addLast("decoder", new MessageFrameDecoder(parser));
+        // Record the received bytes, if a recording is started:
+        pipeline.addLast("recorder", sessionRecorder);
+
+        // Split lines and decode messages:
+        pipeline.addLast("decoder", new MessageLineDecoder(parser, MAX_FRAME_LENGTH, wireTrace));
 
         // Encode messages:
-        pipeline.addLast("encoder", new MessageFrameEncoder(parser));
+        pipeline.addLast("encoder", new MessageFrameEncoder(parser, wireTrace));
 
         // Handle messages and exceptions:
         pipeline.addLast("handler", serialHandler);
@@ -2,24 +2,43 @@ package de.tbressler.waterrower.io;
 
 import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.transport.SerialChannel;
-import de.tbressler.waterrower.io.transport.SerialDeviceAddress;
+import de.tbressler.waterrower.io.transport.TcpChannel;
+import de.tbressler.waterrower.io.transport.TcpDeviceAddress;
 import de.tbressler.waterrower.log.Log;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFactory;
 import io.netty.channel.ChannelFuture;
-import io.netty.channel.oio.OioEventLoopGroup;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.resolver.AddressResolverGroup;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static de.tbressler.waterrower.io.ConnectionState.*;
 import static java.util.Objects.requireNonNull;
 
 /**
  * A communication service that manages the serial connection.
  * It can receive and send serial messages.
  *
+ * The state of the connection is published by an atomic state machine (see ConnectionState).
+ * Reading the state and sending messages don't take a lock, and no lock is held while the channel
+ * is opened or closed. Concurrent calls of open() or close() are rejected by the state machine.
+ *
+ * The host name of a TCP bridge (see TcpDeviceAddress) is resolved asynchronously by a DNS
+ * resolver on the event loop of the channel, so that a slow lookup doesn't block the event loop.
+ * The resolver group is owned by the WaterRowerRuntime or, without a runtime, created for the
+ * connection and closed with its channel.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
@@ -28,19 +47,35 @@ public class CommunicationService {
     /* The bootstrap. */
     private final Bootstrap bootstrap;
 
-    /* The current channel or null. */
-    private Channel currentChannel;
+    /* Resolves the host names of the TCP bridges asynchronously, one resolver per event loop. Null
+       if a resolver group is created for every connection. */
+    private final AddressResolverGroup<InetSocketAddress> resolverGroup;
+
+    /* The state of the connection. */
+    private final AtomicReference<ConnectionState> state = new AtomicReference<>(CLOSED);
 
-    /* A lock for synchronized access to open/close/read/write on channel. */
-    private final ReentrantLock lock = new ReentrantLock(true);
+    /* The current channel or null, only set while the state is OPEN or CLOSING. */
+    private volatile Channel currentChannel;
 
     /* Listeners for serial connections. */
-    private final List<IConnectionListener> connectionListeners = new ArrayList<>();
+    private final List<IConnectionListener> connectionListeners = new CopyOnWriteArrayList<>();
+
+    /* The executor, which notifies the listeners. */
+    private final Executor listenerExecutor;
 
 
     /* Handler for the communication channel. */
     private final SerialHandler serialHandler = new SerialHandler() {
 
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            // Publish the open state before the listeners are notified. Otherwise a fast transport
+            // could notify onConnected() before open() returns and the first message couldn't be
+            // sent:
+            publishOpen(ctx.channel());
+            super.channelActive(ctx);
+        }
+
         @Override
         protected void onConnected() {
             fireOnConnected();
@@ -73,12 +108,91 @@ public class CommunicationService {
      * @param channelInitializer The channel initializer, not null.
      */
     public CommunicationService(Bootstrap bootstrap, ChannelInitializer channelInitializer) {
+        this(bootstrap, channelInitializer, new MultiThreadIoEventLoopGroup(1, NioIoHandler.newFactory()));
+    }
+
+    /**
+     * A communication service that manages the serial connection.
+     * It can receive and send serial messages.
+     *
+     * @param bootstrap The bootstrap, not null.
+     * @param channelInitializer The channel initializer, not null.
+     * @param eventLoopGroup The event loop group for the serial channel, which can be shared with
+     *                       other communication services. Must not be null.
+     */
+    public CommunicationService(Bootstrap bootstrap, ChannelInitializer channelInitializer, EventLoopGroup eventLoopGroup) {
+        this(bootstrap, channelInitializer, eventLoopGroup, Runnable::run);
+    }
+
+    /**
+     * A communication service that manages the serial connection.
+     * It can receive and send serial messages.
+     *
+     * @param bootstrap The bootstrap, not null.
+     * @param channelInitializer The channel initializer, not null.
+     * @param eventLoopGroup The event loop group for the serial channel, which can be shared with
+     *                       other communication services. Must not be null.
+     * @param listenerExecutor The executor, which notifies the connection listeners. The executor
+     *                         must execute the tasks one after another, so that the listeners are
+     *                         notified in the order of the events. Must not be null.
+     */
+    public CommunicationService(Bootstrap bootstrap, ChannelInitializer channelInitializer, EventLoopGroup eventLoopGroup, Executor listenerExecutor) {
+        this(bootstrap, channelInitializer, eventLoopGroup, listenerExecutor, SerialChannel::new);
+    }
+
+    /**
+     * A communication service that manages the connection with the given transport (e.g. a
+     * serial channel or a replay channel).
+     * It can receive and send serial messages.
+     *
+     * @param bootstrap The bootstrap, not null.
+     * @param channelInitializer The channel initializer, not null.
+     * @param eventLoopGroup The event loop group for the channel, which can be shared with other
+     *                       communication services. Must not be null.
+     * @param listenerExecutor The executor, which notifies the connection listeners. The executor
+     *                         must execute the tasks one after another, so that the listeners are
+     *                         notified in the order of the events. Must not be null.
+     * @param channelFactory The factory for the channels of the transport. The channels must be
+     *                       compatible with the event loop group. Must not be null.
+     */
+    public CommunicationService(Bootstrap bootstrap, ChannelInitializer channelInitializer, EventLoopGroup eventLoopGroup,
+                                Executor listenerExecutor, ChannelFactory<? extends Channel> channelFactory) {
+        this(bootstrap, channelInitializer, eventLoopGroup, listenerExecutor, channelFactory, null);
+    }
+
+    /**
+     * A communication service that manages the connection with the given transport (e.g. a
+     * serial channel or a TCP channel).
+     * It can receive and send serial messages.
+     *
+     * @param bootstrap The bootstrap, not null.
+     * @param channelInitializer The channel initializer, not null.
+     * @param eventLoopGroup The event loop group for the channel, which can be shared with other
+     *                       communication services. Must not be null.
+     * @param listenerExecutor The executor, which notifies the connection listeners. The executor
+     *                         must execute the tasks one after another, so that the listeners are
+     *                         notified in the order of the events. Must not be null.
+     * @param channelFactory The factory for the channels of the transport. The channels must be
+     *                       compatible with the event loop group. Must not be null.
+     * @param resolverGroup The resolver group for the host names of the TCP bridges, which can be
+     *                      shared with other communication services and is closed by its owner
+     *                      (e.g. the WaterRowerRuntime). If null, a resolver group is created for
+     *                      every connection and closed with its channel.
+     */
+    public CommunicationService(Bootstrap bootstrap, ChannelInitializer channelInitializer, EventLoopGroup eventLoopGroup,
+                                Executor listenerExecutor, ChannelFactory<? extends Channel> channelFactory,
+                                AddressResolverGroup<InetSocketAddress> resolverGroup) {
         requireNonNull(bootstrap);
         requireNonNull(channelInitializer);
+        requireNonNull(eventLoopGroup);
+        requireNonNull(channelFactory);
+
+        this.listenerExecutor = requireNonNull(listenerExecutor);
+        this.resolverGroup = resolverGroup;
 
         this.bootstrap = bootstrap;
-        this.bootstrap.group(new OioEventLoopGroup());
-        this.bootstrap.channel(SerialChannel.class);
+        this.bootstrap.group(eventLoopGroup);
+        this.bootstrap.channelFactory(channelFactory);
 
         channelInitializer.setSerialHandler(serialHandler);
 
@@ -87,23 +201,23 @@ public class CommunicationService {
 
 
     /**
-     * Opens the connection to the given serial port.
+     * Opens the connection to the given address.
      *
-     * @param address The serial port, must not be null.
+     * @param address The address of the device (e.g. the serial port), must not be null. The
+     *                type of the address must match the transport.
      * @throws IOException if opening of the channel fails.
      */
-    public void open(SerialDeviceAddress address) throws IOException {
+    public void open(SocketAddress address) throws IOException {
         requireNonNull(address);
 
-        lock.lock();
+        if (!state.compareAndSet(CLOSED, CONNECTING))
+            throw new IOException("Serial channel is already open!");
 
         try {
 
-            checkIfChannelIsClose();
-
-            Log.debug("Opening channel at serial port '" + address.value() + "'.");
+            Log.debug("Opening channel at '{}'.", address);
 
-            ChannelFuture future = bootstrap.connect(address).syncUninterruptibly();
+            ChannelFuture future = connect(address).syncUninterruptibly();
             if (!future.isSuccess()) {
                 fireOnError();
                 throw new IOException("Serial channel couldn't be opened!");
@@ -111,21 +225,39 @@ public class CommunicationService {
 
             Log.debug("Serial channel was successfully opened.");
 
-            currentChannel = future.channel();
+            publishOpen(future.channel());
 
         } catch (Exception e) {
-            throw new IOException("Can not connect to '"+address.value()+"'!", e);
-        } finally {
-            lock.unlock();
+            state.set(CLOSED);
+            throw new IOException("Can not connect to '"+address+"'!", e);
         }
     }
 
-    /* Throws IOException if channel is already open. */
-    private void checkIfChannelIsClose() throws IOException {
-        if (currentChannel != null)
-            throw new IOException("Serial channel is already open!");
+
+    /* Connects a channel to the given address. The host name of a TCP bridge is passed
+       unresolved, so that it is resolved by the resolver and not by the channel. */
+    private ChannelFuture connect(SocketAddress address) {
+        if (!(address instanceof TcpDeviceAddress))
+            return bootstrap.connect(address);
+
+        InetSocketAddress unresolvedAddress = ((TcpDeviceAddress) address).toUnresolvedSocketAddress();
+        if (resolverGroup != null)
+            return bootstrap.clone().resolver(resolverGroup).connect(unresolvedAddress);
+
+        // The resolver group of the connection is closed with its channel:
+        AddressResolverGroup<InetSocketAddress> connectionResolverGroup = TcpChannel.newResolverGroup();
+        ChannelFuture future = bootstrap.clone().resolver(connectionResolverGroup).connect(unresolvedAddress);
+        future.channel().closeFuture().addListener(f -> connectionResolverGroup.close());
+        return future;
     }
 
+    /* Publishes the open channel, if the service is still connecting. */
+    private void publishOpen(Channel channel) {
+        if (state.get() != CONNECTING)
+            return;
+        currentChannel = channel;
+        state.compareAndSet(CONNECTING, OPEN);
+    }
 
     /**
      * Returns true if the communication service is connected.
@@ -133,16 +265,16 @@ public class CommunicationService {
      * @return True if connected otherwise false.
      */
     public boolean isConnected() {
+        return state.get() == OPEN;
+    }
 
-        lock.lock();
-
-        try {
-
-            return (currentChannel != null);
-
-        } finally {
-            lock.unlock();
-        }
+    /**
+     * Returns the state of the connection.
+     *
+     * @return The state, never null.
+     */
+    public ConnectionState getState() {
+        return state.get();
     }
 
 
@@ -154,20 +286,55 @@ public class CommunicationService {
     public void send(AbstractMessage msg) throws IOException {
         requireNonNull(msg);
 
-        lock.lock();
-
         try {
 
-            checkIfChannelIsOpen();
+            Channel channel = getOpenChannel();
 
-            Log.debug("Sending message '" + msg.toString() + "'.");
+            Log.debug("Sending message '{}'.", msg);
 
-            currentChannel.writeAndFlush(msg);
+            channel.writeAndFlush(msg);
 
         } catch (Exception e) {
             throw new IOException("Can not send message '"+msg+"'!", e);
-        } finally {
-            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the given message to the channel without flushing it. The message is sent, when
+     * flush() is called. Several messages can be written and flushed together, so that they are
+     * sent with a single write to the serial port.
+     *
+     * @param msg The message to be written, must not be null.
+     * @return The future of the write, which is completed when the message was written to the
+     * transport (or couldn't be written). Never null.
+     */
+    public ChannelFuture write(AbstractMessage msg) throws IOException {
+        requireNonNull(msg);
+
+        try {
+
+            Channel channel = getOpenChannel();
+
+            Log.debug("Writing message '{}'.", msg);
+
+            return channel.write(msg);
+
+        } catch (Exception e) {
+            throw new IOException("Can not write message '"+msg+"'!", e);
+        }
+    }
+
+    /**
+     * Sends all messages, which were written to the channel since the last flush.
+     */
+    public void flush() throws IOException {
+
+        try {
+
+            getOpenChannel().flush();
+
+        } catch (Exception e) {
+            throw new IOException("Can not flush messages!", e);
         }
     }
 
@@ -179,13 +346,18 @@ public class CommunicationService {
      */
     public void close() throws IOException {
 
+        if (!state.compareAndSet(OPEN, CLOSING))
+            throw new IOException("Serial channel is not open! Can not disconnect.");
+
         try {
 
-            checkIfChannelIsOpen();
+            Channel channel = currentChannel;
+            if (!channel.isOpen())
+                throw new IOException("Serial channel is not open!");
 
             Log.debug("Closing serial channel.");
 
-            ChannelFuture future = currentChannel.close().syncUninterruptibly();
+            ChannelFuture future = channel.close().syncUninterruptibly();
             if (!future.isSuccess())
                 throw new IOException("Serial channel couldn't be closed!");
 
@@ -195,13 +367,16 @@ public class CommunicationService {
             throw new IOException("Can not disconnect!", e);
         } finally {
             currentChannel = null;
+            state.set(CLOSED);
         }
     }
 
-    /* Throws IOException if channel is already closed. */
-    private void checkIfChannelIsOpen() throws IOException {
-        if ((currentChannel == null) || (!currentChannel.isOpen()))
+    /* Returns the channel or throws IOException if the channel is not open. */
+    private Channel getOpenChannel() throws IOException {
+        Channel channel = currentChannel;
+        if ((state.get() != OPEN) || (channel == null) || (!channel.isOpen()))
             throw new IOException("Serial channel is not open!");
+        return channel;
     }
 
     /* Close the channel and suppress exceptions. */
@@ -210,7 +385,7 @@ public class CommunicationService {
             Log.debug("Try to close channel.");
             close();
         } catch (IOException e) {
-            Log.warn("Channel can not be closed! " + e.getMessage());
+            Log.warn("Channel can not be closed! {}", e.getMessage());
         }
     }
 
@@ -227,23 +402,25 @@ public class CommunicationService {
 
     /* Notify all listeners about a successful connection. */
     private void fireOnConnected() {
-        connectionListeners.forEach(IConnectionListener::onConnected);
+        listenerExecutor.execute(() -> connectionListeners.forEach(IConnectionListener::onConnected));
     }
 
     /* Notify all listeners about an error. */
     private void fireOnError() {
-        connectionListeners.forEach(IConnectionListener::onError);
+        listenerExecutor.execute(() -> connectionListeners.forEach(IConnectionListener::onError));
     }
 
     /* Notify all listeners about a disconnect. */
     private void fireOnDisconnected() {
-        connectionListeners.forEach(IConnectionListener::onDisconnected);
+        listenerExecutor.execute(() -> connectionListeners.forEach(IConnectionListener::onDisconnected));
     }
 
     /* Notify all listeners about a received message. */
     private void fireOnMessageReceived(AbstractMessage msg) {
-        for (IConnectionListener listener : connectionListeners)
-            listener.onMessageReceived(msg);
+        listenerExecutor.execute(() -> {
+            for (IConnectionListener listener : connectionListeners)
+                listener.onMessageReceived(msg);
+        });
     }
 
     /**
@@ -0,0 +1,26 @@
+package de.tbressler.waterrower.io;
+
+/**
+ * The states of the serial connection.
+ *
+ * The state changes from CLOSED to CONNECTING to OPEN to CLOSING and back to CLOSED. If the
+ * connection couldn't be opened, the state changes from CONNECTING back to CLOSED.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public enum ConnectionState {
+
+    /* The connection is closed. */
+    CLOSED,
+
+    /* The connection is being opened. */
+    CONNECTING,
+
+    /* The connection is open, messages can be sent. */
+    OPEN,
+
+    /* The connection is being closed. */
+    CLOSING
+
+}
@@ -0,0 +1,105 @@
+package de.tbressler.waterrower.io;
+
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A request to read memory locations of the WaterRower, which is waiting for its answer.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class ReadRequest {
+
+    /* The read message. */
+    private final ReadMemoryMessage message;
+
+    /* The future, which is completed when the read message was sent. */
+    private final CompletableFuture<Void> sentFuture = new CompletableFuture<>();
+
+    /* The future, which is completed when the answer was received. */
+    private final CompletableFuture<DataMemoryMessage> answerFuture = new CompletableFuture<>();
+
+    /* True if the read message was handed to the send queue (guarded by the queue lock of the
+       connector). */
+    private boolean isInFlight = false;
+
+    /* The timeout of the read, which is scheduled when the read message was sent, or null
+       (guarded by the queue lock of the connector). */
+    private ScheduledFuture<?> timeoutFuture;
+
+
+    /**
+     * A request to read memory locations of the WaterRower.
+     *
+     * @param message The read message, must not be null.
+     */
+    ReadRequest(ReadMemoryMessage message) {
+        this.message = requireNonNull(message);
+    }
+
+
+    /**
+     * Returns the read message.
+     *
+     * @return The read message, never null.
+     */
+    public ReadMemoryMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the future, which is completed when the read message was sent to the WaterRower or
+     * completed exceptionally if the message couldn't be sent.
+     *
+     * @return The future, never null.
+     */
+    public CompletableFuture<Void> getSentFuture() {
+        return sentFuture;
+    }
+
+    /**
+     * Returns the future, which is completed with the answer of the WaterRower. The future is
+     * completed exceptionally with a TimeoutException if the WaterRower didn't answer in time or
+     * with an IOException if the message couldn't be sent.
+     *
+     * @return The future, never null.
+     */
+    public CompletableFuture<DataMemoryMessage> getAnswerFuture() {
+        return answerFuture;
+    }
+
+
+    /* Returns true if the read message was handed to the send queue. Must be called while
+       holding the queue lock of the connector. */
+    boolean isInFlight() {
+        return isInFlight;
+    }
+
+    /* Marks the read message as handed to the send queue. Must be called while holding the queue
+       lock of the connector. */
+    void setInFlight() {
+        isInFlight = true;
+    }
+
+    /* Sets the scheduled timeout of the read. Must be called while holding the queue lock of the
+       connector. */
+    void setTimeoutFuture(ScheduledFuture<?> timeoutFuture) {
+        this.timeoutFuture = timeoutFuture;
+    }
+
+    /* Cancels the scheduled timeout of the read, if any. Must be called while holding the queue
+       lock of the connector. */
+    void cancelTimeout() {
+        if (timeoutFuture == null)
+            return;
+        timeoutFuture.cancel(false);
+        timeoutFuture = null;
+    }
+
+}
@@ -0,0 +1,85 @@
+package de.tbressler.waterrower.io;
+
+import java.time.Duration;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The policy for sending messages to the WaterRower.
+ *
+ * The WaterRower needs time to process the received messages. Therefore the messages are sent
+ * in bursts with a minimum gap in between:
+ * - A burst consists of at most maxBurstSize messages. The messages of a burst are written to the
+ *   channel and flushed together, so that they are sent with a single write to the serial port.
+ * - The next burst is sent not before the minimum gap since the last burst has passed.
+ *
+ * The default policy sends every message on its own with a minimum gap of 30 ms. A burst size
+ * greater than 1 should only be used if the device is proven to process the messages of a burst
+ * (e.g. for the upload of an interval workout).
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class SendPolicy {
+
+    /**
+     * The default policy: Every message is sent on its own with a minimum gap of 30 ms.
+     */
+    public static final SendPolicy DEFAULT = new SendPolicy(Duration.ofMillis(30), 1);
+
+
+    /* The minimum gap between two bursts. */
+    private final Duration minimumGap;
+
+    /* The maximum number of messages, which are flushed together. */
+    private final int maxBurstSize;
+
+
+    /**
+     * The policy for sending messages to the WaterRower.
+     *
+     * @param minimumGap The minimum gap between two bursts, must not be null or negative.
+     * @param maxBurstSize The maximum number of messages, which are flushed together. Must be at
+     *                     least 1.
+     */
+    public SendPolicy(Duration minimumGap, int maxBurstSize) {
+        requireNonNull(minimumGap);
+        if (minimumGap.isNegative())
+            throw new IllegalArgumentException("The minimum gap must not be negative!");
+        if (maxBurstSize < 1)
+            throw new IllegalArgumentException("The maximum burst size must be at least 1!");
+
+        this.minimumGap = minimumGap;
+        this.maxBurstSize = maxBurstSize;
+    }
+
+
+    /**
+     * Returns the minimum gap between two bursts.
+     *
+     * @return The minimum gap, never null.
+     */
+    public Duration getMinimumGap() {
+        return minimumGap;
+    }
+
+    /**
+     * Returns the maximum number of messages, which are flushed together.
+     *
+     * @return The maximum burst size, at least 1.
+     */
+    public int getMaxBurstSize() {
+        return maxBurstSize;
+    }
+
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("minimumGap", minimumGap)
+                .add("maxBurstSize", maxBurstSize)
+                .toString();
+    }
+
+}
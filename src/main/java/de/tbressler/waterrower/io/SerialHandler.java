@@ -25,7 +25,7 @@ public abstract class SerialHandler extends ChannelInboundHandlerAdapter {
                 return;
             }
 
-            Log.debug("Message received: " + msg);
+            Log.debug("Message received: {}", msg);
 
             // Notify that a message was received.
             onMessageReceived((AbstractMessage) msg);
@@ -1,72 +1,168 @@
 package de.tbressler.waterrower.io;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.tbressler.waterrower.io.msg.AbstractMessage;
-import de.tbressler.waterrower.io.transport.SerialDeviceAddress;
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
 import de.tbressler.waterrower.log.Log;
+import io.netty.channel.ChannelFuture;
 
 import java.io.IOException;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.ReentrantLock;
 
+import static java.lang.Math.max;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * Handles the connection to the WaterRower.
  *
+ * Messages are sent asynchronously: They are added to a send queue, which is processed by a
+ * scheduled send task. The send task keeps a minimum gap between two bursts of messages, in order
+ * to give the WaterRower time to process the messages (see SendPolicy). The messages of a burst
+ * are written to the channel and flushed together. The threads of the callers are not blocked.
+ *
+ * Reads of memory locations are correlated with their answers by memory type and location. Only
+ * a limited number of reads is sent without an answer (the window of in-flight reads), the next
+ * read is sent as soon as an answer was received or a read timed out. A read of a memory location
+ * which is already waiting for an answer is not sent again, the callers share the same request.
+ *
+ * If the connection is closed or lost, the messages in the send queue and the outstanding reads
+ * are completed exceptionally, so the futures of the callers don't wait for a timeout.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
 public class WaterRowerConnector {
 
-    /* ms to wait after a message was send, in order to give the WaterRower time to
-       process the message. */
-    private final static int MINIMUM_SEND_INTERVAL = 30;
+    /* The default number of reads, which are sent without an answer. */
+    private final static int DEFAULT_MAX_IN_FLIGHT_READS = 1;
+
+    /* The default time to wait for the answer of a read. */
+    private final static Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(1);
+
+    /* Sends the messages of the connectors, which were created without an executor service. */
+    private static final ScheduledExecutorService DEFAULT_EXECUTOR = newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("waterrower-connector")
+            .setDaemon(true)
+            .build());
 
 
     /* The serial communication service. */
     private final CommunicationService communicationService;
 
-    /* The lock to synchronize connect and disconnect. */
-    private final ReentrantLock lock = new ReentrantLock(true);
+    /* The executor service, which executes the send task. */
+    private final ScheduledExecutorService executorService;
+
+    /* The lock for the send queue. It is never held while a message is written to the channel. */
+    private final ReentrantLock queueLock = new ReentrantLock();
+
+    /* The messages that are waiting to be sent (guarded by queueLock). */
+    private final Queue<PendingMessage> sendQueue = new ArrayDeque<>();
+
+    /* True if the send task is scheduled or running (guarded by queueLock). */
+    private boolean isSendTaskScheduled = false;
+
+    /* The time (in ns) when the last burst was sent (guarded by queueLock). */
+    private long lastSendTime = System.nanoTime() - SendPolicy.DEFAULT.getMinimumGap().toNanos();
+
+    /* The policy for sending the messages. */
+    private volatile SendPolicy sendPolicy = SendPolicy.DEFAULT;
+
+    /* The messages of the burst, which is sent by the send task. Only used by the send task. */
+    private final List<PendingMessage> burst = new ArrayList<>();
+
+    /* The reads, which are waiting for a free slot in the window of in-flight reads (guarded by
+       queueLock). */
+    private final Queue<ReadRequest> readQueue = new ArrayDeque<>();
+
+    /* The reads, which are waiting or in-flight, by key of the read (guarded by queueLock). */
+    private final Map<Integer, ReadRequest> outstandingReads = new HashMap<>();
+
+    /* The number of reads, which are sent without an answer (guarded by queueLock). */
+    private int inFlightReads = 0;
+
+    /* The maximum number of reads, which are sent without an answer. */
+    private volatile int maxInFlightReads = DEFAULT_MAX_IN_FLIGHT_READS;
+
+    /* The time to wait for the answer of a read (in ns). */
+    private volatile long readTimeout = DEFAULT_READ_TIMEOUT.toNanos();
 
     /* Listeners for the serial communication. */
     private final List<IConnectionListener> listeners = new ArrayList<>();
 
+    /* Listener, which correlates the received answers with the outstanding reads and discards
+       the pending messages, if the connection was closed or lost. */
+    private final IConnectionListener readListener = new ConnectionListener() {
+        @Override
+        public void onMessageReceived(AbstractMessage msg) {
+            if (msg instanceof DataMemoryMessage)
+                answerReceived((DataMemoryMessage) msg);
+        }
+
+        @Override
+        public void onDisconnected() {
+            discardPendingMessages();
+        }
+
+        @Override
+        public void onError() {
+            discardPendingMessages();
+        }
+    };
+
 
     /**
-     * Handles the connection to the WaterRower.
+     * Handles the connection to the WaterRower. The messages are sent by a shared daemon thread.
      *
      * @param communicationService The communication service, must not be null.
      */
     public WaterRowerConnector(CommunicationService communicationService) {
+        this(communicationService, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Handles the connection to the WaterRower.
+     *
+     * @param communicationService The communication service, must not be null.
+     * @param executorService The executor service for sending the messages, must not be null.
+     */
+    public WaterRowerConnector(CommunicationService communicationService, ScheduledExecutorService executorService) {
         this.communicationService = requireNonNull(communicationService);
+        this.executorService = requireNonNull(executorService);
+        this.communicationService.addConnectionListener(readListener);
     }
 
 
     /**
      * Connect to the rowing computer.
      *
-     * @param address The serial port, must not be null.
+     * @param address The address of the device (e.g. the serial port), must not be null.
      *
      * @throws IOException If connect fails.
      */
-    public void connect(SerialDeviceAddress address) throws IOException {
+    public void connect(SocketAddress address) throws IOException {
         requireNonNull(address);
 
-        lock.lock();
+        // Concurrent connects are rejected by the communication service.
+        if (isConnected())
+            throw new IOException("Service is already connected! Can not connect.");
 
-        try {
-
-            if (isConnected())
-                throw new IOException("Service is already connected! Can not connect.");
-
-            Log.debug("Opening serial channel at '" + address.value() + "' connection.");
-            communicationService.open(address);
-
-        } finally {
-            lock.unlock();
-        }
+        Log.debug("Opening serial channel at '{}' connection.", address);
+        communicationService.open(address);
     }
 
 
@@ -83,73 +179,407 @@ public class WaterRowerConnector {
      */
     public void disconnect() throws IOException {
 
-        lock.lock();
+        if (!isConnected())
+            throw new IOException("Service is not connected! Can not disconnect.");
 
         try {
 
-            if (!isConnected())
-                throw new IOException("Service is not connected! Can not disconnect.");
-
+            // Concurrent disconnects are rejected by the communication service.
             Log.debug("Closing serial channel.");
             communicationService.close();
 
         } finally {
-            lock.unlock();
+            discardPendingMessages();
+        }
+    }
+
+    /**
+     * Sends the given message and disconnects from the rowing computer. The message bypasses the
+     * send queue and is written to the channel directly, before the channel is closed. Therefore
+     * the caller doesn't wait for the send task, which may run on the same executor as the caller.
+     * If the message can not be sent, the connection is closed anyway.
+     *
+     * @param goodbye The last message (e.g. ExitCommunicationMessage), must not be null.
+     *
+     * @throws IOException If disconnect fails.
+     */
+    public void disconnect(AbstractMessage goodbye) throws IOException {
+        requireNonNull(goodbye);
+
+        if (!isConnected())
+            throw new IOException("Service is not connected! Can not disconnect.");
+
+        try {
+            // The channel executes the write before the close, because both are executed by the
+            // event loop of the channel in order.
+            communicationService.send(goodbye);
+        } catch (IOException e) {
+            // Maybe the connection is already lost and a "goodbye" can not be sent anymore.
+            Log.warn("Couldn't send '{}' before disconnect! {}", goodbye, e.getMessage());
+        }
+
+        disconnect();
+    }
+
+    /* Removes all messages from the send queue and all outstanding reads and completes them
+       exceptionally. */
+    private void discardPendingMessages() {
+        List<PendingMessage> discardedMessages;
+        List<ReadRequest> discardedReads;
+
+        queueLock.lock();
+        try {
+            discardedMessages = new ArrayList<>(sendQueue);
+            sendQueue.clear();
+            discardedReads = new ArrayList<>(outstandingReads.values());
+            for (ReadRequest readRequest : discardedReads)
+                readRequest.cancelTimeout();
+            outstandingReads.clear();
+            readQueue.clear();
+            inFlightReads = 0;
+        } finally {
+            queueLock.unlock();
+        }
+
+        IOException exception = new IOException("Disconnected! Message was not sent to WaterRower.");
+        for (PendingMessage pendingMessage : discardedMessages)
+            pendingMessage.future.completeExceptionally(exception);
+        for (ReadRequest readRequest : discardedReads) {
+            // The reads, which were waiting for a free slot, were not handed to the send queue.
+            readRequest.getSentFuture().completeExceptionally(exception);
+            readRequest.getAnswerFuture().completeExceptionally(exception);
         }
     }
 
 
     /**
-     * Sends a single message.
+     * Sends a single message. The message is added to the send queue and the method returns
+     * immediately.
      *
      * @param msg The message to be sent, must not be null.
+     * @return The future, which is completed when the message was sent or completed exceptionally
+     * if the message couldn't be sent. Never null.
+     *
+     * @throws IOException If not connected.
      */
-    public void send(AbstractMessage msg) throws IOException {
+    public CompletableFuture<Void> send(AbstractMessage msg) throws IOException {
         requireNonNull(msg);
 
-        lock.lock();
-
         if (!isConnected())
             throw new IOException("Not connected! Can not send message to WaterRower.");
 
-        try {
-
-            communicationService.send(msg);
-            Thread.sleep(MINIMUM_SEND_INTERVAL); // Wait, this gives the rowing computer time to process.
+        PendingMessage pendingMessage = new PendingMessage(msg);
 
-        } catch (InterruptedException e) {
-            Log.error("Error while sending message!", e);
+        queueLock.lock();
+        try {
+            sendQueue.add(pendingMessage);
+            scheduleSendTask();
         } finally {
-            lock.unlock();
+            queueLock.unlock();
         }
+
+        return pendingMessage.future;
     }
 
 
     /**
-     * Sends multiple messages at once.
+     * Sends multiple messages at once. The messages are added to the send queue in the given
+     * order, without other messages in between. The method returns immediately.
      *
      * @param messages The messages to be sent, must not be null.
+     * @return The future, which is completed when all messages were sent or completed
+     * exceptionally if a message couldn't be sent. Never null.
+     *
+     * @throws IOException If not connected.
      */
-    public void send(List<AbstractMessage> messages) throws IOException {
+    public CompletableFuture<Void> send(List<AbstractMessage> messages) throws IOException {
         requireNonNull(messages);
 
-        lock.lock();
+        if (!isConnected())
+            throw new IOException("Not connected! Can not send message to WaterRower.");
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[messages.size()];
+
+        queueLock.lock();
+        try {
+            for (int i = 0; i < futures.length; i++) {
+                PendingMessage pendingMessage = new PendingMessage(requireNonNull(messages.get(i)));
+                sendQueue.add(pendingMessage);
+                futures[i] = pendingMessage.future;
+            }
+            scheduleSendTask();
+        } finally {
+            queueLock.unlock();
+        }
+
+        return CompletableFuture.allOf(futures);
+    }
+
+
+    /**
+     * Reads memory locations of the WaterRower. The read is sent as soon as there is a free slot in
+     * the window of in-flight reads. If the same memory locations are already waiting for an
+     * answer, the existing request is returned. The method returns immediately.
+     *
+     * @param msg The read message, must not be null.
+     * @return The request, which provides the futures for sending and for the answer. Never null.
+     *
+     * @throws IOException If not connected.
+     */
+    public ReadRequest read(ReadMemoryMessage msg) throws IOException {
+        requireNonNull(msg);
 
         if (!isConnected())
             throw new IOException("Not connected! Can not send message to WaterRower.");
 
+        queueLock.lock();
         try {
 
-            for(AbstractMessage msg : messages) {
-                send(msg);
+            ReadRequest readRequest = outstandingReads.get(keyOf(msg));
+            if (readRequest != null)
+                return readRequest;
+
+            readRequest = new ReadRequest(msg);
+            outstandingReads.put(keyOf(msg), readRequest);
+            readQueue.add(readRequest);
+            sendQueuedReads();
+
+            return readRequest;
+
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /* Hands the waiting reads to the send queue, as long as the window of in-flight reads is not
+       full. Must be called while holding queueLock. */
+    private void sendQueuedReads() {
+        while ((inFlightReads < maxInFlightReads) && !readQueue.isEmpty()) {
+
+            ReadRequest readRequest = readQueue.poll();
+            readRequest.setInFlight();
+            inFlightReads++;
+
+            readRequest.getSentFuture().whenComplete((v, t) -> {
+                if (t != null) {
+                    completeRead(readRequest, null, t);
+                } else {
+                    scheduleReadTimeout(readRequest);
+                }
+            });
+
+            sendQueue.add(new PendingMessage(readRequest.getMessage(), readRequest.getSentFuture()));
+        }
+        scheduleSendTask();
+    }
+
+    /* Schedules the timeout of a read, which was sent. The timeout is not scheduled, if the read
+       was already completed (e.g. the answer was received before the sent future completed). */
+    private void scheduleReadTimeout(ReadRequest readRequest) {
+        queueLock.lock();
+        try {
+
+            if (outstandingReads.get(keyOf(readRequest.getMessage())) != readRequest)
+                return;
+
+            readRequest.setTimeoutFuture(executorService.schedule(() -> completeRead(readRequest, null,
+                    new TimeoutException("The WaterRower didn't answer the read " + readRequest.getMessage() + " in time!")),
+                    readTimeout, NANOSECONDS));
+
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /* Correlates the answer with the outstanding read. */
+    private void answerReceived(DataMemoryMessage msg) {
+        ReadRequest readRequest;
+
+        queueLock.lock();
+        try {
+            readRequest = outstandingReads.get(keyOf(msg));
+            // Only answers of sent reads are correlated.
+            if ((readRequest == null) || !readRequest.isInFlight())
+                return;
+        } finally {
+            queueLock.unlock();
+        }
+
+        completeRead(readRequest, msg, null);
+    }
+
+    /* Completes the read with the answer or the error and frees its slot in the window of
+       in-flight reads. Does nothing if the read was already completed. */
+    private void completeRead(ReadRequest readRequest, DataMemoryMessage answer, Throwable error) {
+
+        queueLock.lock();
+        try {
+
+            int key = keyOf(readRequest.getMessage());
+            if (outstandingReads.get(key) != readRequest)
+                return;
+            outstandingReads.remove(key);
+            readRequest.cancelTimeout();
+
+            if (readRequest.isInFlight()) {
+                inFlightReads--;
+            } else {
+                readQueue.remove(readRequest);
+            }
+
+            sendQueuedReads();
+
+        } finally {
+            queueLock.unlock();
+        }
+
+        if (error == null) {
+            readRequest.getAnswerFuture().complete(answer);
+        } else {
+            Log.debug("Read {} failed: {}", readRequest.getMessage(), error.getMessage());
+            readRequest.getAnswerFuture().completeExceptionally(error);
+        }
+    }
+
+    /* Returns the key of a read, which consists of the memory location and the memory type. */
+    private static int keyOf(ReadMemoryMessage msg) {
+        return ReadMemoryMessage.keyOf(msg.getMemory(), msg.getLocation());
+    }
+
+
+    /**
+     * Sets the maximum number of reads, which are sent to the WaterRower without an answer.
+     * Default = 1.
+     *
+     * @param maxInFlightReads The maximum number of in-flight reads, must be at least 1.
+     */
+    public void setMaxInFlightReads(int maxInFlightReads) {
+        if (maxInFlightReads < 1)
+            throw new IllegalArgumentException("The number of in-flight reads must be at least 1!");
+        queueLock.lock();
+        try {
+            this.maxInFlightReads = maxInFlightReads;
+            sendQueuedReads();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the maximum number of reads, which are sent to the WaterRower without an answer.
+     *
+     * @return The maximum number of in-flight reads.
+     */
+    public int getMaxInFlightReads() {
+        return maxInFlightReads;
+    }
+
+    /**
+     * Sets the time to wait for the answer of a read. Default = 1 second.
+     *
+     * @param readTimeout The timeout, must not be null.
+     */
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = requireNonNull(readTimeout).toNanos();
+    }
+
+
+    /**
+     * Sets the policy for sending the messages. Default = SendPolicy.DEFAULT.
+     *
+     * @param sendPolicy The send policy, must not be null.
+     */
+    public void setSendPolicy(SendPolicy sendPolicy) {
+        this.sendPolicy = requireNonNull(sendPolicy);
+    }
+
+    /**
+     * Returns the policy for sending the messages.
+     *
+     * @return The send policy, never null.
+     */
+    public SendPolicy getSendPolicy() {
+        return sendPolicy;
+    }
+
+
+    /* Schedules the send task, if it is not already scheduled. The send task will be executed
+       when the minimum gap since the last burst has passed. Must be called while holding
+       queueLock. */
+    private void scheduleSendTask() {
+        if (isSendTaskScheduled || sendQueue.isEmpty())
+            return;
+
+        long delay = max(0, lastSendTime + sendPolicy.getMinimumGap().toNanos() - System.nanoTime());
+
+        executorService.schedule(this::sendNextBurst, delay, NANOSECONDS);
+        isSendTaskScheduled = true;
+    }
+
+    /* Sends the next burst of messages from the send queue and schedules the send task again, if
+       more messages are waiting. */
+    private void sendNextBurst() {
+
+        int maxBurstSize = sendPolicy.getMaxBurstSize();
+
+        queueLock.lock();
+        try {
+            PendingMessage pendingMessage;
+            while ((burst.size() < maxBurstSize) && ((pendingMessage = sendQueue.poll()) != null))
+                burst.add(pendingMessage);
+            if (burst.isEmpty()) {
+                isSendTaskScheduled = false;
+                return;
             }
+        } finally {
+            queueLock.unlock();
+        }
+
+        try {
+
+            for (PendingMessage pendingMessage : burst)
+                completeWhenWritten(pendingMessage, communicationService.write(pendingMessage.message));
+            communicationService.flush();
+
+        } catch (IOException | RuntimeException e) {
+            Log.error("Error while sending message!", e);
+            for (PendingMessage pendingMessage : burst)
+                pendingMessage.future.completeExceptionally(e);
+        } finally {
+            burst.clear();
+        }
 
+        queueLock.lock();
+        try {
+            lastSendTime = System.nanoTime();
+            isSendTaskScheduled = false;
+            scheduleSendTask();
         } finally {
-            lock.unlock();
+            queueLock.unlock();
         }
     }
 
 
+    /* Completes the future of the message by the executor, when the channel has written the
+       message to the transport. */
+    private void completeWhenWritten(PendingMessage pendingMessage, ChannelFuture written) {
+        written.addListener(future -> {
+            Runnable completion = () -> {
+                if (future.isSuccess()) {
+                    pendingMessage.future.complete(null);
+                } else {
+                    pendingMessage.future.completeExceptionally(future.cause());
+                }
+            };
+            try {
+                executorService.execute(completion);
+            } catch (RejectedExecutionException e) {
+                completion.run();
+            }
+        });
+    }
+
+
     /**
      * Adds the connection listener.
      *
@@ -170,4 +600,25 @@ public class WaterRowerConnector {
         communicationService.removeConnectionListener(listener);
     }
 
+
+    /* A message in the send queue and the future of the sender. */
+    private static final class PendingMessage {
+
+        /* The message. */
+        private final AbstractMessage message;
+
+        /* The future, which is completed when the message was sent. */
+        private final CompletableFuture<Void> future;
+
+        private PendingMessage(AbstractMessage message) {
+            this(message, new CompletableFuture<>());
+        }
+
+        private PendingMessage(AbstractMessage message, CompletableFuture<Void> future) {
+            this.message = message;
+            this.future = future;
+        }
+
+    }
+
 }
@@ -0,0 +1,281 @@
+package de.tbressler.waterrower.io.bridge;
+
+import de.tbressler.waterrower.io.ChannelInitializer;
+import de.tbressler.waterrower.io.transport.SerialChannel;
+import de.tbressler.waterrower.io.transport.SerialDeviceAddress;
+import de.tbressler.waterrower.log.Log;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.*;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.netty.channel.ChannelOption.*;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A raw serial-over-TCP bridge for the edge side (like ser2net in raw mode). The bridge accepts
+ * one TCP client at a time (e.g. a WaterRower with a TcpChannel on a central server) and relays
+ * the bytes unchanged between the client and the serial port of the WaterRower.
+ *
+ * The serial port is opened, when the client connects, and closed, when the client disconnects.
+ * If the serial port is closed, the client is disconnected. Further clients are rejected, while
+ * a client is connected. The bridge doesn't parse the frames, therefore the handshake, the
+ * polling and the watchdogs are handled by the WaterRower on the server.
+ *
+ * Example:
+ *
+ *   TcpSerialBridge bridge = new TcpSerialBridge(new SerialDeviceAddress("/dev/ttyACM0"), 4001);
+ *   bridge.start();
+ *   ...
+ *   bridge.stop();
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TcpSerialBridge {
+
+    /* The time to wait for the event loop group on stop (in seconds). */
+    private static final long SHUTDOWN_TIMEOUT = 5;
+
+
+    /* The address of the device (e.g. the serial port). */
+    private final SocketAddress deviceAddress;
+
+    /* The factory for the channels of the device. */
+    private final ChannelFactory<? extends Channel> deviceChannelFactory;
+
+    /* The local address of the server. */
+    private final InetSocketAddress localAddress;
+
+    /* Accepts the clients, only one client is bridged at a time. */
+    private final ClientHandler clientHandler = new ClientHandler();
+
+    /* The connected client or null, if no client is connected. */
+    private final AtomicReference<Channel> client = new AtomicReference<>();
+
+    /* The event loop group of the server, the client and the device (guarded by this). */
+    private EventLoopGroup eventLoopGroup;
+
+    /* The channel of the server or null, if the bridge is not started (guarded by this). */
+    private Channel serverChannel;
+
+
+    /**
+     * A raw serial-over-TCP bridge, which listens on the given port of all interfaces.
+     *
+     * @param serialPort The address of the serial port of the WaterRower, must not be null.
+     * @param port The TCP port of the bridge (0 .. 65535), 0 for an ephemeral port.
+     */
+    public TcpSerialBridge(SerialDeviceAddress serialPort, int port) {
+        this(serialPort, SerialChannel::new, new InetSocketAddress(checkPort(port)));
+    }
+
+    /**
+     * A raw serial-over-TCP bridge for the given device. The channels of the device must be
+     * compatible with a NIO event loop (e.g. SerialChannel, EmulatorChannel).
+     *
+     * @param deviceAddress The address of the device (e.g. the serial port), must not be null.
+     * @param deviceChannelFactory The factory for the channels of the device (e.g. SerialChannel::new),
+     *                             must not be null.
+     * @param localAddress The local address of the bridge, must not be null.
+     */
+    public TcpSerialBridge(SocketAddress deviceAddress, ChannelFactory<? extends Channel> deviceChannelFactory,
+                           InetSocketAddress localAddress) {
+        this.deviceAddress = requireNonNull(deviceAddress);
+        this.deviceChannelFactory = requireNonNull(deviceChannelFactory);
+        this.localAddress = requireNonNull(localAddress);
+    }
+
+    /* Returns the given port, if it is between 0 and 65535. */
+    private static int checkPort(int port) {
+        if ((port < 0) || (port > 65535))
+            throw new IllegalArgumentException("The port must be between 0 and 65535!");
+        return port;
+    }
+
+
+    /**
+     * Starts the bridge. The bridge listens for clients, until it is stopped.
+     *
+     * @throws IOException If the local address couldn't be bound.
+     */
+    public synchronized void start() throws IOException {
+        if (serverChannel != null)
+            throw new IllegalStateException("The bridge is already started!");
+
+        eventLoopGroup = new MultiThreadIoEventLoopGroup(1, new DefaultThreadFactory("waterrower-bridge", true), NioIoHandler.newFactory());
+
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .childOption(AUTO_READ, false)
+                .childOption(TCP_NODELAY, true)
+                .childOption(SO_KEEPALIVE, true)
+                .childHandler(clientHandler);
+
+        ChannelFuture future = bootstrap.bind(localAddress).awaitUninterruptibly();
+        if (!future.isSuccess()) {
+            eventLoopGroup.shutdownGracefully(0, SHUTDOWN_TIMEOUT, SECONDS);
+            eventLoopGroup = null;
+            throw new IOException("Can not bind the bridge to '" + localAddress + "'!", future.cause());
+        }
+        serverChannel = future.channel();
+
+        Log.info("Bridge of '{}' started.", deviceAddress);
+    }
+
+    /**
+     * Stops the bridge. The connected client is disconnected and the serial port is closed.
+     */
+    public synchronized void stop() {
+        if (serverChannel == null)
+            return;
+
+        serverChannel.close().awaitUninterruptibly();
+        Channel channel = client.get();
+        if (channel != null)
+            channel.close().awaitUninterruptibly();
+
+        eventLoopGroup.shutdownGracefully(0, SHUTDOWN_TIMEOUT, SECONDS).awaitUninterruptibly();
+
+        serverChannel = null;
+        eventLoopGroup = null;
+
+        Log.info("Bridge of '{}' stopped.", deviceAddress);
+    }
+
+
+    /**
+     * Returns the local address of the bridge, e.g. to get the ephemeral port.
+     *
+     * @return The bound address or null, if the bridge is not started.
+     */
+    public synchronized InetSocketAddress getLocalAddress() {
+        return (serverChannel == null) ? null : (InetSocketAddress) serverChannel.localAddress();
+    }
+
+    /**
+     * Returns true if a client is connected.
+     *
+     * @return True if a client is connected.
+     */
+    public boolean isClientConnected() {
+        return client.get() != null;
+    }
+
+
+    /* Accepts a client, if no other client is connected, and connects the device. */
+    @Sharable
+    private final class ClientHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            Channel channel = ctx.channel();
+            if (!client.compareAndSet(null, channel)) {
+                Log.warn("Client '{}' rejected, because another client is connected.", channel.remoteAddress());
+                channel.close();
+                return;
+            }
+
+            Log.debug("Client '{}' connected. Connecting device...", channel.remoteAddress());
+            connectDevice(channel);
+
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (client.compareAndSet(ctx.channel(), null))
+                Log.debug("Client '{}' disconnected.", ctx.channel().remoteAddress());
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            Log.error("Unexpected exception in the connection to the client!", cause);
+            ctx.close();
+        }
+    }
+
+    /* Connects the device and relays the bytes between the client and the device. */
+    private void connectDevice(Channel clientChannel) {
+        new Bootstrap()
+                .group(clientChannel.eventLoop())
+                .channelFactory(deviceChannelFactory)
+                .handler(new io.netty.channel.ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel deviceChannel) {
+                        if (deviceChannel instanceof SerialChannel)
+                            ChannelInitializer.configureSerialChannel((SerialChannel) deviceChannel);
+                        deviceChannel.pipeline().addLast("relay", new RelayHandler(clientChannel));
+                    }
+                })
+                .connect(deviceAddress)
+                .addListener((ChannelFutureListener) future -> {
+                    if (!future.isSuccess()) {
+                        Log.error("Can not connect to '" + deviceAddress + "'! Client disconnected.", future.cause());
+                        clientChannel.close();
+                        return;
+                    }
+
+                    Channel deviceChannel = future.channel();
+                    clientChannel.pipeline().addLast("relay", new RelayHandler(deviceChannel));
+                    clientChannel.config().setAutoRead(true);
+
+                    // The client may have disconnected while the device was connected:
+                    if (!clientChannel.isActive())
+                        deviceChannel.close();
+
+                    Log.debug("Device '{}' connected.", deviceAddress);
+                });
+    }
+
+
+    /* Relays the received bytes to the other channel and closes the other channel, if the
+       channel is closed. */
+    private static final class RelayHandler extends ChannelInboundHandlerAdapter {
+
+        /* The channel, which receives the bytes. */
+        private final Channel target;
+
+        RelayHandler(Channel target) {
+            this.target = target;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (target.isActive()) {
+                target.write(msg, target.voidPromise());
+            } else {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            target.flush();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            target.close();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            Log.error("Unexpected exception in the bridge!", cause);
+            ctx.close();
+        }
+    }
+
+}
@@ -1,25 +1,40 @@
 package de.tbressler.waterrower.io.codec;
 
 import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
+import de.tbressler.waterrower.io.trace.WireTrace;
 import de.tbressler.waterrower.log.Log;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 
+import static de.tbressler.waterrower.io.trace.WireTrace.Direction.OUTBOUND;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.util.Objects.requireNonNull;
 
 /**
  * Encodes messages (msg > byte).
  *
+ * The messages are encoded by the parser directly into the outbound buffer, which is allocated
+ * by the allocator of the channel. The frames of read requests are shared by the parser and only
+ * copied into the buffer. The encoded frames are recorded in the wire trace (if set).
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
 public class MessageFrameEncoder extends MessageToByteEncoder {
 
+    /* The delimiter of a frame (CR LF). */
+    private static final int FRAME_DELIMITER = 0x0D0A;
+
+
     /* The message parser. */
     private final MessageParser parser;
 
+    /* The wire trace, which records the sent frames (or null). */
+    private final WireTrace wireTrace;
+
 
     /**
      * Constructor.
@@ -27,7 +42,19 @@ public class MessageFrameEncoder extends MessageToByteEncoder {
      * @param parser The message parser, must not be null.
      */
     public MessageFrameEncoder(MessageParser parser) {
+        this(parser, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param parser The message parser, must not be null.
+     * @param wireTrace The wire trace, which records the sent frames. If null, the frames are not
+     *                  recorded.
+     */
+    public MessageFrameEncoder(MessageParser parser, WireTrace wireTrace) {
         this.parser = requireNonNull(parser);
+        this.wireTrace = wireTrace;
     }
 
     @Override
@@ -39,22 +66,38 @@ public class MessageFrameEncoder extends MessageToByteEncoder {
             throw e;
         }
 
-        // Parse the message:
-        byte[] byteArray = parser.encode((AbstractMessage) msg);
-        if (byteArray == null) {
+        // Write the shared frame of a read, without encoding the message again:
+        if (isReadRequest(msg)) {
+            ByteBuf frame = parser.encodeFrame((ReadMemoryMessage) msg);
+            if (frame != null) {
+                int start = out.writerIndex();
+                out.writeBytes(frame, frame.readerIndex(), frame.readableBytes());
+                if (wireTrace != null)
+                    wireTrace.record(OUTBOUND, out, start, frame.readableBytes() - 2);
+                return;
+            }
+        }
+
+        // Parse the message and write the bytes to the buffer:
+        int start = out.writerIndex();
+        if (!parser.encode((AbstractMessage) msg, out)) {
             Log.warn("Message couldn't been encoded! Skipped message.");
             return;
         }
+        int length = out.writerIndex() - start;
+
+        out.writeShort(FRAME_DELIMITER);
 
-        // Write bytes to channel.
-        out.writeBytes(byteArray);
-        out.writeByte(0x0D);
-        out.writeByte(0x0A);
+        if (wireTrace != null)
+            wireTrace.record(OUTBOUND, out, start, length);
 
-        Log.debug("Message buffer encoded and written:\n" +
-                " As String: >" + new String(byteArray, US_ASCII) + "<");
+        if (Log.isDebugEnabled())
+            Log.debug("Message buffer encoded and written:\n As String: >{}<", out.toString(start, length, US_ASCII));
+    }
 
-        ctx.writeAndFlush(out);
+    /* Returns true if the message is a request to read memory locations. */
+    private static boolean isReadRequest(Object msg) {
+        return (msg instanceof ReadMemoryMessage) && !(msg instanceof DataMemoryMessage);
     }
 
 }
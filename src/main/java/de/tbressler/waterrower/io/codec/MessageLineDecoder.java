@@ -0,0 +1,169 @@
+package de.tbressler.waterrower.io.codec;
+
+import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.trace.WireTrace;
+import de.tbressler.waterrower.log.Log;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.util.List;
+
+import static de.tbressler.waterrower.io.trace.WireTrace.Direction.INBOUND;
+import static io.netty.util.ByteProcessor.FIND_LF;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Splits the received bytes into lines and decodes every line to a message (byte > msg).
+ *
+ * The decoder combines the framing of a DelimiterBasedFrameDecoder with line delimiters and the
+ * decoding of the frames in a single handler:
+ * - A line is terminated by LF or CR LF, the delimiter is not part of the message.
+ * - The received bytes are scanned only once, the bytes of an incomplete line are not scanned
+ *   again when more bytes are received.
+ * - The message is decoded directly from the received buffer, no frame buffer (slice or copy) is
+ *   created for a line.
+ * - Lines which are longer than the maximum frame length are discarded and a
+ *   TooLongFrameException is thrown.
+ * - The received frames are recorded in the wire trace (if set), before they are decoded.
+ * - The receive time (System.nanoTime()) is captured once per read and set on every decoded
+ *   message and every recorded frame of the read (see AbstractMessage.getReceivedNanos()).
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class MessageLineDecoder extends ByteToMessageDecoder {
+
+    /* The message parser. */
+    private final MessageParser parser;
+
+    /* The maximum length of a single frame (without delimiter). */
+    private final int maxFrameLength;
+
+    /* The wire trace, which records the received frames (or null). */
+    private final WireTrace wireTrace;
+
+    /* The number of bytes after the reader index, which were already scanned for a delimiter. */
+    private int scannedBytes;
+
+    /* True if the bytes are discarded until the next delimiter, because the frame is too long. */
+    private boolean discarding;
+
+    /* The System.nanoTime() when the bytes of the current read were received. */
+    private long receivedNanos;
+
+
+    /**
+     * Constructor.
+     *
+     * @param parser The message parser, must not be null.
+     * @param maxFrameLength The maximum length of a single frame (without delimiter), must be
+     *                       greater than 0.
+     */
+    public MessageLineDecoder(MessageParser parser, int maxFrameLength) {
+        this(parser, maxFrameLength, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param parser The message parser, must not be null.
+     * @param maxFrameLength The maximum length of a single frame (without delimiter), must be
+     *                       greater than 0.
+     * @param wireTrace The wire trace, which records the received frames. If null, the frames are
+     *                  not recorded.
+     */
+    public MessageLineDecoder(MessageParser parser, int maxFrameLength, WireTrace wireTrace) {
+        this.parser = requireNonNull(parser);
+        if (maxFrameLength < 1)
+            throw new IllegalArgumentException("The maximum frame length must be greater than 0!");
+        this.maxFrameLength = maxFrameLength;
+        this.wireTrace = wireTrace;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        receivedNanos = System.nanoTime();
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws TooLongFrameException {
+
+        int start = in.readerIndex();
+        int end = in.writerIndex();
+
+        // Only scan the bytes, which weren't scanned yet:
+        int eol = in.forEachByte(start + scannedBytes, end - start - scannedBytes, FIND_LF);
+
+        if (eol < 0) {
+            scannedBytes = end - start;
+            if (scannedBytes > maxFrameLength)
+                discardTooLongFrame(in);
+            return;
+        }
+
+        scannedBytes = 0;
+
+        if (discarding) {
+            discarding = false;
+            in.readerIndex(eol + 1);
+            return;
+        }
+
+        int frameEnd = ((eol > start) && (in.getByte(eol - 1) == '\r')) ? eol - 1 : eol;
+        int frameLength = frameEnd - start;
+
+        if ((wireTrace != null) && (frameLength > 0))
+            wireTrace.record(INBOUND, in, start, frameLength, receivedNanos);
+
+        if (frameLength > maxFrameLength) {
+            in.readerIndex(eol + 1);
+            throw tooLongFrame(frameLength);
+        }
+
+        if (frameLength == 0) {
+            Log.warn("No bytes in message buffer! Skipping frame.");
+            in.readerIndex(eol + 1);
+            return;
+        }
+
+        // Decode the message directly from the buffer. The writer index is moved to the end of
+        // the frame, so that the readable bytes of the buffer are the bytes of the frame:
+        AbstractMessage decodedMessage;
+        try {
+            in.writerIndex(frameEnd);
+            decodedMessage = parser.decode(in, receivedNanos);
+        } finally {
+            in.writerIndex(end);
+            in.readerIndex(eol + 1);
+        }
+
+        if (decodedMessage == null) {
+            Log.warn("Couldn't decode bytes to message! Skipping it.");
+            return;
+        }
+
+        out.add(decodedMessage);
+    }
+
+    /* Discards the received bytes of a frame, which is too long, until the next delimiter. */
+    private void discardTooLongFrame(ByteBuf in) throws TooLongFrameException {
+        int length = in.readableBytes();
+        in.skipBytes(length);
+        scannedBytes = 0;
+
+        if (discarding)
+            return;
+
+        discarding = true;
+        throw tooLongFrame(length);
+    }
+
+    /* Returns the exception for a frame, which is too long. */
+    private TooLongFrameException tooLongFrame(int frameLength) {
+        return new TooLongFrameException("The frame length exceeds " + maxFrameLength + ": " + frameLength + " - discarded");
+    }
+
+}
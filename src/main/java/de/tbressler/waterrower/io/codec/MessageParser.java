@@ -4,30 +4,73 @@ import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.IMessageInterpreter;
 import de.tbressler.waterrower.io.msg.in.DecodeErrorMessage;
 import de.tbressler.waterrower.io.msg.interpreter.*;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
 import de.tbressler.waterrower.log.Log;
+import io.netty.buffer.ByteBuf;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import static de.tbressler.waterrower.io.msg.AbstractMessage.NOT_RECEIVED;
+import static de.tbressler.waterrower.io.msg.out.ReadMemoryMessage.NUMBER_OF_KEYS;
+import static de.tbressler.waterrower.io.msg.out.ReadMemoryMessage.keyOf;
+import static de.tbressler.waterrower.io.utils.ByteUtils.startsWith;
+import static io.netty.buffer.ByteBufUtil.getBytes;
+import static io.netty.buffer.Unpooled.buffer;
+import static io.netty.buffer.Unpooled.unreleasableBuffer;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.util.Objects.requireNonNull;
 
 /**
  * Decodes and encodes messages received from or sent to the WaterRower S4/S5 monitor.
  *
+ * The interpreters are looked up by dispatch tables instead of asking every interpreter:
+ * - Decoding uses a table indexed by the first byte of the message identifiers.
+ * - Encoding uses a map indexed by the class of the message. It is filled on first use of a
+ *   message class, therefore IMessageInterpreter.isSupported() must only depend on the class
+ *   of the message.
+ *
+ * Messages are encoded directly into a ByteBuf (see encode(AbstractMessage, ByteBuf)), the
+ * interpreters write their ASCII bytes without creating Strings.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
 public class MessageParser {
 
+    /* Index of the decode table for empty frames. */
+    private static final int EMPTY_FRAME = 256;
+
+    /* Empty list of interpreters. */
+    private static final IMessageInterpreter[] NO_INTERPRETERS = new IMessageInterpreter[0];
+
+    /* The delimiter of a frame (CR LF). */
+    private static final byte[] FRAME_DELIMITER = { 0x0D, 0x0A };
+
+
     /* List of message interpreters. */
-    private List<IMessageInterpreter> interpreters = new ArrayList<>();
+    private final List<IMessageInterpreter> interpreters;
+
+    /* The interpreters for decoding, indexed by the first byte of the message identifier. */
+    private final IMessageInterpreter[][] decodeTable = new IMessageInterpreter[EMPTY_FRAME + 1][];
+
+    /* The interpreters for encoding, indexed by the class of the message. */
+    private final Map<Class<?>, IMessageInterpreter[]> encodeTable = new ConcurrentHashMap<>();
+
+    /* The encoded frames of the read memory messages, by key of the read (see
+       ReadMemoryMessage.keyOf(Memory, int)). */
+    private final AtomicReferenceArray<ByteBuf> readFrames = new AtomicReferenceArray<>(NUMBER_OF_KEYS);
 
 
     /**
      * Decodes and encodes messages received from or sent to the WaterRower S4/S5 monitor.
      */
     public MessageParser() {
+        this.interpreters = new ArrayList<>();
         createAndAddMessageInterpreters();
     }
 
@@ -44,6 +87,28 @@ public class MessageParser {
         interpreters.add(new ConfigureWorkoutMessageInterpreter());
         interpreters.add(new StartCommunicationMessageInterpreter());
         interpreters.add(new ExitCommunicationMessageInterpreter());
+
+        createDecodeTable();
+    }
+
+    /* Sorts the interpreters by the first byte of their message identifier. The order of the
+       interpreters is kept within each table entry. */
+    private void createDecodeTable() {
+        for (int b = 0; b < decodeTable.length; b++) {
+
+            List<IMessageInterpreter> entry = new ArrayList<>();
+
+            for (IMessageInterpreter interpreter : interpreters) {
+                String msgIdentifier = interpreter.getMessageIdentifier();
+                if (msgIdentifier == null)
+                    continue;
+                // An empty identifier matches all messages.
+                if (msgIdentifier.isEmpty() || ((msgIdentifier.charAt(0) & 0xFF) == b))
+                    entry.add(interpreter);
+            }
+
+            decodeTable[b] = entry.isEmpty() ? NO_INTERPRETERS : entry.toArray(NO_INTERPRETERS);
+        }
     }
 
     /* For testing purposes only! Returns all interpreters. */
@@ -59,6 +124,7 @@ public class MessageParser {
      */
     MessageParser(List<IMessageInterpreter> interpreters) {
         this.interpreters = requireNonNull(interpreters);
+        createDecodeTable();
     }
 
 
@@ -70,29 +136,54 @@ public class MessageParser {
      * @return The message object or a DecodeErrorMessage.
      */
     public AbstractMessage decode(byte[] bytes) {
+        return decode(wrappedBuffer(bytes));
+    }
+
+
+    /**
+     * Decodes the readable bytes of the given buffer to a message object. Returns a DecodeErrorMessage
+     * if the message couldn't be decoded. The values are read directly from the buffer, the reader
+     * index of the buffer is not modified.
+     *
+     * @param buffer The buffer, must not be null.
+     * @return The message object or a DecodeErrorMessage.
+     */
+    public AbstractMessage decode(ByteBuf buffer) {
+        return decode(buffer, NOT_RECEIVED);
+    }
+
+    /**
+     * Decodes the readable bytes of the given buffer to a message object and sets the time, when
+     * the frame was received, on the message. Returns a DecodeErrorMessage if the message couldn't
+     * be decoded. The values are read directly from the buffer, the reader index of the buffer is
+     * not modified.
+     *
+     * @param buffer The buffer, must not be null.
+     * @param receivedNanos The System.nanoTime() when the frame was received or NOT_RECEIVED.
+     * @return The message object or a DecodeErrorMessage.
+     */
+    public AbstractMessage decode(ByteBuf buffer, long receivedNanos) {
+        requireNonNull(buffer);
 
         Log.debug("Parsing message to object.");
 
-        String msg = new String(bytes, US_ASCII);
+        int firstByte = buffer.isReadable() ? buffer.getUnsignedByte(buffer.readerIndex()) : EMPTY_FRAME;
+        IMessageInterpreter[] candidates = decodeTable[firstByte];
 
-        String msgIdentifier;
-        for (IMessageInterpreter interpreter : interpreters) {
+        for (IMessageInterpreter interpreter : candidates) {
 
             // Check message identifiers:
-            msgIdentifier = interpreter.getMessageIdentifier();
-            if (msgIdentifier == null)
-                continue;
-            if (!msg.startsWith(msgIdentifier))
+            if (!startsWith(buffer, interpreter.getMessageIdentifier()))
                 continue;
 
             // Decode message to an object:
-            AbstractMessage decodedMsg = interpreter.decode(msg);
+            AbstractMessage decodedMsg = interpreter.decode(buffer, receivedNanos);
 
             if (decodedMsg != null)
                 return decodedMsg;
         }
 
-        return new DecodeErrorMessage(msg);
+        return new DecodeErrorMessage(buffer.toString(US_ASCII), receivedNanos);
     }
 
 
@@ -103,27 +194,87 @@ public class MessageParser {
      * @param msg The message.
      * @return The byte array or null.
      */
-    @SuppressWarnings("unchecked")
     public byte[] encode(AbstractMessage msg) {
+        ByteBuf buffer = buffer();
+        if (!encode(msg, buffer))
+            return null;
+        return getBytes(buffer);
+    }
+
+    /**
+     * Encodes the given message and writes the bytes (without delimiter) to the given buffer.
+     * Returns false if the message couldn't be encoded, nothing is written to the buffer in this
+     * case.
+     *
+     * @param msg The message.
+     * @param out The buffer, must not be null.
+     * @return True if the message was encoded.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean encode(AbstractMessage msg, ByteBuf out) {
+        requireNonNull(out);
 
-        Log.debug("Parsing message '"+msg.toString()+"' to bytes.");
+        Log.debug("Parsing message '{}' to bytes.", msg);
 
-        for (IMessageInterpreter interpreter : interpreters) {
+        // Lookup first, because the lambda of computeIfAbsent is created on every call:
+        IMessageInterpreter[] candidates = encodeTable.get(msg.getClass());
+        if (candidates == null)
+            candidates = encodeTable.computeIfAbsent(msg.getClass(), c -> findSupportingInterpreters(msg));
 
-            // Check if message type matches:
-            if (!interpreter.isSupported(msg))
-                continue;
+        int writerIndex = out.writerIndex();
+
+        for (IMessageInterpreter interpreter : candidates) {
 
             // Encode object to message:
-            String encodedMsg = interpreter.encode(msg);
+            if (interpreter.encode(msg, out))
+                return true;
 
-            if (encodedMsg != null)
-                return encodedMsg.getBytes(US_ASCII);
+            // Discard the bytes of an interpreter, which failed:
+            out.writerIndex(writerIndex);
         }
 
-        Log.warn("Message couldn't be encoded! Unknown message type '"+msg.getClass().getName()+"'.");
+        Log.warn("Message couldn't be encoded! Unknown message type '{}'.", msg.getClass().getName());
 
-        return null;
+        return false;
+    }
+
+    /**
+     * Returns the encoded frame (including the delimiter CR LF) of the given read memory message.
+     * The frame is encoded on first use and shared afterwards, because the bytes of a read never
+     * change. The returned buffer is read-only and must not be released, the reader index of the
+     * buffer must not be modified (e.g. use ByteBuf.writeBytes(frame, index, length)).
+     *
+     * @param msg The read memory message, must not be null.
+     * @return The frame or null if the message couldn't be encoded.
+     */
+    public ByteBuf encodeFrame(ReadMemoryMessage msg) {
+        requireNonNull(msg);
+
+        int key = keyOf(msg.getMemory(), msg.getLocation());
+
+        ByteBuf frame = readFrames.get(key);
+        if (frame != null)
+            return frame;
+
+        ByteBuf bytes = buffer(8);
+        if (!encode(msg, bytes))
+            return null;
+        bytes.writeBytes(FRAME_DELIMITER);
+
+        frame = unreleasableBuffer(bytes.asReadOnly());
+        readFrames.compareAndSet(key, null, frame);
+
+        return readFrames.get(key);
+    }
+
+    /* Returns the interpreters which support the type of the given message. */
+    private IMessageInterpreter[] findSupportingInterpreters(AbstractMessage msg) {
+        List<IMessageInterpreter> result = new ArrayList<>();
+        for (IMessageInterpreter interpreter : interpreters) {
+            if (interpreter.isSupported(msg))
+                result.add(interpreter);
+        }
+        return result.isEmpty() ? NO_INTERPRETERS : result.toArray(NO_INTERPRETERS);
     }
 
 }
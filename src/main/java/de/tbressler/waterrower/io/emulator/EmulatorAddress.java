@@ -0,0 +1,115 @@
+package de.tbressler.waterrower.io.emulator;
+
+import de.tbressler.waterrower.model.MonitorType;
+
+import java.net.SocketAddress;
+
+import static de.tbressler.waterrower.model.MonitorType.WATER_ROWER_S4;
+import static de.tbressler.waterrower.model.MonitorType.WATER_ROWER_S5;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The address of an emulated S4/S5 monitor (see EmulatorChannel), which consists of the name of
+ * the emulator, the type of the monitor and the parameters of the rowing model.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class EmulatorAddress extends SocketAddress {
+
+    private static final long serialVersionUID = -3160524721043925126L;
+
+    /* The default strokes per minute. */
+    private static final int DEFAULT_STROKE_RATE = 24;
+
+    /* The default velocity in m/s (about 2:05 min/500 m). */
+    private static final double DEFAULT_VELOCITY = 4.0D;
+
+
+    /* The name of the emulator. */
+    private final String name;
+
+    /* The type of the monitor. */
+    private final MonitorType monitorType;
+
+    /* The strokes per minute or 0, if the emulator doesn't row. */
+    private final int strokeRate;
+
+    /* The velocity in m/s. */
+    private final double velocity;
+
+
+    /**
+     * The address of an emulated S4 monitor, which rows with 24 strokes per minute and 4 m/s.
+     *
+     * @param name The name of the emulator, must not be null.
+     */
+    public EmulatorAddress(String name) {
+        this(name, WATER_ROWER_S4, DEFAULT_STROKE_RATE, DEFAULT_VELOCITY);
+    }
+
+    /**
+     * The address of an emulated S4/S5 monitor.
+     *
+     * @param name The name of the emulator, must not be null.
+     * @param monitorType The type of the monitor (WATER_ROWER_S4 or WATER_ROWER_S5), must not be null.
+     * @param strokeRate The strokes per minute (0 .. 60), 0 if the emulator doesn't row.
+     * @param velocity The velocity in m/s (0 .. 10).
+     */
+    public EmulatorAddress(String name, MonitorType monitorType, int strokeRate, double velocity) {
+        this.name = requireNonNull(name);
+        this.monitorType = requireNonNull(monitorType);
+        if ((monitorType != WATER_ROWER_S4) && (monitorType != WATER_ROWER_S5))
+            throw new IllegalArgumentException("The monitor type must be WATER_ROWER_S4 or WATER_ROWER_S5!");
+        if ((strokeRate < 0) || (strokeRate > 60))
+            throw new IllegalArgumentException("The stroke rate must be between 0 and 60!");
+        if (!(velocity >= 0) || (velocity > 10))
+            throw new IllegalArgumentException("The velocity must be between 0 and 10!");
+        this.strokeRate = strokeRate;
+        this.velocity = velocity;
+    }
+
+
+    /**
+     * Returns the name of the emulator.
+     *
+     * @return The name, never null.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the type of the monitor.
+     *
+     * @return The type of the monitor, never null.
+     */
+    public MonitorType getMonitorType() {
+        return monitorType;
+    }
+
+    /**
+     * Returns the strokes per minute.
+     *
+     * @return The strokes per minute or 0, if the emulator doesn't row.
+     */
+    public int getStrokeRate() {
+        return strokeRate;
+    }
+
+    /**
+     * Returns the velocity.
+     *
+     * @return The velocity in m/s.
+     */
+    public double getVelocity() {
+        return velocity;
+    }
+
+
+    @Override
+    public String toString() {
+        return "emulator(" + name + ")";
+    }
+
+}
@@ -0,0 +1,253 @@
+package de.tbressler.waterrower.io.emulator;
+
+import de.tbressler.waterrower.io.transport.AbstractInProcessChannel;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.concurrent.ScheduledFuture;
+
+import static de.tbressler.waterrower.io.emulator.RowingModel.TICK_MILLIS;
+import static de.tbressler.waterrower.io.utils.ByteUtils.writeAch;
+import static de.tbressler.waterrower.model.MemoryLocation.FMISC_FLAGS;
+import static de.tbressler.waterrower.model.MonitorType.WATER_ROWER_S5;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A channel, which emulates a WaterRower S4/S5 monitor (see EmulatorAddress) instead of reading
+ * from a serial port. The channel can be used with the regular pipeline (see ChannelInitializer)
+ * and a live WaterRower, e.g. for load tests with many WaterRowers in one JVM.
+ *
+ * The channel answers the requests like a monitor:
+ * - "USB" is answered with the hardware type "_WR_" and starts the communication.
+ * - "IV?" is answered with the model information "IV40210" (or "IV50210" for a S5).
+ * - "IRS", "IRD" and "IRT" are answered with "IDS", "IDD" and "IDT" from the memory (see
+ *   MemoryMap).
+ * - "WSI", "WSU", "WII", "WIU" and "WIN" configure the workout and are answered with "OK".
+ * - "RESET" resets the rowing model and is answered with "OK".
+ * - "EXIT" stops the communication.
+ * All other requests are answered with "ERROR".
+ *
+ * While the communication is started, the channel sends a "PING" every second and the frames of
+ * the rowing model (see RowingModel). The rowing model is advanced every 25 ms, as long as the
+ * channel is connected. The frames of a tick are fired as a single read.
+ *
+ * The channel must be registered at a single threaded event loop (e.g. the event loop of a
+ * WaterRowerRuntime), which can be shared with other channels.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class EmulatorChannel extends AbstractInProcessChannel {
+
+    /* The number of ticks between two pings. */
+    private static final int TICKS_PER_PING = 1000 / TICK_MILLIS;
+
+    /* The bit of the flag "PC connected" in FMISC_FLAGS. */
+    private static final int PC_CONNECTED = 1 << 3;
+
+    /* The frames, which are sent by the emulator. */
+    private static final byte[] HARDWARE_TYPE = "_WR_\r\n".getBytes(US_ASCII);
+    private static final byte[] PING = "PING\r\n".getBytes(US_ASCII);
+    private static final byte[] ACKNOWLEDGE = "OK\r\n".getBytes(US_ASCII);
+    private static final byte[] ERROR = "ERROR\r\n".getBytes(US_ASCII);
+    private static final byte[] DELIMITER = "\r\n".getBytes(US_ASCII);
+
+    /* The prefixes of the memory answers, indexed by the number of bytes - 1. */
+    private static final byte[][] DATA_MEMORY = {
+            "IDS".getBytes(US_ASCII),
+            "IDD".getBytes(US_ASCII),
+            "IDT".getBytes(US_ASCII)
+    };
+
+    /* Advances the rowing model, always executed on the event loop. */
+    private final Runnable tickTask = this::tick;
+
+    /* Fires the pending answers, always executed on the event loop. */
+    private final Runnable answerTask = this::fireAnswers;
+
+    private EmulatorAddress address;
+
+    /* The memory and the rowing model of the monitor, only used on the event loop. */
+    private final MemoryMap memory = new MemoryMap();
+    private RowingModel model;
+
+    /* The answers, which are not fired yet or null. */
+    private ByteBuf answers;
+
+    /* True if the communication was started by "USB". */
+    private boolean isCommunicating;
+
+    /* The number of ticks since the connect. */
+    private long ticks;
+
+    /* The scheduled ticks. */
+    private ScheduledFuture<?> tickFuture;
+
+
+    /**
+     * A channel, which emulates a WaterRower S4/S5 monitor.
+     */
+    public EmulatorChannel() {
+        super("emulator");
+    }
+
+    @Override
+    protected void onClose() {
+        isCommunicating = false;
+        if (tickFuture != null)
+            tickFuture.cancel(false);
+        if (answers != null) {
+            answers.release();
+            answers = null;
+        }
+    }
+
+
+    /* Connects the channel with the emulator and starts the rowing model. */
+    @Override
+    protected void doConnect(SocketAddress remoteAddress) throws IOException {
+        if (!(remoteAddress instanceof EmulatorAddress))
+            throw new IOException("The address of an emulator channel must be an emulator address!");
+        address = (EmulatorAddress) remoteAddress;
+        model = new RowingModel(memory, address.getStrokeRate(), address.getVelocity());
+        tickFuture = eventLoop().scheduleAtFixedRate(tickTask, TICK_MILLIS, TICK_MILLIS, MILLISECONDS);
+    }
+
+
+    /* Answers the request like a monitor. */
+    @Override
+    protected void handleRequest(String frame) {
+        if (frame.equals("USB")) {
+            isCommunicating = true;
+            setPcConnected();
+            answer(HARDWARE_TYPE);
+        } else if (frame.equals("EXIT")) {
+            isCommunicating = false;
+        } else if (!isCommunicating) {
+            // Requests are ignored, until the communication is started.
+        } else if (frame.equals("IV?")) {
+            answer("IV" + ((address.getMonitorType() == WATER_ROWER_S5) ? '5' : '4') + "0210\r\n");
+        } else if (frame.startsWith("IR") && (frame.length() == 6)) {
+            answerReadMemory(frame);
+        } else if (frame.equals("RESET")) {
+            model.reset();
+            setPcConnected();
+            answer(ACKNOWLEDGE);
+        } else if (frame.startsWith("W")) {
+            answer(configureWorkout(frame) ? ACKNOWLEDGE : ERROR);
+        } else {
+            answer(ERROR);
+        }
+    }
+
+    /* Sets the flag "PC connected" in the memory. */
+    private void setPcConnected() {
+        memory.write(FMISC_FLAGS, memory.read(FMISC_FLAGS) | PC_CONNECTED);
+    }
+
+    /* Answers a request to read the memory (IRS, IRD or IRT). */
+    private void answerReadMemory(String frame) {
+        int bytes = "SDT".indexOf(frame.charAt(2)) + 1;
+        int location = parseAch(frame, 3, 6);
+        if ((bytes == 0) || (location < 0) || (location + bytes > MemoryMap.SIZE)) {
+            answer(ERROR);
+            return;
+        }
+
+        ByteBuf out = answers();
+        out.writeBytes(DATA_MEMORY[bytes - 1]);
+        writeAch(out, location, 3);
+        for (int i = bytes - 1; i >= 0; i--)
+            writeAch(out, memory.read(location + i), 2);
+        out.writeBytes(DELIMITER);
+    }
+
+    /* Configures the workout (WSI, WSU, WII, WIU or WIN), returns true if successful. */
+    private boolean configureWorkout(String frame) {
+        if (frame.startsWith("WIN") && (frame.length() == 11)) {
+            int rest = parseAch(frame, 3, 7);
+            int limit = parseAch(frame, 7, 11);
+            return (rest >= 0) && (limit >= 0) && model.addInterval(rest, limit);
+        }
+
+        boolean isInterval = frame.startsWith("WI");
+        if (!isInterval && !frame.startsWith("WS"))
+            return false;
+
+        char unit;
+        int start;
+        if (frame.startsWith("I", 2) && (frame.length() == 8)) {
+            unit = frame.charAt(3);
+            start = 4;
+        } else if (frame.startsWith("U", 2) && (frame.length() == 7)) {
+            unit = 'U';
+            start = 3;
+        } else {
+            return false;
+        }
+
+        int limit = parseAch(frame, start, start + 4);
+        if (limit < 0)
+            return false;
+        return isInterval ? model.startIntervalWorkout(unit, limit) : model.startWorkout(unit, limit);
+    }
+
+    /* Returns the ACH value of the characters or -1, if the characters are not an ACH value. */
+    private static int parseAch(String frame, int beginIndex, int endIndex) {
+        try {
+            return Integer.parseInt(frame, beginIndex, endIndex, 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+
+    /* Appends the answer to the pending answers. */
+    private void answer(String answer) {
+        answers().writeCharSequence(answer, US_ASCII);
+    }
+
+    /* Appends the answer to the pending answers. */
+    private void answer(byte[] answer) {
+        answers().writeBytes(answer);
+    }
+
+    /* Returns the pending answers, which are fired after the write. */
+    private ByteBuf answers() {
+        if (answers == null) {
+            answers = alloc().heapBuffer();
+            eventLoop().execute(answerTask);
+        }
+        return answers;
+    }
+
+    /* Fires the pending answers as a single read. */
+    private void fireAnswers() {
+        ByteBuf buffer = answers;
+        answers = null;
+        if (buffer != null)
+            fireFrames(buffer);
+    }
+
+
+    /* Advances the rowing model and fires the frames of the tick. */
+    private void tick() {
+        if (!isActive())
+            return;
+
+        ByteBuf buffer = alloc().heapBuffer();
+        model.tick(buffer);
+        ticks++;
+
+        if (!isCommunicating) {
+            buffer.release();
+            return;
+        }
+        if (ticks % TICKS_PER_PING == 0)
+            buffer.writeBytes(PING);
+        fireFrames(buffer);
+    }
+
+}
@@ -0,0 +1,114 @@
+package de.tbressler.waterrower.io.emulator;
+
+import de.tbressler.waterrower.model.MemoryLocation;
+
+import static java.util.Arrays.fill;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The simulated memory of an emulated S4/S5 monitor (see MemoryLocation). Every location
+ * (0x000 .. 0xFFF) stores a single byte. Values with more than one byte are stored with the low
+ * byte first, like in the memory of the monitor.
+ *
+ * The memory is not thread safe, it is only used on the event loop of the emulator.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class MemoryMap {
+
+    /* The number of memory locations. */
+    static final int SIZE = 0x1000;
+
+
+    /* The bytes of the memory. */
+    private final byte[] memory = new byte[SIZE];
+
+
+    /**
+     * Returns the byte of the given memory location.
+     *
+     * @param location The memory location (0x000 .. 0xFFF).
+     * @return The byte (0 .. 255).
+     */
+    public int read(int location) {
+        return memory[checkLocation(location)] & 0xFF;
+    }
+
+    /**
+     * Returns the byte of the given memory location.
+     *
+     * @param location The memory location, must not be null.
+     * @return The byte (0 .. 255).
+     */
+    public int read(MemoryLocation location) {
+        return read(requireNonNull(location).getLocation());
+    }
+
+    /**
+     * Writes the lowest byte of the value to the given memory location.
+     *
+     * @param location The memory location (0x000 .. 0xFFF).
+     * @param value The value, only the lowest byte is written.
+     */
+    public void write(int location, int value) {
+        memory[checkLocation(location)] = (byte) value;
+    }
+
+    /**
+     * Writes the lowest byte of the value to the given memory location.
+     *
+     * @param location The memory location, must not be null.
+     * @param value The value, only the lowest byte is written.
+     */
+    public void write(MemoryLocation location, int value) {
+        write(requireNonNull(location).getLocation(), value);
+    }
+
+    /**
+     * Writes the value to the given number of memory locations, starting with the low byte at
+     * the given location.
+     *
+     * @param location The memory location of the low byte, must not be null.
+     * @param value The value, only the lowest bytes are written.
+     * @param bytes The number of bytes (1 .. 3).
+     */
+    public void write(MemoryLocation location, int value, int bytes) {
+        if ((bytes < 1) || (bytes > 3))
+            throw new IllegalArgumentException("The number of bytes must be between 1 and 3!");
+        int index = requireNonNull(location).getLocation();
+        for (int i = 0; i < bytes; i++) {
+            write(index + i, value);
+            value >>>= 8;
+        }
+    }
+
+    /**
+     * Writes the value as two decimal digits (e.g. 59 as 0x59) to the given memory location,
+     * like the values of the display clock.
+     *
+     * @param location The memory location, must not be null.
+     * @param value The value (0 .. 99).
+     */
+    public void writeDecimal(MemoryLocation location, int value) {
+        if ((value < 0) || (value > 99))
+            throw new IllegalArgumentException("The value must be between 0 and 99!");
+        write(location, ((value / 10) << 4) | (value % 10));
+    }
+
+    /**
+     * Clears all memory locations.
+     */
+    public void clear() {
+        fill(memory, (byte) 0);
+    }
+
+
+    /* Returns the location, if it is a valid memory location. */
+    private static int checkLocation(int location) {
+        if ((location < 0) || (location >= SIZE))
+            throw new IllegalArgumentException("Invalid memory location! Location must be between 0x000 and 0xFFF.");
+        return location;
+    }
+
+}
@@ -0,0 +1,340 @@
+package de.tbressler.waterrower.io.emulator;
+
+import io.netty.buffer.ByteBuf;
+
+import static de.tbressler.waterrower.io.utils.ByteUtils.writeAch;
+import static de.tbressler.waterrower.model.MemoryLocation.*;
+import static java.lang.Math.round;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A simple rowing model of an emulated S4/S5 monitor, which rows with a constant stroke rate and
+ * velocity.
+ *
+ * The model is advanced in ticks of 25 ms, which is the time base of the monitor. Every tick
+ * updates the memory (distance, display clock, strokes, velocity, watts, calories and the
+ * progress of the workout) and writes the frames, which the monitor sends on its own:
+ * - "SS" at the start of a stroke and "SE" at the end of the pull.
+ * - "P" + XX during the pull, with the number of pulses counted during the tick.
+ *
+ * A stroke is divided into a pull of a third of the stroke and the recovery. The power is derived
+ * from the velocity (P = 2.8 * v^3).
+ *
+ * The model is not thread safe, it is only used on the event loop of the emulator.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class RowingModel {
+
+    /** The duration of a tick in ms. */
+    public static final int TICK_MILLIS = 25;
+
+    /* The number of ticks per minute. */
+    private static final int TICKS_PER_MINUTE = 60_000 / TICK_MILLIS;
+
+    /* The number of pulses per meter (32 pin edges per 35 cm). */
+    private static final double PULSES_PER_METER = 32D / 0.35D;
+
+    /* Bits of the workout modes in FEXTENDED. */
+    private static final int WORKOUT_DISTANCE = 1 << 4;
+    private static final int WORKOUT_DURATION = 1 << 5;
+    private static final int WORKOUT_DISTANCE_INTERVAL = 1 << 6;
+    private static final int WORKOUT_DURATION_INTERVAL = 1 << 7;
+
+    /* The maximum number of intervals of a workout. */
+    private static final int MAX_INTERVALS = 9;
+
+    /* The tank volume in 0.1 liters. */
+    private static final int TANK_VOLUME_VALUE = 170;
+
+    /* The frames, which are sent by the model. */
+    private static final byte[] STROKE_START = "SS\r\n".getBytes(US_ASCII);
+    private static final byte[] STROKE_END = "SE\r\n".getBytes(US_ASCII);
+    private static final byte[] DELIMITER = "\r\n".getBytes(US_ASCII);
+
+
+    /* The memory of the monitor. */
+    private final MemoryMap memory;
+
+    /* The strokes per minute or 0, if the model doesn't row. */
+    private final int strokeRate;
+
+    /* The number of ticks of a stroke and of the pull. */
+    private final int strokeTicks;
+    private final int pullTicks;
+
+    /* The distance per tick in mm. */
+    private final int distancePerTick;
+
+    /* The pulses per tick during the pull. */
+    private final int pulsesPerTick;
+
+    /* The velocity in cm/s. */
+    private final int velocityCm;
+
+    /* The power in watts. */
+    private final int watts;
+
+    /* The number of ticks since the last reset. */
+    private long ticks;
+
+    /* The distance since the last reset and the total distance in mm. */
+    private long distance;
+    private long totalDistance;
+
+    /* The burned energy since the last reset in cal. */
+    private double calories;
+
+    /* The strokes since the last reset. */
+    private int strokes;
+
+    /* The strokes and the ticks, when the workout was started. */
+    private int workoutStartStrokes;
+    private long workoutStartTicks;
+    private long workoutStartDistance;
+
+    /* The number of intervals of the workout. */
+    private int intervals;
+
+
+    /**
+     * A simple rowing model.
+     *
+     * @param memory The memory of the monitor, must not be null.
+     * @param strokeRate The strokes per minute (0 .. 60), 0 if the model doesn't row.
+     * @param velocity The velocity in m/s (0 .. 10).
+     */
+    public RowingModel(MemoryMap memory, int strokeRate, double velocity) {
+        this.memory = requireNonNull(memory);
+        if ((strokeRate < 0) || (strokeRate > 60))
+            throw new IllegalArgumentException("The stroke rate must be between 0 and 60!");
+        if (!(velocity >= 0) || (velocity > 10))
+            throw new IllegalArgumentException("The velocity must be between 0 and 10!");
+
+        this.strokeRate = strokeRate;
+        boolean isRowing = (strokeRate > 0) && (velocity > 0);
+
+        strokeTicks = isRowing ? round((float) TICKS_PER_MINUTE / strokeRate) : 0;
+        pullTicks = isRowing ? Math.max(1, strokeTicks / 3) : 0;
+        distancePerTick = isRowing ? (int) round(velocity * TICK_MILLIS) : 0;
+        pulsesPerTick = isRowing ? (int) Math.min(0xFF, Math.max(1, round(distancePerTick * strokeTicks * PULSES_PER_METER / 1000D / pullTicks))) : 0;
+        velocityCm = isRowing ? (int) round(velocity * 100) : 0;
+        watts = isRowing ? (int) round(2.8D * velocity * velocity * velocity) : 0;
+
+        resetState();
+    }
+
+
+    /**
+     * Returns true if the model rows.
+     *
+     * @return True if the model rows.
+     */
+    public boolean isRowing() {
+        return strokeTicks > 0;
+    }
+
+    /**
+     * Returns the strokes per minute.
+     *
+     * @return The strokes per minute or 0, if the model doesn't row.
+     */
+    public int getStrokeRate() {
+        return strokeRate;
+    }
+
+    /**
+     * Returns the number of strokes since the last reset.
+     *
+     * @return The number of strokes.
+     */
+    public int getStrokes() {
+        return strokes;
+    }
+
+    /**
+     * Returns the distance since the last reset.
+     *
+     * @return The distance in meters.
+     */
+    public double getDistance() {
+        return distance / 1000D;
+    }
+
+
+    /**
+     * Resets the model, like the reset of the monitor. The total distance is kept.
+     */
+    public void reset() {
+        resetState();
+    }
+
+    /* Resets the state of the model, not overridable because it is called by the constructor. */
+    private void resetState() {
+        memory.clear();
+        ticks = 0;
+        distance = 0;
+        calories = 0;
+        strokes = 0;
+        workoutStartStrokes = 0;
+        workoutStartTicks = 0;
+        workoutStartDistance = 0;
+        intervals = 0;
+        memory.write(TANK_VOLUME, TANK_VOLUME_VALUE);
+        updateMemory();
+    }
+
+    /**
+     * Advances the model by one tick and writes the frames, which are sent by the monitor during
+     * the tick.
+     *
+     * @param out The buffer for the frames, must not be null.
+     */
+    public void tick(ByteBuf out) {
+        requireNonNull(out);
+
+        if (isRowing()) {
+            int phase = (int) (ticks % strokeTicks);
+            if (phase == 0) {
+                strokes++;
+                out.writeBytes(STROKE_START);
+            } else if (phase == pullTicks) {
+                out.writeBytes(STROKE_END);
+            }
+            if (phase < pullTicks) {
+                out.writeByte('P');
+                writeAch(out, pulsesPerTick, 2);
+                out.writeBytes(DELIMITER);
+            }
+
+            distance += distancePerTick;
+            totalDistance += distancePerTick;
+            calories += watts * (TICK_MILLIS / 1000D) / 4.184D;
+            ticks++;
+        }
+
+        updateMemory();
+    }
+
+
+    /**
+     * Starts a single workout.
+     *
+     * @param unit The unit of the workout ('1' = meters, '2' = miles, '3' = km, '4' = strokes,
+     *             'U' = seconds).
+     * @param limit The distance, strokes or duration of the workout (0x0001 .. 0xFFFF).
+     * @return True if the workout was started.
+     */
+    public boolean startWorkout(char unit, int limit) {
+        return startWorkout(unit, limit, false);
+    }
+
+    /**
+     * Starts an interval workout with the first interval. The next intervals are added by
+     * addInterval().
+     *
+     * @param unit The unit of the workout ('1' = meters, '2' = miles, '3' = km, '4' = strokes,
+     *             'U' = seconds).
+     * @param limit The distance, strokes or duration of the first interval (0x0001 .. 0xFFFF).
+     * @return True if the workout was started.
+     */
+    public boolean startIntervalWorkout(char unit, int limit) {
+        return startWorkout(unit, limit, true);
+    }
+
+    /* Starts a single or interval workout. */
+    private boolean startWorkout(char unit, int limit, boolean isInterval) {
+        boolean isDuration = (unit == 'U');
+        if (!isDuration && ((unit < '1') || (unit > '4')))
+            return false;
+        if ((limit < 1) || (limit > 0xFFFF))
+            return false;
+
+        int flags = isInterval ?
+                (isDuration ? WORKOUT_DURATION_INTERVAL : WORKOUT_DISTANCE_INTERVAL) :
+                (isDuration ? WORKOUT_DURATION : WORKOUT_DISTANCE);
+        memory.write(FEXTENDED, flags);
+        memory.write(WORKOUT_LIMIT_L, limit, 2);
+
+        intervals = 0;
+        if (isInterval) {
+            memory.write(WORKOUT_WORK1_L, limit, 2);
+            intervals = 1;
+        }
+        memory.write(WORKOUT_INTER, intervals);
+
+        workoutStartTicks = ticks;
+        workoutStartStrokes = strokes;
+        workoutStartDistance = distance;
+        return true;
+    }
+
+    /**
+     * Adds an interval to the interval workout.
+     *
+     * @param rest The rest before the interval in seconds or 0xFFFF for the end of the workout.
+     * @param limit The distance, strokes or duration of the interval.
+     * @return True if the interval was added or the end of the workout was accepted.
+     */
+    public boolean addInterval(int rest, int limit) {
+        if ((memory.read(FEXTENDED) & (WORKOUT_DISTANCE_INTERVAL | WORKOUT_DURATION_INTERVAL)) == 0)
+            return false;
+        if (rest == 0xFFFF)
+            return true;
+        if ((intervals >= MAX_INTERVALS) || (rest < 0) || (rest > 0xFFFF) || (limit < 1) || (limit > 0xFFFF))
+            return false;
+
+        // The rest of the previous interval and the work of the next interval:
+        int location = WORKOUT_WORK1_L.getLocation() + (intervals - 1) * 4;
+        memory.write(location + 2, rest);
+        memory.write(location + 3, rest >>> 8);
+        memory.write(location + 4, limit);
+        memory.write(location + 5, limit >>> 8);
+
+        intervals++;
+        memory.write(WORKOUT_INTER, intervals);
+        return true;
+    }
+
+
+    /* Writes the state of the model to the memory. */
+    private void updateMemory() {
+        int meters = (int) (distance / 1000);
+        int totalMeters = (int) (totalDistance / 1000);
+
+        memory.write(MS_DISTANCE_DEC, (int) (distance % 1000) / 100);
+        memory.write(MS_DISTANCE_LOW, meters, 2);
+        memory.write(DISTANCE_LOW, meters, 2);
+
+        memory.write(TOTAL_DIS_DEC, (int) (totalDistance % 1000) / 100);
+        memory.write(TOTAL_DIS_LOW, totalMeters, 2);
+
+        memory.write(STROKES_CNT_LOW, strokes, 2);
+        memory.write(STROKE_AVERAGE, strokeTicks);
+        memory.write(STROKE_PULL, pullTicks);
+
+        memory.write(M_S_LOW_TOTAL, velocityCm, 2);
+        memory.write(M_S_LOW_AVERAGE, velocityCm, 2);
+
+        memory.write(KCAL_WATTS_LOW, watts, 2);
+        memory.write(TOTAL_KCAL_LOW, (int) calories, 3);
+
+        // The display clock (tenths of seconds, seconds, minutes and hours):
+        long tenths = ticks * TICK_MILLIS / 100;
+        long seconds = tenths / 10;
+        memory.write(DISPLAY_SEC_DEC, (int) (tenths % 10));
+        memory.writeDecimal(DISPLAY_SEC, (int) (seconds % 60));
+        memory.writeDecimal(DISPLAY_MIN, (int) ((seconds / 60) % 60));
+        memory.writeDecimal(DISPLAY_HR, (int) Math.min(9, seconds / 3600));
+
+        // The progress of the workout:
+        if ((memory.read(FEXTENDED) & 0xF0) != 0) {
+            memory.write(WORKOUT_TIMEL, (int) ((ticks - workoutStartTicks) * TICK_MILLIS / 1000), 2);
+            memory.write(WORKOUT_MS_L, (int) ((distance - workoutStartDistance) / 1000), 2);
+            memory.write(WORKOUT_STROKEL, strokes - workoutStartStrokes, 2);
+        }
+    }
+
+}
@@ -2,9 +2,85 @@ package de.tbressler.waterrower.io.msg;
 
 /**
  * An abstract serial message.
- * This is the super-class of all messages that can be exchanged with the WaterRower S4 monitor.
+ * This is the super-class of all messages that can be exchanged with the WaterRower S4/S5 monitor.
+ *
+ * A received message carries the time, when its frame was received (see getReceivedNanos()).
+ * The time is captured once by the decoder with System.nanoTime(), when the bytes of the frame
+ * were read from the channel. Therefore the time is monotonic and not skewed by the dispatch
+ * of the message to the subscriptions. The epoch millis of the time are calculated with a
+ * wall-clock anchor (see toEpochMillis(long)). The receive time is set, when the message is
+ * decoded (see IMessageInterpreter.decode(ByteBuf, long)), and can't be modified afterwards.
  *
  * @author Tobias Bressler
  * @version 1.0
  */
-public class AbstractMessage {}
+public class AbstractMessage {
+
+    /** The receive time of a message, which was not received (e.g. a message which is sent). */
+    public static final long NOT_RECEIVED = Long.MIN_VALUE;
+
+    /* The epoch millis and the System.nanoTime() of the same point in time. */
+    private static final long ANCHOR_MILLIS = System.currentTimeMillis();
+    private static final long ANCHOR_NANOS = System.nanoTime();
+
+
+    /* The System.nanoTime() when the frame of the message was received. */
+    private long receivedNanos = NOT_RECEIVED;
+
+
+    /**
+     * Returns the time, when the frame of the message was received.
+     *
+     * @return The System.nanoTime() when the frame was received or NOT_RECEIVED, if the message
+     *         was not received.
+     */
+    public long getReceivedNanos() {
+        return receivedNanos;
+    }
+
+    /**
+     * Returns the time, when the frame of the message was received, in epoch millis.
+     *
+     * @return The epoch millis when the frame was received or NOT_RECEIVED, if the message was
+     *         not received.
+     */
+    public long getReceivedEpochMillis() {
+        return toEpochMillis(receivedNanos);
+    }
+
+    /**
+     * Sets the time, when the frame of the message was received. Used by the interpreters, which
+     * decode the message, and by messages, which are created from a received message (e.g.
+     * DataMemoryMessage.extract(Memory, int)).
+     *
+     * @param receivedNanos The System.nanoTime() when the frame was received.
+     */
+    protected final void setReceivedNanos(long receivedNanos) {
+        this.receivedNanos = receivedNanos;
+    }
+
+    /**
+     * Returns true if the message was received.
+     *
+     * @return True if the receive time is set.
+     */
+    public boolean isReceived() {
+        return receivedNanos != NOT_RECEIVED;
+    }
+
+
+    /**
+     * Converts the given System.nanoTime() to epoch millis. The wall-clock anchor is taken once,
+     * therefore the epoch millis of two times differ exactly by their elapsed time, even if the
+     * system clock is adjusted.
+     *
+     * @param nanos The System.nanoTime() or NOT_RECEIVED.
+     * @return The epoch millis or NOT_RECEIVED.
+     */
+    public static long toEpochMillis(long nanos) {
+        if (nanos == NOT_RECEIVED)
+            return NOT_RECEIVED;
+        return ANCHOR_MILLIS + Math.floorDiv(nanos - ANCHOR_NANOS, 1_000_000L);
+    }
+
+}
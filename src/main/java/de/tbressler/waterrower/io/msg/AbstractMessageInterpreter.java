@@ -1,9 +1,29 @@
 package de.tbressler.waterrower.io.msg;
 
+import io.netty.buffer.ByteBuf;
+
+import static io.netty.buffer.Unpooled.buffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
 /**
  * Abstract message interpreter.
  *
  * @author Tobias Bressler
  * @version 1.0
  */
-public abstract class AbstractMessageInterpreter<T extends AbstractMessage> implements IMessageInterpreter<T> {}
\ No newline at end of file
+public abstract class AbstractMessageInterpreter<T extends AbstractMessage> implements IMessageInterpreter<T> {
+
+    /**
+     * Encodes the given message object by encode(T, ByteBuf) and returns the bytes as ASCII
+     * string. Interpreters, which write the bytes directly to the buffer, can use this method to
+     * implement encode(T).
+     *
+     * @param msg The message object.
+     * @return The message as ASCII string or null if the message can not be encoded.
+     */
+    protected String encodeToString(T msg) {
+        ByteBuf buffer = buffer();
+        return encode(msg, buffer) ? buffer.toString(US_ASCII) : null;
+    }
+
+}
\ No newline at end of file
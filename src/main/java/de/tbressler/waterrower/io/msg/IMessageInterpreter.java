@@ -1,5 +1,8 @@
 package de.tbressler.waterrower.io.msg;
 
+import io.netty.buffer.ByteBuf;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Interface for message interpreters, which decode or encode incoming and outgoing messages.
@@ -32,6 +35,37 @@ public interface IMessageInterpreter<T extends AbstractMessage> {
      */
     T decode(String msg);
 
+    /**
+     * Decodes the readable bytes of the given ASCII frame to a message object. If the message can not be
+     * decoded the method returns null. The reader index of the buffer must not be modified.
+     *
+     * The default implementation converts the frame to a String and calls decode(String). Interpreters
+     * of frequently received messages should override this method and read the values directly from
+     * the buffer.
+     *
+     * @param msg The message as buffer of ASCII bytes.
+     * @return The message object or null.
+     */
+    default T decode(ByteBuf msg) {
+        return decode(msg.toString(US_ASCII));
+    }
+
+    /**
+     * Decodes the readable bytes of the given ASCII frame to a message object by decode(ByteBuf) and
+     * sets the time, when the frame was received, on the message. If the message can not be decoded
+     * the method returns null. The reader index of the buffer must not be modified.
+     *
+     * @param msg The message as buffer of ASCII bytes.
+     * @param receivedNanos The System.nanoTime() when the frame was received.
+     * @return The message object or null.
+     */
+    default T decode(ByteBuf msg, long receivedNanos) {
+        T decodedMsg = decode(msg);
+        if (decodedMsg != null)
+            decodedMsg.setReceivedNanos(receivedNanos);
+        return decodedMsg;
+    }
+
     /**
      * Encodes the given message object to a ASCII string. If the message can not be encoded the method returns null.
      *
@@ -40,4 +74,23 @@ public interface IMessageInterpreter<T extends AbstractMessage> {
      */
     String encode(T msg);
 
+    /**
+     * Encodes the given message object and writes the ASCII bytes to the given buffer. If the message can not be
+     * encoded the method returns false and nothing is written to the buffer.
+     *
+     * The default implementation calls encode(T) and writes the bytes of the string. Interpreters of
+     * frequently sent messages should override this method and write the bytes directly to the buffer.
+     *
+     * @param msg The message object.
+     * @param out The buffer, to which the ASCII bytes are written.
+     * @return True if the message was encoded.
+     */
+    default boolean encode(T msg, ByteBuf out) {
+        String encodedMsg = encode(msg);
+        if (encodedMsg == null)
+            return false;
+        out.writeCharSequence(encodedMsg, US_ASCII);
+        return true;
+    }
+
 }
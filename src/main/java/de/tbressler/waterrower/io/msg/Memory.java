@@ -9,12 +9,54 @@ package de.tbressler.waterrower.io.msg;
 public enum Memory {
 
     /* 1 byte. */
-    SINGLE_MEMORY,
+    SINGLE_MEMORY(1),
 
     /* 16 bit. */
-    DOUBLE_MEMORY,
+    DOUBLE_MEMORY(2),
 
     /* 24 bit. */
-    TRIPLE_MEMORY
+    TRIPLE_MEMORY(3);
+
+
+    /* The number of bytes. */
+    private final int numberOfBytes;
+
+
+    /**
+     * Constructor of the enum.
+     *
+     * @param numberOfBytes The number of bytes.
+     */
+    Memory(int numberOfBytes) {
+        this.numberOfBytes = numberOfBytes;
+    }
+
+
+    /**
+     * Returns the number of bytes, which are read from the memory locations.
+     *
+     * @return The number of bytes (1 .. 3).
+     */
+    public int getNumberOfBytes() {
+        return numberOfBytes;
+    }
+
+    /**
+     * Returns the memory for the given number of bytes.
+     *
+     * @param numberOfBytes The number of bytes (1 .. 3).
+     * @return The memory, never null.
+     */
+    public static Memory ofNumberOfBytes(int numberOfBytes) {
+        switch (numberOfBytes) {
+            case 1:
+                return SINGLE_MEMORY;
+            case 2:
+                return DOUBLE_MEMORY;
+            case 3:
+                return TRIPLE_MEMORY;
+        }
+        throw new IllegalArgumentException("The number of bytes must be between 1 and 3!");
+    }
 
 }
@@ -1,10 +1,12 @@
 package de.tbressler.waterrower.io.msg.in;
 
+import de.tbressler.waterrower.io.msg.Memory;
 import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static de.tbressler.waterrower.io.msg.Memory.*;
 import static de.tbressler.waterrower.utils.MessageUtils.intToAch;
+import static java.util.Objects.requireNonNull;
 
 /**
  * Value from single, double or triple memory locations (S4/S5 -> PC).
@@ -167,6 +169,51 @@ public class DataMemoryMessage extends ReadMemoryMessage {
     }
 
 
+    /**
+     * Returns a message with the values of the given memory locations, which are contained in
+     * this message (e.g. if this message was read by a merged read). The receive time of this
+     * message is kept.
+     *
+     * @param memory Single, double or triple memory locations of the returned message, must not
+     *               be null.
+     * @param location The memory location of the returned message (0 .. 4095). The memory
+     *                 locations must be contained in this message.
+     * @return The message with the values of the memory locations, never null.
+     */
+    public DataMemoryMessage extract(Memory memory, int location) {
+        requireNonNull(memory);
+        int offset = location - getLocation();
+        if ((offset < 0) || (offset + memory.getNumberOfBytes() > getMemory().getNumberOfBytes()))
+            throw new IllegalArgumentException("The memory locations must be contained in the message!");
+
+        DataMemoryMessage extracted;
+        switch (memory) {
+            case SINGLE_MEMORY:
+                extracted = new DataMemoryMessage(location, valueAt(offset));
+                break;
+            case DOUBLE_MEMORY:
+                extracted = new DataMemoryMessage(location, valueAt(offset + 1), valueAt(offset));
+                break;
+            default:
+                extracted = new DataMemoryMessage(location, valueAt(offset + 2), valueAt(offset + 1), valueAt(offset));
+        }
+        extracted.setReceivedNanos(getReceivedNanos());
+        return extracted;
+    }
+
+    /* Returns the value of the memory location at the given offset. */
+    private int valueAt(int offset) {
+        switch (offset) {
+            case 0:
+                return value1;
+            case 1:
+                return value2;
+            default:
+                return value3;
+        }
+    }
+
+
     @Override
     public String toString() {
         return toStringHelper(this)
@@ -15,6 +15,11 @@ public class DecodeErrorMessage extends AbstractMessage {
         this.message = message;
     }
 
+    public DecodeErrorMessage(String message, long receivedNanos) {
+        this(message);
+        setReceivedNanos(receivedNanos);
+    }
+
     public String getMessage() {
         return this.message;
     }
@@ -3,6 +3,7 @@ package de.tbressler.waterrower.io.msg.interpreter;
 import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.AbstractMessageInterpreter;
 import de.tbressler.waterrower.io.msg.in.AcknowledgeMessage;
+import io.netty.buffer.ByteBuf;
 
 /**
  * Interpreter for:
@@ -19,10 +20,6 @@ import de.tbressler.waterrower.io.msg.in.AcknowledgeMessage;
  */
 public class AcknowledgeMessageInterpreter extends AbstractMessageInterpreter<AcknowledgeMessage> {
 
-    /* Single instance of an acknowledge message. */
-    private final static AcknowledgeMessage ACKNOWLEDGE_MESSAGE = new AcknowledgeMessage();
-
-
     @Override
     public String getMessageIdentifier() {
         return "OK";
@@ -35,7 +32,12 @@ public class AcknowledgeMessageInterpreter extends AbstractMessageInterpreter<Ac
 
     @Override
     public AcknowledgeMessage decode(String msg) {
-        return ACKNOWLEDGE_MESSAGE;
+        return new AcknowledgeMessage();
+    }
+
+    @Override
+    public AcknowledgeMessage decode(ByteBuf msg) {
+        return new AcknowledgeMessage();
     }
 
     @Override
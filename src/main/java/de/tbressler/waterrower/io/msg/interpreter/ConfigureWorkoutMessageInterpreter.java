@@ -4,8 +4,10 @@ import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.AbstractMessageInterpreter;
 import de.tbressler.waterrower.io.msg.out.ConfigureWorkoutMessage;
 import de.tbressler.waterrower.log.Log;
+import io.netty.buffer.ByteBuf;
 
-import static de.tbressler.waterrower.utils.MessageUtils.intToAch;
+import static de.tbressler.waterrower.io.utils.ByteUtils.writeAch;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Interpreter for: ConfigureWorkoutMessage
@@ -15,6 +17,21 @@ import static de.tbressler.waterrower.utils.MessageUtils.intToAch;
  */
 public class ConfigureWorkoutMessageInterpreter extends AbstractMessageInterpreter<ConfigureWorkoutMessage> {
 
+    /* The ASCII bytes of the message prefixes. */
+    private static final byte[] SINGLE_WORKOUT = "WS".getBytes(US_ASCII);
+    private static final byte[] START_INTERVAL_WORKOUT = "WI".getBytes(US_ASCII);
+    private static final byte[] INTERVAL_WORKOUT = "WIN".getBytes(US_ASCII);
+
+    /* The ASCII bytes of the workout units, indexed by the ordinal of the unit. */
+    private static final byte[][] UNITS = {
+            "I1".getBytes(US_ASCII),
+            "I2".getBytes(US_ASCII),
+            "I3".getBytes(US_ASCII),
+            "I4".getBytes(US_ASCII),
+            "U".getBytes(US_ASCII)
+    };
+
+
     @Override
     public String getMessageIdentifier() {
         return null;
@@ -32,47 +49,37 @@ public class ConfigureWorkoutMessageInterpreter extends AbstractMessageInterpret
 
     @Override
     public String encode(ConfigureWorkoutMessage msg) {
+        return encodeToString(msg);
+    }
+
+    @Override
+    public boolean encode(ConfigureWorkoutMessage msg, ByteBuf out) {
 
         switch(msg.getMessageType()) {
             case SINGLE_WORKOUT:
-                return addUnitAndDistance(msg, "WS");
+                return writeUnitAndDistance(msg, SINGLE_WORKOUT, out);
             case START_INTERVAL_WORKOUT:
-                return addUnitAndDistance(msg, "WI");
+                return writeUnitAndDistance(msg, START_INTERVAL_WORKOUT, out);
             case ADD_INTERVAL_WORKOUT:
             case END_INTERVAL_WORKOUT:
-                return "WIN" + intToAch(msg.getRestInterval(), 4) + intToAch(msg.getDistance(), 4);
+                out.writeBytes(INTERVAL_WORKOUT);
+                writeAch(out, msg.getRestInterval(), 4);
+                writeAch(out, msg.getDistance(), 4);
+                return true;
         }
 
         Log.warn("Message couldn't be encoded!\n" +
                 " Message was: " + msg);
 
-        return null;
+        return false;
     }
 
-    /* Add unit and distance to the given string. */
-    private String addUnitAndDistance(ConfigureWorkoutMessage msg, String output) {
-
-        switch (msg.getWorkoutUnit()) {
-            case METERS:
-                output += "I1";
-                break;
-            case MILES:
-                output += "I2";
-                break;
-            case KMS:
-                output += "I3";
-                break;
-            case STROKES:
-                output += "I4";
-                break;
-            case SECONDS:
-                output += "U";
-                break;
-        }
-
-        output += intToAch(msg.getDistance(), 4);
-
-        return output;
+    /* Writes the prefix, unit and distance to the given buffer. */
+    private boolean writeUnitAndDistance(ConfigureWorkoutMessage msg, byte[] prefix, ByteBuf out) {
+        out.writeBytes(prefix);
+        out.writeBytes(UNITS[msg.getWorkoutUnit().ordinal()]);
+        writeAch(out, msg.getDistance(), 4);
+        return true;
     }
 
 }
@@ -3,6 +3,7 @@ package de.tbressler.waterrower.io.msg.interpreter;
 import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.AbstractMessageInterpreter;
 import de.tbressler.waterrower.io.msg.in.ErrorMessage;
+import io.netty.buffer.ByteBuf;
 
 /**
  * Interpreter for:
@@ -19,10 +20,6 @@ import de.tbressler.waterrower.io.msg.in.ErrorMessage;
  */
 public class ErrorMessageInterpreter extends AbstractMessageInterpreter<ErrorMessage> {
 
-    /* Single instance of an error message. */
-    private final static ErrorMessage ERROR_MESSAGE = new ErrorMessage();
-
-
     @Override
     public String getMessageIdentifier() {
         return "ERROR";
@@ -35,7 +32,12 @@ public class ErrorMessageInterpreter extends AbstractMessageInterpreter<ErrorMes
 
     @Override
     public ErrorMessage decode(String msg) {
-        return ERROR_MESSAGE;
+        return new ErrorMessage();
+    }
+
+    @Override
+    public ErrorMessage decode(ByteBuf msg) {
+        return new ErrorMessage();
     }
 
     @Override
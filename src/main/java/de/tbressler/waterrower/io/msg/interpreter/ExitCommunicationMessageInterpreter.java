@@ -3,6 +3,9 @@ package de.tbressler.waterrower.io.msg.interpreter;
 import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.AbstractMessageInterpreter;
 import de.tbressler.waterrower.io.msg.out.ExitCommunicationMessage;
+import io.netty.buffer.ByteBuf;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Interpreter for:
@@ -19,6 +22,9 @@ import de.tbressler.waterrower.io.msg.out.ExitCommunicationMessage;
  */
 public class ExitCommunicationMessageInterpreter extends AbstractMessageInterpreter<ExitCommunicationMessage> {
 
+    /* The ASCII bytes of the message. */
+    private static final byte[] EXIT_COMMUNICATION = "EXIT".getBytes(US_ASCII);
+
     @Override
     public String getMessageIdentifier() {
         return null;
@@ -39,4 +45,10 @@ public class ExitCommunicationMessageInterpreter extends AbstractMessageInterpre
         return "EXIT";
     }
 
+    @Override
+    public boolean encode(ExitCommunicationMessage msg, ByteBuf out) {
+        out.writeBytes(EXIT_COMMUNICATION);
+        return true;
+    }
+
 }
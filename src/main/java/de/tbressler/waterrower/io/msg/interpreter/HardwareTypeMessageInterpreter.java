@@ -3,6 +3,11 @@ package de.tbressler.waterrower.io.msg.interpreter;
 import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.AbstractMessageInterpreter;
 import de.tbressler.waterrower.io.msg.in.HardwareTypeMessage;
+import io.netty.buffer.ByteBuf;
+
+import static de.tbressler.waterrower.io.utils.ByteUtils.startsWith;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Interpreter for:
@@ -32,7 +37,12 @@ public class HardwareTypeMessageInterpreter extends AbstractMessageInterpreter<H
 
     @Override
     public HardwareTypeMessage decode(String msg) {
-        boolean isWaterRower = msg.startsWith("_WR_");
+        return decode(wrappedBuffer(msg.getBytes(US_ASCII)));
+    }
+
+    @Override
+    public HardwareTypeMessage decode(ByteBuf msg) {
+        boolean isWaterRower = startsWith(msg, "_WR_");
         return new HardwareTypeMessage(isWaterRower);
     }
 
@@ -10,10 +10,14 @@ import de.tbressler.waterrower.io.msg.out.RequestModelInformationMessage;
 import de.tbressler.waterrower.log.Log;
 import de.tbressler.waterrower.model.ModelInformation;
 import de.tbressler.waterrower.model.MonitorType;
+import io.netty.buffer.ByteBuf;
 
+import static de.tbressler.waterrower.io.utils.ByteUtils.achToInt;
+import static de.tbressler.waterrower.io.utils.ByteUtils.startsWith;
+import static de.tbressler.waterrower.io.utils.ByteUtils.writeAch;
 import static de.tbressler.waterrower.model.MonitorType.*;
-import static de.tbressler.waterrower.utils.MessageUtils.achToInt;
-import static de.tbressler.waterrower.utils.MessageUtils.intToAch;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Interpreter for:
@@ -76,6 +80,20 @@ import static de.tbressler.waterrower.utils.MessageUtils.intToAch;
  */
 public class InformationRequestMessageInterpreter extends AbstractMessageInterpreter<InformationRequestMessage> {
 
+    /* The ASCII bytes of the request for the model information. */
+    private static final byte[] REQUEST_MODEL_INFORMATION = "IV?".getBytes(US_ASCII);
+
+    /* The length of the current model information: [I][V] + [Model] + [Version High] + [Version Low]. */
+    private static final int MODEL_INFORMATION_LENGTH = 7;
+
+    /* The ASCII bytes of the read requests, indexed by the ordinal of the memory. */
+    private static final byte[][] READ_MEMORY = {
+            "IRS".getBytes(US_ASCII),
+            "IRD".getBytes(US_ASCII),
+            "IRT".getBytes(US_ASCII)
+    };
+
+
     @Override
     public String getMessageIdentifier() {
         return "I";
@@ -88,35 +106,50 @@ public class InformationRequestMessageInterpreter extends AbstractMessageInterpr
 
     @Override
     public InformationRequestMessage decode(String msg) {
+        return decode(wrappedBuffer(msg.getBytes(US_ASCII)));
+    }
 
-        if (msg.startsWith("IV")) {
+    @Override
+    public InformationRequestMessage decode(ByteBuf msg) {
+
+        if (startsWith(msg, "IV")) {
             return decodeModelInformationMessage(msg);
-        } else if (msg.startsWith("IDS")) {
+        } else if (startsWith(msg, "IDS")) {
             return decodeSingleMemoryLocation(msg);
-        } else if (msg.startsWith("IDD")) {
+        } else if (startsWith(msg, "IDD")) {
             return decodeDoubleMemoryLocation(msg);
-        } else if (msg.startsWith("IDT")) {
+        } else if (startsWith(msg, "IDT")) {
             return decodeTripleMemoryLocation(msg);
         }
 
         Log.warn("Message couldn't be decoded!\n" +
-                " Message was: >" + msg + "<");
+                " Message was: >" + msg.toString(US_ASCII) + "<");
 
         return null;
     }
 
     /* Parse current model information. */
-    private ModelInformationMessage decodeModelInformationMessage(String msg) {
+    private ModelInformationMessage decodeModelInformationMessage(ByteBuf msg) {
+
+        // The bytes are read by their index, which is only checked against the capacity of the
+        // buffer. So a truncated message would decode the bytes after the message:
+        if (msg.readableBytes() < MODEL_INFORMATION_LENGTH) {
+            Log.warn("Message couldn't be decoded! The model information is incomplete.\n" +
+                    " Message was: >" + msg.toString(US_ASCII) + "<");
+            return null;
+        }
+
+        int index = msg.readerIndex();
 
-        MonitorType monitorType = parseMonitorType(msg);
-        String firmwareVersion = msg.substring(3, 5) + "." + msg.substring(5, 7);
+        MonitorType monitorType = parseMonitorType(msg.getByte(index + 2));
+        String firmwareVersion = msg.toString(index + 3, 2, US_ASCII) + "." + msg.toString(index + 5, 2, US_ASCII);
 
         return new ModelInformationMessage(new ModelInformation(monitorType, firmwareVersion));
     }
 
-    /* Parses and returns the monitor type from the given message. */
-    private MonitorType parseMonitorType(String payload) {
-        switch (payload.charAt(2)) {
+    /* Parses and returns the monitor type from the given model byte. */
+    private MonitorType parseMonitorType(byte model) {
+        switch (model) {
             case '4':
                 return WATER_ROWER_S4;
             case '5':
@@ -126,31 +159,37 @@ public class InformationRequestMessageInterpreter extends AbstractMessageInterpr
     }
 
     /* Parse value from single memory location. */
-    private DataMemoryMessage decodeSingleMemoryLocation(String msg) {
+    private DataMemoryMessage decodeSingleMemoryLocation(ByteBuf msg) {
 
-        int location = achToInt(msg.substring(3, 6));
-        int value1 = achToInt(msg.substring(6, 8));
+        int index = msg.readerIndex();
+
+        int location = achToInt(msg, index + 3, 3);
+        int value1 = achToInt(msg, index + 6, 2);
 
         return new DataMemoryMessage(location, value1);
     }
 
     /* Parse values from double memory locations. */
-    private DataMemoryMessage decodeDoubleMemoryLocation(String msg) {
+    private DataMemoryMessage decodeDoubleMemoryLocation(ByteBuf msg) {
+
+        int index = msg.readerIndex();
 
-        int location = achToInt(msg.substring(3, 6));
-        int value2 = achToInt(msg.substring(6, 8));
-        int value1 = achToInt(msg.substring(8, 10));
+        int location = achToInt(msg, index + 3, 3);
+        int value2 = achToInt(msg, index + 6, 2);
+        int value1 = achToInt(msg, index + 8, 2);
 
         return new DataMemoryMessage(location, value2, value1);
     }
 
     /* Parse values from triple memory locations. */
-    private DataMemoryMessage decodeTripleMemoryLocation(String msg) {
+    private DataMemoryMessage decodeTripleMemoryLocation(ByteBuf msg) {
 
-        int location = achToInt(msg.substring(3, 6));
-        int value3 = achToInt(msg.substring(6, 8));
-        int value2 = achToInt(msg.substring(8, 10));
-        int value1 = achToInt(msg.substring(10, 12));
+        int index = msg.readerIndex();
+
+        int location = achToInt(msg, index + 3, 3);
+        int value3 = achToInt(msg, index + 6, 2);
+        int value2 = achToInt(msg, index + 8, 2);
+        int value1 = achToInt(msg, index + 10, 2);
 
         return new DataMemoryMessage(location, value3, value2, value1);
     }
@@ -158,42 +197,39 @@ public class InformationRequestMessageInterpreter extends AbstractMessageInterpr
 
     @Override
     public String encode(InformationRequestMessage msg) {
+        return encodeToString(msg);
+    }
+
+    @Override
+    public boolean encode(InformationRequestMessage msg, ByteBuf out) {
 
         if (msg instanceof RequestModelInformationMessage) {
-            return "IV?";
+            out.writeBytes(REQUEST_MODEL_INFORMATION);
+            return true;
         } else if (msg instanceof ReadMemoryMessage) {
-            return encodeReadMemoryMessage((ReadMemoryMessage) msg);
+            return encodeReadMemoryMessage((ReadMemoryMessage) msg, out);
         }
 
         Log.warn("Message couldn't be encoded!\n" +
                 " Message was: " + msg);
 
-        return null;
+        return false;
     }
 
     /* Encodes messages of type ReadMemoryMessage. */
-    private String encodeReadMemoryMessage(ReadMemoryMessage msg) {
-        String result = "IR";
-
-        switch (msg.getMemory()) {
-            case SINGLE_MEMORY:
-                result += "S";
-                break;
-            case DOUBLE_MEMORY:
-                result += "D";
-                break;
-            case TRIPLE_MEMORY:
-                result += "T";
-                break;
-            default:
-                Log.warn("Message contains invalid values!\n" +
-                        " Message was: "+msg.toString());
-                return null;
+    private boolean encodeReadMemoryMessage(ReadMemoryMessage msg, ByteBuf out) {
+        int memory = msg.getMemory().ordinal();
+
+        if (memory >= READ_MEMORY.length) {
+            Log.warn("Message contains invalid values!\n" +
+                    " Message was: "+msg.toString());
+            return false;
         }
 
-        result += intToAch(msg.getLocation(), 3);
+        out.writeBytes(READ_MEMORY[memory]);
+        writeAch(out, msg.getLocation(), 3);
 
-        return result;
+        return true;
     }
 
 }
@@ -3,6 +3,7 @@ package de.tbressler.waterrower.io.msg.interpreter;
 import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.AbstractMessageInterpreter;
 import de.tbressler.waterrower.io.msg.in.PingMessage;
+import io.netty.buffer.ByteBuf;
 
 /**
  * Interpreter for:
@@ -19,10 +20,6 @@ import de.tbressler.waterrower.io.msg.in.PingMessage;
  */
 public class PingMessageInterpreter extends AbstractMessageInterpreter<PingMessage> {
 
-    /* Single instance of an acknowledgment message. */
-    private final static PingMessage PING_MESSAGE = new PingMessage();
-
-
     @Override
     public String getMessageIdentifier() {
         return "PING";
@@ -35,7 +32,12 @@ public class PingMessageInterpreter extends AbstractMessageInterpreter<PingMessa
 
     @Override
     public PingMessage decode(String msg) {
-        return PING_MESSAGE;
+        return new PingMessage();
+    }
+
+    @Override
+    public PingMessage decode(ByteBuf msg) {
+        return new PingMessage();
     }
 
     @Override
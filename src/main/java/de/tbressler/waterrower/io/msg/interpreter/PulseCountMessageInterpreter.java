@@ -4,8 +4,12 @@ import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.AbstractMessageInterpreter;
 import de.tbressler.waterrower.io.msg.in.PulseCountMessage;
 import de.tbressler.waterrower.log.Log;
+import io.netty.buffer.ByteBuf;
 
-import static de.tbressler.waterrower.utils.MessageUtils.achToInt;
+import static de.tbressler.waterrower.io.utils.ByteUtils.achToInt;
+import static de.tbressler.waterrower.io.utils.ByteUtils.startsWith;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Interpreter for:
@@ -43,19 +47,24 @@ public class PulseCountMessageInterpreter extends AbstractMessageInterpreter<Pul
 
     @Override
     public PulseCountMessage decode(String msg) {
+        return decode(wrappedBuffer(msg.getBytes(US_ASCII)));
+    }
+
+    @Override
+    public PulseCountMessage decode(ByteBuf msg) {
 
         // Workaround: Discard ping messages, because
         // they also start with a 'P'.
-        if (msg.startsWith("PING"))
+        if (startsWith(msg, "PING"))
             return null;
 
-        if (msg.length() < 3)
+        if (msg.readableBytes() < 3)
             return null;
 
         try {
 
-            String pulsesCount = msg.substring(1, 3);
-            return new PulseCountMessage(achToInt(pulsesCount));
+            int pulsesCount = achToInt(msg, msg.readerIndex() + 1, 2);
+            return new PulseCountMessage(pulsesCount);
 
         } catch (NumberFormatException e) {
             Log.error("Couldn't parse ACH value from message!", e);
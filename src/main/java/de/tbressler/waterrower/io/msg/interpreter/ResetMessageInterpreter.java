@@ -3,6 +3,9 @@ package de.tbressler.waterrower.io.msg.interpreter;
 import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.AbstractMessageInterpreter;
 import de.tbressler.waterrower.io.msg.out.ResetMessage;
+import io.netty.buffer.ByteBuf;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Interpreter for:
@@ -20,6 +23,9 @@ import de.tbressler.waterrower.io.msg.out.ResetMessage;
  */
 public class ResetMessageInterpreter extends AbstractMessageInterpreter<ResetMessage> {
 
+    /* The ASCII bytes of the message. */
+    private static final byte[] RESET = "RESET".getBytes(US_ASCII);
+
     @Override
     public String getMessageIdentifier() {
         return null;
@@ -40,4 +46,10 @@ public class ResetMessageInterpreter extends AbstractMessageInterpreter<ResetMes
         return "RESET";
     }
 
+    @Override
+    public boolean encode(ResetMessage msg, ByteBuf out) {
+        out.writeBytes(RESET);
+        return true;
+    }
+
 }
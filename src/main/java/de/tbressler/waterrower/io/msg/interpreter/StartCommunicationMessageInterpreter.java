@@ -3,6 +3,9 @@ package de.tbressler.waterrower.io.msg.interpreter;
 import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.AbstractMessageInterpreter;
 import de.tbressler.waterrower.io.msg.out.StartCommunicationMessage;
+import io.netty.buffer.ByteBuf;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Interpreter for:
@@ -19,6 +22,9 @@ import de.tbressler.waterrower.io.msg.out.StartCommunicationMessage;
  */
 public class StartCommunicationMessageInterpreter extends AbstractMessageInterpreter<StartCommunicationMessage> {
 
+    /* The ASCII bytes of the message. */
+    private static final byte[] START_COMMUNICATION = "USB".getBytes(US_ASCII);
+
     @Override
     public String getMessageIdentifier() {
         return null;
@@ -39,4 +45,10 @@ public class StartCommunicationMessageInterpreter extends AbstractMessageInterpr
         return "USB";
     }
 
+    @Override
+    public boolean encode(StartCommunicationMessage msg, ByteBuf out) {
+        out.writeBytes(START_COMMUNICATION);
+        return true;
+    }
+
 }
@@ -3,9 +3,13 @@ package de.tbressler.waterrower.io.msg.interpreter;
 import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.AbstractMessageInterpreter;
 import de.tbressler.waterrower.io.msg.in.StrokeMessage;
+import io.netty.buffer.ByteBuf;
 
+import static de.tbressler.waterrower.io.utils.ByteUtils.startsWith;
 import static de.tbressler.waterrower.model.StrokeType.END_OF_STROKE;
 import static de.tbressler.waterrower.model.StrokeType.START_OF_STROKE;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Interpreter for:
@@ -34,13 +38,6 @@ import static de.tbressler.waterrower.model.StrokeType.START_OF_STROKE;
  */
 public class StrokeMessageInterpreter extends AbstractMessageInterpreter<StrokeMessage> {
 
-    /* Single instance of a start of stroke message. */
-    private final static StrokeMessage START_OF_STROKE_MESSAGE = new StrokeMessage(START_OF_STROKE);
-
-    /* Single instance of an end of stroke message. */
-    private final static StrokeMessage END_OF_STROKE_MESSAGE = new StrokeMessage(END_OF_STROKE);
-
-
     @Override
     public String getMessageIdentifier() {
         return "S";
@@ -53,10 +50,15 @@ public class StrokeMessageInterpreter extends AbstractMessageInterpreter<StrokeM
 
     @Override
     public StrokeMessage decode(String msg) {
-        if (msg.startsWith("SS")) {
-            return START_OF_STROKE_MESSAGE;
-        } else if (msg.startsWith("SE")) {
-            return END_OF_STROKE_MESSAGE;
+        return decode(wrappedBuffer(msg.getBytes(US_ASCII)));
+    }
+
+    @Override
+    public StrokeMessage decode(ByteBuf msg) {
+        if (startsWith(msg, "SS")) {
+            return new StrokeMessage(START_OF_STROKE);
+        } else if (startsWith(msg, "SE")) {
+            return new StrokeMessage(END_OF_STROKE);
         }
         return null;
     }
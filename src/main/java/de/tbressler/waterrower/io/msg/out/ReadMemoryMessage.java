@@ -3,6 +3,8 @@ package de.tbressler.waterrower.io.msg.out;
 import de.tbressler.waterrower.io.msg.InformationRequestMessage;
 import de.tbressler.waterrower.io.msg.Memory;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static java.util.Objects.requireNonNull;
 
@@ -35,6 +37,16 @@ import static java.util.Objects.requireNonNull;
  */
 public class ReadMemoryMessage extends InformationRequestMessage {
 
+    /* The number of memory locations (0x000 .. 0xFFF). */
+    private static final int NUMBER_OF_LOCATIONS = 0x1000;
+
+    /** The number of keys of the reads (see keyOf(Memory, int)). */
+    public static final int NUMBER_OF_KEYS = NUMBER_OF_LOCATIONS << 2;
+
+    /* The shared messages, by key of memory and location (see keyOf(Memory, int)). If the
+       message is created concurrently, only the first created message is shared. */
+    private static final AtomicReferenceArray<ReadMemoryMessage> SHARED_MESSAGES = new AtomicReferenceArray<>(NUMBER_OF_KEYS);
+
 
     /* The memory location (0 .. 4095). */
     private final int location;
@@ -59,6 +71,45 @@ public class ReadMemoryMessage extends InformationRequestMessage {
         this.location = location;
     }
 
+    /**
+     * Returns the shared message, which reads the given memory locations. The message is created
+     * on first use and returned for all further calls with the same memory and location, so that
+     * polling the same memory locations doesn't create new messages.
+     *
+     * @param memory Define if you want to read single, double or triple memory locations, must
+     *               not be null.
+     * @param location The memory location (0 .. 4095), please refer to memory map of the Water
+     *                 Rower monitor.
+     * @return The shared message, never null.
+     */
+    public static ReadMemoryMessage of(Memory memory, int location) {
+        requireNonNull(memory);
+        if ((location < 0) || (location > 4095))
+            throw new IllegalArgumentException("The value for the memory location must be between 0 and 4095!");
+
+        int key = keyOf(memory, location);
+
+        ReadMemoryMessage msg = SHARED_MESSAGES.get(key);
+        if (msg != null)
+            return msg;
+
+        SHARED_MESSAGES.compareAndSet(key, null, new ReadMemoryMessage(memory, location));
+
+        return SHARED_MESSAGES.get(key);
+    }
+
+    /**
+     * Returns the key of a read, which consists of the memory location and the memory type. The
+     * key is between 0 and NUMBER_OF_KEYS - 1, so it can be used as index of an array.
+     *
+     * @param memory Single, double or triple memory, must not be null.
+     * @param location The memory location (0 .. 4095).
+     * @return The key.
+     */
+    public static int keyOf(Memory memory, int location) {
+        return (location << 2) | memory.ordinal();
+    }
+
 
     /**
      * Returns the memory location (0 .. 4095), please refer to memory map of the WaterRower
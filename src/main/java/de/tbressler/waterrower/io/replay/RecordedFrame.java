@@ -0,0 +1,76 @@
+package de.tbressler.waterrower.io.replay;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A frame of a recorded session.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class RecordedFrame {
+
+    /* The epoch millis, when the frame was received. */
+    private final long time;
+
+    /* The type of the frame (see RecordingFormat). */
+    private final String type;
+
+    /* The bytes of the frame (without delimiter). */
+    private final byte[] frame;
+
+
+    /**
+     * A frame of a recorded session.
+     *
+     * @param time The epoch millis, when the frame was received.
+     * @param type The type of the frame (see RecordingFormat), must not be null.
+     * @param frame The bytes of the frame (without delimiter), must not be null.
+     */
+    public RecordedFrame(long time, String type, byte[] frame) {
+        this.time = time;
+        this.type = requireNonNull(type);
+        this.frame = requireNonNull(frame);
+    }
+
+
+    /**
+     * Returns the epoch millis, when the frame was received.
+     *
+     * @return The epoch millis.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the type of the frame (see RecordingFormat).
+     *
+     * @return The type, never null.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the bytes of the frame (without delimiter). The array must not be modified.
+     *
+     * @return The bytes of the frame, never null.
+     */
+    public byte[] getFrame() {
+        return frame;
+    }
+
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("time", time)
+                .add("type", type)
+                .add("frame", new String(frame, US_ASCII))
+                .toString();
+    }
+
+}
@@ -0,0 +1,95 @@
+package de.tbressler.waterrower.io.replay;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The frames of a recorded session in the order of their time (see RecordingFormat).
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class Recording {
+
+    /* The frames of the session. */
+    private final List<RecordedFrame> frames;
+
+
+    /**
+     * The frames of a recorded session.
+     *
+     * @param frames The frames in the order of their time, must not be null.
+     */
+    public Recording(List<RecordedFrame> frames) {
+        this.frames = unmodifiableList(new ArrayList<>(requireNonNull(frames)));
+    }
+
+
+    /**
+     * Loads a recorded session from a file in the JSON-lines format (e.g. docs/simulationdata.txt).
+     * Empty lines are skipped.
+     *
+     * @param file The file, must not be null.
+     * @return The recording, never null.
+     *
+     * @throws IOException If the file couldn't be read or a line is not a frame.
+     */
+    public static Recording load(Path file) throws IOException {
+        requireNonNull(file);
+
+        List<RecordedFrame> frames = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank())
+                    continue;
+
+                RecordedFrame frame = RecordingFormat.parseLine(line);
+                if (frame == null)
+                    throw new IOException("Line " + lineNumber + " of the recording is not a frame: " + line);
+                frames.add(frame);
+            }
+        }
+        return new Recording(frames);
+    }
+
+
+    /**
+     * Returns the number of frames.
+     *
+     * @return The number of frames.
+     */
+    public int size() {
+        return frames.size();
+    }
+
+    /**
+     * Returns the frame at the given index.
+     *
+     * @param index The index of the frame.
+     * @return The frame, never null.
+     */
+    public RecordedFrame get(int index) {
+        return frames.get(index);
+    }
+
+    /**
+     * Returns the frames of the session.
+     *
+     * @return The frames (unmodifiable), never null.
+     */
+    public List<RecordedFrame> getFrames() {
+        return frames;
+    }
+
+}
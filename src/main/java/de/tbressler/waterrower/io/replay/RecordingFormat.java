@@ -0,0 +1,166 @@
+package de.tbressler.waterrower.io.replay;
+
+/**
+ * The JSON-lines format of a recorded session (see docs/simulationdata.txt), e.g.:
+ *
+ * {"time":1468559128386,"type":"datapoint","data":"IDD0550007\r"}
+ *
+ * Every line contains a frame:
+ * - time: The epoch millis, when the frame was received.
+ * - type: The type of the frame (hardwaretype, ping, strokestart, strokeend or datapoint). Frames,
+ *   which were sent to the WaterRower, have the type "request".
+ * - data: The frame, terminated with CR.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class RecordingFormat {
+
+    /** The type of the hardware type frame (_WR_). */
+    public static final String TYPE_HARDWARE_TYPE = "hardwaretype";
+
+    /** The type of a ping frame. */
+    public static final String TYPE_PING = "ping";
+
+    /** The type of the frame at the start of a stroke. */
+    public static final String TYPE_STROKE_START = "strokestart";
+
+    /** The type of the frame at the end of a stroke. */
+    public static final String TYPE_STROKE_END = "strokeend";
+
+    /** The type of all other received frames (e.g. memory values). */
+    public static final String TYPE_DATAPOINT = "datapoint";
+
+    /** The type of the frames, which were sent to the WaterRower. */
+    public static final String TYPE_REQUEST = "request";
+
+
+    /* The keys of the fields. */
+    private static final String TIME = "\"time\":", TYPE = "\"type\":\"", DATA = "\"data\":\"";
+
+
+    /* Private constructor. */
+    private RecordingFormat() {}
+
+
+    /**
+     * Returns the type of a received frame.
+     *
+     * @param frame The bytes of the frame (without delimiter), must not be null.
+     * @param length The length of the frame.
+     * @return The type, never null.
+     */
+    public static String typeOf(byte[] frame, int length) {
+        if (startsWith(frame, length, "_WR_"))
+            return TYPE_HARDWARE_TYPE;
+        if (startsWith(frame, length, "PING"))
+            return TYPE_PING;
+        if (startsWith(frame, length, "SS"))
+            return TYPE_STROKE_START;
+        if (startsWith(frame, length, "SE"))
+            return TYPE_STROKE_END;
+        return TYPE_DATAPOINT;
+    }
+
+    /* Returns true if the frame starts with the given prefix. */
+    private static boolean startsWith(byte[] frame, int length, String prefix) {
+        if (length < prefix.length())
+            return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (frame[i] != prefix.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+
+    /**
+     * Appends a frame as JSON line (including the line break) to the given string builder.
+     *
+     * @param line The string builder, must not be null.
+     * @param time The epoch millis of the frame.
+     * @param type The type of the frame, must not be null.
+     * @param frame The bytes of the frame (without delimiter), must not be null.
+     * @param length The length of the frame.
+     */
+    public static void appendLine(StringBuilder line, long time, String type, byte[] frame, int length) {
+        line.append('{').append(TIME).append(time)
+                .append(',').append(TYPE).append(type)
+                .append("\",").append(DATA);
+        for (int i = 0; i < length; i++) {
+            int c = frame[i] & 0xFF;
+            if ((c == '"') || (c == '\\')) {
+                line.append('\\').append((char) c);
+            } else if ((c < 0x20) || (c > 0x7E)) {
+                line.append(String.format("\\u%04x", c));
+            } else {
+                line.append((char) c);
+            }
+        }
+        line.append("\\r\"}\n");
+    }
+
+
+    /**
+     * Parses a JSON line of a recorded session.
+     *
+     * @param line The JSON line, must not be null.
+     * @return The frame of the line or null, if the line is not a frame of a recorded session.
+     */
+    public static RecordedFrame parseLine(String line) {
+        int time = line.indexOf(TIME);
+        int type = line.indexOf(TYPE);
+        int data = line.indexOf(DATA);
+        if ((time < 0) || (type < 0) || (data < 0))
+            return null;
+
+        try {
+            return new RecordedFrame(
+                    parseTime(line, time + TIME.length()),
+                    line.substring(type + TYPE.length(), line.indexOf('"', type + TYPE.length())),
+                    parseData(line, data + DATA.length()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /* Parses the number at the given index. */
+    private static long parseTime(String line, int index) {
+        int end = index;
+        while ((end < line.length()) && Character.isDigit(line.charAt(end)))
+            end++;
+        return Long.parseLong(line.substring(index, end));
+    }
+
+    /* Parses the string at the given index and returns the bytes without the trailing CR / LF. */
+    private static byte[] parseData(String line, int index) {
+        StringBuilder data = new StringBuilder();
+        for (int i = index; ; i++) {
+            char c = line.charAt(i);
+            if (c == '"')
+                break;
+            if (c != '\\') {
+                data.append(c);
+                continue;
+            }
+            c = line.charAt(++i);
+            switch (c) {
+                case 'r': data.append('\r'); break;
+                case 'n': data.append('\n'); break;
+                case 't': data.append('\t'); break;
+                case 'u': data.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16)); i += 4; break;
+                default: data.append(c);
+            }
+        }
+
+        int length = data.length();
+        while ((length > 0) && ((data.charAt(length - 1) == '\r') || (data.charAt(length - 1) == '\n')))
+            length--;
+
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = (byte) data.charAt(i);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,107 @@
+package de.tbressler.waterrower.io.replay;
+
+import java.net.SocketAddress;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The address of a replay (see ReplayChannel), which consists of the recorded session and the
+ * speed of the replay.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class ReplayAddress extends SocketAddress {
+
+    private static final long serialVersionUID = 6254127512301823464L;
+
+    /* The recorded session. */
+    private final transient Recording recording;
+
+    /* The speed of the replay (1 = real-time, infinite = as fast as possible). */
+    private final double speed;
+
+
+    /**
+     * The address of a replay.
+     *
+     * @param recording The recorded session, must not be null.
+     * @param speed The speed of the replay, e.g. 1 for real-time, 10 for a 10 times accelerated replay
+     *              or Double.POSITIVE_INFINITY for a replay as fast as possible. Must be greater
+     *              than 0.
+     */
+    public ReplayAddress(Recording recording, double speed) {
+        this.recording = requireNonNull(recording);
+        if (!(speed > 0))
+            throw new IllegalArgumentException("The speed must be greater than 0!");
+        this.speed = speed;
+    }
+
+
+    /**
+     * Returns the address of a real-time replay.
+     *
+     * @param recording The recorded session, must not be null.
+     * @return The address, never null.
+     */
+    public static ReplayAddress realTime(Recording recording) {
+        return new ReplayAddress(recording, 1);
+    }
+
+    /**
+     * Returns the address of an accelerated replay.
+     *
+     * @param recording The recorded session, must not be null.
+     * @param factor The acceleration factor (e.g. 10 for a 10 times faster replay), must be
+     *               greater than 0.
+     * @return The address, never null.
+     */
+    public static ReplayAddress accelerated(Recording recording, double factor) {
+        return new ReplayAddress(recording, factor);
+    }
+
+    /**
+     * Returns the address of a replay, which replays the frames as fast as possible.
+     *
+     * @param recording The recorded session, must not be null.
+     * @return The address, never null.
+     */
+    public static ReplayAddress asFastAsPossible(Recording recording) {
+        return new ReplayAddress(recording, Double.POSITIVE_INFINITY);
+    }
+
+
+    /**
+     * Returns the recorded session.
+     *
+     * @return The recording, never null.
+     */
+    public Recording getRecording() {
+        return recording;
+    }
+
+    /**
+     * Returns the speed of the replay (1 = real-time, infinite = as fast as possible).
+     *
+     * @return The speed.
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Returns true if the frames are replayed as fast as possible.
+     *
+     * @return True if the replay is not timed.
+     */
+    public boolean isAsFastAsPossible() {
+        return Double.isInfinite(speed);
+    }
+
+
+    @Override
+    public String toString() {
+        return "replay(" + recording.size() + " frames, speed " + (isAsFastAsPossible() ? "max" : speed + "x") + ")";
+    }
+
+}
@@ -0,0 +1,188 @@
+package de.tbressler.waterrower.io.replay;
+
+import de.tbressler.waterrower.io.transport.AbstractInProcessChannel;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+import static de.tbressler.waterrower.io.replay.RecordingFormat.TYPE_HARDWARE_TYPE;
+import static de.tbressler.waterrower.io.replay.RecordingFormat.TYPE_REQUEST;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A channel, which replays a recorded session (see ReplayAddress) instead of reading from a
+ * serial port. The recorded frames are fed through the pipeline of the channel, therefore the
+ * replay can be used with the regular pipeline (see ChannelInitializer) and a live WaterRower.
+ *
+ * The channel answers the handshake of the WaterRower like a monitor:
+ * - "USB" is answered with the hardware type "_WR_".
+ * - "IV?" is answered with the model information "IV40210" (S4, firmware 02.10) and starts the
+ *   replay.
+ * - "EXIT" stops the replay.
+ * All other frames, which are sent to the channel, are discarded. The recorded frames of the
+ * hardware type and the sent frames of the recording are skipped, because the handshake is
+ * answered by the channel.
+ *
+ * The frames are replayed in real-time, accelerated or as fast as possible (see ReplayAddress).
+ * The frames, which are due at the same time, are fired as a single read (at most
+ * MAX_FRAMES_PER_READ frames). If all frames were replayed, the channel is closed.
+ *
+ * The channel must be registered at a single threaded event loop (e.g. the event loop of a
+ * WaterRowerRuntime), which can be shared with other channels.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class ReplayChannel extends AbstractInProcessChannel {
+
+    /* The maximum number of frames, which are fired as a single read. */
+    private static final int MAX_FRAMES_PER_READ = 256;
+
+    /* The answer to the start communication message. */
+    private static final byte[] HARDWARE_TYPE = "_WR_\r\n".getBytes(US_ASCII);
+
+    /* The answer to the request of the model information (S4, firmware 02.10). */
+    private static final byte[] MODEL_INFORMATION = "IV40210\r\n".getBytes(US_ASCII);
+
+    /* The delimiter of the replayed frames. */
+    private static final byte[] DELIMITER = "\r\n".getBytes(US_ASCII);
+
+
+    /* Replays the due frames, always executed on the event loop. */
+    private final Runnable replayTask = this::replayDueFrames;
+
+    private ReplayAddress address;
+
+    /* True if the replay was started, only used on the event loop. */
+    private boolean isReplaying;
+
+    /* The index of the next frame, which is replayed. */
+    private int nextFrame;
+
+    /* The System.nanoTime() when the replay was started. */
+    private long startNanos;
+
+
+    /**
+     * A channel, which replays a recorded session.
+     */
+    public ReplayChannel() {
+        super("replay");
+    }
+
+    @Override
+    protected void onClose() {
+        isReplaying = false;
+    }
+
+
+    /* Connects the channel with the replay. */
+    @Override
+    protected void doConnect(SocketAddress remoteAddress) throws IOException {
+        if (!(remoteAddress instanceof ReplayAddress))
+            throw new IOException("The address of a replay channel must be a replay address!");
+        address = (ReplayAddress) remoteAddress;
+    }
+
+
+    /* Answers the handshake of the WaterRower. */
+    @Override
+    protected void handleRequest(String frame) {
+        switch (frame) {
+            case "USB":
+                eventLoop().execute(() -> fireFrames(HARDWARE_TYPE));
+                break;
+            case "IV?":
+                eventLoop().execute(() -> {
+                    fireFrames(MODEL_INFORMATION);
+                    startReplay();
+                });
+                break;
+            case "EXIT":
+                // Executed after the pending answers, so that a started replay is stopped:
+                eventLoop().execute(() -> isReplaying = false);
+                break;
+            default:
+                // Requests are not answered by the replay.
+        }
+    }
+
+    /* Fires the given bytes as a single read. */
+    private void fireFrames(byte[] frames) {
+        if (isActive())
+            fireFrames(alloc().heapBuffer(frames.length).writeBytes(frames));
+    }
+
+
+    /* Starts the replay, if it was not started yet. */
+    private void startReplay() {
+        if (isReplaying || !isActive())
+            return;
+        isReplaying = true;
+        startNanos = System.nanoTime();
+        replayDueFrames();
+    }
+
+    /* Fires the frames, which are due, and schedules the replay of the next frame. */
+    private void replayDueFrames() {
+        if (!isReplaying || !isActive())
+            return;
+
+        Recording recording = address.getRecording();
+        long now = System.nanoTime();
+
+        ByteBuf buffer = null;
+        int frames = 0;
+        while ((nextFrame < recording.size()) && (frames < MAX_FRAMES_PER_READ)) {
+            RecordedFrame frame = recording.get(nextFrame);
+            if (isSkipped(frame)) {
+                nextFrame++;
+                continue;
+            }
+            if (dueTimeOf(frame) - now > 0)
+                break;
+
+            if (buffer == null)
+                buffer = alloc().heapBuffer();
+            buffer.writeBytes(frame.getFrame()).writeBytes(DELIMITER);
+            nextFrame++;
+            frames++;
+        }
+
+        if (buffer != null)
+            fireFrames(buffer);
+
+        if (!isReplaying || !isActive())
+            return;
+
+        // Close the channel at the end of the replay:
+        if (nextFrame >= recording.size()) {
+            unsafe().close(voidPromise());
+            return;
+        }
+
+        long delay = dueTimeOf(recording.get(nextFrame)) - System.nanoTime();
+        if (delay > 0) {
+            eventLoop().schedule(replayTask, delay, NANOSECONDS);
+        } else {
+            eventLoop().execute(replayTask);
+        }
+    }
+
+    /* Returns true if the frame is not replayed. */
+    private boolean isSkipped(RecordedFrame frame) {
+        String type = frame.getType();
+        return type.equals(TYPE_HARDWARE_TYPE) || type.equals(TYPE_REQUEST);
+    }
+
+    /* Returns the System.nanoTime() when the frame is due. */
+    private long dueTimeOf(RecordedFrame frame) {
+        if (address.isAsFastAsPossible())
+            return startNanos;
+        long offsetMillis = frame.getTime() - address.getRecording().get(0).getTime();
+        return startNanos + (long) (offsetMillis * 1_000_000 / address.getSpeed());
+    }
+
+}
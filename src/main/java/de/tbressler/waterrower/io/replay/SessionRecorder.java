@@ -0,0 +1,199 @@
+package de.tbressler.waterrower.io.replay;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.tbressler.waterrower.log.Log;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Records the received frames of a session in the JSON-lines format (see RecordingFormat), which
+ * can be replayed by the ReplayChannel.
+ *
+ * The recorder is added to the pipeline before the decoder and passes the received bytes on
+ * unchanged. If no recording is started, the recorder only checks if a recording is started.
+ * The time of a frame is the time, when the delimiter of the frame was received.
+ *
+ * The frames are split on the event loop and handed over to a writer thread of the recording,
+ * which writes them to the writer. Therefore a slow writer doesn't block the event loop.
+ *
+ * The recorder is shared by the channels of a WaterRower, but only one channel is open at a time.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+@Sharable
+public class SessionRecorder extends ChannelInboundHandlerAdapter {
+
+    /* The maximum length of a recorded frame, longer frames are truncated. */
+    private static final int MAX_FRAME_LENGTH = 32;
+
+    /* The maximum time (in seconds) to wait for the frames, which are not written yet, when the
+       recording is stopped. */
+    private static final long STOP_TIMEOUT = 10;
+
+    /* Creates the writer threads of the recordings. */
+    private static final ThreadFactory WRITER_THREAD_FACTORY = new ThreadFactoryBuilder()
+            .setNameFormat("waterrower-session-recorder-%d")
+            .setDaemon(true)
+            .build();
+
+
+    /* The current recording or null, if no recording is started. */
+    private final AtomicReference<Session> session = new AtomicReference<>();
+
+    /* The recording of the current frame (only used on the event loop). */
+    private Session framedSession;
+
+    /* The bytes of the current frame (only used on the event loop). */
+    private final byte[] frame = new byte[MAX_FRAME_LENGTH];
+
+    /* The number of bytes of the current frame (only used on the event loop). */
+    private int frameLength;
+
+
+    /**
+     * Starts the recording. The recording is written to the given writer, until the recording is
+     * stopped.
+     *
+     * @param out The writer of the recording, must not be null.
+     */
+    public void start(Writer out) {
+        Session previous = session.getAndSet(new Session(requireNonNull(out)));
+        if (previous != null)
+            previous.writer.shutdown();
+    }
+
+    /**
+     * Stops the recording and flushes the writer. The frames, which were received before, are
+     * written before the writer is flushed. The writer is not closed.
+     *
+     * @throws IOException If the writer couldn't be flushed.
+     */
+    public void stop() throws IOException {
+        Session stopped = session.getAndSet(null);
+        if (stopped != null)
+            stopped.close();
+    }
+
+    /**
+     * Returns true if a recording is started.
+     *
+     * @return True if the received frames are recorded.
+     */
+    public boolean isRecording() {
+        return session.get() != null;
+    }
+
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        Session current = session.get();
+        if ((current != null) && (msg instanceof ByteBuf))
+            record(current, (ByteBuf) msg);
+        ctx.fireChannelRead(msg);
+    }
+
+    /* Splits the received bytes into frames and hands them over to the writer thread. */
+    private void record(Session current, ByteBuf buffer) {
+        // The bytes of a previous recording are not part of the frames of this recording:
+        if (framedSession != current) {
+            framedSession = current;
+            frameLength = 0;
+        }
+
+        for (int i = buffer.readerIndex(); i < buffer.writerIndex(); i++) {
+            byte b = buffer.getByte(i);
+            if (b == '\n') {
+                recordFrame(current);
+            } else if ((b != '\r') && (frameLength < MAX_FRAME_LENGTH)) {
+                frame[frameLength++] = b;
+            }
+        }
+    }
+
+    /* Hands the current frame over to the writer thread. */
+    private void recordFrame(Session current) {
+        if (frameLength == 0)
+            return;
+
+        RecordedFrame recordedFrame = new RecordedFrame(System.currentTimeMillis(),
+                RecordingFormat.typeOf(frame, frameLength), Arrays.copyOf(frame, frameLength));
+        frameLength = 0;
+
+        try {
+            current.writer.execute(() -> current.write(recordedFrame));
+        } catch (RejectedExecutionException e) {
+            // The recording was stopped in the meantime.
+        }
+    }
+
+
+    /* A recording, which writes the frames with its own writer thread. */
+    private final class Session {
+
+        /* The writer of the recording. */
+        private final Writer out;
+
+        /* Writes the frames one after another. */
+        private final ExecutorService writer = newSingleThreadExecutor(WRITER_THREAD_FACTORY);
+
+        /* The line of a frame (only used by the writer thread). */
+        private final StringBuilder line = new StringBuilder(80);
+
+        /* True, if a frame couldn't be written (only used by the writer thread). */
+        private boolean failed;
+
+
+        private Session(Writer out) {
+            this.out = out;
+        }
+
+        /* Writes the frame as JSON line. */
+        private void write(RecordedFrame recordedFrame) {
+            if (failed)
+                return;
+
+            line.setLength(0);
+            RecordingFormat.appendLine(line, recordedFrame.getTime(), recordedFrame.getType(), recordedFrame.getFrame(),
+                    recordedFrame.getFrame().length);
+            try {
+                out.append(line);
+            } catch (IOException e) {
+                Log.error("Couldn't record the received frames! Recording stopped.", e);
+                failed = true;
+                session.compareAndSet(this, null);
+                writer.shutdown();
+            }
+        }
+
+        /* Writes the remaining frames and flushes the writer. */
+        private void close() throws IOException {
+            writer.shutdown();
+            try {
+                if (!writer.awaitTermination(STOP_TIMEOUT, SECONDS))
+                    throw new IOException("The received frames couldn't be written in time!");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing the received frames!", e);
+            }
+            if (!failed)
+                out.flush();
+        }
+
+    }
+
+}
@@ -0,0 +1,264 @@
+package de.tbressler.waterrower.io.trace;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A ring buffer, which records the raw frames of the serial connection (inbound and outbound)
+ * with the timestamp of System.nanoTime().
+ *
+ * The trace is meant to be always on:
+ * - The memory is allocated once, recording a frame copies the bytes into a slot of the ring
+ *   buffer and doesn't allocate.
+ * - Recording is lock-free. A slot is claimed by incrementing a sequence, the slot is published
+ *   by writing the sequence number of the frame. If the ring buffer is full, the oldest frames
+ *   are overwritten.
+ * - Only the first MAX_FRAME_LENGTH bytes of a frame are recorded, the delimiter (CR LF) is not
+ *   part of the frame.
+ *
+ * The recorded frames can be dumped to a memory-mapped file (see dump()) and converted to the
+ * JSON-lines format of docs/simulationdata.txt (see WireTraceConverter).
+ *
+ * Format of the dump (big endian):
+ * - Header: magic (int), version (short), record length (short), number of records (int),
+ *   epoch millis (long) and System.nanoTime() (long) of the same point in time.
+ * - Records: System.nanoTime() (long), direction (byte), frame length (byte) and the frame
+ *   (MAX_FRAME_LENGTH bytes, padded with zeros).
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class WireTrace {
+
+    /** The default number of frames, which are kept in the ring buffer. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /** The maximum number of bytes, which are recorded for a frame. */
+    public static final int MAX_FRAME_LENGTH = 32;
+
+
+    /* The magic number at the start of a dump ('WRTR'). */
+    static final int MAGIC = 0x57525452;
+
+    /* The version of the dump format. */
+    static final short VERSION = 1;
+
+    /* The length of the header of a dump. */
+    static final int HEADER_LENGTH = 4 + 2 + 2 + 4 + 8 + 8;
+
+    /* The length of a record in a dump. */
+    static final int RECORD_LENGTH = 8 + 1 + 1 + MAX_FRAME_LENGTH;
+
+    /* The length of a slot in the frame array (direction, length and frame). */
+    private static final int SLOT_LENGTH = 2 + MAX_FRAME_LENGTH;
+
+    /* The sequence number of a slot, which is written right now. */
+    private static final long WRITING = -1;
+
+
+    /**
+     * The direction of a frame.
+     */
+    public enum Direction {
+
+        /* A frame, which was received from the WaterRower. */
+        INBOUND,
+
+        /* A frame, which was sent to the WaterRower. */
+        OUTBOUND
+
+    }
+
+
+    /* The number of slots, a power of two. */
+    private final int capacity;
+
+    /* The mask for the index of a slot. */
+    private final int mask;
+
+    /* The sequence number of the next frame. */
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /* The sequence number of the frame in a slot (or -1 if the slot is written right now). */
+    private final AtomicLongArray sequences;
+
+    /* The timestamps (System.nanoTime()) of the frames. */
+    private final long[] timestamps;
+
+    /* The direction, the length and the bytes of the frames. */
+    private final byte[] frames;
+
+    /* The epoch millis and the System.nanoTime() of the same point in time. */
+    private final long epochMillis, epochNanos;
+
+
+    /**
+     * A ring buffer for the raw frames of the serial connection with the default capacity.
+     */
+    public WireTrace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * A ring buffer for the raw frames of the serial connection.
+     *
+     * @param capacity The number of frames, which are kept in the ring buffer. Must be a power of
+     *                 two and greater than 0.
+     */
+    public WireTrace(int capacity) {
+        if ((capacity < 1) || (Integer.bitCount(capacity) != 1))
+            throw new IllegalArgumentException("The capacity must be a power of two and greater than 0!");
+
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        this.timestamps = new long[capacity];
+        this.frames = new byte[capacity * SLOT_LENGTH];
+
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, WRITING);
+
+        this.epochMillis = System.currentTimeMillis();
+        this.epochNanos = System.nanoTime();
+    }
+
+
+    /**
+     * Records a frame. The bytes are copied, the reader index of the buffer is not changed.
+     *
+     * @param direction The direction of the frame, must not be null.
+     * @param buffer The buffer with the frame, must not be null.
+     * @param index The index of the first byte of the frame in the buffer.
+     * @param length The length of the frame. Only the first MAX_FRAME_LENGTH bytes are recorded.
+     */
+    public void record(Direction direction, ByteBuf buffer, int index, int length) {
+        record(direction, buffer, index, length, System.nanoTime());
+    }
+
+    /**
+     * Records a frame with the given timestamp, e.g. the receive time of the frame, which was
+     * already captured by the decoder. The bytes are copied, the reader index of the buffer is
+     * not changed.
+     *
+     * @param direction The direction of the frame, must not be null.
+     * @param buffer The buffer with the frame, must not be null.
+     * @param index The index of the first byte of the frame in the buffer.
+     * @param length The length of the frame. Only the first MAX_FRAME_LENGTH bytes are recorded.
+     * @param timestamp The System.nanoTime() of the frame.
+     */
+    public void record(Direction direction, ByteBuf buffer, int index, int length, long timestamp) {
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) (sequence & mask);
+        int offset = slot * SLOT_LENGTH;
+        int recordedLength = Math.min(length, MAX_FRAME_LENGTH);
+
+        sequences.set(slot, WRITING);
+        VarHandle.storeStoreFence();
+
+        timestamps[slot] = timestamp;
+        frames[offset] = (byte) direction.ordinal();
+        frames[offset + 1] = (byte) recordedLength;
+        buffer.getBytes(index, frames, offset + 2, recordedLength);
+
+        sequences.setRelease(slot, sequence);
+    }
+
+
+    /**
+     * Returns the number of frames, which were recorded since the trace was created (including
+     * the frames, which were overwritten).
+     *
+     * @return The number of recorded frames.
+     */
+    public long getRecordedFrames() {
+        return nextSequence.get();
+    }
+
+    /**
+     * Returns the number of frames, which are kept in the ring buffer.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+
+    /**
+     * Dumps the frames in the ring buffer to a memory-mapped file, the oldest frame first. An
+     * existing file is overwritten. Frames can be recorded while the trace is dumped, frames which
+     * are overwritten during the dump are skipped.
+     *
+     * @param file The file, must not be null.
+     * @return The number of frames in the dump.
+     *
+     * @throws IOException If the file couldn't be written.
+     */
+    public int dump(Path file) throws IOException {
+        requireNonNull(file);
+
+        long last = nextSequence.get();
+        long first = Math.max(0, last - capacity);
+        int maxRecords = (int) (last - first);
+
+        try (FileChannel channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            MappedByteBuffer out = channel.map(READ_WRITE, 0, HEADER_LENGTH + (long) maxRecords * RECORD_LENGTH);
+
+            out.position(HEADER_LENGTH);
+            int records = 0;
+            for (long sequence = first; sequence < last; sequence++) {
+                if (copyRecord(sequence, out))
+                    records++;
+            }
+
+            out.putInt(0, MAGIC);
+            out.putShort(4, VERSION);
+            out.putShort(6, (short) RECORD_LENGTH);
+            out.putInt(8, records);
+            out.putLong(12, epochMillis);
+            out.putLong(20, epochNanos);
+            out.force();
+
+            return records;
+        }
+    }
+
+    /* Copies the frame with the given sequence number to the dump. Returns false and rewinds the
+       position, if the frame was overwritten. */
+    private boolean copyRecord(long sequence, MappedByteBuffer out) {
+        int slot = (int) (sequence & mask);
+        int offset = slot * SLOT_LENGTH;
+        int position = out.position();
+
+        if (sequences.getAcquire(slot) != sequence)
+            return false;
+
+        int length = frames[offset + 1];
+        out.putLong(timestamps[slot]);
+        out.put(frames[offset]);
+        out.put((byte) length);
+        out.put(frames, offset + 2, length);
+        for (int i = length; i < MAX_FRAME_LENGTH; i++)
+            out.put((byte) 0);
+
+        // The slot was overwritten, while it was copied:
+        VarHandle.acquireFence();
+        if (sequences.get(slot) != sequence) {
+            out.position(position);
+            return false;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,88 @@
+package de.tbressler.waterrower.io.trace;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static de.tbressler.waterrower.io.replay.RecordingFormat.*;
+import static de.tbressler.waterrower.io.trace.WireTrace.*;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Converts the dump of a wire trace (see WireTrace.dump()) to the JSON-lines format of
+ * docs/simulationdata.txt, e.g.:
+ *
+ * {"time":1468559128386,"type":"datapoint","data":"IDD0550007\r"}
+ *
+ * The time is the epoch millis of the frame. The type of a received frame is the same as in the
+ * simulation data (hardwaretype, ping, strokestart, strokeend or datapoint). Frames, which were
+ * sent to the WaterRower, have the type "request" (see RecordingFormat). The JSON lines can be
+ * replayed by the ReplayChannel.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class WireTraceConverter {
+
+    /* Private constructor. */
+    private WireTraceConverter() {}
+
+
+    /**
+     * Converts the dump of a wire trace to JSON lines.
+     *
+     * @param dump The file of the dump, must not be null.
+     * @param out The writer for the JSON lines, must not be null.
+     * @return The number of converted frames.
+     *
+     * @throws IOException If the dump couldn't be read or is not a dump of a wire trace.
+     */
+    public static int toJsonLines(Path dump, Writer out) throws IOException {
+        requireNonNull(dump);
+        requireNonNull(out);
+
+        try (FileChannel channel = FileChannel.open(dump, READ)) {
+            ByteBuffer in = channel.map(READ_ONLY, 0, channel.size());
+
+            if ((in.remaining() < HEADER_LENGTH) || (in.getInt(0) != MAGIC))
+                throw new IOException("The file is not a dump of a wire trace!");
+            if (in.getShort(4) != VERSION)
+                throw new IOException("The version of the dump is not supported: " + in.getShort(4));
+
+            int recordLength = in.getShort(6);
+            int records = in.getInt(8);
+            long epochMillis = in.getLong(12);
+            long epochNanos = in.getLong(20);
+
+            if (HEADER_LENGTH + (long) records * recordLength > in.limit())
+                throw new IOException("The dump is incomplete!");
+
+            byte[] frame = new byte[MAX_FRAME_LENGTH];
+            StringBuilder line = new StringBuilder(80);
+
+            for (int i = 0; i < records; i++) {
+                in.position(HEADER_LENGTH + i * recordLength);
+
+                long timestamp = in.getLong();
+                int direction = in.get();
+                int length = in.get();
+                in.get(frame, 0, length);
+
+                String type = (direction == Direction.OUTBOUND.ordinal()) ? TYPE_REQUEST : typeOf(frame, length);
+
+                line.setLength(0);
+                appendLine(line, epochMillis + (timestamp - epochNanos) / 1_000_000, type, frame, length);
+
+                out.append(line);
+            }
+            out.flush();
+
+            return records;
+        }
+    }
+
+}
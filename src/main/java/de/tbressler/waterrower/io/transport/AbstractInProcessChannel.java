@@ -0,0 +1,243 @@
+package de.tbressler.waterrower.io.transport;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An abstract channel, which answers the requests of the WaterRower in-process (e.g. an emulator
+ * or a replay) instead of reading from a serial port. The channel can be used with the regular
+ * pipeline (see ChannelInitializer) and a live WaterRower.
+ *
+ * The bytes, which are written to the channel, are split into requests at the delimiter (CR or
+ * LF) and passed to handleRequest(String). The answers are fired by the subclass with
+ * fireFrames(ByteBuf).
+ *
+ * The channel must be registered at a single threaded event loop (e.g. the event loop of a
+ * WaterRowerRuntime), which can be shared with other channels. All methods of the subclass are
+ * called on the event loop.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public abstract class AbstractInProcessChannel extends AbstractChannel {
+
+    /* The maximum length of a request, longer requests are truncated. */
+    private static final int MAX_REQUEST_LENGTH = 32;
+
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+
+    /* The config of the channel, created on first use so that 'this' doesn't escape the constructor. */
+    private volatile ChannelConfig config;
+
+    /* The local address of the channel. */
+    private final SocketAddress localAddress;
+
+    /* The request, which is sent to the channel, only used on the event loop. */
+    private final byte[] request = new byte[MAX_REQUEST_LENGTH];
+
+    /* The number of bytes of the request. */
+    private int requestLength;
+
+    private volatile boolean open = true;
+    private volatile boolean active;
+
+    private SocketAddress remoteAddress;
+
+
+    /**
+     * An abstract channel, which answers the requests in-process.
+     *
+     * @param name The name of the local address (e.g. "emulator"), must not be null.
+     */
+    protected AbstractInProcessChannel(String name) {
+        super(null);
+        localAddress = new InProcessAddress(requireNonNull(name));
+    }
+
+    @Override
+    public ChannelConfig config() {
+        ChannelConfig config = this.config;
+        if (config == null) {
+            synchronized (this) {
+                config = this.config;
+                if (config == null)
+                    this.config = config = new DefaultChannelConfig(this);
+            }
+        }
+        return config;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isActive() {
+        return open && active;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof SingleThreadEventLoop;
+    }
+
+    @Override
+    protected AbstractUnsafe newUnsafe() {
+        return new InProcessUnsafe();
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return localAddress;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return remoteAddress;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected final void doClose() throws Exception {
+        open = false;
+        active = false;
+        onClose();
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        // The frames are fired by the subclass, nothing to do.
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null)
+                break;
+
+            if (msg instanceof ByteBuf) {
+                ByteBuf buffer = (ByteBuf) msg;
+                for (int i = buffer.readerIndex(); i < buffer.writerIndex(); i++)
+                    requestByteReceived(buffer.getByte(i));
+            }
+            in.remove();
+        }
+    }
+
+    /* Collects the bytes of a request and handles the request. */
+    private void requestByteReceived(byte b) {
+        if ((b == '\r') || (b == '\n')) {
+            if (requestLength > 0)
+                handleRequest(new String(request, 0, requestLength, US_ASCII));
+            requestLength = 0;
+        } else if (requestLength < MAX_REQUEST_LENGTH) {
+            request[requestLength++] = b;
+        }
+    }
+
+
+    /**
+     * Connects the channel with the given address. Called on the event loop, the channel is
+     * active if the method returns.
+     *
+     * @param remoteAddress The address, which was passed to connect.
+     * @throws IOException If the address is not supported by the channel.
+     */
+    protected abstract void doConnect(SocketAddress remoteAddress) throws IOException;
+
+    /**
+     * Handles a request, which was sent to the channel. Called on the event loop.
+     *
+     * @param frame The request without delimiter, never null or empty.
+     */
+    protected abstract void handleRequest(String frame);
+
+    /**
+     * Called on the event loop, if the channel was closed. The subclass releases its resources
+     * (e.g. cancels scheduled tasks).
+     */
+    protected void onClose() {
+        // Nothing to release by default.
+    }
+
+
+    /**
+     * Fires the frames as a single read or releases them, if the channel is not active or the
+     * buffer is empty. Must be called on the event loop.
+     *
+     * @param buffer The frames including the delimiters, must not be null.
+     */
+    protected final void fireFrames(ByteBuf buffer) {
+        if (!isActive() || !buffer.isReadable()) {
+            buffer.release();
+            return;
+        }
+        ChannelPipeline pipeline = pipeline();
+        pipeline.fireChannelRead(buffer);
+        pipeline.fireChannelReadComplete();
+    }
+
+
+    /* The local address of an in-process channel. */
+    private static final class InProcessAddress extends SocketAddress {
+
+        private static final long serialVersionUID = 4971342685120937517L;
+
+        private final String name;
+
+        private InProcessAddress(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+
+    private final class InProcessUnsafe extends AbstractUnsafe {
+        @Override
+        public void connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
+            if (!promise.setUncancellable() || !ensureOpen(promise))
+                return;
+
+            try {
+                boolean wasActive = isActive();
+                doConnect(remoteAddress);
+                AbstractInProcessChannel.this.remoteAddress = remoteAddress;
+                active = true;
+                safeSetSuccess(promise);
+                if (!wasActive && isActive())
+                    pipeline().fireChannelActive();
+            } catch (Throwable t) {
+                safeSetFailure(promise, t);
+                closeIfClosed();
+            }
+        }
+    }
+
+}
@@ -16,35 +16,107 @@
 package de.tbressler.waterrower.io.transport;
 
 import com.fazecast.jSerialComm.SerialPort;
-import io.netty.channel.ChannelFuture;
-import io.netty.channel.ChannelPromise;
-import io.netty.channel.oio.OioByteStreamChannel;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
 
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+import static com.fazecast.jSerialComm.SerialPort.*;
 import static de.tbressler.waterrower.io.transport.SerialChannelOption.*;
+import static io.netty.buffer.ByteBufUtil.getBytes;
+import static java.util.Objects.requireNonNull;
 
 
 /**
  * A channel to a serial device using the jSerialComm library.
+ *
+ * The channel doesn't block a thread while waiting for data. The port is opened non-blocking and
+ * the data-available events of jSerialComm trigger the reads, which are executed on the event
+ * loop of the channel. Therefore the channel can be registered at a regular event loop (e.g. the
+ * I/O event loop group of a WaterRowerRuntime), which can be shared with other channels, and
+ * closing the channel doesn't need to wait for a pending read to time out.
+ *
+ * The frames, which are flushed together, are gathered and written to the port with a single
+ * write. Writes don't block the event loop either: the port accepts as many bytes as fit into the
+ * output buffer of the OS, the remaining bytes stay in the outbound buffer. They are written again,
+ * when the port signals that data was written or at the latest after a short delay. No bytes are
+ * written while the output buffer of the OS holds more than MAX_BYTES_AWAITING_WRITE bytes.
  */
-public class SerialChannel extends OioByteStreamChannel {
+public class SerialChannel extends AbstractChannel {
 
     private static final SerialDeviceAddress LOCAL_ADDRESS = new SerialDeviceAddress("localhost");
 
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+    /* The size of the buffer, in which the flushed frames are gathered. */
+    private static final int GATHER_BUFFER_SIZE = 1024;
+
+    /* The delay (in ms) before the remaining bytes of an incomplete write are written again, if
+       the port doesn't signal that data was written before. */
+    private static final long WRITE_RETRY_DELAY = 10;
+
+    /* The maximum number of bytes in the output buffer of the OS, up to which further bytes are
+       written to the port. */
+    private static final int MAX_BYTES_AWAITING_WRITE = GATHER_BUFFER_SIZE;
+
     private final SerialChannelConfig config;
 
-    private boolean open = true;
+    /* Returns the serial port of the given port name. */
+    private final Function<String, SerialPort> portFactory;
+
+    /* Reads the available bytes from the port, always executed on the event loop. */
+    private final Runnable readTask = this::readAvailableBytes;
+
+    /* Writes the remaining bytes of an incomplete write after the retry delay, always executed
+       on the event loop. */
+    private final Runnable writeRetryTask = this::retryWrite;
+
+    /* Writes the remaining bytes of an incomplete write after data was written to the port,
+       always executed on the event loop. */
+    private final Runnable writePendingTask = this::writePendingBytes;
+
+    /* The buffer, in which the flushed frames are gathered, only used on the event loop. */
+    private final byte[] gatherBuffer = new byte[GATHER_BUFFER_SIZE];
+
+    /* The number of bytes in the gather buffer. */
+    private int gatheredBytes;
+
+    /* Copies the flushed frames into the gather buffer, as long as they fit. */
+    private final ChannelOutboundBuffer.MessageProcessor gatherProcessor = msg -> {
+        if (!(msg instanceof ByteBuf))
+            return false;
+        ByteBuf buffer = (ByteBuf) msg;
+        int length = buffer.readableBytes();
+        if (gatheredBytes + length > gatherBuffer.length)
+            return false;
+        buffer.getBytes(buffer.readerIndex(), gatherBuffer, gatheredBytes, length);
+        gatheredBytes += length;
+        return true;
+    };
+
+    private volatile boolean open = true;
+    private volatile boolean active;
+    private boolean readPending;
+    private boolean writeRetryScheduled;
+    private volatile boolean writePending;
     private SerialDeviceAddress deviceAddress;
     private SerialPort serialPort;
 
     public SerialChannel() {
+        this(SerialPort::getCommPort);
+    }
+
+    /* Creates a channel, which opens the ports of the given factory (e.g. fake ports in tests). */
+    SerialChannel(Function<String, SerialPort> portFactory) {
         super(null);
 
+        this.portFactory = requireNonNull(portFactory);
         config = new DefaultSerialChannelConfig(this);
-        config.setReadTimeout(3000);
         config.setAutoClose(true);
     }
 
@@ -58,21 +130,36 @@ public class SerialChannel extends OioByteStreamChannel {
         return open;
     }
 
+    @Override
+    public boolean isActive() {
+        return open && active;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof SingleThreadEventLoop;
+    }
+
     @Override
     protected AbstractUnsafe newUnsafe() {
         return new JSCUnsafe();
     }
 
-    @Override
     protected void doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
         SerialDeviceAddress remote = (SerialDeviceAddress) remoteAddress;
-        SerialPort commPort = SerialPort.getCommPort(remote.value());
+        SerialPort commPort = portFactory.apply(remote.value());
         if (!commPort.openPort()) {
             throw new IOException("Could not open port: " + remote.value());
         }
 
-        commPort.setComPortTimeouts(
-                SerialPort.TIMEOUT_READ_BLOCKING, config().getOption(READ_TIMEOUT), 0);
+        // Reads and writes return immediately, reads are only triggered if data is available and
+        // writes only pass the bytes, which the port accepts:
+        commPort.setComPortTimeouts(TIMEOUT_NONBLOCKING, 0, 0);
 
         deviceAddress = remote;
         serialPort = commPort;
@@ -86,7 +173,11 @@ public class SerialChannel extends OioByteStreamChannel {
             config().getOption(PARITY_BIT).value()
         );
 
-        activate(serialPort.getInputStream(), serialPort.getOutputStream());
+        if (!serialPort.addDataListener(new DataListener())) {
+            throw new IOException("Could not listen to port: " + deviceAddress.value());
+        }
+
+        active = true;
     }
 
     @Override
@@ -122,33 +213,180 @@ public class SerialChannel extends OioByteStreamChannel {
     @Override
     protected void doClose() throws Exception {
         open = false;
+        active = false;
+        if (serialPort != null) {
+            serialPort.removeDataListener();
+            serialPort.closePort();
+            serialPort = null;
+        }
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        readPending = true;
+        // Read the bytes, which were received while no read was pending:
+        readAvailableBytes();
+    }
+
+    /* Reads all available bytes from the port and fires them through the pipeline. */
+    private void readAvailableBytes() {
+        if (!readPending || !isActive())
+            return;
+
+        ChannelPipeline pipeline = pipeline();
+        boolean readData = false;
+
         try {
-           super.doClose();
-        } finally {
-            if (serialPort != null) {
-                serialPort.closePort();
-                serialPort = null;
+            int available;
+            while (readPending && isActive() && ((available = serialPort.bytesAvailable()) > 0)) {
+
+                ByteBuf buffer = alloc().heapBuffer(available);
+                int read = serialPort.readBytes(buffer.array(), available, buffer.arrayOffset() + buffer.writerIndex());
+                if (read <= 0) {
+                    buffer.release();
+                    break;
+                }
+                buffer.writerIndex(buffer.writerIndex() + read);
+
+                readData = true;
+                readPending = config().isAutoRead();
+                pipeline.fireChannelRead(buffer);
             }
+
+            if (readData)
+                pipeline.fireChannelReadComplete();
+
+            if (isActive() && (serialPort.bytesAvailable() < 0))
+                throw new IOException("Serial port is no longer available.");
+
+        } catch (Throwable t) {
+            pipeline.fireExceptionCaught(t);
+            if (config().isAutoClose())
+                unsafe().close(voidPromise());
         }
     }
 
     @Override
-    protected boolean isInputShutdown() {
-        return !open;
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null)
+                break;
+
+            if (!(msg instanceof ByteBuf)) {
+                in.remove(new UnsupportedOperationException("Unsupported message type: " + msg.getClass().getName()));
+                continue;
+            }
+
+            // The port doesn't accept further bytes yet, they are written later:
+            if (serialPort.bytesAwaitingWrite() > MAX_BYTES_AWAITING_WRITE) {
+                scheduleWriteRetry();
+                break;
+            }
+
+            // Several flushed frames are gathered and written with a single write:
+            int gathered = (in.size() > 1) ? gatherFlushedFrames(in) : 0;
+
+            int length;
+            int written;
+            if (gathered > 0) {
+                length = gathered;
+                written = serialPort.writeBytes(gatherBuffer, gathered);
+            } else {
+                length = ((ByteBuf) msg).readableBytes();
+                written = writeBuffer((ByteBuf) msg);
+            }
+            if (written < 0)
+                throw new IOException("Could not write to port: " + deviceAddress.value());
+
+            // Removes the written and empty buffers:
+            in.removeBytes(written);
+
+            // The port accepted only a part of the bytes, the remaining bytes are written later:
+            if (written < length) {
+                scheduleWriteRetry();
+                break;
+            }
+        }
     }
 
-    @Override
-    protected ChannelFuture shutdownInput() {
-        return newFailedFuture(new UnsupportedOperationException("shutdownInput"));
+    /* Marks the remaining bytes as pending and schedules a retry, if no retry is scheduled yet.
+       The bytes are written by the next data-written event of the port or by the retry. */
+    private void scheduleWriteRetry() {
+        writePending = true;
+        if (writeRetryScheduled)
+            return;
+        writeRetryScheduled = true;
+        eventLoop().schedule(writeRetryTask, WRITE_RETRY_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /* Writes the remaining bytes of an incomplete write after the retry delay. */
+    private void retryWrite() {
+        writeRetryScheduled = false;
+        writePendingBytes();
+    }
+
+    /* Writes the remaining bytes of an incomplete write, if they are not written yet. */
+    private void writePendingBytes() {
+        if (!writePending)
+            return;
+        writePending = false;
+        ((JSCUnsafe) unsafe()).flushRemaining();
+    }
+
+    /* Gathers the flushed frames into the gather buffer and returns the number of bytes. */
+    private int gatherFlushedFrames(ChannelOutboundBuffer in) throws Exception {
+        gatheredBytes = 0;
+        in.forEachFlushedMessage(gatherProcessor);
+        return gatheredBytes;
+    }
+
+    /* Writes the readable bytes of a single buffer and returns the number of written bytes. */
+    private int writeBuffer(ByteBuf buffer) {
+        int length = buffer.readableBytes();
+        if (length == 0)
+            return 0;
+        if (buffer.hasArray())
+            return serialPort.writeBytes(buffer.array(), length, buffer.arrayOffset() + buffer.readerIndex());
+        return serialPort.writeBytes(getBytes(buffer), length);
+    }
+
+
+    /* Listens for the events of the serial port and hands them over to the event loop. */
+    private final class DataListener implements SerialPortDataListener {
+
+        @Override
+        public int getListeningEvents() {
+            return LISTENING_EVENT_DATA_AVAILABLE | LISTENING_EVENT_DATA_WRITTEN | LISTENING_EVENT_PORT_DISCONNECTED;
+        }
+
+        @Override
+        public void serialEvent(SerialPortEvent event) {
+            if (event.getEventType() == LISTENING_EVENT_PORT_DISCONNECTED) {
+                eventLoop().execute(() -> unsafe().close(voidPromise()));
+            } else if (event.getEventType() == LISTENING_EVENT_DATA_WRITTEN) {
+                if (writePending)
+                    eventLoop().execute(writePendingTask);
+            } else {
+                eventLoop().execute(readTask);
+            }
+        }
+
     }
 
 
     private final class JSCUnsafe extends AbstractUnsafe {
+
+        /* Writes the bytes, which are still flushed in the outbound buffer. */
+        void flushRemaining() {
+            flush0();
+        }
+
         @Override
         public void connect(
                 final SocketAddress remoteAddress,
                 final SocketAddress localAddress, final ChannelPromise promise) {
-            if (!promise.setUncancellable() || !isOpen()) {
+            if (!promise.setUncancellable() || !ensureOpen(promise)) {
                 return;
             }
 
@@ -186,4 +424,4 @@ public class SerialChannel extends OioByteStreamChannel {
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -43,4 +43,9 @@ public class SerialDeviceAddress extends SocketAddress {
         return value;
     }
 
+    @Override
+    public String toString() {
+        return value;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package de.tbressler.waterrower.io.transport;
+
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.dns.DnsAddressResolverGroup;
+import io.netty.resolver.dns.DnsServerAddressStreamProviders;
+
+import java.net.InetSocketAddress;
+
+/**
+ * A channel, which connects to a WaterRower over a serial-over-TCP bridge (see TcpDeviceAddress)
+ * instead of a local serial port. The bridge relays the raw bytes between the TCP connection and
+ * the serial port of the WaterRower (e.g. a TcpSerialBridge or ser2net in raw mode), therefore
+ * the channel can be used with the regular pipeline (see ChannelInitializer).
+ *
+ * The channel is a NIO socket channel and must be registered at a NIO event loop (e.g. the event
+ * loop of a WaterRowerRuntime), which can be shared with other channels. Nagle's algorithm is
+ * disabled, because the frames of the WaterRower are small and latency sensitive.
+ *
+ * The channel doesn't look up host names, because a lookup would block the shared event loop.
+ * The channel is connected with a resolved InetSocketAddress. The host name of a TcpDeviceAddress
+ * is resolved asynchronously by the resolver of the bootstrap before the channel is connected
+ * (see CommunicationService and newResolverGroup()).
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TcpChannel extends NioSocketChannel {
+
+    /**
+     * A channel, which connects to a WaterRower over a serial-over-TCP bridge.
+     */
+    public TcpChannel() {
+        config().setTcpNoDelay(true);
+        config().setKeepAlive(true);
+    }
+
+
+    /**
+     * Returns a new resolver group, which resolves the host names of the bridges asynchronously
+     * by DNS (and the hosts file) on the NIO event loops of the channels. Multicast DNS names
+     * (e.g. "rower-1.local") are not resolved. The resolver group must be closed by its owner, if
+     * it is no longer needed.
+     *
+     * @return The resolver group, never null.
+     */
+    public static AddressResolverGroup<InetSocketAddress> newResolverGroup() {
+        return new DnsAddressResolverGroup(NioDatagramChannel.class, DnsServerAddressStreamProviders.platformDefault());
+    }
+
+}
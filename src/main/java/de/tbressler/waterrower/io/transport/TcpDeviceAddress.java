@@ -0,0 +1,132 @@
+package de.tbressler.waterrower.io.transport;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The address of a WaterRower, which is connected to a serial-over-TCP bridge (e.g. a
+ * TcpSerialBridge or ser2net in raw mode on an edge board). The address consists of the host
+ * and the port of the bridge, e.g. "rower-1.example.org:4001". The host name is resolved by DNS
+ * (and the hosts file), multicast DNS names (e.g. "rower-1.local") are not resolved.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TcpDeviceAddress extends SocketAddress {
+
+    private static final long serialVersionUID = 2309442512743519084L;
+
+    /* The host of the bridge. */
+    private final String host;
+
+    /* The port of the bridge. */
+    private final int port;
+
+
+    /**
+     * The address of a WaterRower, which is connected to a serial-over-TCP bridge.
+     *
+     * @param host The host name or IP address of the bridge, must not be null.
+     * @param port The port of the bridge (1 .. 65535).
+     */
+    public TcpDeviceAddress(String host, int port) {
+        this.host = requireNonNull(host);
+        if (host.isEmpty())
+            throw new IllegalArgumentException("The host must not be empty!");
+        if ((port < 1) || (port > 65535))
+            throw new IllegalArgumentException("The port must be between 1 and 65535!");
+        this.port = port;
+    }
+
+
+    /**
+     * Returns the address of the given value, e.g. "rower-1.example.org:4001" or "[::1]:4001".
+     *
+     * @param value The address in the format host:port, must not be null.
+     * @return The address, never null.
+     */
+    public static TcpDeviceAddress parse(String value) {
+        requireNonNull(value);
+        int separator = value.lastIndexOf(':');
+        if ((separator <= 0) || (separator == value.length() - 1))
+            throw new IllegalArgumentException("The address must be in the format host:port! Address: " + value);
+
+        String host = value.substring(0, separator);
+        if (host.startsWith("[") && host.endsWith("]"))
+            host = host.substring(1, host.length() - 1);
+
+        int port;
+        try {
+            port = Integer.parseInt(value.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The port of the address is not a number! Address: " + value, e);
+        }
+        return new TcpDeviceAddress(host, port);
+    }
+
+
+    /**
+     * @return The host name or IP address of the bridge, never null.
+     */
+    public String host() {
+        return host;
+    }
+
+    /**
+     * @return The port of the bridge.
+     */
+    public int port() {
+        return port;
+    }
+
+    /**
+     * @return The address in the format host:port (e.g. rower-1.example.org:4001), never null.
+     */
+    public String value() {
+        return (host.indexOf(':') >= 0) ? "[" + host + "]:" + port : host + ":" + port;
+    }
+
+    /**
+     * Returns the socket address of the bridge. The host name is resolved by every call, which
+     * blocks the calling thread until the lookup is done.
+     *
+     * @return The socket address, never null.
+     */
+    public InetSocketAddress toInetSocketAddress() {
+        return new InetSocketAddress(host, port);
+    }
+
+    /**
+     * Returns the unresolved socket address of the bridge. The host name can be resolved
+     * asynchronously by the resolver of a bootstrap, before the channel is connected.
+     *
+     * @return The unresolved socket address, never null.
+     */
+    public InetSocketAddress toUnresolvedSocketAddress() {
+        return InetSocketAddress.createUnresolved(host, port);
+    }
+
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof TcpDeviceAddress))
+            return false;
+        TcpDeviceAddress that = (TcpDeviceAddress) o;
+        return (port == that.port) && host.equals(that.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * host.hashCode() + port;
+    }
+
+    @Override
+    public String toString() {
+        return value();
+    }
+
+}
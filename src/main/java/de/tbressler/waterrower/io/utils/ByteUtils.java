@@ -2,6 +2,8 @@ package de.tbressler.waterrower.io.utils;
 
 import io.netty.buffer.ByteBuf;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * Helper class for byte, byte buffers and byte arrays.
  *
@@ -10,6 +12,17 @@ import io.netty.buffer.ByteBuf;
  */
 public class ByteUtils {
 
+    /* The ASCII digits of the ACH and ACD values, indexed by the value of the digit. */
+    private static final byte[] DIGITS = {
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
+    /* The powers of ten, indexed by the exponent (0 .. 9). */
+    private static final int[] POWERS_OF_TEN = {
+            1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000
+    };
+
+
     /* Private constructor. */
     private ByteUtils()  {}
 
@@ -23,4 +36,121 @@ public class ByteUtils {
         return "ByteBuf[index=" + buffer.readerIndex() + ",bytes=" + buffer.readableBytes() + "]";
     }
 
+
+    /**
+     * Returns true if the readable bytes of the buffer start with the given ASCII prefix. The
+     * reader index of the buffer is not modified.
+     *
+     * @param buffer The byte buffer, must not be null.
+     * @param prefix The ASCII prefix, must not be null.
+     * @return True if the buffer starts with the prefix.
+     */
+    public static boolean startsWith(ByteBuf buffer, String prefix) {
+        requireNonNull(buffer);
+        requireNonNull(prefix);
+
+        int length = prefix.length();
+        if (buffer.readableBytes() < length)
+            return false;
+
+        int index = buffer.readerIndex();
+        for (int i = 0; i < length; i++) {
+            if (buffer.getByte(index + i) != prefix.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the ACH (ASCII coded hexadecimal) at the given absolute index of the buffer as int
+     * value. The reader index of the buffer is not modified.
+     *
+     * @param buffer The byte buffer, must not be null.
+     * @param index The absolute index of the first ACH character.
+     * @param chars The number of ACH characters (1 .. 7).
+     * @return The integer value.
+     *
+     * @throws NumberFormatException If not a hexadecimal value.
+     * @throws IndexOutOfBoundsException If the buffer has less than the given number of characters.
+     */
+    public static int achToInt(ByteBuf buffer, int index, int chars) throws NumberFormatException {
+        requireNonNull(buffer);
+        if ((chars < 1) || (chars > 7))
+            throw new IllegalArgumentException("The number of chars must be between 1 and 7!");
+        if ((index < buffer.readerIndex()) || (index + chars > buffer.writerIndex()))
+            throw new IndexOutOfBoundsException("The buffer has no " + chars + " readable characters at index " + index + "!");
+
+        int value = 0;
+        for (int i = 0; i < chars; i++) {
+            value = (value << 4) | hexDigit(buffer.getByte(index + i));
+        }
+        return value;
+    }
+
+    /**
+     * Writes the int value as ACH (ASCII coded hexadecimal) with leading zeros to the buffer. The
+     * digits are looked up from a table, no String is created.
+     *
+     * @param buffer The byte buffer, must not be null.
+     * @param value The int value, must not be negative.
+     * @param chars The number of ACH characters (1 .. 7).
+     *
+     * @throws NumberFormatException If the int is negative or has more characters than the number
+     *                               of chars given.
+     */
+    public static void writeAch(ByteBuf buffer, int value, int chars) throws NumberFormatException {
+        requireNonNull(buffer);
+        if ((chars < 1) || (chars > 7))
+            throw new IllegalArgumentException("The number of chars must be between 1 and 7!");
+        if ((value < 0) || ((value >>> (chars << 2)) != 0))
+            throw new NumberFormatException("Number " + value + " can't be written as ACH with " + chars + " characters!");
+
+        buffer.ensureWritable(chars);
+        int index = buffer.writerIndex();
+        for (int i = chars - 1; i >= 0; i--) {
+            buffer.setByte(index + i, DIGITS[value & 0x0F]);
+            value >>>= 4;
+        }
+        buffer.writerIndex(index + chars);
+    }
+
+    /**
+     * Writes the int value as ACD (ASCII coded decimal) with leading zeros to the buffer. The
+     * digits are looked up from a table, no String is created.
+     *
+     * @param buffer The byte buffer, must not be null.
+     * @param value The int value, must not be negative.
+     * @param chars The number of ACD characters (1 .. 9).
+     *
+     * @throws NumberFormatException If the int is negative or has more characters than the number
+     *                               of chars given.
+     */
+    public static void writeAcd(ByteBuf buffer, int value, int chars) throws NumberFormatException {
+        requireNonNull(buffer);
+        if ((chars < 1) || (chars > 9))
+            throw new IllegalArgumentException("The number of chars must be between 1 and 9!");
+        if ((value < 0) || (value >= POWERS_OF_TEN[chars]))
+            throw new NumberFormatException("Number " + value + " can't be written as ACD with " + chars + " characters!");
+
+        buffer.ensureWritable(chars);
+        int index = buffer.writerIndex();
+        for (int i = chars - 1; i >= 0; i--) {
+            buffer.setByte(index + i, DIGITS[value % 10]);
+            value /= 10;
+        }
+        buffer.writerIndex(index + chars);
+    }
+
+    /* Returns the value of the hex digit or throws a NumberFormatException. */
+    private static int hexDigit(byte b) {
+        if ((b >= '0') && (b <= '9'))
+            return b - '0';
+        if ((b >= 'A') && (b <= 'F'))
+            return b - 'A' + 10;
+        if ((b >= 'a') && (b <= 'f'))
+            return b - 'a' + 10;
+        throw new NumberFormatException("Invalid ACH character '" + (char) (b & 0xFF) + "'!");
+    }
+
 }
@@ -6,6 +6,17 @@ import org.slf4j.LoggerFactory;
 /**
  * Simple singleton for logging.
  *
+ * The log levels are checked before a message is formatted. The parameterised methods use the
+ * format of SLF4J (e.g. "Sending message '{}'."), the arguments are only formatted if the level
+ * is enabled. Therefore logging on the hot path (e.g. for every frame) doesn't allocate, if the
+ * level is disabled:
+ * - Don't concatenate strings, use the parameterised methods instead.
+ * - Arguments of primitive types are only boxed, if the level is enabled.
+ * - Expensive messages can be guarded by isDebugEnabled().
+ *
+ * The enabled levels are cached. If the levels of the logger are changed at runtime, call
+ * refreshLevels().
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
@@ -14,24 +25,102 @@ public class Log {
     /* The logger. */
     private static final Logger logger = LoggerFactory.getLogger("WaterRowerLibrary");
 
+    /* True if the debug level is enabled. */
+    private static volatile boolean isDebugEnabled;
+
+    /* True if the info level is enabled. */
+    private static volatile boolean isInfoEnabled;
+
+    /* True if the warn level is enabled. */
+    private static volatile boolean isWarnEnabled;
+
+    static {
+        refreshLevels();
+    }
+
 
     /* Private constructor. */
     private Log() {}
 
 
+    /**
+     * Reads the enabled levels from the logger again. Must be called, if the levels of the logger
+     * were changed at runtime.
+     */
+    public static void refreshLevels() {
+        isDebugEnabled = logger.isDebugEnabled();
+        isInfoEnabled = logger.isInfoEnabled();
+        isWarnEnabled = logger.isWarnEnabled();
+    }
+
+    /**
+     * Returns true if the debug level is enabled.
+     *
+     * @return True if debug messages are logged.
+     */
+    public static boolean isDebugEnabled() {
+        return isDebugEnabled;
+    }
+
+
     /** Logs debug messages. */
     public static void debug(String msg) {
-        logger.debug(msg);
+        if (isDebugEnabled)
+            logger.debug(msg);
+    }
+
+    /** Logs debug messages, the argument is only formatted if debug is enabled. */
+    public static void debug(String format, Object arg) {
+        if (isDebugEnabled)
+            logger.debug(format, arg);
+    }
+
+    /** Logs debug messages, the argument is only formatted if debug is enabled. */
+    public static void debug(String format, long arg) {
+        if (isDebugEnabled)
+            logger.debug(format, arg);
+    }
+
+    /** Logs debug messages, the arguments are only formatted if debug is enabled. */
+    public static void debug(String format, Object arg1, Object arg2) {
+        if (isDebugEnabled)
+            logger.debug(format, arg1, arg2);
     }
 
     /** Logs debug messages. */
     public static void info(String msg) {
-        logger.info(msg);
+        if (isInfoEnabled)
+            logger.info(msg);
+    }
+
+    /** Logs info messages, the argument is only formatted if info is enabled. */
+    public static void info(String format, Object arg) {
+        if (isInfoEnabled)
+            logger.info(format, arg);
+    }
+
+    /** Logs info messages, the arguments are only formatted if info is enabled. */
+    public static void info(String format, Object arg1, Object arg2) {
+        if (isInfoEnabled)
+            logger.info(format, arg1, arg2);
     }
 
     /** Logs warning messages. */
     public static void warn(String msg) {
-        logger.warn(msg);
+        if (isWarnEnabled)
+            logger.warn(msg);
+    }
+
+    /** Logs warning messages, the argument is only formatted if warn is enabled. */
+    public static void warn(String format, Object arg) {
+        if (isWarnEnabled)
+            logger.warn(format, arg);
+    }
+
+    /** Logs warning messages, the arguments are only formatted if warn is enabled. */
+    public static void warn(String format, Object arg1, Object arg2) {
+        if (isWarnEnabled)
+            logger.warn(format, arg1, arg2);
     }
 
     /** Logs error messages. */
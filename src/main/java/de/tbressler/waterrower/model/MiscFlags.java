@@ -1,7 +1,5 @@
 package de.tbressler.waterrower.model;
 
-import static de.tbressler.waterrower.utils.MessageUtils.getBooleanFromByte;
-
 /**
  * Zone words and misc windows flags.
  *  0 = fzone_fg_work: a workout row interval is active
@@ -40,7 +38,7 @@ public class MiscFlags {
      * @return True if a workout row interval or no workout is active.
      */
     public boolean isZoneWork() {
-        return getBooleanFromByte(value, 0);
+        return isZoneWork(value);
     }
 
     /**
@@ -49,7 +47,7 @@ public class MiscFlags {
      * @return True if a workout rest interval is active.
      */
     public boolean isZoneRest() {
-        return getBooleanFromByte(value, 1);
+        return isZoneRest(value);
     }
 
     /**
@@ -58,7 +56,7 @@ public class MiscFlags {
      * @return True if the battery is low.
      */
     public boolean isBatteryLow() {
-        return getBooleanFromByte(value, 2);
+        return isBatteryLow(value);
     }
 
     /**
@@ -67,27 +65,95 @@ public class MiscFlags {
      * @return True if a PC is connected.
      */
     public boolean isPCConnected() {
-        return getBooleanFromByte(value, 3);
+        return isPCConnected(value);
     }
 
 
     public boolean isMiscLine() {
-        return getBooleanFromByte(value, 4);
+        return isMiscLine(value);
     }
 
     public boolean isMiscMmcCd() {
-        return getBooleanFromByte(value, 5);
+        return isMiscMmcCd(value);
     }
 
     public boolean isMiscMmcUp() {
-        return getBooleanFromByte(value, 6);
+        return isMiscMmcUp(value);
     }
 
     public boolean isMiscMmcDn() {
-        return getBooleanFromByte(value, 7);
+        return isMiscMmcDn(value);
+    }
+
+
+    /**
+     * Returns the flags as byte.
+     *
+     * @return The flags (0x00 .. 0xFF).
+     */
+    public int getValue() {
+        return value;
     }
 
 
+    // Static decoders of the flags as byte, e.g. for MiscFlagsSubscription.onMiscFlagsUpdated(int):
+
+    /**
+     * True if a workout row interval or no workout is active.
+     *
+     * @param flags The flags as byte.
+     * @return True if a workout row interval or no workout is active.
+     */
+    public static boolean isZoneWork(int flags) {
+        return (flags & 0x01) != 0;
+    }
+
+    /**
+     * True if a workout rest interval is active.
+     *
+     * @param flags The flags as byte.
+     * @return True if a workout rest interval is active.
+     */
+    public static boolean isZoneRest(int flags) {
+        return (flags & 0x02) != 0;
+    }
+
+    /**
+     * True if the battery of the Performance Monitor is low.
+     *
+     * @param flags The flags as byte.
+     * @return True if the battery is low.
+     */
+    public static boolean isBatteryLow(int flags) {
+        return (flags & 0x04) != 0;
+    }
+
+    /**
+     * True if a PC is connected.
+     *
+     * @param flags The flags as byte.
+     * @return True if a PC is connected.
+     */
+    public static boolean isPCConnected(int flags) {
+        return (flags & 0x08) != 0;
+    }
+
+    public static boolean isMiscLine(int flags) {
+        return (flags & 0x10) != 0;
+    }
+
+    public static boolean isMiscMmcCd(int flags) {
+        return (flags & 0x20) != 0;
+    }
+
+    public static boolean isMiscMmcUp(int flags) {
+        return (flags & 0x40) != 0;
+    }
+
+    public static boolean isMiscMmcDn(int flags) {
+        return (flags & 0x80) != 0;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,7 +1,5 @@
 package de.tbressler.waterrower.model;
 
-import static de.tbressler.waterrower.utils.MessageUtils.getBooleanFromByte;
-
 /**
  * Working and workout control flags.
  * 0 = fzone_hr: working in heartrate zone
@@ -40,7 +38,7 @@ public class WorkoutFlags {
      * @return True if working in heartrate zone.
      */
     public boolean isWorkingInHeartRateZone() {
-        return getBooleanFromByte(value, 0);
+        return isWorkingInHeartRateZone(value);
     }
 
     /**
@@ -49,7 +47,7 @@ public class WorkoutFlags {
      * @return True if working in intensity zone.
      */
     public boolean isWorkingInIntensityZone() {
-        return getBooleanFromByte(value, 1);
+        return isWorkingInIntensityZone(value);
     }
 
     /**
@@ -58,7 +56,7 @@ public class WorkoutFlags {
      * @return True if working in strokerate zone.
      */
     public boolean isWorkingInStrokeRateZone() {
-        return getBooleanFromByte(value, 2);
+        return isWorkingInStrokeRateZone(value);
     }
 
     /**
@@ -67,7 +65,7 @@ public class WorkoutFlags {
      * @return True if prognostics active.
      */
     public boolean isPrognosticsActive() {
-        return getBooleanFromByte(value, 3);
+        return isPrognosticsActive(value);
     }
 
     /**
@@ -76,7 +74,7 @@ public class WorkoutFlags {
       * @return True if in workout distance mode.
      */
     public boolean isWorkoutDistanceMode() {
-        return getBooleanFromByte(value, 4);
+        return isWorkoutDistanceMode(value);
     }
 
     /**
@@ -85,7 +83,7 @@ public class WorkoutFlags {
      * @return True if in workout duration mode.
      */
     public boolean isWorkoutDurationMode() {
-        return getBooleanFromByte(value, 5);
+        return isWorkoutDurationMode(value);
     }
 
     /**
@@ -94,7 +92,7 @@ public class WorkoutFlags {
      * @return True if in workout distance interval mode.
      */
     public boolean isWorkoutDistanceIntervalMode() {
-        return getBooleanFromByte(value, 6);
+        return isWorkoutDistanceIntervalMode(value);
     }
 
     /**
@@ -103,9 +101,101 @@ public class WorkoutFlags {
      * @return True if in workout duration interval mode.
      */
     public boolean isWorkoutDurationIntervalMode() {
-        return getBooleanFromByte(value, 7);
+        return isWorkoutDurationIntervalMode(value);
+    }
+
+
+    /**
+     * Returns the flags as byte.
+     *
+     * @return The flags (0x00 .. 0xFF).
+     */
+    public int getValue() {
+        return value;
+    }
+
+
+    // Static decoders of the flags as byte, e.g. for WorkoutFlagsSubscription.onWorkoutFlagsUpdated(int):
+
+    /**
+     * True if working in heartrate zone.
+     *
+     * @param flags The flags as byte.
+     * @return True if working in heartrate zone.
+     */
+    public static boolean isWorkingInHeartRateZone(int flags) {
+        return (flags & 0x01) != 0;
+    }
+
+    /**
+     * True if working in intensity zone.
+     *
+     * @param flags The flags as byte.
+     * @return True if working in intensity zone.
+     */
+    public static boolean isWorkingInIntensityZone(int flags) {
+        return (flags & 0x02) != 0;
+    }
+
+    /**
+     * True if working in strokerate zone.
+     *
+     * @param flags The flags as byte.
+     * @return True if working in strokerate zone.
+     */
+    public static boolean isWorkingInStrokeRateZone(int flags) {
+        return (flags & 0x04) != 0;
+    }
+
+    /**
+     * True if prognostics active.
+     *
+     * @param flags The flags as byte.
+     * @return True if prognostics active.
+     */
+    public static boolean isPrognosticsActive(int flags) {
+        return (flags & 0x08) != 0;
+    }
+
+    /**
+     * True if in workout distance mode.
+     *
+     * @param flags The flags as byte.
+     * @return True if in workout distance mode.
+     */
+    public static boolean isWorkoutDistanceMode(int flags) {
+        return (flags & 0x10) != 0;
+    }
+
+    /**
+     * True if in workout duration mode.
+     *
+     * @param flags The flags as byte.
+     * @return True if in workout duration mode.
+     */
+    public static boolean isWorkoutDurationMode(int flags) {
+        return (flags & 0x20) != 0;
+    }
+
+    /**
+     * True if in workout distance interval mode.
+     *
+     * @param flags The flags as byte.
+     * @return True if in workout distance interval mode.
+     */
+    public static boolean isWorkoutDistanceIntervalMode(int flags) {
+        return (flags & 0x40) != 0;
     }
 
+    /**
+     * True if in workout duration interval mode.
+     *
+     * @param flags The flags as byte.
+     * @return True if in workout duration interval mode.
+     */
+    public static boolean isWorkoutDurationIntervalMode(int flags) {
+        return (flags & 0x80) != 0;
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -29,6 +29,9 @@ public abstract class AbstractMemorySubscription implements ISubscription {
     /* The memory location. */
     private final MemoryLocation location;
 
+    /* The message, which polls the memory locations. */
+    private final ReadMemoryMessage readMessage;
+
     /* Because of missing incoming messages, count the outgoing messages
        until an incoming message was received. */
     private final AtomicInteger counterLatch = new AtomicInteger(0);
@@ -45,6 +48,7 @@ public abstract class AbstractMemorySubscription implements ISubscription {
         this.priority = requireNonNull(priority);
         this.memory = requireNonNull(memory);
         this.location = requireNonNull(location);
+        this.readMessage = ReadMemoryMessage.of(memory, location.getLocation());
     }
 
     @Override
@@ -52,10 +56,38 @@ public abstract class AbstractMemorySubscription implements ISubscription {
         return priority;
     }
 
+    /**
+     * Returns the memory type (single, double or triple memory).
+     *
+     * @return The memory type, never null.
+     */
+    public Memory getMemory() {
+        return memory;
+    }
+
+    /**
+     * Returns the memory location.
+     *
+     * @return The memory location, never null.
+     */
+    public MemoryLocation getLocation() {
+        return location;
+    }
+
+    /**
+     * Returns the message, which reads the memory locations of this subscription. The same
+     * message is returned on every call.
+     *
+     * @return The message, never null.
+     */
+    ReadMemoryMessage getReadMessage() {
+        return readMessage;
+    }
+
     @Override
     public final AbstractMessage poll() {
         counterLatch.incrementAndGet();
-        return new ReadMemoryMessage(memory, location.getLocation());
+        return readMessage;
     }
 
     @Override
@@ -65,11 +97,14 @@ public abstract class AbstractMemorySubscription implements ISubscription {
 
         DataMemoryMessage dataMemoryMessage = (DataMemoryMessage) msg;
 
-        // Check if memory location and memory type matches:
-        if (dataMemoryMessage.getLocation() != location.getLocation())
+        // Check if the message contains the memory locations of this subscription. This is also
+        // the case if the message was read by a merged read (see ReadMemoryPlanner).
+        int offset = location.getLocation() - dataMemoryMessage.getLocation();
+        if ((offset < 0) || (offset > 2))
             return;
-        if (dataMemoryMessage.getMemory() != memory) {
-            Log.warn("Received message has memory type '"+dataMemoryMessage.getMemory()+"', but expected is '"+memory+"'!");
+        if (offset + memory.getNumberOfBytes() > dataMemoryMessage.getMemory().getNumberOfBytes()) {
+            if (offset == 0)
+                Log.warn("Received message has memory type '{}', but expected is '{}'!", dataMemoryMessage.getMemory(), memory);
             return;
         }
 
@@ -79,14 +114,19 @@ public abstract class AbstractMemorySubscription implements ISubscription {
             // the WaterRower. This seems to happen when the paddle is not moving and it is not
             // a bug of the library. A log message will be created when the counter is
             // greater than 3.
-            Log.debug("Not all messages were answered by the WaterRower (missing "+(counter - 1)+" message(s)).");
+            Log.debug("Not all messages were answered by the WaterRower (missing {} message(s)).", counter - 1);
         }
 
-        handle(dataMemoryMessage);
+        if ((offset == 0) && (dataMemoryMessage.getMemory() == memory)) {
+            handle(dataMemoryMessage);
+        } else {
+            handle(dataMemoryMessage.extract(memory, location.getLocation()));
+        }
     }
 
     /**
      * Called if a memory message was received, which is for the location and memory type given.
+     * The time, when the message was received, is returned by msg.getReceivedNanos().
      *
      * @param msg The message, never null.
      */
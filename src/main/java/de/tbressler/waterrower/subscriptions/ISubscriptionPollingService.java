@@ -1,5 +1,7 @@
 package de.tbressler.waterrower.subscriptions;
 
+import de.tbressler.waterrower.subscriptions.metrics.PollingMetrics;
+
 /**
  * Interface for the subscription polling service.
  *
@@ -30,6 +32,15 @@ public interface ISubscriptionPollingService {
     void unsubscribe(ISubscription subscription);
 
 
+    /**
+     * Returns the metrics of the polling, e.g. the latencies and the answered polls per memory
+     * location and per priority.
+     *
+     * @return The metrics, never null.
+     */
+    PollingMetrics getMetrics();
+
+
     /**
      * Stop the subscription polling service.
      */
@@ -0,0 +1,175 @@
+package de.tbressler.waterrower.subscriptions;
+
+import de.tbressler.waterrower.io.msg.Memory;
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
+import de.tbressler.waterrower.model.MemoryLocation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static de.tbressler.waterrower.subscriptions.Priority.NO_POLLING;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A mirror of the memory of the WaterRower S4/S5 monitor.
+ *
+ * The mirror holds the last value received for every memory location and the time when it was
+ * received. Memory subscriptions register their interest in memory locations, so that every
+ * memory location is polled only once, with the highest priority of all
+ * subscriptions which are interested in it.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class MemoryMirror {
+
+    /* The number of memory locations (0x000 .. 0xFFF). */
+    private static final int NUMBER_OF_LOCATIONS = 0x1000;
+
+
+    /* The last values of the memory locations or -1 if no value was received yet. */
+    private final AtomicIntegerArray values = new AtomicIntegerArray(NUMBER_OF_LOCATIONS);
+
+    /* The times (System.nanoTime) when the values of the memory locations were received. */
+    private final AtomicLongArray timestamps = new AtomicLongArray(NUMBER_OF_LOCATIONS);
+
+    /* The subscriptions which are interested in a memory read, by key of the memory read. */
+    private final Map<Integer, List<AbstractMemorySubscription>> interests = new ConcurrentHashMap<>();
+
+
+    /**
+     * A mirror of the memory of the WaterRower S4/S5 monitor.
+     */
+    public MemoryMirror() {
+        for (int i = 0; i < NUMBER_OF_LOCATIONS; i++)
+            values.set(i, -1);
+    }
+
+
+    /**
+     * Updates the values of the memory locations contained in the given message.
+     *
+     * @param msg The message, must not be null.
+     */
+    public void update(DataMemoryMessage msg) {
+        requireNonNull(msg);
+
+        long now = System.nanoTime();
+        int location = msg.getLocation();
+
+        // A double read contains the values of two and a triple read of three memory locations,
+        // which are updated from the highest to the lowest location.
+        int numberOfBytes = msg.getMemory().getNumberOfBytes();
+        if (numberOfBytes > 2)
+            update(location + 2, msg.getValue3(), now);
+        if (numberOfBytes > 1)
+            update(location + 1, msg.getValue2(), now);
+        update(location, msg.getValue1(), now);
+    }
+
+    /* Updates the value of a single memory location. */
+    private void update(int location, int value, long timestamp) {
+        if (location >= NUMBER_OF_LOCATIONS)
+            return;
+        values.set(location, value);
+        timestamps.set(location, timestamp);
+    }
+
+
+    /**
+     * Returns the last value received for the given memory location.
+     *
+     * @param location The memory location, must not be null.
+     * @return The value (0 .. 255) or -1 if no value was received yet.
+     */
+    public int getValue(MemoryLocation location) {
+        return values.get(requireNonNull(location).getLocation());
+    }
+
+    /**
+     * Returns the time (see System.nanoTime) when the last value for the given memory location
+     * was received.
+     *
+     * @param location The memory location, must not be null.
+     * @return The time in ns. Only valid if a value was received yet.
+     */
+    public long getTimestamp(MemoryLocation location) {
+        return timestamps.get(requireNonNull(location).getLocation());
+    }
+
+    /**
+     * Returns the age of the last value received for the given memory location.
+     *
+     * @param location The memory location, must not be null.
+     * @return The age of the value or null if no value was received yet.
+     */
+    public Duration getAge(MemoryLocation location) {
+        if (getValue(location) < 0)
+            return null;
+        return Duration.ofNanos(System.nanoTime() - getTimestamp(location));
+    }
+
+
+    /**
+     * Registers the interest of the subscription in its memory locations.
+     *
+     * @param subscription The subscription, must not be null.
+     */
+    public void register(AbstractMemorySubscription subscription) {
+        requireNonNull(subscription);
+        interests.computeIfAbsent(keyOf(subscription.getMemory(), subscription.getLocation()), k -> new CopyOnWriteArrayList<>())
+                .add(subscription);
+    }
+
+    /**
+     * Removes the interest of the subscription in its memory locations.
+     *
+     * @param subscription The subscription, must not be null.
+     */
+    public void unregister(AbstractMemorySubscription subscription) {
+        requireNonNull(subscription);
+        interests.computeIfPresent(keyOf(subscription.getMemory(), subscription.getLocation()), (k, list) -> {
+            list.remove(subscription);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    /**
+     * Returns the highest priority of all subscriptions, which are interested in the memory read.
+     *
+     * @param memory Single, double or triple memory, must not be null.
+     * @param location The memory location, must not be null.
+     * @return The highest priority or NO_POLLING if no subscription is interested, never null.
+     */
+    public Priority getPriority(Memory memory, MemoryLocation location) {
+        List<AbstractMemorySubscription> subscriptions = interests.get(keyOf(memory, location));
+        if (subscriptions == null)
+            return NO_POLLING;
+
+        Priority highest = NO_POLLING;
+        for (AbstractMemorySubscription subscription : subscriptions) {
+            // The priorities are sorted from high to low.
+            if (subscription.getPriority().ordinal() < highest.ordinal())
+                highest = subscription.getPriority();
+        }
+        return highest;
+    }
+
+    /**
+     * Returns the key of a memory read.
+     *
+     * @param memory Single, double or triple memory, must not be null.
+     * @param location The memory location, must not be null.
+     * @return The key.
+     */
+    static int keyOf(Memory memory, MemoryLocation location) {
+        return ReadMemoryMessage.keyOf(memory, location.getLocation());
+    }
+
+}
@@ -1,10 +1,13 @@
 package de.tbressler.waterrower.subscriptions;
 
+import java.time.Duration;
+
 /**
  * The priority of a subscription.
  *
- * The priority determines in which interval the subscription is polled by
- * the subscription polling serve.
+ * The priority determines the target refresh period, in which the subscription is polled by
+ * the subscription polling service. The target refresh period is a multiple of the interval of
+ * the subscription polling service (a polling cycle, e.g. 200 ms).
  *
  * |------------|-------------------------------------------|
  * | Priority   | Cycles (1=poll, 0=no poll)                |
@@ -15,21 +18,57 @@ package de.tbressler.waterrower.subscriptions;
  * | NO_POLLING | 0 | 0 | 0 | 0 | 0 | 0 | 0 | 0 | 0 | 0 | 0 |
  * |------------|-------------------------------------------|
  *
+ * If the serial link is over-subscribed, all subscriptions are polled less often than their
+ * target refresh period, but in the same ratio to each other.
+ *
  * @author Tobias Breßler
  * @version 1.0
  */
 public enum Priority {
 
     /** The subscription will be polled every polling cycle. */
-    HIGH,
+    HIGH(1),
 
     /** The subscription will be polled every 2nd polling cycle. */
-    MEDIUM,
+    MEDIUM(2),
 
     /** The subscription will be polled every 5th polling cycle. */
-    LOW,
+    LOW(5),
 
     /** This subscription must not be polled. */
-    NO_POLLING
+    NO_POLLING(0);
+
+
+    /* The number of polling cycles between two polls or 0. */
+    private final int cycles;
+
+
+    /* Private constructor. */
+    Priority(int cycles) {
+        this.cycles = cycles;
+    }
+
+
+    /**
+     * Returns the number of polling cycles between two polls of subscriptions with this priority.
+     *
+     * @return The number of polling cycles or 0 if the subscription must not be polled.
+     */
+    public int getCycles() {
+        return cycles;
+    }
+
+    /**
+     * Returns the target refresh period of subscriptions with this priority.
+     *
+     * @param interval The interval of the subscription polling service (a polling cycle), must
+     *                 not be null.
+     * @return The target refresh period or null if the subscription must not be polled.
+     */
+    public Duration getRefreshPeriod(Duration interval) {
+        if (cycles == 0)
+            return null;
+        return interval.multipliedBy(cycles);
+    }
 
 }
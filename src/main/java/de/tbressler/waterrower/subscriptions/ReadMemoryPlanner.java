@@ -0,0 +1,134 @@
+package de.tbressler.waterrower.subscriptions;
+
+import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.Memory;
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Comparator.comparingInt;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Plans the messages, which are polled together.
+ *
+ * Read memory messages for the same, overlapping or adjacent memory locations are merged into
+ * the fewest possible read requests. A single read request can read up to three memory locations
+ * (IRS, IRD or IRT). The memory locations of every original read are always contained in one of
+ * the merged reads, so that values with more than one byte are never split into two requests.
+ *
+ * The returned DataMemoryMessages of a merged read are handed to every subscription, each
+ * AbstractMemorySubscription picks the bytes of its own memory locations.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class ReadMemoryPlanner {
+
+    /* The maximum number of memory locations, which can be read with one message. */
+    private static final int MAX_LOCATIONS_PER_READ = 3;
+
+
+    /* Private constructor. */
+    private ReadMemoryPlanner() {}
+
+
+    /**
+     * Merges the read memory messages in the given list. All other messages are returned
+     * unchanged and in the same order, followed by the merged read memory messages in the order
+     * of their memory locations.
+     *
+     * @param messages The messages to be polled, must not be null.
+     * @return The planned messages, never null.
+     */
+    public static List<AbstractMessage> plan(List<AbstractMessage> messages) {
+        requireNonNull(messages);
+
+        List<AbstractMessage> result = new ArrayList<>(messages.size());
+        List<ReadMemoryMessage> reads = new ArrayList<>(messages.size());
+
+        for (AbstractMessage msg : messages) {
+            if (isReadRequest(msg)) {
+                reads.add((ReadMemoryMessage) msg);
+            } else {
+                result.add(msg);
+            }
+        }
+
+        if (reads.isEmpty())
+            return result;
+
+        // Sort by location, the larger reads first if the location is the same:
+        reads.sort(comparingInt(ReadMemoryMessage::getLocation)
+                .thenComparing(comparingInt(ReadMemoryPlanner::numberOfBytes).reversed()));
+
+        int start = -1;
+        int end = -1;
+
+        for (ReadMemoryMessage read : reads) {
+
+            int readStart = read.getLocation();
+            int readEnd = readStart + numberOfBytes(read);
+
+            // Merge the read, if it overlaps or is adjacent to the current read and the merged
+            // read is not too large:
+            if ((start >= 0) && (readStart <= end) && (max(end, readEnd) - start <= MAX_LOCATIONS_PER_READ)) {
+                end = max(end, readEnd);
+                continue;
+            }
+
+            if (start >= 0)
+                result.add(newReadMemoryMessage(start, end));
+
+            start = readStart;
+            end = readEnd;
+        }
+
+        result.add(newReadMemoryMessage(start, end));
+
+        return result;
+    }
+
+    /**
+     * Merges the two read memory messages into a single read, without creating a list. The
+     * merged read is a shared message (see ReadMemoryMessage.of), so no message is created either.
+     *
+     * @param read1 The first read, must not be null.
+     * @param read2 The second read, must not be null.
+     * @return The merged read or null, if the reads can't be merged into a single read.
+     */
+    public static ReadMemoryMessage merge(ReadMemoryMessage read1, ReadMemoryMessage read2) {
+        int start1 = requireNonNull(read1).getLocation();
+        int end1 = start1 + numberOfBytes(read1);
+        int start2 = requireNonNull(read2).getLocation();
+        int end2 = start2 + numberOfBytes(read2);
+
+        // The reads must overlap or be adjacent and the merged read must not be too large:
+        int start = min(start1, start2);
+        int end = max(end1, end2);
+        if ((max(start1, start2) > min(end1, end2)) || (end - start > MAX_LOCATIONS_PER_READ))
+            return null;
+
+        return newReadMemoryMessage(start, end);
+    }
+
+    /* Returns true if the message is a request to read memory locations. */
+    private static boolean isReadRequest(AbstractMessage msg) {
+        return (msg instanceof ReadMemoryMessage) && !(msg instanceof DataMemoryMessage);
+    }
+
+    /* Returns the number of memory locations, which are read by the message. */
+    private static int numberOfBytes(ReadMemoryMessage msg) {
+        return msg.getMemory().getNumberOfBytes();
+    }
+
+    /* Returns a message, which reads the memory locations from start (inclusive) to end (exclusive). */
+    private static ReadMemoryMessage newReadMemoryMessage(int start, int end) {
+        return ReadMemoryMessage.of(Memory.ofNumberOfBytes(end - start), start);
+    }
+
+}
@@ -2,45 +2,105 @@ package de.tbressler.waterrower.subscriptions;
 
 import de.tbressler.waterrower.io.ConnectionListener;
 import de.tbressler.waterrower.io.IConnectionListener;
+import de.tbressler.waterrower.io.ReadRequest;
 import de.tbressler.waterrower.io.WaterRowerConnector;
 import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
 import de.tbressler.waterrower.log.Log;
+import de.tbressler.waterrower.subscriptions.metrics.PollingMetrics;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
-import static de.tbressler.waterrower.subscriptions.Priority.*;
+import static de.tbressler.waterrower.subscriptions.Priority.NO_POLLING;
+import static de.tbressler.waterrower.subscriptions.ReadMemoryPlanner.merge;
+import static java.util.Comparator.comparingLong;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * The implementation of the subscription polling service.
  *
+ * The polls are scheduled by their deadlines: The due poll with the earliest deadline is sent
+ * next. After a poll was sent, its next deadline is moved by the target refresh period of its
+ * priority, which is a multiple of the interval (see Priority). So on an idle serial link, the
+ * subscriptions with priority HIGH are polled in every interval. If the serial link is
+ * over-subscribed, the deadlines of all polls fall behind in the same ratio, so no subscription
+ * starves. The periods, which were missed completely (e.g. after a GC pause or a backlog of the
+ * send queue), are skipped, so a late poll is sent only once and not once per missed period. Due memory reads for adjacent memory locations are merged into the sent poll (see
+ * ReadMemoryPlanner).
+ *
+ * The next poll is sent as soon as the previous poll was answered (or timed out), or as soon as
+ * there is a free slot in the window of in-flight reads of the connector. So the throughput
+ * adapts to the response time of the WaterRower. If no poll is due, the service checks again
+ * after the interval.
+ *
+ * The due polls are collected in a reused list and the states of the polls are reused as well, so
+ * the scheduling of a poll doesn't create objects. The requests of the connector (see ReadRequest)
+ * are still created per poll.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
 public class SubscriptionPollingService implements ISubscriptionPollingService {
 
-    /* The maximum size of messages in the queue. */
-    private static final int MESSAGE_QUEUE_SIZE = 20;
+    /* The order of the due polls: The earliest deadline first, the higher priority first if the
+       deadline is the same. */
+    private static final Comparator<PollState> DUE_ORDER = comparingLong((PollState p) -> p.deadline)
+            .thenComparingInt(p -> p.priority.ordinal());
 
 
-    /* The interval between two poll messages (in ms). */
+    /* The interval to check for due polls, if no poll was due (in ms). */
     private final long interval;
 
-    /* List of subscriptions. */
-    private final List<ISubscription> subscriptions = new CopyOnWriteArrayList<>();
+    /* The interval, which is the polling cycle of the priorities (in ns). */
+    private final long cycle;
+
+    /* The clock for the deadlines (in ns). */
+    private final LongSupplier clock;
+
+    /* Guards the polls, the states of the polls and the due polls. */
+    private final Object pollLock = new Object();
+
+    /* The polls of the subscriptions, in the order of the subscriptions. */
+    private final List<Poll> polls = new ArrayList<>();
+
+    /* The states of the polls, by key of the poll (see keyOf). */
+    private final Map<Object, PollState> pollStates = new HashMap<>();
+
+    /* The states of the polls, which are due (reused by every call of nextPollMessage). */
+    private final List<PollState> duePolls = new ArrayList<>();
+
+    /* The number of the last collection of the due polls. */
+    private long collection;
+
+    /* The memory subscriptions, by memory location. */
+    private final Map<Integer, List<AbstractMemorySubscription>> memorySubscriptions = new ConcurrentHashMap<>();
+
+    /* The subscriptions, which are not memory subscriptions. They receive all messages. */
+    private final List<ISubscription> otherSubscriptions = new CopyOnWriteArrayList<>();
 
     /* The connector to the WaterRower. */
     private final WaterRowerConnector connector;
 
+    /* The mirror of the memory of the WaterRower. */
+    private final MemoryMirror memoryMirror = new MemoryMirror();
+
+    /* The metrics of the polling. */
+    private final PollingMetrics metrics = new PollingMetrics();
+
 
     /* The executor service for polling of subscriptions. */
     private final ScheduledExecutorService executorService;
@@ -49,11 +109,14 @@ public class SubscriptionPollingService implements ISubscriptionPollingService {
     private final AtomicBoolean isActive = new AtomicBoolean(false);
 
 
-    /* Counter for the polling cycles. */
-    private final AtomicLong pollCycle = new AtomicLong(0);
+    /* True if the send task is scheduled. */
+    private final AtomicBoolean isSendTaskScheduled = new AtomicBoolean(false);
 
-    /* Message queue for the current polling cycle. */
-    private final BlockingQueue<AbstractMessage> messageQueue = new ArrayBlockingQueue<>(MESSAGE_QUEUE_SIZE, true);
+    /* The number of sent reads, which are not answered yet. */
+    private final AtomicInteger inFlightReads = new AtomicInteger(0);
+
+    /* True if the serial link is over-subscribed. */
+    private final AtomicBoolean isOverSubscribed = new AtomicBoolean(false);
 
 
     /* Listener for the connection to the WaterRower, which handles the received messages*/
@@ -65,23 +128,65 @@ public class SubscriptionPollingService implements ISubscriptionPollingService {
             if (!isActive.get())
                 return;
 
-            for(ISubscription subscription : subscriptions) {
+            if (msg instanceof DataMemoryMessage)
+                handleDataMemoryMessage((DataMemoryMessage) msg);
+
+            for(ISubscription subscription : otherSubscriptions) {
                 subscription.handle(msg);
             }
         }
     };
 
+    /* Updates the memory mirror and hands the message to the memory subscriptions of the memory
+       locations contained in the message. */
+    private void handleDataMemoryMessage(DataMemoryMessage msg) {
+
+        memoryMirror.update(msg);
+
+        // Records the answer of every poll, which was merged into the read.
+        metrics.answerReceived(msg);
+
+        // A merged read also contains the memory locations of subscriptions, which start after
+        // the location of the message (see ReadMemoryPlanner).
+        int numberOfBytes = msg.getMemory().getNumberOfBytes();
+        for (int offset = 0; offset < numberOfBytes; offset++) {
+
+            List<AbstractMemorySubscription> subscriptionsOfLocation = memorySubscriptions.get(msg.getLocation() + offset);
+            if (subscriptionsOfLocation == null)
+                continue;
+
+            for (AbstractMemorySubscription subscription : subscriptionsOfLocation) {
+                subscription.handle(msg);
+            }
+        }
+    }
+
 
     /**
      * The subscription polling manager.
      *
      * @param connector The connector to the WaterRower, must not be null.
      * @param executorService The executor service for the subscription polling, must not be null.
-     * @param interval The interval between messages, must not be null.
+     * @param interval The interval to check for due polls, if no poll was due, and the polling
+     *                 cycle of the priorities (see Priority). Must not be null.
      *                 Recommended = 200 ms.
      */
     public SubscriptionPollingService(WaterRowerConnector connector, ScheduledExecutorService executorService, Duration interval) {
+        this(connector, executorService, interval, System::nanoTime);
+    }
+
+    /**
+     * The subscription polling manager. Mainly used for test purposes!
+     *
+     * @param connector The connector to the WaterRower, must not be null.
+     * @param executorService The executor service for the subscription polling, must not be null.
+     * @param interval The interval to check for due polls, if no poll was due. Must not be null.
+     * @param clock The clock for the deadlines (in ns), must not be null.
+     */
+    SubscriptionPollingService(WaterRowerConnector connector, ScheduledExecutorService executorService, Duration interval, LongSupplier clock) {
         this.interval = requireNonNull(interval).toMillis();
+        this.cycle = interval.toNanos();
+        this.clock = requireNonNull(clock);
         this.connector = requireNonNull(connector);
         this.connector.addConnectionListener(listener);
         this.executorService = requireNonNull(executorService);
@@ -96,77 +201,222 @@ public class SubscriptionPollingService implements ISubscriptionPollingService {
 
         Log.debug("Start subscription polling service.");
 
-        isActive.set(true);
+        // All subscriptions are due immediately.
+        synchronized (pollLock) {
+            for (PollState state : pollStates.values())
+                state.isScheduled = false;
+        }
+        isOverSubscribed.set(false);
 
-        collectMessagesForNextPollingInterval();
+        isActive.set(true);
 
-        scheduleSendMessageTask();
+        scheduleSendMessageTask(interval);
     }
 
 
-    /* Collect messages from the current subscriptions for polling. */
-    private void collectMessagesForNextPollingInterval() {
+    /* Schedule the send task for execution, if it is not already scheduled. */
+    private void scheduleSendMessageTask(long delay) {
+        if (isSendTaskScheduled.compareAndSet(false, true))
+            executorService.schedule(this::sendNextMessage, delay, MILLISECONDS);
+    }
 
-        // If not active skip execution.
-        if (!isActive.get())
-            return;
+    /* Send the next due poll message to the WaterRower. The send task is scheduled again when
+       the message was sent or answered. */
+    private void sendNextMessage() {
 
-        Log.debug("Schedule polling for "+subscriptions.size()+" subscription(s)...");
+        isSendTaskScheduled.set(false);
 
-        long cycle = pollCycle.getAndIncrement();
-        boolean pollMedium = cycle % 2 == 0;
-        boolean pollLow = cycle % 5 == 0;
+        try {
 
-        for (ISubscription subscription : subscriptions) {
+            // If not active skip execution.
+            if (!isActive.get())
+                return;
 
-            if ((subscription.getPriority() == NO_POLLING)
-               || (subscription.getPriority() == MEDIUM && !pollMedium)
-               || (subscription.getPriority() == LOW && !pollLow))
-                continue;
+            AbstractMessage msg = nextPollMessage(clock.getAsLong());
 
-            AbstractMessage msg = subscription.poll();
+            if (msg == null) {
+                scheduleSendMessageTask(interval);
+                return;
+            }
 
-            boolean addedToQueue = messageQueue.offer(msg);
+            Log.debug("Send scheduled polling message >{}<", msg);
 
-            // If the message couldn't be added to queue, show a warning. This is the case
-            // when too many subscriptions are subscribed. The size of the queue = MESSAGE_QUEUE_SIZE.
-            if (!addedToQueue) {
-                Log.warn("Can not add more messages, the message queue is full! Skipping remaining messages in current cycle.");
+            if (!(msg instanceof ReadMemoryMessage)) {
+                connector.send(msg).whenComplete((v, t) -> scheduleSendMessageTask(0));
                 return;
             }
+
+            ReadMemoryMessage read = (ReadMemoryMessage) msg;
+
+            ReadRequest readRequest = connector.read(read);
+            inFlightReads.incrementAndGet();
+            readRequest.getSentFuture().thenRun(() -> metrics.pollSent(read));
+            readRequest.getAnswerFuture().whenComplete((answer, t) -> {
+                inFlightReads.decrementAndGet();
+                scheduleSendMessageTask(0);
+            });
+
+            // Send the next poll immediately, if the window of in-flight reads is not full.
+            if (inFlightReads.get() < connector.getMaxInFlightReads())
+                scheduleSendMessageTask(0);
+
+        } catch (IOException e) {
+            Log.error("Couldn't send polling message due to an error!", e);
+            scheduleSendMessageTask(interval);
         }
     }
 
+    /* Returns the poll message, which is sent at the given time (in ns) or null if no poll is due. */
+    private AbstractMessage nextPollMessage(long now) {
+        synchronized (pollLock) {
+
+            collectDuePolls(now);
+            if (duePolls.isEmpty()) {
+                updateOverSubscribed(false);
+                return null;
+            }
+
+            // The sort is stable, so the order of the subscriptions is kept if the deadline and
+            // the priority are the same.
+            duePolls.sort(DUE_ORDER);
+
+            PollState first = duePolls.get(0);
+            updateOverSubscribed(now - first.deadline >= periodOf(first.priority));
+
+            AbstractMessage msg = first.subscription.poll();
+            reschedule(first, now);
+
+            if (!(first.subscription instanceof AbstractMemorySubscription) || !(msg instanceof ReadMemoryMessage))
+                return msg;
+
+            metrics.pollQueued(((AbstractMemorySubscription) first.subscription).getLocation(), first.priority);
 
-    /* Schedule the send task for execution. */
-    private void scheduleSendMessageTask() {
-        executorService.schedule(this::sendNextMessage, interval, MILLISECONDS);
+            // Merge the other due memory reads, which can be read with the same message.
+            ReadMemoryMessage read = (ReadMemoryMessage) msg;
+            for (int i = 1; i < duePolls.size(); i++) {
+
+                PollState duePoll = duePolls.get(i);
+                if (!(duePoll.subscription instanceof AbstractMemorySubscription))
+                    continue;
+
+                ReadMemoryMessage merged = merge(read, ((AbstractMemorySubscription) duePoll.subscription).getReadMessage());
+                if (merged == null)
+                    continue;
+
+                read = merged;
+                duePoll.subscription.poll();
+                reschedule(duePoll, now);
+                metrics.pollQueued(((AbstractMemorySubscription) duePoll.subscription).getLocation(), duePoll.priority);
+            }
+
+            return read;
+        }
     }
 
-    /* Send the first message from the message queue to the WaterRower. */
-    private void sendNextMessage() {
+    /* Collects the polls, which are due at the given time (in ns), in the due polls. Memory reads,
+       which are wanted by several subscriptions, are only collected once, with the highest
+       priority. */
+    private void collectDuePolls(long now) {
 
-        try {
+        duePolls.clear();
+        collection++;
 
-            // If not active skip execution.
-            if (!isActive.get())
-                return;
+        for (int i = 0; i < polls.size(); i++) {
 
-            AbstractMessage msg = messageQueue.poll();
+            Poll poll = polls.get(i);
+            PollState state = poll.state;
+            if (state.collection == collection)
+                continue;
+            state.collection = collection;
 
-            if (msg != null) {
-                Log.debug("Send scheduled polling message >" + msg.toString() + "<");
-                connector.send(msg);
+            Priority priority = state.isMemoryRead ? state.memoryPriority : poll.subscription.getPriority();
+            if ((priority == null) || (priority == NO_POLLING))
+                continue;
+
+            if (!state.isScheduled) {
+                state.deadline = now;
+                state.isScheduled = true;
             }
 
-        } catch (IOException e) {
-            Log.error("Couldn't send polling message due to an error!", e);
+            if (state.deadline <= now) {
+                state.subscription = poll.subscription;
+                state.priority = priority;
+                duePolls.add(state);
+            }
         }
+    }
+
+    /* Moves the deadline of the poll by the refresh period of its priority. The periods, which
+       were missed until the given time (in ns), are skipped. */
+    private void reschedule(PollState duePoll, long now) {
+        long period = periodOf(duePoll.priority);
+        long deadline = duePoll.deadline + period;
+        if (deadline <= now)
+            deadline += ((now - deadline) / period + 1) * period;
+        duePoll.deadline = deadline;
+    }
 
-        if (messageQueue.isEmpty())
-            collectMessagesForNextPollingInterval();
+    /* Returns the target refresh period of the priority in ns. */
+    private long periodOf(Priority priority) {
+        return priority.getCycles() * cycle;
+    }
 
-        scheduleSendMessageTask();
+    /* Updates the over-subscription state and logs changes. */
+    private void updateOverSubscribed(boolean overSubscribed) {
+        if (isOverSubscribed.getAndSet(overSubscribed) == overSubscribed)
+            return;
+        if (overSubscribed) {
+            Log.warn("The serial link is over-subscribed! The subscriptions are polled less often than their target refresh period.");
+        } else {
+            Log.info("The serial link is no longer over-subscribed.");
+        }
+    }
+
+    /* Returns the key of the poll of the subscription. Memory subscriptions for the same memory
+       read share the same key. */
+    private Object keyOf(ISubscription subscription) {
+        if (!(subscription instanceof AbstractMemorySubscription))
+            return subscription;
+        AbstractMemorySubscription memorySubscription = (AbstractMemorySubscription) subscription;
+        return MemoryMirror.keyOf(memorySubscription.getMemory(), memorySubscription.getLocation());
+    }
+
+    /* Updates the priority of the memory read of the subscription, which is the highest priority
+       of all subscriptions for the same memory read. */
+    private void updateMemoryPriority(AbstractMemorySubscription subscription) {
+        synchronized (pollLock) {
+            PollState state = pollStates.get(keyOf(subscription));
+            if (state != null)
+                state.memoryPriority = memoryMirror.getPriority(subscription.getMemory(), subscription.getLocation());
+        }
+    }
+
+    /* Adds the poll of the subscription. Memory subscriptions for the same memory read share the
+       state of the poll. */
+    private void addPoll(ISubscription subscription) {
+        synchronized (pollLock) {
+            PollState state = pollStates.computeIfAbsent(keyOf(subscription),
+                    k -> new PollState(subscription instanceof AbstractMemorySubscription));
+            state.subscriptions++;
+            polls.add(new Poll(subscription, state));
+        }
+    }
+
+    /* Removes the poll of the subscription and returns true if the subscription was subscribed.
+       The state of the poll is removed with the last subscription of the poll. */
+    private boolean removePoll(ISubscription subscription) {
+        synchronized (pollLock) {
+            for (int i = 0; i < polls.size(); i++) {
+                Poll poll = polls.get(i);
+                if (!poll.subscription.equals(subscription))
+                    continue;
+                polls.remove(i);
+                if (--poll.state.subscriptions == 0)
+                    pollStates.remove(keyOf(subscription));
+                return true;
+            }
+            return false;
+        }
     }
 
 
@@ -189,8 +439,17 @@ public class SubscriptionPollingService implements ISubscriptionPollingService {
      */
     @Override
     public void subscribe(ISubscription subscription) {
-        subscriptions.add(requireNonNull(subscription));
-        Log.debug("Added subscription: " + subscription);
+        addPoll(requireNonNull(subscription));
+        if (subscription instanceof AbstractMemorySubscription) {
+            AbstractMemorySubscription memorySubscription = (AbstractMemorySubscription) subscription;
+            memoryMirror.register(memorySubscription);
+            updateMemoryPriority(memorySubscription);
+            memorySubscriptions.computeIfAbsent(memorySubscription.getLocation().getLocation(), k -> new CopyOnWriteArrayList<>())
+                    .add(memorySubscription);
+        } else {
+            otherSubscriptions.add(subscription);
+        }
+        Log.debug("Added subscription: {}", subscription);
     }
 
     /**
@@ -200,8 +459,102 @@ public class SubscriptionPollingService implements ISubscriptionPollingService {
      */
     @Override
     public void unsubscribe(ISubscription subscription) {
-        subscriptions.remove(requireNonNull(subscription));
-        Log.debug("Removed subscription: " + subscription);
+        if (removePoll(requireNonNull(subscription))) {
+            // Memory reads are still polled, if other subscriptions are interested in them.
+            if (!(subscription instanceof AbstractMemorySubscription)) {
+                otherSubscriptions.remove(subscription);
+            } else {
+                AbstractMemorySubscription memorySubscription = (AbstractMemorySubscription) subscription;
+                memoryMirror.unregister(memorySubscription);
+                memorySubscriptions.computeIfPresent(memorySubscription.getLocation().getLocation(), (k, list) -> {
+                    list.remove(memorySubscription);
+                    return list.isEmpty() ? null : list;
+                });
+                updateMemoryPriority(memorySubscription);
+            }
+        }
+        Log.debug("Removed subscription: {}", subscription);
+    }
+
+
+    /**
+     * Returns the mirror of the memory of the WaterRower, which holds the last received values
+     * of the memory locations.
+     *
+     * @return The memory mirror, never null.
+     */
+    public MemoryMirror getMemoryMirror() {
+        return memoryMirror;
+    }
+
+    /**
+     * Returns the metrics of the polling, e.g. the latencies and the answered polls per memory
+     * location and per priority.
+     *
+     * @return The metrics, never null.
+     */
+    @Override
+    public PollingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns true if the serial link is over-subscribed. This is the case if the subscriptions
+     * can't be polled in their target refresh period, because there are too many subscriptions
+     * for the interval between the messages.
+     *
+     * @return True if the serial link is over-subscribed.
+     */
+    public boolean isOverSubscribed() {
+        return isOverSubscribed.get();
+    }
+
+
+    /* The poll of a subscription. */
+    private static final class Poll {
+
+        /* The subscription. */
+        private final ISubscription subscription;
+
+        /* The state of the poll, which is shared with the subscriptions for the same memory read. */
+        private final PollState state;
+
+        private Poll(ISubscription subscription, PollState state) {
+            this.subscription = subscription;
+            this.state = state;
+        }
+    }
+
+    /* The state of a poll, only used while holding the poll lock. */
+    private static final class PollState {
+
+        /* True if the poll is a memory read, which can be shared by several subscriptions. */
+        private final boolean isMemoryRead;
+
+        /* The number of subscriptions of the poll. */
+        private int subscriptions;
+
+        /* The highest priority of the subscriptions for the memory read. */
+        private Priority memoryPriority = NO_POLLING;
+
+        /* True if the deadline is set, otherwise the poll is due immediately. */
+        private boolean isScheduled;
+
+        /* The time (in ns) when the poll is due. */
+        private long deadline;
+
+        /* The number of the collection, in which the poll was collected last. */
+        private long collection;
+
+        /* The subscription, which sends the poll, if the poll is due. */
+        private ISubscription subscription;
+
+        /* The priority of the poll, if the poll is due. */
+        private Priority priority;
+
+        private PollState(boolean isMemoryRead) {
+            this.isMemoryRead = isMemoryRead;
+        }
     }
 
 }
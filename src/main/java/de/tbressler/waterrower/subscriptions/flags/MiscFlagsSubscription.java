@@ -22,13 +22,19 @@ import static de.tbressler.waterrower.subscriptions.Priority.MEDIUM;
  *  6 = fmisc_fg_mmc_up
  *  7 = fmisc_fg_mmc_dn
  *
+ * The flags are passed to onMiscFlagsUpdated(int) as byte, which passes a MiscFlags object to
+ * onMiscFlagsUpdated(MiscFlags) by default. For updates without garbage override
+ * onMiscFlagsUpdated(int) as well and decode the flags with the static methods of MiscFlags (e.g.
+ * MiscFlags.isZoneRest(flags)), then onMiscFlagsUpdated(MiscFlags) is no longer called and can be
+ * left empty.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
 public abstract class MiscFlagsSubscription extends AbstractMemorySubscription {
 
-    /* The last received zone flags. */
-    private MiscFlags lastFlags;
+    /* The last received zone flags or -1. */
+    private int lastFlags = -1;
 
 
     /**
@@ -51,11 +57,11 @@ public abstract class MiscFlagsSubscription extends AbstractMemorySubscription {
     @Override
     public final void handle(DataMemoryMessage msg) {
 
-        MiscFlags flags = new MiscFlags(msg.getValue1());
+        int flags = msg.getValue1();
 
         // If the received flags are the same as before,
         // don't send an update.
-        if (flags.equals(lastFlags))
+        if (flags == lastFlags)
             return;
         lastFlags = flags;
 
@@ -64,7 +70,18 @@ public abstract class MiscFlagsSubscription extends AbstractMemorySubscription {
 
 
     /**
-     * Is called, when an update of the misc flags was received.
+     * Is called, when an update of the misc flags was received. By default the flags are passed
+     * to onMiscFlagsUpdated(MiscFlags).
+     *
+     * @param flags The flags as byte (0x00 .. 0xFF), see the static methods of MiscFlags.
+     */
+    protected void onMiscFlagsUpdated(int flags) {
+        onMiscFlagsUpdated(new MiscFlags(flags));
+    }
+
+    /**
+     * Is called, when an update of the misc flags was received. Not called if
+     * onMiscFlagsUpdated(int) is overridden.
      *
      * @param flags The flags, never null.
      */
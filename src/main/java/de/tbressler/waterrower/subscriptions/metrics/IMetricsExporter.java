@@ -0,0 +1,30 @@
+package de.tbressler.waterrower.subscriptions.metrics;
+
+import de.tbressler.waterrower.model.MemoryLocation;
+import de.tbressler.waterrower.subscriptions.Priority;
+
+/**
+ * Interface for exporters of the polling metrics (e.g. to a monitoring system).
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public interface IMetricsExporter {
+
+    /**
+     * Exports the metrics of a memory location.
+     *
+     * @param location The memory location, never null.
+     * @param metrics The metrics, never null.
+     */
+    void export(MemoryLocation location, PollMetrics metrics);
+
+    /**
+     * Exports the metrics of a priority.
+     *
+     * @param priority The priority, never null.
+     * @param metrics The metrics, never null.
+     */
+    void export(Priority priority, PollMetrics metrics);
+
+}
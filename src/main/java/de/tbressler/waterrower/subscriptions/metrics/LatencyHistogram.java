@@ -0,0 +1,148 @@
+package de.tbressler.waterrower.subscriptions.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.lang.Math.max;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofNanos;
+
+/**
+ * A histogram of durations.
+ *
+ * The durations are counted in buckets with power of two upper bounds (in ms):
+ * Bucket 0 counts durations below 1 ms, bucket i counts durations below 2^i ms. The last bucket
+ * counts all durations, which are too long for the other buckets.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+    /** The number of buckets. */
+    public static final int NUMBER_OF_BUCKETS = 17;
+
+
+    /* The counts of the buckets. */
+    private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+
+    /* The number of recorded durations. */
+    private final AtomicLong count = new AtomicLong(0);
+
+    /* The sum of the recorded durations in ns. */
+    private final AtomicLong sum = new AtomicLong(0);
+
+    /* The longest recorded duration in ns. */
+    private final AtomicLong maximum = new AtomicLong(0);
+
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in ns, negative durations are recorded as 0.
+     */
+    public void record(long nanos) {
+        nanos = max(0, nanos);
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+        maximum.accumulateAndGet(nanos, Math::max);
+    }
+
+    /* Returns the bucket of the duration. */
+    private static int bucketOf(long nanos) {
+        long millis = nanos / 1_000_000;
+        // The number of bits of the ms value is the index of the bucket.
+        int bucket = 64 - Long.numberOfLeadingZeros(millis);
+        return Math.min(bucket, NUMBER_OF_BUCKETS - 1);
+    }
+
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return The number of recorded durations.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the mean of the recorded durations.
+     *
+     * @return The mean or zero if no durations were recorded, never null.
+     */
+    public Duration getMean() {
+        long n = count.get();
+        return (n == 0) ? Duration.ZERO : ofNanos(sum.get() / n);
+    }
+
+    /**
+     * Returns the longest recorded duration.
+     *
+     * @return The longest duration or zero if no durations were recorded, never null.
+     */
+    public Duration getMax() {
+        return ofNanos(maximum.get());
+    }
+
+    /**
+     * Returns an estimation of the given percentile. The estimation is the upper bound of the
+     * bucket, which contains the percentile.
+     *
+     * @param percentile The percentile (0.0 .. 1.0).
+     * @return The estimated percentile or zero if no durations were recorded, never null.
+     */
+    public Duration getPercentile(double percentile) {
+        if ((percentile < 0.0) || (percentile > 1.0))
+            throw new IllegalArgumentException("The percentile must be between 0.0 and 1.0!");
+
+        long n = count.get();
+        if (n == 0)
+            return Duration.ZERO;
+
+        long rank = max(1, (long) Math.ceil(percentile * n));
+        long counted = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS - 1; i++) {
+            counted += buckets.get(i);
+            if (counted >= rank)
+                return getUpperBound(i);
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the counts of all buckets.
+     *
+     * @return The counts, never null.
+     */
+    public long[] getBucketCounts() {
+        long[] result = new long[NUMBER_OF_BUCKETS];
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++)
+            result[i] = buckets.get(i);
+        return result;
+    }
+
+    /**
+     * Returns the (exclusive) upper bound of the given bucket. The last bucket has no upper bound.
+     *
+     * @param bucket The index of the bucket (0 .. NUMBER_OF_BUCKETS - 2).
+     * @return The upper bound, never null.
+     */
+    public static Duration getUpperBound(int bucket) {
+        if ((bucket < 0) || (bucket >= NUMBER_OF_BUCKETS - 1))
+            throw new IllegalArgumentException("The bucket must be between 0 and " + (NUMBER_OF_BUCKETS - 2) + "!");
+        return ofMillis(1L << bucket);
+    }
+
+
+    @Override
+    public String toString() {
+        return "count=" + getCount()
+                + ", mean=" + getMean().toMillis() + "ms"
+                + ", p95=" + getPercentile(0.95).toMillis() + "ms"
+                + ", max=" + getMax().toMillis() + "ms";
+    }
+
+}
@@ -0,0 +1,25 @@
+package de.tbressler.waterrower.subscriptions.metrics;
+
+import de.tbressler.waterrower.log.Log;
+import de.tbressler.waterrower.model.MemoryLocation;
+import de.tbressler.waterrower.subscriptions.Priority;
+
+/**
+ * An exporter, which writes the polling metrics to the log.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class LogMetricsExporter implements IMetricsExporter {
+
+    @Override
+    public void export(MemoryLocation location, PollMetrics metrics) {
+        Log.info("Polling metrics of memory location {}: {}", location, metrics);
+    }
+
+    @Override
+    public void export(Priority priority, PollMetrics metrics) {
+        Log.info("Polling metrics of priority {}: {}", priority, metrics);
+    }
+
+}
@@ -0,0 +1,149 @@
+package de.tbressler.waterrower.subscriptions.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * The metrics of the polls of a memory location or of a priority.
+ *
+ * The following values are measured:
+ * - latency: The time between sending a poll to the WaterRower and receiving the answer.
+ * - queue wait: The time between queuing a poll and sending it to the WaterRower (e.g. due to
+ *   the minimum send interval of the connector).
+ * - refresh period: The time between two answers for the same memory location.
+ * - polls and answered polls.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class PollMetrics {
+
+    /* The latencies between sending a poll and receiving the answer. */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /* The times between queuing a poll and sending it. */
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+
+    /* The times between two answers. */
+    private final LatencyHistogram refreshPeriod = new LatencyHistogram();
+
+    /* The number of polls. */
+    private final AtomicLong polls = new AtomicLong(0);
+
+    /* The number of answered polls. */
+    private final AtomicLong answeredPolls = new AtomicLong(0);
+
+    /* The time (System.nanoTime) of the last answer or 0 if no answer was received. */
+    private final AtomicLong lastAnswerTime = new AtomicLong(0);
+
+
+    /* Package-private constructor. */
+    PollMetrics() {}
+
+
+    /* Records a queued poll. */
+    void recordPoll() {
+        polls.incrementAndGet();
+    }
+
+    /* Records the time between queuing and sending a poll. */
+    void recordQueueWait(long nanos) {
+        queueWait.record(nanos);
+    }
+
+    /* Records an answer and the time between sending the poll and the answer. */
+    void recordAnswer(long latencyNanos) {
+        answeredPolls.incrementAndGet();
+        latency.record(latencyNanos);
+    }
+
+    /* Records the time between two answers. */
+    void recordRefreshPeriod(long nanos) {
+        refreshPeriod.record(nanos);
+    }
+
+    /* Sets the time of the last answer and returns the time of the previous answer. */
+    long updateLastAnswerTime(long time) {
+        return lastAnswerTime.getAndSet(time);
+    }
+
+
+    /**
+     * Returns the histogram of the latencies between sending a poll and receiving the answer.
+     *
+     * @return The histogram, never null.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Returns the histogram of the times between queuing a poll and sending it to the WaterRower.
+     *
+     * @return The histogram, never null.
+     */
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * Returns the histogram of the times between two answers.
+     *
+     * @return The histogram, never null.
+     */
+    public LatencyHistogram getRefreshPeriod() {
+        return refreshPeriod;
+    }
+
+    /**
+     * Returns the number of polls.
+     *
+     * @return The number of polls.
+     */
+    public long getPolls() {
+        return polls.get();
+    }
+
+    /**
+     * Returns the number of answered polls.
+     *
+     * @return The number of answered polls.
+     */
+    public long getAnsweredPolls() {
+        return answeredPolls.get();
+    }
+
+    /**
+     * Returns the number of unanswered polls. Polls, which are still waiting for an answer, are
+     * counted as unanswered.
+     *
+     * @return The number of unanswered polls.
+     */
+    public long getUnansweredPolls() {
+        return Math.max(0, getPolls() - getAnsweredPolls());
+    }
+
+    /**
+     * Returns the ratio of answered polls.
+     *
+     * @return The ratio (0.0 .. 1.0) or 1.0 if nothing was polled yet.
+     */
+    public double getAnsweredRatio() {
+        long n = getPolls();
+        return (n == 0) ? 1.0 : Math.min(1.0, (double) getAnsweredPolls() / n);
+    }
+
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("polls", getPolls())
+                .add("answered", getAnsweredPolls())
+                .add("latency", latency)
+                .add("queueWait", queueWait)
+                .add("refreshPeriod", refreshPeriod)
+                .toString();
+    }
+
+}
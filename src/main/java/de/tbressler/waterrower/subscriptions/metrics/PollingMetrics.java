@@ -0,0 +1,183 @@
+package de.tbressler.waterrower.subscriptions.metrics;
+
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
+import de.tbressler.waterrower.model.MemoryLocation;
+import de.tbressler.waterrower.subscriptions.Priority;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.tbressler.waterrower.subscriptions.Priority.NO_POLLING;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The metrics of the subscription polling, per memory location and per priority.
+ *
+ * A poll is correlated with its answer by the memory location of the subscription: The answer of
+ * the WaterRower contains the memory locations of the read, which are the locations of all polls
+ * merged into the read (see ReadMemoryPlanner). If a memory location is polled again before the
+ * answer was received, the previous poll is counted as unanswered.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class PollingMetrics {
+
+    /* The metrics per memory location. */
+    private final Map<MemoryLocation, PollMetrics> locationMetrics = new ConcurrentHashMap<>();
+
+    /* The metrics per priority. */
+    private final Map<Priority, PollMetrics> priorityMetrics;
+
+    /* The polls, which are waiting for an answer, by memory location of the subscription. */
+    private final Map<Integer, PendingPoll> pendingPolls = new ConcurrentHashMap<>();
+
+
+    /**
+     * The metrics of the subscription polling.
+     */
+    public PollingMetrics() {
+        Map<Priority, PollMetrics> metrics = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            if (priority != NO_POLLING)
+                metrics.put(priority, new PollMetrics());
+        }
+        priorityMetrics = unmodifiableMap(metrics);
+    }
+
+
+    /**
+     * Records a poll, which was queued for sending. If several polls are merged into one read,
+     * every poll is recorded.
+     *
+     * @param location The memory location of the subscription, which is polled. Must not be null.
+     * @param priority The priority of the poll, must not be null.
+     */
+    public void pollQueued(MemoryLocation location, Priority priority) {
+        PendingPoll poll = new PendingPoll(metricsOf(requireNonNull(location)), metricsOf(requireNonNull(priority)), System.nanoTime());
+        poll.locationMetrics.recordPoll();
+        poll.priorityMetrics.recordPoll();
+        pendingPolls.put(location.getLocation(), poll);
+    }
+
+    /**
+     * Records that the polls of the memory locations of the read were sent to the WaterRower.
+     *
+     * @param read The read, which was sent. Must not be null.
+     */
+    public void pollSent(ReadMemoryMessage read) {
+        long now = System.nanoTime();
+        int numberOfBytes = requireNonNull(read).getMemory().getNumberOfBytes();
+        for (int offset = 0; offset < numberOfBytes; offset++) {
+            PendingPoll poll = pendingPolls.get(read.getLocation() + offset);
+            if ((poll == null) || (poll.sentTime != 0))
+                continue;
+            poll.sentTime = now;
+            long queueWait = poll.sentTime - poll.queuedTime;
+            poll.locationMetrics.recordQueueWait(queueWait);
+            poll.priorityMetrics.recordQueueWait(queueWait);
+        }
+    }
+
+    /**
+     * Records the answer of the WaterRower for every memory location of the answer, which was
+     * polled.
+     *
+     * @param msg The answer, must not be null.
+     */
+    public void answerReceived(DataMemoryMessage msg) {
+        long now = System.nanoTime();
+        int numberOfBytes = requireNonNull(msg).getMemory().getNumberOfBytes();
+        for (int offset = 0; offset < numberOfBytes; offset++) {
+            PendingPoll poll = pendingPolls.remove(msg.getLocation() + offset);
+            if (poll != null)
+                recordAnswer(poll, now);
+        }
+    }
+
+
+    /**
+     * Returns the metrics of the memory location.
+     *
+     * @param location The memory location, must not be null.
+     * @return The metrics or null if the memory location was never polled.
+     */
+    public PollMetrics getMetrics(MemoryLocation location) {
+        return locationMetrics.get(requireNonNull(location));
+    }
+
+    /**
+     * Returns the metrics of the priority.
+     *
+     * @param priority The priority, must not be null.
+     * @return The metrics or null if the priority is NO_POLLING.
+     */
+    public PollMetrics getMetrics(Priority priority) {
+        return priorityMetrics.get(requireNonNull(priority));
+    }
+
+    /**
+     * Exports the metrics of all polled memory locations and of all priorities.
+     *
+     * @param exporter The exporter, must not be null.
+     */
+    public void export(IMetricsExporter exporter) {
+        requireNonNull(exporter);
+        locationMetrics.forEach(exporter::export);
+        priorityMetrics.forEach(exporter::export);
+    }
+
+
+    /* Records the answer of the given poll, which was received at the given time. */
+    private void recordAnswer(PendingPoll poll, long now) {
+        long latency = now - ((poll.sentTime != 0) ? poll.sentTime : poll.queuedTime);
+        poll.locationMetrics.recordAnswer(latency);
+        poll.priorityMetrics.recordAnswer(latency);
+
+        long previousAnswerTime = poll.locationMetrics.updateLastAnswerTime(now);
+        if (previousAnswerTime != 0) {
+            poll.locationMetrics.recordRefreshPeriod(now - previousAnswerTime);
+            poll.priorityMetrics.recordRefreshPeriod(now - previousAnswerTime);
+        }
+    }
+
+    /* Returns the metrics of the memory location, creates the metrics if necessary. */
+    private PollMetrics metricsOf(MemoryLocation location) {
+        return locationMetrics.computeIfAbsent(location, l -> new PollMetrics());
+    }
+
+    /* Returns the metrics of the priority. */
+    private PollMetrics metricsOf(Priority priority) {
+        PollMetrics metrics = priorityMetrics.get(priority);
+        if (metrics == null)
+            throw new IllegalArgumentException("Polls with priority " + priority + " are not allowed!");
+        return metrics;
+    }
+
+
+    /* A poll, which is waiting for an answer. */
+    private static final class PendingPoll {
+
+        /* The metrics of the memory location. */
+        private final PollMetrics locationMetrics;
+
+        /* The metrics of the priority. */
+        private final PollMetrics priorityMetrics;
+
+        /* The time (System.nanoTime) when the poll was queued. */
+        private final long queuedTime;
+
+        /* The time (System.nanoTime) when the poll was sent or 0 if not sent yet. */
+        private volatile long sentTime;
+
+        private PendingPoll(PollMetrics locationMetrics, PollMetrics priorityMetrics, long queuedTime) {
+            this.locationMetrics = locationMetrics;
+            this.priorityMetrics = priorityMetrics;
+            this.queuedTime = queuedTime;
+        }
+    }
+
+}
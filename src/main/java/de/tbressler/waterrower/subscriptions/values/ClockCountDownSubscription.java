@@ -3,14 +3,14 @@ package de.tbressler.waterrower.subscriptions.values;
 import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
 import de.tbressler.waterrower.subscriptions.AbstractMemorySubscription;
 import de.tbressler.waterrower.subscriptions.Priority;
-import de.tbressler.waterrower.utils.MessageUtils;
 
 import java.time.Duration;
 
 import static de.tbressler.waterrower.io.msg.Memory.TRIPLE_MEMORY;
 import static de.tbressler.waterrower.model.MemoryLocation.CLOCK_DOWN_DEC;
 import static de.tbressler.waterrower.subscriptions.Priority.HIGH;
-import static java.time.Duration.ofSeconds;
+import static de.tbressler.waterrower.utils.MessageUtils.intFromHighAndLow;
+import static java.time.Duration.ofMillis;
 
 /**
  * Subscription for clock count down values.
@@ -18,13 +18,18 @@ import static java.time.Duration.ofSeconds;
  * This value is only set if a count down is running. The count down is also transmitted with the
  * DisplayedDurationSubscription when the count down is active.
  *
+ * The count down is passed to onClockCountDownUpdated(long) in tenths of seconds, which passes a
+ * Duration object to onClockCountDownUpdated(Duration) by default. For updates without garbage
+ * override onClockCountDownUpdated(long) as well, then onClockCountDownUpdated(Duration) is no
+ * longer called and can be left empty.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
 public abstract class ClockCountDownSubscription extends AbstractMemorySubscription {
 
-    /* The last clock count down received. */
-    private Duration lastClockCountDown = null;
+    /* The last clock count down received (in tenths of seconds) or -1. */
+    private long lastClockCountDown = -1;
 
 
     /**
@@ -47,14 +52,14 @@ public abstract class ClockCountDownSubscription extends AbstractMemorySubscript
     @Override
     protected final void handle(DataMemoryMessage msg) {
 
-        int millis = msg.getValue1();
-        int sec = MessageUtils.intFromHighAndLow(msg.getValue3(), msg.getValue2());
+        int tenths = msg.getValue1();
+        int sec = intFromHighAndLow(msg.getValue3(), msg.getValue2());
 
-        Duration duration = ofSeconds(sec).plusMillis(millis * 100);
+        long duration = sec * 10L + tenths;
 
         // If the received duration is the same as before,
         // don't send an update.
-        if (duration.equals(lastClockCountDown))
+        if (duration == lastClockCountDown)
             return;
         lastClockCountDown = duration;
 
@@ -63,7 +68,18 @@ public abstract class ClockCountDownSubscription extends AbstractMemorySubscript
 
 
     /**
-     * Is called if the value for the clock count-down was updated.
+     * Is called if the value for the clock count-down was updated. By default the count-down is
+     * passed to onClockCountDownUpdated(Duration).
+     *
+     * @param tenthsOfSeconds The new clock count-down (in tenths of seconds).
+     */
+    protected void onClockCountDownUpdated(long tenthsOfSeconds) {
+        onClockCountDownUpdated(ofMillis(tenthsOfSeconds * 100));
+    }
+
+    /**
+     * Is called if the value for the clock count-down was updated. Not called if
+     * onClockCountDownUpdated(long) is overridden.
      *
      * @param duration The new clock count-down, never null.
      */
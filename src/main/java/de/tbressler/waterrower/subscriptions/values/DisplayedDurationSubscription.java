@@ -9,8 +9,8 @@ import java.time.Duration;
 import static de.tbressler.waterrower.io.msg.Memory.TRIPLE_MEMORY;
 import static de.tbressler.waterrower.model.MemoryLocation.DISPLAY_SEC;
 import static de.tbressler.waterrower.subscriptions.Priority.HIGH;
-import static java.lang.Integer.parseInt;
-import static java.time.Duration.ofSeconds;
+import static de.tbressler.waterrower.utils.MessageUtils.intFromBcd;
+import static java.time.Duration.ofMillis;
 
 /**
  * Subscription for the displayed duration on the duration window of the Performance Monitor.
@@ -18,13 +18,21 @@ import static java.time.Duration.ofSeconds;
  * The duration window displays the time covered (or time to be covered in a duration workout)
  * in units of hours, minutes, seconds and decimal seconds.
  *
+ * The duration is decoded without allocations and passed to onDurationUpdated(long) in tenths
+ * of seconds, which passes a Duration object to onDurationUpdated(Duration) by default. For
+ * updates without garbage (e.g. for a dashboard) override onDurationUpdated(long) as well, then
+ * onDurationUpdated(Duration) is no longer called and can be left empty.
+ *
+ * The duration is passed in tenths of seconds, but only the hours, minutes and seconds of the
+ * duration window are read. Thus the resolution is whole seconds and the tenths are always 0.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
 public abstract class DisplayedDurationSubscription extends AbstractMemorySubscription {
 
-    /* The last duration received. */
-    private Duration lastDuration = null;
+    /* The last duration received (in tenths of seconds) or -1. */
+    private long lastDuration = -1;
 
 
     /**
@@ -47,17 +55,11 @@ public abstract class DisplayedDurationSubscription extends AbstractMemorySubscr
     @Override
     protected final void handle(DataMemoryMessage msg) {
 
-        int sec = parseInt(msg.getValue1AsACH());
-        int min = parseInt(msg.getValue2AsACH());
-        int hrs = parseInt(msg.getValue3AsACH());
-
-        Duration duration = ofSeconds(sec)
-                .plusMinutes(min)
-                .plusHours(hrs);
+        long duration = toTenthsOfSeconds(msg.getValue3(), msg.getValue2(), msg.getValue1());
 
         // If the received duration is the same as before,
         // don't send an update.
-        if (duration.equals(lastDuration))
+        if (duration == lastDuration)
             return;
         lastDuration = duration;
 
@@ -65,9 +67,32 @@ public abstract class DisplayedDurationSubscription extends AbstractMemorySubscr
         onDurationUpdated(duration);
     }
 
+    /**
+     * Returns the duration of the BCD encoded hours, minutes and seconds of the duration window.
+     *
+     * @param hrs The hours (BCD, e.g. 0x01).
+     * @param min The minutes (BCD, e.g. 0x59).
+     * @param sec The seconds (BCD, e.g. 0x59).
+     * @return The duration in tenths of seconds, always a multiple of 10 (whole seconds).
+     */
+    public static long toTenthsOfSeconds(int hrs, int min, int sec) {
+        return (((intFromBcd(hrs) * 60L) + intFromBcd(min)) * 60L + intFromBcd(sec)) * 10L;
+    }
+
+
+    /**
+     * Is called if the value for the displayed duration was updated. By default the duration is
+     * passed to onDurationUpdated(Duration).
+     *
+     * @param tenthsOfSeconds The new duration (in tenths of seconds, resolution whole seconds).
+     */
+    protected void onDurationUpdated(long tenthsOfSeconds) {
+        onDurationUpdated(ofMillis(tenthsOfSeconds * 100));
+    }
 
     /**
-     * Is called if the value for the displayed duration was updated.
+     * Is called if the value for the displayed duration was updated. Not called if
+     * onDurationUpdated(long) is overridden.
      *
      * @param duration The new duration, never null.
      */
@@ -14,6 +14,10 @@ import de.tbressler.waterrower.subscriptions.Priority;
  *
  * This packet is auto transmitted by the rowing computer.
  *
+ * The time, when the pulse count was received, is passed to onPulseCount(int, long), which calls
+ * onPulseCount(int) by default. Override onPulseCount(int, long) as well, if the time is needed,
+ * then onPulseCount(int) is no longer called and can be left empty.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
@@ -35,14 +39,28 @@ public abstract class PulseCountSubscription implements ISubscription {
     public final void handle(AbstractMessage msg) {
         if (!(msg instanceof PulseCountMessage))
             return;
-        onPulseCount(((PulseCountMessage) msg).getPulsesCounted());
+        onPulseCount(((PulseCountMessage) msg).getPulsesCounted(), msg.getReceivedNanos());
     }
 
 
+    /**
+     * Will be called, when pulse count was updated. By default the pulse count is passed to
+     * onPulseCount(int).
+     *
+     * @param pulsesCount The number of pulse’s counted during the last 25mS period.
+     * @param receivedNanos The System.nanoTime() when the pulse count was received or
+     *                      NOT_RECEIVED (see AbstractMessage.toEpochMillis(long) for the epoch
+     *                      millis).
+     */
+    protected void onPulseCount(int pulsesCount, long receivedNanos) {
+        onPulseCount(pulsesCount);
+    }
+
     /**
      * Will be called, when pulse count was updated. The value is representing the number of
      * pulse’s counted during the last 25mS period; this value can range from 1 to 50
-     * typically. (Zero values will not be transmitted).
+     * typically. (Zero values will not be transmitted). Not called, if onPulseCount(int, long)
+     * is overridden.
      *
      * @param pulsesCount The number of pulse’s counted during the last 25mS period.
      */
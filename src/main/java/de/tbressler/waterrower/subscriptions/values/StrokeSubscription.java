@@ -15,6 +15,11 @@ import de.tbressler.waterrower.subscriptions.Priority;
  *
  * This packet is auto transmitted by the rowing computer.
  *
+ * The time, when the stroke was received, is passed to onStroke(StrokeType, long), which calls
+ * onStroke(StrokeType) by default. Override onStroke(StrokeType, long) as well, if the time is
+ * needed (e.g. to calculate the drive time), then onStroke(StrokeType) is no longer called and can
+ * be left empty.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
@@ -36,13 +41,27 @@ public abstract class StrokeSubscription implements ISubscription {
     public final void handle(AbstractMessage msg) {
         if (!(msg instanceof StrokeMessage))
             return;
-        onStroke(((StrokeMessage) msg).getStrokeType());
+        onStroke(((StrokeMessage) msg).getStrokeType(), msg.getReceivedNanos());
     }
 
 
     /**
      * Will be called, when the rowing computer determined acceleration (start of stroke) or
-     * deceleration (end of stroke) occurring in the paddle.
+     * deceleration (end of stroke) occurring in the paddle. By default the stroke type is
+     * passed to onStroke(StrokeType).
+     *
+     * @param strokeType The type of stroke (e.g. start or end), never null.
+     * @param receivedNanos The System.nanoTime() when the stroke was received or NOT_RECEIVED
+     *                      (see AbstractMessage.toEpochMillis(long) for the epoch millis).
+     */
+    protected void onStroke(StrokeType strokeType, long receivedNanos) {
+        onStroke(strokeType);
+    }
+
+    /**
+     * Will be called, when the rowing computer determined acceleration (start of stroke) or
+     * deceleration (end of stroke) occurring in the paddle. Not called, if
+     * onStroke(StrokeType, long) is overridden.
      *
      * @param strokeType The type of stroke (e.g. start or end), never null.
      */
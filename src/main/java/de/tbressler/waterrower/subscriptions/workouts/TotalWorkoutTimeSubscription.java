@@ -15,6 +15,10 @@ import static de.tbressler.waterrower.utils.MessageUtils.intFromHighAndLow;
  * Subscription for values of the total workout times.
  * The time is updated by the WaterRower after each workout interval.
  *
+ * The time is passed to onTimeUpdated(int) in seconds, which passes a Duration object to
+ * onTimeUpdated(Duration) by default. For updates without garbage override onTimeUpdated(int) as
+ * well, then onTimeUpdated(Duration) is no longer called and can be left empty.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
@@ -54,12 +58,23 @@ public abstract class TotalWorkoutTimeSubscription extends AbstractMemorySubscri
             return;
         lastValue = value;
 
-        onTimeUpdated(Duration.ofSeconds(value));
+        onTimeUpdated(value);
     }
 
 
     /**
-     * Is called if the total workout time value was updated.
+     * Is called if the total workout time value was updated. By default the time is passed to
+     * onTimeUpdated(Duration).
+     *
+     * @param seconds The new workout time (in seconds).
+     */
+    protected void onTimeUpdated(int seconds) {
+        onTimeUpdated(Duration.ofSeconds(seconds));
+    }
+
+    /**
+     * Is called if the total workout time value was updated. Not called if onTimeUpdated(int) is
+     * overridden.
      *
      * @param time The new workout time.
      */
@@ -22,13 +22,19 @@ import static de.tbressler.waterrower.subscriptions.Priority.HIGH;
  * 6 = fworkout_dis_i: workout distance interval mode
  * 7 = fworkout_dur_i: workout duration interval mode
  *
+ * The flags are passed to onWorkoutFlagsUpdated(int) as byte, which passes a WorkoutFlags object
+ * to onWorkoutFlagsUpdated(WorkoutFlags) by default. For updates without garbage override
+ * onWorkoutFlagsUpdated(int) as well and decode the flags with the static methods of WorkoutFlags
+ * (e.g. WorkoutFlags.isWorkoutDistanceMode(flags)), then onWorkoutFlagsUpdated(WorkoutFlags) is
+ * no longer called and can be left empty.
+ *
  * @author Tobias Bressler
  * @version 1.0
  */
 public abstract class WorkoutFlagsSubscription extends AbstractMemorySubscription {
 
-    /* The last received workout flags. */
-    private WorkoutFlags lastWorkoutFlags;
+    /* The last received workout flags or -1. */
+    private int lastWorkoutFlags = -1;
 
 
     /**
@@ -51,11 +57,11 @@ public abstract class WorkoutFlagsSubscription extends AbstractMemorySubscriptio
     @Override
     public final void handle(DataMemoryMessage msg) {
 
-        WorkoutFlags flags = new WorkoutFlags(msg.getValue1());
+        int flags = msg.getValue1();
 
         // If the received workout flags are the same as before,
         // don't send an update.
-        if (flags.equals(lastWorkoutFlags))
+        if (flags == lastWorkoutFlags)
             return;
         lastWorkoutFlags = flags;
 
@@ -64,7 +70,19 @@ public abstract class WorkoutFlagsSubscription extends AbstractMemorySubscriptio
 
 
     /**
-     * Is called, when an update of the workout mode flags was received.
+     * Is called, when an update of the workout mode flags was received. By default the flags are
+     * passed to onWorkoutFlagsUpdated(WorkoutFlags).
+     *
+     * @param flags The flags of the workout mode as byte (0x00 .. 0xFF), see the static methods
+     *              of WorkoutFlags.
+     */
+    protected void onWorkoutFlagsUpdated(int flags) {
+        onWorkoutFlagsUpdated(new WorkoutFlags(flags));
+    }
+
+    /**
+     * Is called, when an update of the workout mode flags was received. Not called if
+     * onWorkoutFlagsUpdated(int) is overridden.
      *
      * @param flags The flags of the workout mode, never null.
      */
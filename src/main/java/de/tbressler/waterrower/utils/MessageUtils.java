@@ -81,9 +81,9 @@ public class MessageUtils {
         int numberOfLeadingZeros = chars - ascii.length();
         if (numberOfLeadingZeros < 0)
             throw new NumberFormatException("Number has more than "+chars+" characters!");
-        for(int i=0; i<numberOfLeadingZeros; i++)
-            ascii = "0"+ascii;
-        return ascii;
+        if (numberOfLeadingZeros == 0)
+            return ascii;
+        return "0".repeat(numberOfLeadingZeros) + ascii;
     }
 
 
@@ -108,6 +108,20 @@ public class MessageUtils {
     }
 
 
+    /**
+     * Returns the integer of a BCD encoded byte (e.g. 0x59 = 59). This is the same value as
+     * acdToInt() of the ACH string of the byte, but without creating a String.
+     *
+     * @param value The BCD encoded byte, must be in range 0x00 to 0xFF.
+     * @return The integer (0 .. 165).
+     */
+    public static int intFromBcd(int value) {
+        if ((value < 0x00) || (value > 0xFF))
+            throw new IllegalArgumentException("The value is is out of range! Only values between 0x00 and 0xFF allowed.!");
+        return ((value >> 4) * 10) + (value & 0x0F);
+    }
+
+
     /**
      * Returns the integer from the two byte values.
      *
@@ -47,7 +47,7 @@ public class PingWatchdog extends Watchdog {
 
     @Override
     protected void wakeUpAndCheck() {
-        Log.debug("Checking if a message (e.g. ping) was received in the last "+maxPingDuration+" ms.");
+        Log.debug("Checking if a message (e.g. ping) was received in the last {} ms.", maxPingDuration);
         if (currentTimeMillis() - lastReceivedPing.get() > maxPingDuration) {
             Log.warn("No message (e.g. ping) received in the last "+maxPingDuration+" ms.");
             fireOnTimeout(PING_TIMEOUT);
@@ -8,10 +8,13 @@ import de.tbressler.waterrower.io.msg.in.HardwareTypeMessage;
 import de.tbressler.waterrower.io.msg.in.ModelInformationMessage;
 import de.tbressler.waterrower.io.msg.out.*;
 import de.tbressler.waterrower.io.msg.out.ConfigureWorkoutMessage.MessageType;
+import de.tbressler.waterrower.io.replay.SessionRecorder;
+import de.tbressler.waterrower.io.trace.WireTrace;
 import de.tbressler.waterrower.io.transport.SerialDeviceAddress;
 import de.tbressler.waterrower.model.ModelInformation;
 import de.tbressler.waterrower.subscriptions.ISubscription;
 import de.tbressler.waterrower.subscriptions.ISubscriptionPollingService;
+import de.tbressler.waterrower.subscriptions.metrics.PollingMetrics;
 import de.tbressler.waterrower.watchdog.DeviceVerificationWatchdog;
 import de.tbressler.waterrower.watchdog.ITimeoutListener;
 import de.tbressler.waterrower.watchdog.PingWatchdog;
@@ -19,11 +22,19 @@ import de.tbressler.waterrower.workout.Workout;
 import de.tbressler.waterrower.workout.WorkoutUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static de.tbressler.waterrower.io.msg.out.ConfigureWorkoutMessage.MessageType.*;
 import static de.tbressler.waterrower.model.ErrorCode.*;
@@ -32,6 +43,8 @@ import static de.tbressler.waterrower.watchdog.TimeoutReason.DEVICE_NOT_CONFIRME
 import static de.tbressler.waterrower.watchdog.TimeoutReason.PING_TIMEOUT;
 import static de.tbressler.waterrower.workout.WorkoutUnit.METERS;
 import static de.tbressler.waterrower.workout.WorkoutUnit.STROKES;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentCaptor.forClass;
 import static org.mockito.Mockito.*;
@@ -55,6 +68,8 @@ public class TestWaterRower {
     private SerialDeviceAddress address = mock(SerialDeviceAddress.class, "address");
     private IWaterRowerConnectionListener waterRowerConnectionListener = mock(IWaterRowerConnectionListener.class, "waterRowerConnectionListener");
     private ISubscription subscription = mock(ISubscription.class, "subscription");
+    private WireTrace wireTrace = mock(WireTrace.class, "wireTrace");
+    private SessionRecorder sessionRecorder = mock(SessionRecorder.class, "sessionRecorder");
 
     private WaterRowerInitializer initializer = mock(WaterRowerInitializer.class, "initializer");
 
@@ -66,7 +81,10 @@ public class TestWaterRower {
 
     @BeforeEach
     public void setUp() throws Exception {
-        waterRower = new WaterRower(connector, pingWatchdog, deviceVerificationWatchdog, subscriptionPollingService);
+        when(connector.send(any(AbstractMessage.class))).thenReturn(completedFuture(null));
+        when(connector.send(anyList())).thenReturn(completedFuture(null));
+
+        waterRower = new WaterRower(connector, pingWatchdog, deviceVerificationWatchdog, subscriptionPollingService, wireTrace, sessionRecorder);
         waterRower.addConnectionListener(waterRowerConnectionListener);
 
         verify(connector, times(1)).addConnectionListener(connectionListener.capture());
@@ -128,28 +146,41 @@ public class TestWaterRower {
         when(initializer.getPingWatchdog()).thenReturn(pingWatchdog);
         when(initializer.getSubscriptionPollingService()).thenReturn(subscriptionPollingService);
         when(initializer.getWaterRowerConnector()).thenReturn(connector);
+        when(initializer.getWireTrace()).thenReturn(wireTrace);
+        when(initializer.getSessionRecorder()).thenReturn(sessionRecorder);
+        when(initializer.getReleaseTask()).thenReturn(() -> {});
 
         new WaterRower(initializer);
     }
 
     @Test
     public void new2_withNullConnector_throwsNPE() {
-        assertThrows(NullPointerException.class, () -> new WaterRower(null, pingWatchdog, deviceVerificationWatchdog, subscriptionPollingService));
+        assertThrows(NullPointerException.class, () -> new WaterRower(null, pingWatchdog, deviceVerificationWatchdog, subscriptionPollingService, wireTrace, sessionRecorder));
     }
 
     @Test
     public void new2_withNullPingWatchdog_throwsNPE() {
-        assertThrows(NullPointerException.class, () -> new WaterRower(connector, null, deviceVerificationWatchdog, subscriptionPollingService));
+        assertThrows(NullPointerException.class, () -> new WaterRower(connector, null, deviceVerificationWatchdog, subscriptionPollingService, wireTrace, sessionRecorder));
     }
 
     @Test
     public void new2_withNullDeviceVerificationWatchdog_throwsNPE() {
-        assertThrows(NullPointerException.class, () -> new WaterRower(connector, pingWatchdog, null, subscriptionPollingService));
+        assertThrows(NullPointerException.class, () -> new WaterRower(connector, pingWatchdog, null, subscriptionPollingService, wireTrace, sessionRecorder));
     }
 
     @Test
     public void new2_withNullSubscriptionPollingService_throwsNPE() {
-        assertThrows(NullPointerException.class, () -> new WaterRower(connector, pingWatchdog, deviceVerificationWatchdog, null));
+        assertThrows(NullPointerException.class, () -> new WaterRower(connector, pingWatchdog, deviceVerificationWatchdog, null, wireTrace, sessionRecorder));
+    }
+
+    @Test
+    public void new2_withNullWireTrace_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new WaterRower(connector, pingWatchdog, deviceVerificationWatchdog, subscriptionPollingService, null, sessionRecorder));
+    }
+
+    @Test
+    public void new2_withNullSessionRecorder_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new WaterRower(connector, pingWatchdog, deviceVerificationWatchdog, subscriptionPollingService, wireTrace, null));
     }
 
 
@@ -162,6 +193,19 @@ public class TestWaterRower {
         verify(connector, times(1)).connect(address);
     }
 
+    @Test
+    public void connect_withSocketAddress_callsConnectAtConnector() throws Exception {
+        SocketAddress socketAddress = mock(SocketAddress.class, "socketAddress");
+        when(connector.isConnected()).thenReturn(false);
+        waterRower.connect(socketAddress);
+        verify(connector, times(1)).connect(socketAddress);
+    }
+
+    @Test
+    public void connect_withNullSerialDeviceAddress_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> waterRower.connect((SerialDeviceAddress) null));
+    }
+
     @Test
     public void connect_whenAlreadyConnected_throwsIOException() throws Exception {
         when(connector.isConnected()).thenReturn(true);
@@ -211,6 +255,125 @@ public class TestWaterRower {
         verify(waterRowerConnectionListener, times(1)).onError(eq(COMMUNICATION_FAILED));
     }
 
+    @Test
+    public void callOnError_withoutDumpDirectory_doesntDumpWireTrace() throws Exception {
+        connectionListener.getValue().onError();
+        verify(wireTrace, never()).dump(any());
+    }
+
+    @Test
+    public void callOnError_withDumpDirectory_dumpsWireTraceByDumpExecutor(@TempDir Path directory) throws Exception {
+        List<Runnable> dumpTasks = new ArrayList<>();
+        WaterRower waterRower = newWaterRowerWithDumpExecutor(dumpTasks::add);
+        waterRower.setWireTraceDumpDirectory(directory);
+
+        connectionListener.getValue().onError();
+
+        verify(wireTrace, never()).dump(any());
+        assertEquals(1, dumpTasks.size());
+
+        dumpTasks.get(0).run();
+
+        ArgumentCaptor<Path> file = forClass(Path.class);
+        verify(wireTrace, times(1)).dump(file.capture());
+        assertEquals(directory, file.getValue().getParent());
+    }
+
+    @Test
+    public void callOnError_withDumpDirectory_dumpsWireTraceInBackground(@TempDir Path directory) throws Exception {
+        Thread caller = Thread.currentThread();
+        CompletableFuture<Thread> dumpThread = new CompletableFuture<>();
+        when(wireTrace.dump(any())).thenAnswer(invocation -> {
+            dumpThread.complete(Thread.currentThread());
+            return 0;
+        });
+        waterRower.setWireTraceDumpDirectory(directory);
+
+        connectionListener.getValue().onError();
+
+        assertNotSame(caller, dumpThread.get(5, SECONDS));
+        verify(waterRowerConnectionListener, times(1)).onError(eq(COMMUNICATION_FAILED));
+    }
+
+    @Test
+    public void callOnError_twiceWithinDumpInterval_dumpsWireTraceOnce(@TempDir Path directory) throws Exception {
+        List<Runnable> dumpTasks = new ArrayList<>();
+        WaterRower waterRower = newWaterRowerWithDumpExecutor(dumpTasks::add);
+        waterRower.setWireTraceDumpDirectory(directory);
+
+        connectionListener.getValue().onError();
+        connectionListener.getValue().onError();
+
+        assertEquals(1, dumpTasks.size());
+        verify(waterRowerConnectionListener, times(2)).onError(eq(COMMUNICATION_FAILED));
+    }
+
+    @Test
+    public void callOnError_ofTwoWaterRowers_dumpsWireTraceToDifferentFiles(@TempDir Path directory) throws Exception {
+        WaterRower waterRower1 = newWaterRowerWithDumpExecutor(Runnable::run);
+        IConnectionListener connectionListener1 = connectionListener.getValue();
+        WaterRower waterRower2 = newWaterRowerWithDumpExecutor(Runnable::run);
+        IConnectionListener connectionListener2 = connectionListener.getValue();
+        waterRower1.setWireTraceDumpDirectory(directory);
+        waterRower2.setWireTraceDumpDirectory(directory);
+
+        connectionListener1.onError();
+        connectionListener2.onError();
+
+        ArgumentCaptor<Path> files = forClass(Path.class);
+        verify(wireTrace, times(2)).dump(files.capture());
+        assertNotEquals(files.getAllValues().get(0), files.getAllValues().get(1));
+    }
+
+    @Test
+    public void callOnError_whenDumpFails_notifiesOnError(@TempDir Path directory) throws Exception {
+        WaterRower waterRower = newWaterRowerWithDumpExecutor(Runnable::run);
+        waterRower.setWireTraceDumpDirectory(directory);
+        when(wireTrace.dump(any())).thenThrow(new IOException("mocked exception"));
+
+        connectionListener.getValue().onError();
+
+        verify(wireTrace, times(1)).dump(any());
+        verify(waterRowerConnectionListener, times(1)).onError(eq(COMMUNICATION_FAILED));
+    }
+
+
+    // Recording:
+
+    @Test
+    public void startRecording_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> waterRower.startRecording(null));
+    }
+
+    @Test
+    public void startRecording_startsSessionRecorder() {
+        StringWriter out = new StringWriter();
+        waterRower.startRecording(out);
+        verify(sessionRecorder, times(1)).start(out);
+    }
+
+    @Test
+    public void stopRecording_stopsSessionRecorder() throws Exception {
+        waterRower.stopRecording();
+        verify(sessionRecorder, times(1)).stop();
+    }
+
+
+    // Wire trace:
+
+    @Test
+    public void dumpWireTrace_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> waterRower.dumpWireTrace(null));
+    }
+
+    @Test
+    public void dumpWireTrace_dumpsWireTrace(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("trace.bin");
+        when(wireTrace.dump(file)).thenReturn(42);
+
+        assertEquals(42, waterRower.dumpWireTrace(file));
+    }
+
 
     @Test
     public void callOnMessageReceived_withHardwareTypeIsWaterRower_requestsModelInformation() throws Exception {
@@ -283,8 +446,40 @@ public class TestWaterRower {
         verify(pingWatchdog, times(1)).stop();
         verify(deviceVerificationWatchdog, times(1)).stop();
         verify(subscriptionPollingService, times(1)).stop();
-        verify(connector, times(1)).send(any(ExitCommunicationMessage.class));
-        verify(connector, times(1)).disconnect();
+        verify(connector, times(1)).disconnect(any(ExitCommunicationMessage.class));
+        verify(connector, never()).send(any(ExitCommunicationMessage.class));
+    }
+
+    @Test
+    public void disconnect_runsReleaseTask() throws Exception {
+        Runnable releaseTask = mock(Runnable.class, "releaseTask");
+        WaterRower waterRower = new WaterRower(connector, pingWatchdog, deviceVerificationWatchdog, subscriptionPollingService, wireTrace, sessionRecorder, releaseTask);
+
+        waterRower.disconnect();
+
+        InOrder inOrder = inOrder(connector, releaseTask);
+        inOrder.verify(connector, times(1)).disconnect();
+        inOrder.verify(releaseTask, times(1)).run();
+    }
+
+    @Test
+    public void disconnect_whenDisconnectFails_runsReleaseTask() throws Exception {
+        Runnable releaseTask = mock(Runnable.class, "releaseTask");
+        WaterRower waterRower = new WaterRower(connector, pingWatchdog, deviceVerificationWatchdog, subscriptionPollingService, wireTrace, sessionRecorder, releaseTask);
+        doThrow(new IOException("mocked-io-exception")).when(connector).disconnect();
+
+        assertThrows(IOException.class, waterRower::disconnect);
+
+        verify(releaseTask, times(1)).run();
+    }
+
+    @Test
+    public void disconnect_whenDisconnectFails_throwsIOException() throws Exception {
+        when(connector.isConnected()).thenReturn(true);
+        when(deviceVerificationWatchdog.isDeviceConfirmed()).thenReturn(true);
+        doThrow(new IOException("mocked-io-exception")).when(connector).disconnect(any(ExitCommunicationMessage.class));
+
+        assertThrows(IOException.class, () -> waterRower.disconnect());
     }
 
     @Test
@@ -293,7 +488,7 @@ public class TestWaterRower {
 
         waterRower.disconnect();
 
-        verify(connector, never()).send(any(ExitCommunicationMessage.class));
+        verify(connector, never()).disconnect(any(AbstractMessage.class));
         verify(connector, times(1)).disconnect();
     }
 
@@ -391,6 +586,14 @@ public class TestWaterRower {
         verify(subscriptionPollingService, times(1)).unsubscribe(eq(subscription));
     }
 
+    @Test
+    public void getPollingMetrics_returnsMetricsOfSubscriptionPollingService() {
+        PollingMetrics metrics = new PollingMetrics();
+        when(subscriptionPollingService.getMetrics()).thenReturn(metrics);
+
+        assertSame(metrics, waterRower.getPollingMetrics());
+    }
+
 
     // Watchdogs:
 
@@ -480,4 +683,15 @@ public class TestWaterRower {
         }
     }
 
-}
\ No newline at end of file
+
+    /* Returns a new WaterRower with the mocks and the given executor for the dumps of the wire
+       trace. The connection listener of the new WaterRower is captured last. */
+    private WaterRower newWaterRowerWithDumpExecutor(Executor dumpExecutor) {
+        WaterRower waterRower = new WaterRower(connector, pingWatchdog, deviceVerificationWatchdog, subscriptionPollingService, wireTrace,
+                sessionRecorder, () -> {}, dumpExecutor);
+        waterRower.addConnectionListener(waterRowerConnectionListener);
+        verify(connector, atLeastOnce()).addConnectionListener(connectionListener.capture());
+        return waterRower;
+    }
+
+}
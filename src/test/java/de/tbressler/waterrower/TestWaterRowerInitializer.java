@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -36,6 +37,48 @@ public class TestWaterRowerInitializer {
         assertThrows(IllegalArgumentException.class, () -> new WaterRowerInitializer(ofSeconds(1), 0));
     }
 
+    @Test
+    public void new_withNullRuntime_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new WaterRowerInitializer(null, ofSeconds(1)));
+    }
+
+    @Test
+    public void new_withRuntimeAndNullTimeoutInterval_throwsNPE() {
+        WaterRowerRuntime runtime = new WaterRowerRuntime();
+        try {
+            assertThrows(NullPointerException.class, () -> new WaterRowerInitializer(runtime, null));
+        } finally {
+            runtime.shutdown();
+        }
+    }
+
+    @Test
+    public void new_withRuntime_createsDependencies() {
+        WaterRowerRuntime runtime = new WaterRowerRuntime();
+        try {
+            WaterRowerInitializer initializer = new WaterRowerInitializer(runtime, ofSeconds(1));
+            assertNotNull(initializer.getWaterRowerConnector());
+            assertNotNull(initializer.getSubscriptionPollingService());
+        } finally {
+            runtime.shutdown();
+        }
+    }
+
+    @Test
+    public void new_withRuntime_releaseTaskReleasesExecutorOfDevice() {
+        WaterRowerRuntime runtime = new WaterRowerRuntime();
+        try {
+            WaterRowerInitializer initializer = new WaterRowerInitializer(runtime, ofSeconds(1));
+            assertEquals(1, runtime.getDeviceExecutorCount());
+
+            initializer.getReleaseTask().run();
+
+            assertEquals(0, runtime.getDeviceExecutorCount());
+        } finally {
+            runtime.shutdown();
+        }
+    }
+
     // Methods:
 
     @Test
@@ -58,4 +101,24 @@ public class TestWaterRowerInitializer {
         assertNotNull(initializer.getSubscriptionPollingService());
     }
 
+    @Test
+    public void getWireTrace_returnsNotNull() throws Exception {
+        assertNotNull(initializer.getWireTrace());
+    }
+
+    @Test
+    public void getSessionRecorder_returnsNotNull() throws Exception {
+        assertNotNull(initializer.getSessionRecorder());
+    }
+
+    @Test
+    public void getReleaseTask_returnsNotNull() throws Exception {
+        assertNotNull(initializer.getReleaseTask());
+    }
+
+    @Test
+    public void new_withNullChannelFactory_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new WaterRowerInitializer(ofSeconds(1), ofSeconds(2), 5, null));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,247 @@
+package de.tbressler.waterrower;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class WaterRowerRuntime.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestWaterRowerRuntime {
+
+    // Class under test.
+    private WaterRowerRuntime runtime;
+
+
+    @BeforeEach
+    public void setUp() {
+        runtime = new WaterRowerRuntime();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        runtime.shutdown();
+    }
+
+
+    // Constructor:
+
+    @Test
+    public void new_with0EventLoopThreads_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new WaterRowerRuntime(0));
+    }
+
+    @Test
+    public void new_withNullWorkerThreadFactory_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new WaterRowerRuntime(1, null));
+    }
+
+    @Test
+    public void new_with0WorkerThreads_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new WaterRowerRuntime(1, 0, Thread::new));
+    }
+
+    @Test
+    public void new_withBoundedWorkers_executesTasksOfFurtherDevicesWhenWorkerIsFree() throws Exception {
+        WaterRowerRuntime boundedRuntime = new WaterRowerRuntime(1, 1, Thread::new);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch executed = new CountDownLatch(1);
+        try {
+            boundedRuntime.newDeviceExecutor().execute(() -> awaitUninterruptibly(blocker));
+            boundedRuntime.newDeviceExecutor().execute(executed::countDown);
+
+            assertFalse(executed.await(100, MILLISECONDS));
+            blocker.countDown();
+            assertTrue(executed.await(5, SECONDS));
+        } finally {
+            blocker.countDown();
+            boundedRuntime.shutdown();
+        }
+    }
+
+    // Methods:
+
+    @Test
+    public void getEventLoopGroup_returnsNotNull() {
+        assertNotNull(runtime.getEventLoopGroup());
+    }
+
+    @Test
+    public void getResolverGroup_returnsNotNull() {
+        assertNotNull(runtime.getResolverGroup());
+    }
+
+    @Test
+    public void newDeviceExecutor_returnsNewExecutor() {
+        ScheduledExecutorService executor1 = runtime.newDeviceExecutor();
+        ScheduledExecutorService executor2 = runtime.newDeviceExecutor();
+
+        assertNotNull(executor1);
+        assertNotSame(executor1, executor2);
+    }
+
+    @Test
+    public void newDeviceExecutor_afterShutdown_throwsISE() {
+        runtime.shutdown();
+        assertThrows(IllegalStateException.class, () -> runtime.newDeviceExecutor());
+    }
+
+    @Test
+    public void newDeviceExecutor_registersExecutor() {
+        runtime.newDeviceExecutor();
+        runtime.newDeviceExecutor();
+
+        assertEquals(2, runtime.getDeviceExecutorCount());
+    }
+
+
+    // Release:
+
+    @Test
+    public void releaseDeviceExecutor_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> runtime.releaseDeviceExecutor(null));
+    }
+
+    @Test
+    public void releaseDeviceExecutor_withExecutorOfOtherRuntime_throwsIAE() {
+        WaterRowerRuntime otherRuntime = new WaterRowerRuntime();
+        try {
+            ScheduledExecutorService executor = otherRuntime.newDeviceExecutor();
+            assertThrows(IllegalArgumentException.class, () -> runtime.releaseDeviceExecutor(executor));
+        } finally {
+            otherRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void releaseDeviceExecutor_removesExecutorAndCancelsDelayedTasks() throws Exception {
+        CountDownLatch executed = new CountDownLatch(1);
+        ScheduledExecutorService executor = runtime.newDeviceExecutor();
+        executor.schedule(executed::countDown, 100, MILLISECONDS);
+
+        runtime.releaseDeviceExecutor(executor);
+
+        assertEquals(0, runtime.getDeviceExecutorCount());
+        assertFalse(executor.isShutdown());
+        assertFalse(executed.await(300, MILLISECONDS));
+    }
+
+    @Test
+    public void releaseDeviceExecutor_executorCanBeUsedAgain() throws Exception {
+        CountDownLatch executed = new CountDownLatch(1);
+        ScheduledExecutorService executor = runtime.newDeviceExecutor();
+        runtime.releaseDeviceExecutor(executor);
+
+        executor.schedule(executed::countDown, 10, MILLISECONDS);
+
+        assertTrue(executed.await(5, SECONDS));
+        assertEquals(1, runtime.getDeviceExecutorCount());
+    }
+
+
+    @Test
+    public void execute_withWorkerThreadFactory_executesTaskByThreadOfFactory() throws Exception {
+        WaterRowerRuntime customRuntime = new WaterRowerRuntime(1, runnable -> new Thread(runnable, "some-worker"));
+        try {
+            Future<String> threadName = customRuntime.newDeviceExecutor().submit(() -> Thread.currentThread().getName());
+            assertEquals("some-worker", threadName.get(5, SECONDS));
+        } finally {
+            customRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void schedule_executesTaskAfterDelay() throws Exception {
+        CountDownLatch executed = new CountDownLatch(1);
+
+        runtime.newDeviceExecutor().schedule(executed::countDown, 10, MILLISECONDS);
+
+        assertTrue(executed.await(5, SECONDS));
+    }
+
+    @Test
+    public void schedule_withBlockedDevice_executesTasksOfOtherDevice() throws Exception {
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch executed = new CountDownLatch(1);
+
+        try {
+            runtime.newDeviceExecutor().execute(() -> awaitUninterruptibly(blocker));
+            runtime.newDeviceExecutor().schedule(executed::countDown, 10, MILLISECONDS);
+
+            assertTrue(executed.await(5, SECONDS));
+        } finally {
+            blocker.countDown();
+        }
+    }
+
+    @Test
+    public void execute_executesTasksOfDeviceOneAfterAnother() throws Exception {
+        ScheduledExecutorService executor = runtime.newDeviceExecutor();
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch executed = new CountDownLatch(1);
+
+        executor.execute(() -> awaitUninterruptibly(blocker));
+        executor.execute(executed::countDown);
+
+        assertFalse(executed.await(100, MILLISECONDS));
+        blocker.countDown();
+        assertTrue(executed.await(5, SECONDS));
+    }
+
+    @Test
+    public void scheduleAtFixedRate_executesTaskRepeatedly() throws Exception {
+        CountDownLatch executed = new CountDownLatch(3);
+
+        runtime.newDeviceExecutor().scheduleAtFixedRate(executed::countDown, 0, 10, MILLISECONDS);
+
+        assertTrue(executed.await(5, SECONDS));
+    }
+
+    @Test
+    public void shutdown_shutsDownEventLoopGroupAndDeviceExecutors() throws Exception {
+        ScheduledExecutorService executor = runtime.newDeviceExecutor();
+
+        runtime.shutdown();
+
+        assertTrue(runtime.isShutdown());
+        assertTrue(runtime.getEventLoopGroup().isShutdown());
+        assertTrue(executor.isShutdown());
+        assertTrue(executor.awaitTermination(5, SECONDS));
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+    }
+
+    @Test
+    public void shutdown_cancelsDelayedTasks() throws Exception {
+        CountDownLatch executed = new CountDownLatch(1);
+        ScheduledExecutorService executor = runtime.newDeviceExecutor();
+
+        executor.schedule(executed::countDown, 100, MILLISECONDS);
+        executor.shutdown();
+
+        assertFalse(executed.await(300, MILLISECONDS));
+    }
+
+
+    // Helper methods:
+
+    private void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -1,16 +1,18 @@
 package de.tbressler.waterrower.io;
 
-import de.tbressler.waterrower.io.codec.MessageFrameDecoder;
 import de.tbressler.waterrower.io.codec.MessageFrameEncoder;
+import de.tbressler.waterrower.io.codec.MessageLineDecoder;
 import de.tbressler.waterrower.io.transport.SerialChannel;
 import de.tbressler.waterrower.io.transport.SerialChannelConfig;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelPipeline;
-import io.netty.handler.codec.DelimiterBasedFrameDecoder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static de.tbressler.waterrower.io.transport.SerialChannelConfig.Paritybit.NONE;
 import static de.tbressler.waterrower.io.transport.SerialChannelConfig.Stopbits.STOPBITS_1;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -67,10 +69,35 @@ public class TestChannelInitializer {
         verify(config, times(1)).setParitybit(NONE);
 
         // Check if encoders, decoders and handlers are set:
-        verify(pipeline, times(1)).addLast(eq("framer"), any(DelimiterBasedFrameDecoder.class));
-        verify(pipeline, times(1)).addLast(eq("decoder"), any(MessageFrameDecoder.class));
+        verify(pipeline, times(1)).addLast(eq("recorder"), eq(initializer.getSessionRecorder()));
+        verify(pipeline, times(1)).addLast(eq("decoder"), any(MessageLineDecoder.class));
         verify(pipeline, times(1)).addLast(eq("encoder"), any(MessageFrameEncoder.class));
         verify(pipeline, times(1)).addLast(eq("handler"), eq(handler));
     }
 
+    @Test
+    public void initChannel_withOtherChannel_addsHandlersOnly() throws Exception {
+        Channel otherChannel = mock(Channel.class, "otherChannel");
+        when(otherChannel.pipeline()).thenReturn(pipeline);
+        initializer.setSerialHandler(handler);
+
+        initializer.initChannel(otherChannel);
+
+        verify(otherChannel, never()).config();
+        verify(pipeline, times(1)).addLast(eq("decoder"), any(MessageLineDecoder.class));
+        verify(pipeline, times(1)).addLast(eq("handler"), eq(handler));
+    }
+
+    @Test
+    public void getSessionRecorder_returnsSameRecorderForAllChannels() throws Exception {
+        assertNotNull(initializer.getSessionRecorder());
+        assertSame(initializer.getSessionRecorder(), initializer.getSessionRecorder());
+    }
+
+    @Test
+    public void getWireTrace_returnsSameWireTraceForAllChannels() throws Exception {
+        assertNotNull(initializer.getWireTrace());
+        assertSame(initializer.getWireTrace(), initializer.getWireTrace());
+    }
+
 }
\ No newline at end of file
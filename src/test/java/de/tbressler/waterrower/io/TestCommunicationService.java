@@ -5,12 +5,17 @@ import de.tbressler.waterrower.io.transport.SerialDeviceAddress;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static de.tbressler.waterrower.io.ConnectionState.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentCaptor.forClass;
 import static org.mockito.Mockito.*;
@@ -32,6 +37,7 @@ public class TestCommunicationService {
     private SerialDeviceAddress address = new SerialDeviceAddress("some-port");
     private ChannelFuture channelFuture = mock(ChannelFuture.class, "channelFuture");
     private Channel channel = mock(Channel.class, "channel");
+    private EventLoopGroup eventLoopGroup = mock(EventLoopGroup.class, "eventLoopGroup");
 
     private IConnectionListener connectionListener = mock(IConnectionListener.class, "connectionListener");
 
@@ -62,6 +68,47 @@ public class TestCommunicationService {
         assertThrows(NullPointerException.class, () -> new CommunicationService(bootstrap, null));
     }
 
+    @Test
+    public void new_withNullEventLoopGroup_throwsNullPointerException() {
+        assertThrows(NullPointerException.class, () -> new CommunicationService(bootstrap, channelInitializer, null));
+    }
+
+    @Test
+    public void new_withEventLoopGroup_setsGroupOfBootstrap() {
+        new CommunicationService(bootstrap, channelInitializer, eventLoopGroup);
+        verify(bootstrap, times(1)).group(eventLoopGroup);
+    }
+
+    @Test
+    public void new_withNullListenerExecutor_throwsNullPointerException() {
+        assertThrows(NullPointerException.class, () -> new CommunicationService(bootstrap, channelInitializer, eventLoopGroup, null));
+    }
+
+    @Test
+    public void new_withNullChannelFactory_throwsNullPointerException() {
+        assertThrows(NullPointerException.class, () -> new CommunicationService(bootstrap, channelInitializer, eventLoopGroup, Runnable::run, null));
+    }
+
+    @Test
+    public void onMessageReceived_withListenerExecutor_notifiesListenersByExecutor() {
+        ChannelInitializer otherChannelInitializer = mock(ChannelInitializer.class, "otherChannelInitializer");
+        Executor listenerExecutor = mock(Executor.class, "listenerExecutor");
+        ArgumentCaptor<Runnable> task = forClass(Runnable.class);
+
+        communicationService = new CommunicationService(bootstrap, otherChannelInitializer, eventLoopGroup, listenerExecutor);
+        communicationService.addConnectionListener(connectionListener);
+        verify(otherChannelInitializer, times(1)).setSerialHandler(callback.capture());
+
+        callback.getValue().onMessageReceived(message);
+
+        verify(connectionListener, never()).onMessageReceived(message);
+        verify(listenerExecutor, times(1)).execute(task.capture());
+
+        task.getValue().run();
+
+        verify(connectionListener, times(1)).onMessageReceived(message);
+    }
+
     @Test
     public void new_withValidBootstrapAndChannelInitializer() {
         communicationService = new CommunicationService(bootstrap, channelInitializer);
@@ -138,6 +185,111 @@ public class TestCommunicationService {
         assertThrows(IOException.class, () -> communicationService.close());
     }
 
+    // State:
+
+    @Test
+    public void getState_initially_returnsClosed() {
+        assertEquals(CLOSED, communicationService.getState());
+    }
+
+    @Test
+    public void getState_afterSuccessfulConnect_returnsOpen() throws IOException {
+        mockSuccessfulConnect();
+        assertEquals(OPEN, communicationService.getState());
+    }
+
+    @Test
+    public void getState_afterUnsuccessfulConnect_returnsClosed() {
+        assertThrows(IOException.class, () -> mockUnsuccessfulConnect());
+        assertEquals(CLOSED, communicationService.getState());
+    }
+
+    @Test
+    public void getState_afterClose_returnsClosed() throws IOException {
+        mockSuccessfulConnect();
+        when(channel.close()).thenReturn(channelFuture);
+        when(channel.isOpen()).thenReturn(true);
+
+        communicationService.close();
+
+        assertEquals(CLOSED, communicationService.getState());
+        assertFalse(communicationService.isConnected());
+    }
+
+    @Test
+    public void getState_whileConnecting_returnsConnecting() throws IOException {
+        AtomicReference<ConnectionState> stateWhileConnecting = new AtomicReference<>();
+        when(bootstrap.connect(address)).thenAnswer(invocation -> {
+            stateWhileConnecting.set(communicationService.getState());
+            return channelFuture;
+        });
+        when(channelFuture.syncUninterruptibly()).thenReturn(channelFuture);
+        when(channelFuture.isSuccess()).thenReturn(true);
+        when(channelFuture.channel()).thenReturn(channel);
+
+        communicationService.open(address);
+
+        assertEquals(CONNECTING, stateWhileConnecting.get());
+    }
+
+    @Test
+    public void open_whenAlreadyOpen_throwsIOException() throws IOException {
+        mockSuccessfulConnect();
+        assertThrows(IOException.class, () -> communicationService.open(address));
+        verify(bootstrap, times(1)).connect(address);
+    }
+
+    @Test
+    public void open_whenChannelBecomesActive_publishesOpenStateBeforeListenersAreNotified() throws Exception {
+        ChannelHandlerContext context = mock(ChannelHandlerContext.class, "context");
+        when(context.channel()).thenReturn(channel);
+        AtomicReference<Boolean> connectedWhenActive = new AtomicReference<>();
+        when(bootstrap.connect(address)).thenAnswer(invocation -> {
+            // The channel becomes active, before the connect returns:
+            callback.getValue().channelActive(context);
+            connectedWhenActive.set(communicationService.isConnected());
+            return channelFuture;
+        });
+        when(channelFuture.syncUninterruptibly()).thenReturn(channelFuture);
+        when(channelFuture.isSuccess()).thenReturn(true);
+        when(channelFuture.channel()).thenReturn(channel);
+
+        communicationService.open(address);
+
+        assertTrue(connectedWhenActive.get());
+    }
+
+    @Test
+    public void open_whileConnecting_throwsIOException() throws IOException {
+        AtomicReference<Throwable> concurrentOpen = new AtomicReference<>();
+        when(bootstrap.connect(address)).thenAnswer(invocation -> {
+            concurrentOpen.set(assertThrows(IOException.class, () -> communicationService.open(address)));
+            return channelFuture;
+        });
+        when(channelFuture.syncUninterruptibly()).thenReturn(channelFuture);
+        when(channelFuture.isSuccess()).thenReturn(true);
+        when(channelFuture.channel()).thenReturn(channel);
+
+        communicationService.open(address);
+
+        assertNotNull(concurrentOpen.get());
+        assertTrue(communicationService.isConnected());
+    }
+
+    @Test
+    public void send_whenChannelIsClosing_doesntSendMessage() throws IOException {
+        mockSuccessfulConnect();
+        when(channel.isOpen()).thenReturn(true);
+        when(channel.close()).thenAnswer(invocation -> {
+            assertThrows(IOException.class, () -> communicationService.send(message));
+            return channelFuture;
+        });
+
+        communicationService.close();
+
+        verify(channel, never()).writeAndFlush(message);
+    }
+
     // Send:
 
     @Test
@@ -156,6 +308,41 @@ public class TestCommunicationService {
         assertThrows(IOException.class, () -> communicationService.send(message));
     }
 
+    // Write and flush:
+
+    @Test
+    public void write_whenConnected_writesMessageWithoutFlush() throws IOException {
+
+        mockSuccessfulConnect();
+        when(channel.isOpen()).thenReturn(true);
+
+        communicationService.write(message);
+
+        verify(channel, times(1)).write(message);
+        verify(channel, never()).flush();
+    }
+
+    @Test
+    public void write_whenNotConnected_throwsIOException() {
+        assertThrows(IOException.class, () -> communicationService.write(message));
+    }
+
+    @Test
+    public void flush_whenConnected_flushesChannel() throws IOException {
+
+        mockSuccessfulConnect();
+        when(channel.isOpen()).thenReturn(true);
+
+        communicationService.flush();
+
+        verify(channel, times(1)).flush();
+    }
+
+    @Test
+    public void flush_whenNotConnected_throwsIOException() {
+        assertThrows(IOException.class, () -> communicationService.flush());
+    }
+
     // Message received:
 
     @Test
@@ -0,0 +1,55 @@
+package de.tbressler.waterrower.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class SendPolicy.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestSendPolicy {
+
+    // Constructor:
+
+    @Test
+    public void new_withNullMinimumGap_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new SendPolicy(null, 1));
+    }
+
+    @Test
+    public void new_withNegativeMinimumGap_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new SendPolicy(Duration.ofMillis(-1), 1));
+    }
+
+    @Test
+    public void new_withBurstSize0_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new SendPolicy(Duration.ofMillis(30), 0));
+    }
+
+    @Test
+    public void new_withValidValues_returnsValues() {
+        SendPolicy policy = new SendPolicy(Duration.ofMillis(50), 8);
+
+        assertEquals(Duration.ofMillis(50), policy.getMinimumGap());
+        assertEquals(8, policy.getMaxBurstSize());
+    }
+
+    // Default:
+
+    @Test
+    public void default_sendsSingleMessagesWith30msGap() {
+        assertEquals(Duration.ofMillis(30), SendPolicy.DEFAULT.getMinimumGap());
+        assertEquals(1, SendPolicy.DEFAULT.getMaxBurstSize());
+    }
+
+    @Test
+    public void toString_returnsObjectInfo() {
+        assertEquals("SendPolicy{minimumGap=PT0.03S, maxBurstSize=1}", SendPolicy.DEFAULT.toString());
+    }
+
+}
@@ -1,15 +1,34 @@
 package de.tbressler.waterrower.io;
 
 import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
 import de.tbressler.waterrower.io.transport.SerialDeviceAddress;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
-
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+
+import static de.tbressler.waterrower.io.msg.Memory.DOUBLE_MEMORY;
+import static de.tbressler.waterrower.io.msg.Memory.SINGLE_MEMORY;
+import static de.tbressler.waterrower.model.MemoryLocation.STROKES_CNT_LOW;
+import static de.tbressler.waterrower.model.MemoryLocation.TANK_VOLUME;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentCaptor.forClass;
 import static org.mockito.Mockito.*;
 
 /**
@@ -25,15 +44,40 @@ public class TestWaterRowerConnector {
 
     // Mocks:
     private CommunicationService communicationService = mock(CommunicationService.class, "communicationService");
+    private ScheduledExecutorService executorService = mock(ScheduledExecutorService.class, "executorService");
     private SerialDeviceAddress address = mock(SerialDeviceAddress.class, "address");
     private IConnectionListener connectionListener = mock(IConnectionListener.class, "connectionListener");
     private AbstractMessage message1 = mock(AbstractMessage.class, "message-1");
     private AbstractMessage message2 = mock(AbstractMessage.class, "message-2");
+    private AbstractMessage message3 = mock(AbstractMessage.class, "message-3");
+    private ScheduledFuture<?> timeoutFuture = mock(ScheduledFuture.class, "timeoutFuture");
+
+    private ReadMemoryMessage read1 = new ReadMemoryMessage(DOUBLE_MEMORY, STROKES_CNT_LOW.getLocation());
+    private ReadMemoryMessage read2 = new ReadMemoryMessage(SINGLE_MEMORY, TANK_VOLUME.getLocation());
+
+    /* The channel, which writes the messages. */
+    private EmbeddedChannel channel = new EmbeddedChannel();
+
+    /* The result of the writes to the channel. */
+    private ChannelPromise written = channel.newPromise().setSuccess();
+
+    // Capture:
+    private ArgumentCaptor<Runnable> sendTask = forClass(Runnable.class);
+    private ArgumentCaptor<Long> sendDelay = forClass(Long.class);
+    private ArgumentCaptor<Runnable> timeoutTask = forClass(Runnable.class);
+    private ArgumentCaptor<IConnectionListener> readListener = forClass(IConnectionListener.class);
 
 
     @BeforeEach
-    public void setUp() {
-        connector = new WaterRowerConnector(communicationService);
+    public void setUp() throws Exception {
+        when(communicationService.write(any())).thenAnswer(invocation -> written);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executorService).execute(any(Runnable.class));
+
+        connector = new WaterRowerConnector(communicationService, executorService);
+        verify(communicationService).addConnectionListener(readListener.capture());
         connector.addConnectionListener(connectionListener);
     }
 
@@ -41,7 +85,24 @@ public class TestWaterRowerConnector {
 
     @Test
     public void new_withNullCommunicationService_throwsNPE() {
-        assertThrows(NullPointerException.class, () -> new WaterRowerConnector(null));
+        assertThrows(NullPointerException.class, () -> new WaterRowerConnector(null, executorService));
+    }
+
+    @Test
+    public void new_withNullExecutorService_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new WaterRowerConnector(communicationService, null));
+    }
+
+    @Test
+    public void new_withoutExecutorService_sendsMessageByDefaultExecutor() throws Exception {
+        CommunicationService service = mock(CommunicationService.class, "service");
+        when(service.isConnected()).thenReturn(true);
+        when(service.write(message1)).thenReturn(written);
+        WaterRowerConnector defaultConnector = new WaterRowerConnector(service);
+
+        defaultConnector.send(message1);
+
+        verify(service, timeout(5000).times(1)).write(message1);
     }
 
     // Connect:
@@ -84,9 +145,110 @@ public class TestWaterRowerConnector {
     public void send_withValidMessage_sendsMessage() throws Exception {
         when(communicationService.isConnected()).thenReturn(true);
 
+        CompletableFuture<Void> future = connector.send(message1);
+
+        verify(communicationService, never()).write(message1);
+        assertFalse(future.isDone());
+
+        runNextSendTask();
+
+        verify(communicationService, times(1)).write(message1);
+        assertTrue(future.isDone());
+        assertFalse(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void send_withValidMessage_completesFutureWhenChannelHasWrittenMessage() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+        ChannelPromise pendingWrite = channel.newPromise();
+        when(communicationService.write(message1)).thenReturn(pendingWrite);
+
+        CompletableFuture<Void> future = connector.send(message1);
+        runNextSendTask();
+
+        verify(communicationService, times(1)).flush();
+        assertFalse(future.isDone());
+
+        pendingWrite.setSuccess();
+
+        assertTrue(future.isDone());
+        assertFalse(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void send_whenChannelFailsToWriteMessage_completesFutureExceptionally() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+        ChannelPromise pendingWrite = channel.newPromise();
+        when(communicationService.write(message1)).thenReturn(pendingWrite);
+
+        CompletableFuture<Void> future = connector.send(message1);
+        runNextSendTask();
+        pendingWrite.setFailure(new IOException("mocked-io-exception"));
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void send_withValidMessage_schedulesSendTaskWithoutDelay() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        connector.send(message1);
+
+        verify(executorService, times(1)).schedule(any(Runnable.class), eq(0L), eq(NANOSECONDS));
+    }
+
+    @Test
+    public void send_withTwoMessages_schedulesSendTaskOnlyOnce() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        connector.send(message1);
+        connector.send(message2);
+
+        verify(executorService, times(1)).schedule(any(Runnable.class), anyLong(), eq(NANOSECONDS));
+    }
+
+    @Test
+    public void send_withTwoMessages_sendsSecondMessageAfterMinimumInterval() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
         connector.send(message1);
+        connector.send(message2);
 
-        verify(communicationService, times(1)).send(message1);
+        runNextSendTask();
+
+        verify(executorService, times(2)).schedule(sendTask.capture(), sendDelay.capture(), eq(NANOSECONDS));
+        assertTrue(sendDelay.getValue() > 0);
+        assertTrue(sendDelay.getValue() <= 30_000_000L);
+
+        sendTask.getValue().run();
+
+        verify(communicationService, times(1)).write(message2);
+    }
+
+    @Test
+    public void send_whenCommunicationServiceFails_completesFutureExceptionally() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+        doThrow(new IOException("mocked-io-exception")).when(communicationService).write(message1);
+
+        CompletableFuture<Void> future = connector.send(message1);
+
+        runNextSendTask();
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void send_whenDisconnectedBeforeSending_completesFutureExceptionally() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        CompletableFuture<Void> future = connector.send(message1);
+        connector.disconnect();
+
+        assertTrue(future.isCompletedExceptionally());
+
+        runNextSendTask();
+
+        verify(communicationService, never()).write(message1);
     }
 
     @Test
@@ -104,10 +266,78 @@ public class TestWaterRowerConnector {
     public void send2_withMultipleMessage_sendsMessages() throws Exception {
         when(communicationService.isConnected()).thenReturn(true);
 
-        connector.send(Arrays.asList(message1, message2));
+        CompletableFuture<Void> future = connector.send(Arrays.asList(message1, message2));
+
+        runNextSendTask();
+        assertFalse(future.isDone());
+
+        verify(executorService, times(2)).schedule(sendTask.capture(), anyLong(), eq(NANOSECONDS));
+        sendTask.getValue().run();
+
+        verify(communicationService, times(1)).write(message1);
+        verify(communicationService, times(1)).write(message2);
+        assertTrue(future.isDone());
+    }
+
+    @Test
+    public void send2_withBurstPolicy_flushesMessagesTogether() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+        connector.setSendPolicy(new SendPolicy(Duration.ofMillis(100), 2));
+
+        CompletableFuture<Void> future = connector.send(Arrays.asList(message1, message2));
+
+        runNextSendTask();
 
-        verify(communicationService, times(1)).send(message1);
-        verify(communicationService, times(1)).send(message2);
+        InOrder inOrder = inOrder(communicationService);
+        inOrder.verify(communicationService).write(message1);
+        inOrder.verify(communicationService).write(message2);
+        inOrder.verify(communicationService).flush();
+        verify(communicationService, never()).send(any(AbstractMessage.class));
+        verify(communicationService, times(1)).flush();
+        assertTrue(future.isDone());
+    }
+
+    @Test
+    public void send2_withBurstPolicy_sendsNextBurstAfterMinimumGap() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+        connector.setSendPolicy(new SendPolicy(Duration.ofMillis(100), 2));
+
+        connector.send(Arrays.asList(message1, message2, message3));
+
+        runNextSendTask();
+
+        verify(executorService, times(2)).schedule(sendTask.capture(), sendDelay.capture(), eq(NANOSECONDS));
+        assertTrue(sendDelay.getValue() > 30_000_000L);
+        assertTrue(sendDelay.getValue() <= 100_000_000L);
+
+        sendTask.getValue().run();
+
+        verify(communicationService, times(1)).write(message3);
+    }
+
+    @Test
+    public void send2_withBurstPolicyWhenFlushFails_completesFutureExceptionally() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+        // The writes are not completed, because they were not flushed:
+        when(communicationService.write(any())).thenAnswer(invocation -> channel.newPromise());
+        doThrow(new IOException("mocked-io-exception")).when(communicationService).flush();
+        connector.setSendPolicy(new SendPolicy(Duration.ofMillis(100), 2));
+
+        CompletableFuture<Void> future = connector.send(Arrays.asList(message1, message2));
+
+        runNextSendTask();
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void setSendPolicy_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> connector.setSendPolicy(null));
+    }
+
+    @Test
+    public void getSendPolicy_returnsDefaultPolicy() {
+        assertSame(SendPolicy.DEFAULT, connector.getSendPolicy());
     }
 
     // Disconnect:
@@ -127,6 +357,42 @@ public class TestWaterRowerConnector {
         verify(communicationService, times(1)).close();
     }
 
+    @Test
+    public void disconnect_withNullGoodbye_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> connector.disconnect(null));
+    }
+
+    @Test
+    public void disconnect_withGoodbyeWhenNotConnected_throwsIOException() throws IOException {
+        when(communicationService.isConnected()).thenReturn(false);
+
+        assertThrows(IOException.class, () -> connector.disconnect(message1));
+
+        verify(communicationService, never()).send(message1);
+    }
+
+    @Test
+    public void disconnect_withGoodbye_sendsGoodbyeDirectlyAndClosesConnection() throws IOException {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        connector.disconnect(message1);
+
+        InOrder inOrder = inOrder(communicationService);
+        inOrder.verify(communicationService, times(1)).send(message1);
+        inOrder.verify(communicationService, times(1)).close();
+        verify(executorService, never()).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    public void disconnect_withGoodbyeWhenSendFails_closesConnection() throws IOException {
+        when(communicationService.isConnected()).thenReturn(true);
+        doThrow(new IOException("mocked-io-exception")).when(communicationService).send(message1);
+
+        connector.disconnect(message1);
+
+        verify(communicationService, times(1)).close();
+    }
+
     // Listener:
 
     @Test
@@ -151,4 +417,235 @@ public class TestWaterRowerConnector {
         verify(communicationService, times(1)).removeConnectionListener(connectionListener);
     }
 
+    // Read:
+
+    @Test
+    public void read_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> connector.read(null));
+    }
+
+    @Test
+    public void read_whenNotConnected_throwsIOException() {
+        when(communicationService.isConnected()).thenReturn(false);
+        assertThrows(IOException.class, () -> connector.read(read1));
+    }
+
+    @Test
+    public void read_withValidMessage_sendsMessage() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        ReadRequest readRequest = connector.read(read1);
+
+        assertSame(read1, readRequest.getMessage());
+        assertFalse(readRequest.getSentFuture().isDone());
+
+        runNextSendTask();
+
+        verify(communicationService, times(1)).write(read1);
+        assertTrue(readRequest.getSentFuture().isDone());
+        assertFalse(readRequest.getAnswerFuture().isDone());
+    }
+
+    @Test
+    public void read_withAnswer_completesAnswerFuture() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        ReadRequest readRequest = connector.read(read1);
+        runNextSendTask();
+
+        DataMemoryMessage answer = new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01, 0x02);
+        readListener.getValue().onMessageReceived(answer);
+
+        assertSame(answer, readRequest.getAnswerFuture().get());
+    }
+
+    @Test
+    public void read_withAnswerOfOtherMemoryType_doesntCompleteAnswerFuture() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        ReadRequest readRequest = connector.read(read1);
+        runNextSendTask();
+
+        readListener.getValue().onMessageReceived(new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01));
+
+        assertFalse(readRequest.getAnswerFuture().isDone());
+    }
+
+    @Test
+    public void read_withSameReadTwice_returnsSameRequest() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        ReadRequest readRequest1 = connector.read(read1);
+        ReadRequest readRequest2 = connector.read(new ReadMemoryMessage(DOUBLE_MEMORY, STROKES_CNT_LOW.getLocation()));
+
+        assertSame(readRequest1, readRequest2);
+    }
+
+    @Test
+    public void read_withTwoReads_sendsSecondReadAfterAnswer() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        connector.read(read1);
+        ReadRequest readRequest2 = connector.read(read2);
+        runNextSendTask();
+
+        verify(communicationService, times(1)).write(read1);
+        // Only the send task of the first read and its timeout are scheduled:
+        verify(executorService, times(2)).schedule(any(Runnable.class), anyLong(), eq(NANOSECONDS));
+        verify(executorService, times(1)).schedule(any(Runnable.class), eq(SECONDS.toNanos(1)), eq(NANOSECONDS));
+
+        readListener.getValue().onMessageReceived(new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01, 0x02));
+        runNextSendTask();
+
+        verify(communicationService, times(1)).write(read2);
+        assertTrue(readRequest2.getSentFuture().isDone());
+    }
+
+    @Test
+    public void read_withWindowOfTwoReads_sendsBothReads() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+        connector.setMaxInFlightReads(2);
+
+        connector.read(read1);
+        connector.read(read2);
+        runNextSendTask();
+        runNextSendTask();
+
+        verify(communicationService, times(1)).write(read1);
+        verify(communicationService, times(1)).write(read2);
+    }
+
+    @Test
+    public void read_withoutAnswer_completesAnswerFutureWithTimeout() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        ReadRequest readRequest1 = connector.read(read1);
+        ReadRequest readRequest2 = connector.read(read2);
+        runNextSendTask();
+        runNextTimeoutTask();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> readRequest1.getAnswerFuture().get());
+        assertTrue(e.getCause() instanceof TimeoutException);
+
+        runNextSendTask();
+
+        verify(communicationService, times(1)).write(read2);
+        assertTrue(readRequest2.getSentFuture().isDone());
+    }
+
+    @Test
+    public void read_withAnswerAfterTimeout_isIgnored() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        ReadRequest readRequest = connector.read(read1);
+        runNextSendTask();
+        readListener.getValue().onMessageReceived(new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01, 0x02));
+        runNextTimeoutTask();
+
+        assertFalse(readRequest.getAnswerFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    public void read_withAnswer_cancelsTimeout() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+        doReturn(timeoutFuture).when(executorService).schedule(any(Runnable.class), eq(SECONDS.toNanos(1)), eq(NANOSECONDS));
+
+        connector.read(read1);
+        runNextSendTask();
+        readListener.getValue().onMessageReceived(new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01, 0x02));
+
+        verify(timeoutFuture, times(1)).cancel(false);
+    }
+
+    @Test
+    public void read_withAnswerBeforeReadWasWritten_doesntScheduleTimeout() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+        ChannelPromise pendingWrite = channel.newPromise();
+        when(communicationService.write(read1)).thenReturn(pendingWrite);
+
+        ReadRequest readRequest = connector.read(read1);
+        runNextSendTask();
+        readListener.getValue().onMessageReceived(new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01, 0x02));
+        pendingWrite.setSuccess();
+
+        assertTrue(readRequest.getAnswerFuture().isDone());
+        verify(executorService, never()).schedule(any(Runnable.class), eq(SECONDS.toNanos(1)), eq(NANOSECONDS));
+    }
+
+    @Test
+    public void read_whenDisconnected_cancelsTimeout() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+        doReturn(timeoutFuture).when(executorService).schedule(any(Runnable.class), eq(SECONDS.toNanos(1)), eq(NANOSECONDS));
+
+        connector.read(read1);
+        runNextSendTask();
+        connector.disconnect();
+
+        verify(timeoutFuture, times(1)).cancel(false);
+    }
+
+    @Test
+    public void read_whenDisconnected_completesAnswerFutureExceptionally() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        ReadRequest readRequest = connector.read(read1);
+        connector.disconnect();
+
+        assertTrue(readRequest.getAnswerFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    public void onDisconnected_withPendingMessageAndRead_completesFuturesExceptionally() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        ReadRequest sentRead = connector.read(read1);
+        runNextSendTask();
+        CompletableFuture<Void> future = connector.send(message1);
+        ReadRequest queuedRead = connector.read(read2);
+        readListener.getValue().onDisconnected();
+
+        assertTrue(future.isCompletedExceptionally());
+        assertTrue(sentRead.getAnswerFuture().isCompletedExceptionally());
+        assertTrue(queuedRead.getAnswerFuture().isCompletedExceptionally());
+        assertTrue(queuedRead.getSentFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    public void onError_withPendingMessage_completesFutureExceptionally() throws Exception {
+        when(communicationService.isConnected()).thenReturn(true);
+
+        CompletableFuture<Void> future = connector.send(message1);
+        readListener.getValue().onError();
+
+        assertTrue(future.isCompletedExceptionally());
+
+        runNextSendTask();
+
+        verify(communicationService, never()).write(message1);
+    }
+
+    @Test
+    public void setMaxInFlightReads_with0_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> connector.setMaxInFlightReads(0));
+    }
+
+    @Test
+    public void setReadTimeout_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> connector.setReadTimeout(null));
+    }
+
+
+    // Helper methods:
+
+    /* Runs the last scheduled send task. */
+    private void runNextTimeoutTask() {
+        verify(executorService, atLeastOnce()).schedule(timeoutTask.capture(), eq(SECONDS.toNanos(1)), eq(NANOSECONDS));
+        timeoutTask.getValue().run();
+    }
+
+    private void runNextSendTask() {
+        verify(executorService, atLeastOnce()).schedule(sendTask.capture(), anyLong(), eq(NANOSECONDS));
+        sendTask.getValue().run();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,176 @@
+package de.tbressler.waterrower.io.bridge;
+
+import de.tbressler.waterrower.io.emulator.EmulatorAddress;
+import de.tbressler.waterrower.io.emulator.EmulatorChannel;
+import de.tbressler.waterrower.io.transport.SerialDeviceAddress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import static de.tbressler.waterrower.model.MonitorType.WATER_ROWER_S4;
+import static java.net.InetAddress.getLoopbackAddress;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class TcpSerialBridge.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestTcpSerialBridge {
+
+    /* The timeout of the reads (in ms). */
+    private static final int TIMEOUT = 5000;
+
+    /* An emulator, which doesn't row. */
+    private final EmulatorAddress idle = new EmulatorAddress("idle", WATER_ROWER_S4, 0, 0);
+
+    /* Class under test. */
+    private TcpSerialBridge bridge;
+
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        bridge = new TcpSerialBridge(idle, EmulatorChannel::new, new InetSocketAddress(getLoopbackAddress(), 0));
+        bridge.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bridge.stop();
+    }
+
+
+    // Constructor:
+
+    @Test
+    public void new_withNullSerialPort_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new TcpSerialBridge(null, 4001));
+    }
+
+    @Test
+    public void new_withInvalidPort_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new TcpSerialBridge(new SerialDeviceAddress("/dev/ttyACM0"), 65536));
+    }
+
+    @Test
+    public void new_withNullDeviceChannelFactory_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new TcpSerialBridge(idle, null, new InetSocketAddress(0)));
+    }
+
+    @Test
+    public void new_withNullLocalAddress_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new TcpSerialBridge(idle, EmulatorChannel::new, null));
+    }
+
+    // Start / stop:
+
+    @Test
+    public void start_twice_throwsISE() {
+        assertThrows(IllegalStateException.class, () -> bridge.start());
+    }
+
+    @Test
+    public void start_withBoundPort_throwsIOException() {
+        TcpSerialBridge other = new TcpSerialBridge(idle, EmulatorChannel::new, bridge.getLocalAddress());
+        assertThrows(IOException.class, other::start);
+        assertNull(other.getLocalAddress());
+    }
+
+    @Test
+    public void getLocalAddress_returnsBoundPort() {
+        assertTrue(bridge.getLocalAddress().getPort() > 0);
+    }
+
+    @Test
+    public void stop_disconnectsClient() throws Exception {
+        try (Socket client = connectClient()) {
+            assertEquals("_WR_\r\n", request(client, "USB\r\n"));
+
+            bridge.stop();
+
+            assertEquals(-1, client.getInputStream().read());
+            assertNull(bridge.getLocalAddress());
+            assertFalse(bridge.isClientConnected());
+        }
+    }
+
+    // Relay:
+
+    @Test
+    public void client_withRequests_relaysBytesBetweenClientAndDevice() throws Exception {
+        try (Socket client = connectClient()) {
+            assertEquals("_WR_\r\n", request(client, "USB\r\n"));
+            assertEquals("IV40210\r\n", request(client, "IV?\r\n"));
+            assertTrue(bridge.isClientConnected());
+        }
+    }
+
+    @Test
+    public void client_withSecondClient_rejectsSecondClient() throws Exception {
+        try (Socket client = connectClient(); Socket second = connectClient()) {
+            assertEquals("_WR_\r\n", request(client, "USB\r\n"));
+
+            assertEquals(-1, second.getInputStream().read());
+            assertEquals("IV40210\r\n", request(client, "IV?\r\n"));
+        }
+    }
+
+    @Test
+    public void client_afterDisconnect_acceptsNextClient() throws Exception {
+        try (Socket client = connectClient()) {
+            assertEquals("_WR_\r\n", request(client, "USB\r\n"));
+        }
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (bridge.isClientConnected() && (System.currentTimeMillis() < deadline))
+            Thread.sleep(10);
+        assertFalse(bridge.isClientConnected());
+
+        try (Socket client = connectClient()) {
+            assertEquals("_WR_\r\n", request(client, "USB\r\n"));
+        }
+    }
+
+    @Test
+    public void client_withUnavailableDevice_disconnectsClient() throws Exception {
+        bridge.stop();
+        bridge = new TcpSerialBridge(new InetSocketAddress(4001), EmulatorChannel::new, new InetSocketAddress(getLoopbackAddress(), 0));
+        bridge.start();
+
+        try (Socket client = connectClient()) {
+            assertEquals(-1, client.getInputStream().read());
+        }
+    }
+
+
+    /* Connects a client to the bridge. */
+    private Socket connectClient() throws IOException {
+        Socket client = new Socket(getLoopbackAddress(), bridge.getLocalAddress().getPort());
+        client.setSoTimeout(TIMEOUT);
+        return client;
+    }
+
+    /* Sends the request to the bridge and returns the answer (one line). */
+    private String request(Socket client, String request) throws IOException {
+        client.getOutputStream().write(request.getBytes(US_ASCII));
+        client.getOutputStream().flush();
+
+        InputStream in = client.getInputStream();
+        StringBuilder answer = new StringBuilder();
+        int b;
+        while ((b = in.read()) >= 0) {
+            answer.append((char) b);
+            if (b == '\n')
+                break;
+        }
+        return answer.toString();
+    }
+
+}
@@ -1,16 +1,21 @@
 package de.tbressler.waterrower.io.codec;
 
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
 import de.tbressler.waterrower.io.msg.out.StartCommunicationMessage;
+import de.tbressler.waterrower.io.trace.WireTrace;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static de.tbressler.waterrower.io.msg.Memory.DOUBLE_MEMORY;
+import static de.tbressler.waterrower.io.trace.WireTrace.Direction.OUTBOUND;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 /**
  * Tests for class MessageFrameEncoder.
@@ -26,6 +31,7 @@ public class TestMessageFrameEncoder {
     // Mocks:
     private MessageParser parser = mock(MessageParser.class, "parser");
     private ChannelHandlerContext ctx = mock(ChannelHandlerContext.class, "ctx");
+    private WireTrace wireTrace = mock(WireTrace.class, "wireTrace");
 
 
     @BeforeEach
@@ -57,7 +63,10 @@ public class TestMessageFrameEncoder {
      */
     @Test
     public void encode_withValidStartCommunicationMessage_returnsCorrectBytes() throws Exception {
-        when(parser.encode(any(StartCommunicationMessage.class))).thenReturn("USB".getBytes());
+        when(parser.encode(any(StartCommunicationMessage.class), any(ByteBuf.class))).thenAnswer(invocation -> {
+            invocation.<ByteBuf>getArgument(1).writeBytes("USB".getBytes());
+            return true;
+        });
 
         ByteBuf out = Unpooled.buffer();
         messageFrameEncoder.encode(ctx, new StartCommunicationMessage(), out);
@@ -70,7 +79,7 @@ public class TestMessageFrameEncoder {
      */
     @Test
     public void encode_whenMessageCantBeParsed_dontWriteToBuffer() throws Exception {
-        when(parser.encode(any(StartCommunicationMessage.class))).thenReturn(null);
+        when(parser.encode(any(StartCommunicationMessage.class), any(ByteBuf.class))).thenReturn(false);
 
         ByteBuf out = Unpooled.buffer();
         messageFrameEncoder.encode(ctx, new StartCommunicationMessage(), out);
@@ -78,4 +87,52 @@ public class TestMessageFrameEncoder {
         assertFalse(new String(out.array()).contains("\r\n"));
     }
 
+    /**
+     * Checks if the pre-encoded frame of the parser is written for a read memory message.
+     */
+    @Test
+    public void encode_withReadMemoryMessage_writesPreEncodedFrame() throws Exception {
+        ReadMemoryMessage msg = ReadMemoryMessage.of(DOUBLE_MEMORY, 0x1A9);
+        when(parser.encodeFrame(msg)).thenReturn(Unpooled.copiedBuffer("IRD1A9\r\n", UTF_8));
+
+        ByteBuf out = Unpooled.buffer();
+        messageFrameEncoder.encode(ctx, msg, out);
+
+        assertEquals("IRD1A9\r\n", out.toString(UTF_8));
+        verify(parser, never()).encode(any(), any());
+    }
+
+    /**
+     * Checks if the encoded frame is recorded (without delimiter) in the wire trace.
+     */
+    @Test
+    public void encode_withWireTrace_recordsFrame() throws Exception {
+        messageFrameEncoder = new MessageFrameEncoder(parser, wireTrace);
+        when(parser.encode(any(StartCommunicationMessage.class), any(ByteBuf.class))).thenAnswer(invocation -> {
+            invocation.<ByteBuf>getArgument(1).writeBytes("USB".getBytes());
+            return true;
+        });
+
+        ByteBuf out = Unpooled.buffer();
+        out.writeBytes("IRD1A9\r\n".getBytes());
+        messageFrameEncoder.encode(ctx, new StartCommunicationMessage(), out);
+
+        verify(wireTrace, times(1)).record(eq(OUTBOUND), eq(out), eq(8), eq(3));
+    }
+
+    /**
+     * Checks if the pre-encoded frame is recorded (without delimiter) in the wire trace.
+     */
+    @Test
+    public void encode_withWireTraceAndReadMemoryMessage_recordsPreEncodedFrame() throws Exception {
+        messageFrameEncoder = new MessageFrameEncoder(parser, wireTrace);
+        ReadMemoryMessage msg = ReadMemoryMessage.of(DOUBLE_MEMORY, 0x1A9);
+        when(parser.encodeFrame(msg)).thenReturn(Unpooled.copiedBuffer("IRD1A9\r\n", UTF_8));
+
+        ByteBuf out = Unpooled.buffer();
+        messageFrameEncoder.encode(ctx, msg, out);
+
+        verify(wireTrace, times(1)).record(eq(OUTBOUND), eq(out), eq(0), eq(6));
+    }
+
 }
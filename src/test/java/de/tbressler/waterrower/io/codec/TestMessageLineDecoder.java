@@ -0,0 +1,244 @@
+package de.tbressler.waterrower.io.codec;
+
+import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.trace.WireTrace;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.TooLongFrameException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static de.tbressler.waterrower.io.trace.WireTrace.Direction.INBOUND;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for class MessageLineDecoder.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestMessageLineDecoder {
+
+    /* Class under test. */
+    private EmbeddedChannel channel;
+
+    // Mocks:
+    private MessageParser parser = mock(MessageParser.class, "parser");
+
+    private AbstractMessage message1 = new AbstractMessage();
+    private AbstractMessage message2 = new AbstractMessage();
+
+    private WireTrace wireTrace = mock(WireTrace.class, "wireTrace");
+
+    /* The receive times, which were passed to the parser (by message). */
+    private final Map<String, Long> receivedNanos = new HashMap<>();
+
+
+    @BeforeEach
+    public void setUp() {
+        mockDecode("MESSAGE1", message1);
+        mockDecode("MESSAGE2", message2);
+
+        channel = new EmbeddedChannel(new MessageLineDecoder(parser, 10));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+
+    // Constructor:
+
+    @Test
+    public void new_withNullParser_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new MessageLineDecoder(null, 10));
+    }
+
+    @Test
+    public void new_withMaxFrameLength0_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new MessageLineDecoder(parser, 0));
+    }
+
+    // Decode:
+
+    @Test
+    public void decode_withCrLfTerminatedLine_outputsMessage() {
+        channel.writeInbound(newBuffer("MESSAGE1\r\n"));
+
+        assertSame(message1, channel.readInbound());
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void decode_withLfTerminatedLine_outputsMessage() {
+        channel.writeInbound(newBuffer("MESSAGE1\n"));
+
+        assertSame(message1, channel.readInbound());
+    }
+
+    @Test
+    public void decode_withTwoLinesInOneBuffer_outputsMessagesInOrder() {
+        channel.writeInbound(newBuffer("MESSAGE1\r\nMESSAGE2\r\n"));
+
+        assertSame(message1, channel.readInbound());
+        assertSame(message2, channel.readInbound());
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void decode_withLineSplitIntoParts_outputsMessageWhenLineIsComplete() {
+        channel.writeInbound(newBuffer("MESS"));
+        assertNull(channel.readInbound());
+
+        channel.writeInbound(newBuffer("AGE1\r"));
+        assertNull(channel.readInbound());
+
+        channel.writeInbound(newBuffer("\nMESSAGE2\r\n"));
+        assertSame(message1, channel.readInbound());
+        assertSame(message2, channel.readInbound());
+    }
+
+    @Test
+    public void decode_withEmptyLine_doesntDecodeLine() {
+        channel.writeInbound(newBuffer("\r\nMESSAGE1\r\n"));
+
+        assertSame(message1, channel.readInbound());
+        verify(parser, times(1)).decode(any(ByteBuf.class), anyLong());
+    }
+
+    @Test
+    public void decode_whenDecodeFails_skipsLine() {
+        channel.writeInbound(newBuffer("UNKNOWN\r\nMESSAGE1\r\n"));
+
+        assertSame(message1, channel.readInbound());
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void decode_withTooLongLine_throwsExceptionAndDecodesNextLines() {
+        DecoderException exception = assertThrows(DecoderException.class, () -> channel.writeInbound(newBuffer("MESSAGE1MESSAGE1\r\nMESSAGE2\r\n")));
+        assertTrue(exception instanceof TooLongFrameException);
+
+        channel.writeInbound(newBuffer("MESSAGE1\r\n"));
+        assertSame(message2, channel.readInbound());
+        assertSame(message1, channel.readInbound());
+    }
+
+    @Test
+    public void decode_withTooLongIncompleteLine_discardsLineUntilDelimiter() {
+        assertThrows(TooLongFrameException.class, () -> channel.writeInbound(newBuffer("MESSAGE1MESSAGE1")));
+
+        channel.writeInbound(newBuffer("MESSAGE1\r\nMESSAGE2\r\n"));
+
+        assertSame(message2, channel.readInbound());
+        assertNull(channel.readInbound());
+    }
+
+    // Wire trace:
+
+    @Test
+    public void decode_withWireTrace_recordsFrameWithoutDelimiter() {
+        EmbeddedChannel tracedChannel = new EmbeddedChannel(new MessageLineDecoder(parser, 10, wireTrace));
+        doAnswer(invocation -> {
+            ByteBuf buffer = invocation.getArgument(1);
+            assertEquals("MESSAGE1", buffer.toString(invocation.getArgument(2), invocation.getArgument(3), US_ASCII));
+            return null;
+        }).when(wireTrace).record(eq(INBOUND), any(), anyInt(), anyInt(), anyLong());
+
+        tracedChannel.writeInbound(newBuffer("MESSAGE1\r\n"));
+
+        verify(wireTrace, times(1)).record(eq(INBOUND), any(), anyInt(), eq(8), anyLong());
+        assertSame(message1, tracedChannel.readInbound());
+        tracedChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void decode_withWireTraceAndEmptyLine_recordsNothing() {
+        EmbeddedChannel tracedChannel = new EmbeddedChannel(new MessageLineDecoder(parser, 10, wireTrace));
+
+        tracedChannel.writeInbound(newBuffer("\r\n"));
+
+        verify(wireTrace, never()).record(any(), any(), anyInt(), anyInt(), anyLong());
+        tracedChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void decode_withWireTrace_recordsReceiveTimeOfMessage() {
+        EmbeddedChannel tracedChannel = new EmbeddedChannel(new MessageLineDecoder(parser, 10, wireTrace));
+
+        tracedChannel.writeInbound(newBuffer("MESSAGE1\r\n"));
+
+        ArgumentCaptor<Long> recorded = ArgumentCaptor.forClass(Long.class);
+        verify(wireTrace, times(1)).record(eq(INBOUND), any(), anyInt(), eq(8), recorded.capture());
+        assertEquals(recorded.getValue(), captureReceivedNanos("MESSAGE1"));
+        tracedChannel.finishAndReleaseAll();
+    }
+
+    // Receive time:
+
+    @Test
+    public void decode_withLine_decodesWithReceiveTimeOfRead() {
+        long before = System.nanoTime();
+        channel.writeInbound(newBuffer("MESSAGE1\r\n"));
+        long after = System.nanoTime();
+
+        long receivedNanos = captureReceivedNanos("MESSAGE1");
+        assertTrue(receivedNanos - before >= 0);
+        assertTrue(after - receivedNanos >= 0);
+    }
+
+    @Test
+    public void decode_withTwoLinesInOneRead_decodesWithSameReceiveTime() {
+        channel.writeInbound(newBuffer("MESSAGE1\r\nMESSAGE2\r\n"));
+
+        assertEquals(captureReceivedNanos("MESSAGE1"), captureReceivedNanos("MESSAGE2"));
+    }
+
+    @Test
+    public void decode_withLineInTwoReads_decodesWithReceiveTimeOfSecondRead() throws Exception {
+        channel.writeInbound(newBuffer("MESS"));
+        Thread.sleep(2);
+        long before = System.nanoTime();
+        channel.writeInbound(newBuffer("AGE1\r\n"));
+
+        assertTrue(captureReceivedNanos("MESSAGE1") - before >= 0);
+    }
+
+
+    // Helper methods:
+
+    private void mockDecode(String message, AbstractMessage decodedMessage) {
+        when(parser.decode(bufferEq(message), anyLong())).thenAnswer(invocation -> {
+            receivedNanos.put(message, invocation.getArgument(1));
+            return decodedMessage;
+        });
+    }
+
+    private long captureReceivedNanos(String message) {
+        assertTrue(receivedNanos.containsKey(message));
+        return receivedNanos.get(message);
+    }
+
+    private ByteBuf newBuffer(String content) {
+        return wrappedBuffer(content.getBytes(US_ASCII));
+    }
+
+    private ByteBuf bufferEq(String message) {
+        return argThat(buffer -> (buffer != null) && buffer.toString(US_ASCII).equals(message));
+    }
+
+}
@@ -2,8 +2,9 @@ package de.tbressler.waterrower.io.codec;
 
 import de.tbressler.waterrower.io.msg.AbstractMessage;
 import de.tbressler.waterrower.io.msg.IMessageInterpreter;
-import de.tbressler.waterrower.io.msg.in.AcknowledgeMessage;
-import de.tbressler.waterrower.io.msg.in.DecodeErrorMessage;
+import de.tbressler.waterrower.io.msg.in.*;
+import de.tbressler.waterrower.io.msg.out.*;
+import io.netty.buffer.ByteBuf;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -11,9 +12,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static com.google.common.base.Charsets.UTF_8;
+import static de.tbressler.waterrower.io.msg.Memory.DOUBLE_MEMORY;
+import static de.tbressler.waterrower.io.msg.Memory.TRIPLE_MEMORY;
+import static de.tbressler.waterrower.io.msg.out.ConfigureWorkoutMessage.MessageType.SINGLE_WORKOUT;
+import static de.tbressler.waterrower.workout.WorkoutUnit.METERS;
+import static io.netty.buffer.Unpooled.buffer;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 /**
  * Tests for class MessageParser.
@@ -65,6 +71,7 @@ public class TestMessageParser {
 
         mockInterpreter(interpreter1, "T", "TEST", message);
         mockInterpreter(interpreter2, "X", "TEST", null);
+        parser = new MessageParser(interpreters);
 
         AbstractMessage result = parser.decode(newBytes("TEST"));
 
@@ -76,6 +83,7 @@ public class TestMessageParser {
 
         mockInterpreter(interpreter1, "T", "XYZ", null);
         mockInterpreter(interpreter2, "X", "XYZ", message);
+        parser = new MessageParser(interpreters);
 
         AbstractMessage result = parser.decode(newBytes("XYZ"));
 
@@ -87,6 +95,7 @@ public class TestMessageParser {
 
         mockInterpreter(interpreter1, null, "XYZ", null);
         mockInterpreter(interpreter2, "X", "XYZ", message);
+        parser = new MessageParser(interpreters);
 
         AbstractMessage result = parser.decode(newBytes("XYZ"));
 
@@ -98,6 +107,7 @@ public class TestMessageParser {
 
         mockInterpreter(interpreter1, "Y", "TEST", null);
         mockInterpreter(interpreter2, "X", "TEST", null);
+        parser = new MessageParser(interpreters);
 
         AbstractMessage result = parser.decode(newBytes("XYZ"));
 
@@ -108,6 +118,105 @@ public class TestMessageParser {
         assertEquals("XYZ", errorMessage.getMessage());
     }
 
+    @Test
+    public void decode_withBufferAndSuccessfulInterpreter2_returnsMessageAndKeepsReaderIndex() {
+
+        mockInterpreter(interpreter1, "T", "XYZ", null);
+        mockInterpreter(interpreter2, "X", "XYZ", message);
+        parser = new MessageParser(interpreters);
+
+        ByteBuf buffer = wrappedBuffer(newBytes("XYZ"));
+
+        AbstractMessage result = parser.decode(buffer);
+
+        assertEquals(message, result);
+        assertEquals(0, buffer.readerIndex());
+    }
+
+    @Test
+    public void decode_withBufferAndReaderIndex1_matchesIdentifierAtReaderIndex() {
+
+        mockInterpreter(interpreter1, "T", "XYZ", null);
+        mockInterpreter(interpreter2, "X", "XYZ", message);
+        parser = new MessageParser(interpreters);
+
+        ByteBuf buffer = wrappedBuffer(newBytes("TXYZ"));
+        buffer.readByte();
+
+        AbstractMessage result = parser.decode(buffer);
+
+        assertEquals(message, result);
+    }
+
+    @Test
+    public void decode_withDifferentFirstByte_doesntAskInterpreter() {
+
+        mockInterpreter(interpreter1, "T", "XYZ", message);
+        mockInterpreter(interpreter2, "X", "XYZ", message);
+        parser = new MessageParser(interpreters);
+
+        parser.decode(newBytes("XYZ"));
+
+        verify(interpreter1, never()).decode(any(ByteBuf.class));
+    }
+
+    @Test
+    public void decode_withInterpreterWithEmptyIdentifier_asksInterpreterForAllMessages() {
+
+        mockInterpreter(interpreter1, "", "XYZ", message);
+        mockInterpreter(interpreter2, "X", "XYZ", null);
+        parser = new MessageParser(interpreters);
+
+        AbstractMessage result = parser.decode(newBytes("XYZ"));
+
+        assertEquals(message, result);
+    }
+
+    @Test
+    public void decode_withDefaultInterpreters_returnsMessagesOfAllIncomingTypes() {
+        parser = new MessageParser();
+
+        assertTrue(parser.decode(newBytes("IDS00101")) instanceof DataMemoryMessage);
+        assertTrue(parser.decode(newBytes("IDD0010102")) instanceof DataMemoryMessage);
+        assertTrue(parser.decode(newBytes("IDT001010203")) instanceof DataMemoryMessage);
+        assertTrue(parser.decode(newBytes("IV40210")) instanceof ModelInformationMessage);
+        assertTrue(parser.decode(newBytes("P0A")) instanceof PulseCountMessage);
+        assertTrue(parser.decode(newBytes("PING")) instanceof PingMessage);
+        assertTrue(parser.decode(newBytes("SS")) instanceof StrokeMessage);
+        assertTrue(parser.decode(newBytes("SE")) instanceof StrokeMessage);
+        assertTrue(parser.decode(newBytes("OK")) instanceof AcknowledgeMessage);
+        assertTrue(parser.decode(newBytes("ERROR")) instanceof ErrorMessage);
+        assertTrue(parser.decode(newBytes("_WR_")) instanceof HardwareTypeMessage);
+        assertTrue(parser.decode(newBytes("XYZ")) instanceof DecodeErrorMessage);
+        assertTrue(parser.decode(newBytes("")) instanceof DecodeErrorMessage);
+    }
+
+    @Test
+    public void decode_withReceiveTime_setsReceiveTimeOfMessage() {
+        parser = new MessageParser();
+
+        AbstractMessage result = parser.decode(wrappedBuffer(newBytes("SS")), 1234L);
+
+        assertEquals(1234L, result.getReceivedNanos());
+    }
+
+    @Test
+    public void decode_withReceiveTimeAndUnknownMessage_setsReceiveTimeOfDecodeErrorMessage() {
+        parser = new MessageParser();
+
+        AbstractMessage result = parser.decode(wrappedBuffer(newBytes("XYZ")), 1234L);
+
+        assertTrue(result instanceof DecodeErrorMessage);
+        assertEquals(1234L, result.getReceivedNanos());
+    }
+
+    @Test
+    public void decode_withoutReceiveTime_returnsNotReceivedMessage() {
+        parser = new MessageParser();
+
+        assertFalse(parser.decode(newBytes("SS")).isReceived());
+    }
+
     // Encoder:
 
     @Test
@@ -140,21 +249,142 @@ public class TestMessageParser {
         assertNull(result);
     }
 
+    @Test
+    public void encode_withSameMessageTypeTwice_checksInterpretersOnlyOnce() {
+        mockInterpreter(interpreter1, false, message, null);
+        mockInterpreter(interpreter2, true, message, "TEST");
+
+        parser.encode(message);
+        byte[] result = parser.encode(message);
+
+        assertArrayEquals("TEST".getBytes(UTF_8), result);
+        verify(interpreter1, times(1)).isSupported(message);
+        verify(interpreter2, times(1)).isSupported(message);
+    }
+
+    @Test
+    public void encode_withDefaultInterpreters_returnsBytesOfAllOutgoingTypes() {
+        parser = new MessageParser();
+
+        assertArrayEquals(newBytes("IRD001"), parser.encode(new ReadMemoryMessage(DOUBLE_MEMORY, 0x001)));
+        assertArrayEquals(newBytes("IV?"), parser.encode(new RequestModelInformationMessage()));
+        assertArrayEquals(newBytes("USB"), parser.encode(new StartCommunicationMessage()));
+        assertArrayEquals(newBytes("EXIT"), parser.encode(new ExitCommunicationMessage()));
+        assertArrayEquals(newBytes("RESET"), parser.encode(new ResetMessage()));
+    }
+
+    @Test
+    public void encode_withBuffer_writesBytesToBuffer() {
+        mockInterpreter(interpreter1, true, message, "TEST");
+
+        ByteBuf out = buffer();
+        out.writeByte('X');
+
+        assertTrue(parser.encode(message, out));
+        assertEquals("XTEST", out.toString(UTF_8));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void encode_withBufferAndFailingInterpreter_discardsBytesOfInterpreter() {
+        mockInterpreter(interpreter1, true, message, null);
+        mockInterpreter(interpreter2, true, message, "TEST");
+        doAnswer(invocation -> {
+            invocation.<ByteBuf>getArgument(1).writeByte('Y');
+            return false;
+        }).when(interpreter1).encode(eq(message), any(ByteBuf.class));
+
+        ByteBuf out = buffer();
+
+        assertTrue(parser.encode(message, out));
+        assertEquals("TEST", out.toString(UTF_8));
+    }
+
+    @Test
+    public void encode_withBufferAndUnsupportedMessageType_returnsFalse() {
+        mockInterpreter(interpreter1, false, message, null);
+        mockInterpreter(interpreter2, false, message, null);
+
+        ByteBuf out = buffer();
+
+        assertFalse(parser.encode(message, out));
+        assertFalse(out.isReadable());
+    }
+
+    @Test
+    public void encode_withBufferAndDefaultInterpreters_writesBytesOfAllOutgoingTypes() {
+        parser = new MessageParser();
+
+        assertEquals("IRT1A9", encodeToString(new ReadMemoryMessage(TRIPLE_MEMORY, 0x1A9)));
+        assertEquals("IV?", encodeToString(new RequestModelInformationMessage()));
+        assertEquals("USB", encodeToString(new StartCommunicationMessage()));
+        assertEquals("EXIT", encodeToString(new ExitCommunicationMessage()));
+        assertEquals("RESET", encodeToString(new ResetMessage()));
+        assertEquals("WSI107D0", encodeToString(new ConfigureWorkoutMessage(SINGLE_WORKOUT, 2000, METERS)));
+    }
+
+    // Encode frame:
+
+    @Test
+    public void encodeFrame_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> parser.encodeFrame(null));
+    }
+
+    @Test
+    public void encodeFrame_withReadMemoryMessage_returnsBytesWithDelimiter() {
+        parser = new MessageParser();
+
+        ByteBuf frame = parser.encodeFrame(ReadMemoryMessage.of(DOUBLE_MEMORY, 0x1A9));
+
+        assertEquals("IRD1A9\r\n", frame.toString(UTF_8));
+        assertTrue(frame.isReadOnly());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void encodeFrame_calledTwice_encodesMessageOnlyOnce() {
+        ReadMemoryMessage read = ReadMemoryMessage.of(DOUBLE_MEMORY, 0x1A9);
+        mockInterpreter(interpreter1, true, read, "IRD1A9");
+
+        ByteBuf frame1 = parser.encodeFrame(read);
+        ByteBuf frame2 = parser.encodeFrame(read);
+
+        assertSame(frame1, frame2);
+        verify(interpreter1, times(1)).encode(read);
+    }
+
+    @Test
+    public void encodeFrame_whenMessageCantBeEncoded_returnsNull() {
+        assertNull(parser.encodeFrame(ReadMemoryMessage.of(DOUBLE_MEMORY, 0x1A9)));
+    }
+
     // Helper methods:
 
     private byte[] newBytes(String content) {
         return content.getBytes(UTF_8);
     }
 
+    private String encodeToString(AbstractMessage msg) {
+        ByteBuf out = buffer();
+        assertTrue(parser.encode(msg, out));
+        return out.toString(UTF_8);
+    }
+
     private void mockInterpreter(IMessageInterpreter interpreter, String identifier, String decodeMsg, AbstractMessage msg) {
         when(interpreter.getMessageIdentifier()).thenReturn(identifier);
-        when(interpreter.decode(decodeMsg)).thenReturn(msg);
+        when(interpreter.decode(bufferEq(decodeMsg))).thenReturn(msg);
+        when(interpreter.decode(any(ByteBuf.class), anyLong())).thenCallRealMethod();
+    }
+
+    private ByteBuf bufferEq(String message) {
+        return argThat(buffer -> (buffer != null) && buffer.toString(UTF_8).equals(message));
     }
 
     @SuppressWarnings("unchecked")
     private void mockInterpreter(IMessageInterpreter interpreter, boolean isSupported, AbstractMessage encodeMsg, String msg) {
         when(interpreter.isSupported(encodeMsg)).thenReturn(isSupported);
         when(interpreter.encode(encodeMsg)).thenReturn(msg);
+        when(interpreter.encode(eq(encodeMsg), any(ByteBuf.class))).thenCallRealMethod();
     }
 
 }
\ No newline at end of file
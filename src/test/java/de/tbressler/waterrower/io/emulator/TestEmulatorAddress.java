@@ -0,0 +1,53 @@
+package de.tbressler.waterrower.io.emulator;
+
+import org.junit.jupiter.api.Test;
+
+import static de.tbressler.waterrower.model.MonitorType.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for class EmulatorAddress.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestEmulatorAddress {
+
+    @Test
+    public void new_withNullName_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new EmulatorAddress(null));
+    }
+
+    @Test
+    public void new_withNullMonitorType_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new EmulatorAddress("rower", null, 24, 4));
+    }
+
+    @Test
+    public void new_withUnknownMonitorType_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new EmulatorAddress("rower", UNKNOWN_MONITOR_TYPE, 24, 4));
+    }
+
+    @Test
+    public void new_withInvalidStrokeRate_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new EmulatorAddress("rower", WATER_ROWER_S4, 61, 4));
+    }
+
+    @Test
+    public void new_withInvalidVelocity_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new EmulatorAddress("rower", WATER_ROWER_S4, 24, -1));
+    }
+
+    @Test
+    public void new_withName_returnsDefaults() {
+        EmulatorAddress address = new EmulatorAddress("rower");
+
+        assertEquals("rower", address.getName());
+        assertEquals(WATER_ROWER_S4, address.getMonitorType());
+        assertEquals(24, address.getStrokeRate());
+        assertEquals(4, address.getVelocity());
+        assertEquals("emulator(rower)", address.toString());
+    }
+
+}
@@ -0,0 +1,307 @@
+package de.tbressler.waterrower.io.emulator;
+
+import de.tbressler.waterrower.IWaterRowerConnectionListener;
+import de.tbressler.waterrower.WaterRower;
+import de.tbressler.waterrower.WaterRowerInitializer;
+import de.tbressler.waterrower.WaterRowerRuntime;
+import de.tbressler.waterrower.model.ErrorCode;
+import de.tbressler.waterrower.model.ModelInformation;
+import de.tbressler.waterrower.subscriptions.values.DistanceSubscription;
+import de.tbressler.waterrower.subscriptions.values.StrokeCountSubscription;
+import de.tbressler.waterrower.workout.Workout;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioIoHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static de.tbressler.waterrower.model.MonitorType.WATER_ROWER_S4;
+import static de.tbressler.waterrower.model.MonitorType.WATER_ROWER_S5;
+import static de.tbressler.waterrower.workout.WorkoutUnit.METERS;
+import static io.netty.buffer.Unpooled.copiedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class EmulatorChannel.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestEmulatorChannel {
+
+    /* An emulator, which doesn't row. */
+    private final EmulatorAddress idle = new EmulatorAddress("idle", WATER_ROWER_S4, 0, 0);
+
+    /* The event loop group of the channels. */
+    private EventLoopGroup eventLoopGroup;
+
+    /* The received frames. */
+    private final LinkedBlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+
+    @BeforeEach
+    public void setUp() {
+        eventLoopGroup = new MultiThreadIoEventLoopGroup(1, NioIoHandler.newFactory());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        eventLoopGroup.shutdownGracefully(0, 1, SECONDS).syncUninterruptibly();
+    }
+
+
+    // Connect:
+
+    @Test
+    public void connect_withOtherAddress_fails() {
+        ChannelFuture future = bootstrap().connect(new InetSocketAddress(1234)).awaitUninterruptibly();
+        assertFalse(future.isSuccess());
+    }
+
+    @Test
+    public void connect_withEmulatorAddress_activatesChannel() {
+        Channel channel = connect(idle);
+
+        assertTrue(channel.isActive());
+        assertSame(idle, channel.remoteAddress());
+    }
+
+    @Test
+    public void connect_withoutStartCommunication_sendsNothing() throws Exception {
+        connect(new EmulatorAddress("rower", WATER_ROWER_S4, 60, 4));
+        assertNull(received.poll(200, MILLISECONDS));
+    }
+
+    // Requests:
+
+    @Test
+    public void write_withStartCommunication_answersHardwareType() throws Exception {
+        Channel channel = connect(idle);
+
+        channel.writeAndFlush(copiedBuffer("USB\r\n", US_ASCII));
+
+        assertEquals("_WR_", poll());
+    }
+
+    @Test
+    public void write_withRequestOfModelInformation_answersModelInformation() throws Exception {
+        Channel channel = connect(new EmulatorAddress("rower", WATER_ROWER_S5, 0, 0));
+
+        channel.writeAndFlush(copiedBuffer("USB\r\nIV?\r\n", US_ASCII));
+
+        assertEquals("_WR_", poll());
+        assertEquals("IV50210", poll());
+    }
+
+    @Test
+    public void write_withReadMemory_answersFromMemory() throws Exception {
+        Channel channel = startCommunication(idle);
+
+        // Tank volume 17.0 liters (0xAA) and the flag "PC connected" (0x08):
+        channel.writeAndFlush(copiedBuffer("IRS0A9\r\nIRD0A8\r\nIRT047\r\n", US_ASCII));
+
+        assertEquals("IDS0A9AA", poll());
+        assertEquals("IDD0A8AA00", poll());
+        assertEquals("IDT047080000", poll());
+    }
+
+    @Test
+    public void write_withReadMemoryOfInvalidLocation_answersError() throws Exception {
+        Channel channel = startCommunication(idle);
+
+        channel.writeAndFlush(copiedBuffer("IRSXYZ\r\nIRTFFF\r\nIRX000\r\n", US_ASCII));
+
+        assertEquals("ERROR", poll());
+        assertEquals("ERROR", poll());
+        assertEquals("ERROR", poll());
+    }
+
+    @Test
+    public void write_withWorkout_answersAcknowledgeAndWritesMemory() throws Exception {
+        Channel channel = startCommunication(idle);
+
+        channel.writeAndFlush(copiedBuffer("WSI107D0\r\nIRD1EE\r\n", US_ASCII));
+
+        assertEquals("OK", poll());
+        assertEquals("IDD1EE07D0", poll());
+    }
+
+    @Test
+    public void write_withIntervalWorkout_answersAcknowledge() throws Exception {
+        Channel channel = startCommunication(idle);
+
+        channel.writeAndFlush(copiedBuffer("WIU0258\r\nWIN003C0258\r\nWINFFFFFFFF\r\nIRS1D9\r\n", US_ASCII));
+
+        assertEquals("OK", poll());
+        assertEquals("OK", poll());
+        assertEquals("OK", poll());
+        assertEquals("IDS1D902", poll());
+    }
+
+    @Test
+    public void write_withInvalidWorkout_answersError() throws Exception {
+        Channel channel = startCommunication(idle);
+
+        channel.writeAndFlush(copiedBuffer("WIN003C0258\r\nWSI5000A\r\n", US_ASCII));
+
+        assertEquals("ERROR", poll());
+        assertEquals("ERROR", poll());
+    }
+
+    @Test
+    public void write_withReset_answersAcknowledge() throws Exception {
+        Channel channel = startCommunication(idle);
+
+        channel.writeAndFlush(copiedBuffer("RESET\r\n", US_ASCII));
+
+        assertEquals("OK", poll());
+    }
+
+    @Test
+    public void write_withUnknownRequest_answersError() throws Exception {
+        Channel channel = startCommunication(idle);
+
+        channel.writeAndFlush(copiedBuffer("FOO\r\n", US_ASCII));
+
+        assertEquals("ERROR", poll());
+    }
+
+    @Test
+    public void write_withExitCommunication_stopsCommunication() throws Exception {
+        Channel channel = startCommunication(new EmulatorAddress("rower", WATER_ROWER_S4, 60, 4));
+
+        channel.writeAndFlush(copiedBuffer("EXIT\r\n", US_ASCII)).sync();
+        Thread.sleep(50);
+        received.clear();
+
+        assertNull(received.poll(200, MILLISECONDS));
+        assertTrue(channel.isActive());
+    }
+
+    // Rowing:
+
+    @Test
+    public void tick_withRowingModel_sendsStrokesAndPulses() throws Exception {
+        startCommunication(new EmulatorAddress("rower", WATER_ROWER_S4, 60, 4));
+
+        assertEquals("SS", poll());
+        assertTrue(poll().startsWith("P"));
+    }
+
+    @Test
+    public void tick_afterStartCommunication_sendsPingEverySecond() throws Exception {
+        startCommunication(idle);
+
+        assertEquals("PING", received.poll(2, SECONDS));
+    }
+
+    // Live WaterRower:
+
+    @Test
+    public void emulator_withWaterRower_notifiesSubscriptions() throws Exception {
+        WaterRowerRuntime runtime = new WaterRowerRuntime();
+        try {
+            WaterRower waterRower = new WaterRower(new WaterRowerInitializer(runtime, ofMillis(50), ofSeconds(5), EmulatorChannel::new));
+
+            AtomicReference<ModelInformation> connected = new AtomicReference<>();
+            AtomicReference<ErrorCode> error = new AtomicReference<>();
+            waterRower.addConnectionListener(new IWaterRowerConnectionListener() {
+                @Override
+                public void onConnected(ModelInformation modelInformation) {
+                    connected.set(modelInformation);
+                }
+
+                @Override
+                public void onDisconnected() {}
+
+                @Override
+                public void onError(ErrorCode errorCode) {
+                    error.set(errorCode);
+                }
+            });
+
+            CountDownLatch strokes = new CountDownLatch(1);
+            CountDownLatch distance = new CountDownLatch(1);
+            waterRower.subscribe(new StrokeCountSubscription() {
+                @Override
+                protected void onStrokeCountUpdated(int strokeCount) {
+                    if (strokeCount > 0)
+                        strokes.countDown();
+                }
+            });
+            waterRower.subscribe(new DistanceSubscription() {
+                @Override
+                protected void onDistanceUpdated(double meters) {
+                    if (meters >= 1)
+                        distance.countDown();
+                }
+            });
+
+            waterRower.connect(new EmulatorAddress("rower", WATER_ROWER_S4, 60, 4));
+
+            assertTrue(strokes.await(5, SECONDS));
+            assertTrue(distance.await(5, SECONDS));
+            assertNotNull(connected.get());
+
+            waterRower.startWorkout(new Workout(500, METERS));
+            Thread.sleep(200);
+
+            waterRower.disconnect();
+            assertNull(error.get());
+        } finally {
+            runtime.shutdown();
+        }
+    }
+
+
+    /* Returns the bootstrap of an emulator channel, which collects the received frames. */
+    private Bootstrap bootstrap() {
+        return new Bootstrap()
+                .group(eventLoopGroup)
+                .channel(EmulatorChannel.class)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ByteBuf buffer = (ByteBuf) msg;
+                        for (String frame : buffer.toString(US_ASCII).split("\r\n"))
+                            received.add(frame);
+                        buffer.release();
+                    }
+                });
+    }
+
+    /* Connects an emulator channel with the given address. */
+    private Channel connect(EmulatorAddress address) {
+        return bootstrap().connect(address).syncUninterruptibly().channel();
+    }
+
+    /* Connects an emulator channel and starts the communication. */
+    private Channel startCommunication(EmulatorAddress address) throws Exception {
+        Channel channel = connect(address);
+        channel.writeAndFlush(copiedBuffer("USB\r\n", US_ASCII));
+        assertEquals("_WR_", poll());
+        return channel;
+    }
+
+    /* Returns the next received frame, which is not a ping. */
+    private String poll() throws InterruptedException {
+        String frame;
+        do {
+            frame = received.poll(5, SECONDS);
+        } while ("PING".equals(frame));
+        return frame;
+    }
+
+}
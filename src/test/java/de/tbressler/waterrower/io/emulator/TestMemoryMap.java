@@ -0,0 +1,78 @@
+package de.tbressler.waterrower.io.emulator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static de.tbressler.waterrower.model.MemoryLocation.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for class MemoryMap.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestMemoryMap {
+
+    // Class under test.
+    private MemoryMap memory;
+
+
+    @BeforeEach
+    public void setUp() {
+        memory = new MemoryMap();
+    }
+
+
+    @Test
+    public void read_withInvalidLocation_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> memory.read(-1));
+        assertThrows(IllegalArgumentException.class, () -> memory.read(0x1000));
+    }
+
+    @Test
+    public void read_withNullLocation_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> memory.read(null));
+    }
+
+    @Test
+    public void write_writesLowestByte() {
+        memory.write(TANK_VOLUME, 0x1AB);
+        assertEquals(0xAB, memory.read(TANK_VOLUME));
+        assertEquals(0xAB, memory.read(0x0a9));
+    }
+
+    @Test
+    public void write_withBytes_writesLowByteFirst() {
+        memory.write(TOTAL_KCAL_LOW, 0x123456, 3);
+
+        assertEquals(0x56, memory.read(TOTAL_KCAL_LOW));
+        assertEquals(0x34, memory.read(TOTAL_KCAL_HI));
+        assertEquals(0x12, memory.read(TOTAL_KCAL_UP));
+    }
+
+    @Test
+    public void write_with4Bytes_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> memory.write(TOTAL_KCAL_LOW, 1, 4));
+    }
+
+    @Test
+    public void writeDecimal_writesDigits() {
+        memory.writeDecimal(DISPLAY_SEC, 59);
+        assertEquals(0x59, memory.read(DISPLAY_SEC));
+    }
+
+    @Test
+    public void writeDecimal_with100_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> memory.writeDecimal(DISPLAY_SEC, 100));
+    }
+
+    @Test
+    public void clear_clearsAllLocations() {
+        memory.write(0xFFF, 1);
+        memory.clear();
+        assertEquals(0, memory.read(0xFFF));
+    }
+
+}
@@ -0,0 +1,211 @@
+package de.tbressler.waterrower.io.emulator;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static de.tbressler.waterrower.model.MemoryLocation.*;
+import static io.netty.buffer.Unpooled.buffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class RowingModel.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestRowingModel {
+
+    // Class under test.
+    private RowingModel model;
+
+    /* The memory of the model. */
+    private final MemoryMap memory = new MemoryMap();
+
+    /* The frames of the model. */
+    private final ByteBuf out = buffer();
+
+
+    @BeforeEach
+    public void setUp() {
+        // 30 strokes per minute = 80 ticks per stroke, pull = 26 ticks:
+        model = new RowingModel(memory, 30, 4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        out.release();
+    }
+
+
+    @Test
+    public void new_withNullMemory_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new RowingModel(null, 30, 4));
+    }
+
+    @Test
+    public void new_withInvalidStrokeRate_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new RowingModel(memory, 61, 4));
+        assertThrows(IllegalArgumentException.class, () -> new RowingModel(memory, -1, 4));
+    }
+
+    @Test
+    public void new_withInvalidVelocity_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new RowingModel(memory, 30, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new RowingModel(memory, 30, 11));
+    }
+
+    @Test
+    public void new_setsTankVolume() {
+        assertEquals(170, memory.read(TANK_VOLUME));
+    }
+
+    @Test
+    public void tick_firstTick_writesStrokeStartAndPulses() {
+        model.tick(out);
+
+        assertEquals("SS\r\nP1C\r\n", out.toString(US_ASCII));
+        assertEquals(1, model.getStrokes());
+    }
+
+    @Test
+    public void tick_endOfPull_writesStrokeEndWithoutPulses() {
+        tick(26);
+        out.clear();
+
+        model.tick(out);
+
+        assertEquals("SE\r\n", out.toString(US_ASCII));
+    }
+
+    @Test
+    public void tick_recovery_writesNothing() {
+        tick(27);
+        out.clear();
+
+        model.tick(out);
+
+        assertEquals(0, out.readableBytes());
+    }
+
+    @Test
+    public void tick_oneMinute_updatesMemory() {
+        tick(2400);
+
+        assertEquals(30, model.getStrokes());
+        assertEquals(240, model.getDistance(), 0.001);
+
+        assertEquals(240, memory.read(MS_DISTANCE_LOW) | (memory.read(MS_DISTANCE_HI) << 8));
+        assertEquals(240, memory.read(DISTANCE_LOW) | (memory.read(DISTANCE_HI) << 8));
+        assertEquals(240, memory.read(TOTAL_DIS_LOW) | (memory.read(TOTAL_DIS_HI) << 8));
+        assertEquals(30, memory.read(STROKES_CNT_LOW));
+        assertEquals(80, memory.read(STROKE_AVERAGE));
+        assertEquals(26, memory.read(STROKE_PULL));
+        assertEquals(400, memory.read(M_S_LOW_AVERAGE) | (memory.read(M_S_HI_AVERAGE) << 8));
+        assertEquals(179, memory.read(KCAL_WATTS_LOW));
+        assertTrue(memory.read(TOTAL_KCAL_LOW) > 0);
+
+        // Display clock 0:01:00.0:
+        assertEquals(0, memory.read(DISPLAY_SEC_DEC));
+        assertEquals(0x00, memory.read(DISPLAY_SEC));
+        assertEquals(0x01, memory.read(DISPLAY_MIN));
+        assertEquals(0x00, memory.read(DISPLAY_HR));
+    }
+
+    @Test
+    public void tick_withIdleModel_writesNothing() {
+        model = new RowingModel(memory, 0, 0);
+
+        model.tick(out);
+
+        assertFalse(model.isRowing());
+        assertEquals(0, out.readableBytes());
+        assertEquals(0, memory.read(KCAL_WATTS_LOW));
+    }
+
+    @Test
+    public void reset_resetsDistanceButKeepsTotalDistance() {
+        tick(2400);
+
+        model.reset();
+
+        assertEquals(0, model.getStrokes());
+        assertEquals(0, memory.read(MS_DISTANCE_LOW));
+        assertEquals(240, memory.read(TOTAL_DIS_LOW));
+        assertEquals(170, memory.read(TANK_VOLUME));
+    }
+
+    // Workouts:
+
+    @Test
+    public void startWorkout_withMeters_setsDistanceModeAndLimit() {
+        assertTrue(model.startWorkout('1', 2000));
+
+        assertEquals(1 << 4, memory.read(FEXTENDED));
+        assertEquals(2000, memory.read(WORKOUT_LIMIT_L) | (memory.read(WORKOUT_LIMIT_H) << 8));
+    }
+
+    @Test
+    public void startWorkout_withSeconds_setsDurationMode() {
+        assertTrue(model.startWorkout('U', 600));
+        assertEquals(1 << 5, memory.read(FEXTENDED));
+    }
+
+    @Test
+    public void startWorkout_withInvalidUnit_returnsFalse() {
+        assertFalse(model.startWorkout('5', 600));
+        assertEquals(0, memory.read(FEXTENDED));
+    }
+
+    @Test
+    public void tick_withWorkout_updatesProgressOfWorkout() {
+        tick(80);
+        model.startWorkout('4', 10);
+
+        tick(2400);
+
+        assertEquals(60, memory.read(WORKOUT_TIMEL));
+        assertEquals(240, memory.read(WORKOUT_MS_L));
+        assertEquals(30, memory.read(WORKOUT_STROKEL));
+    }
+
+    @Test
+    public void addInterval_withoutIntervalWorkout_returnsFalse() {
+        assertFalse(model.addInterval(60, 500));
+    }
+
+    @Test
+    public void addInterval_withIntervalWorkout_writesIntervals() {
+        assertTrue(model.startIntervalWorkout('1', 500));
+        assertTrue(model.addInterval(60, 1000));
+        assertTrue(model.addInterval(0xFFFF, 0xFFFF));
+
+        assertEquals(1 << 6, memory.read(FEXTENDED));
+        assertEquals(2, memory.read(WORKOUT_INTER));
+        assertEquals(500, memory.read(WORKOUT_WORK1_L) | (memory.read(WORKOUT_WORK1_H) << 8));
+        assertEquals(60, memory.read(WORKOUT_REST1_L));
+        assertEquals(1000, memory.read(WORKOUT_WORK2_L) | (memory.read(WORKOUT_WORK2_H) << 8));
+    }
+
+    @Test
+    public void addInterval_withMoreThan9Intervals_returnsFalse() {
+        model.startIntervalWorkout('U', 60);
+        for (int i = 0; i < 8; i++)
+            assertTrue(model.addInterval(30, 60));
+
+        assertFalse(model.addInterval(30, 60));
+        assertEquals(9, memory.read(WORKOUT_INTER));
+    }
+
+
+    /* Advances the model by the given number of ticks. */
+    private void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            model.tick(out);
+            out.clear();
+        }
+    }
+
+}
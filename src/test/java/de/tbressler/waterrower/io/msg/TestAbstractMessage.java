@@ -0,0 +1,61 @@
+package de.tbressler.waterrower.io.msg;
+
+import org.junit.jupiter.api.Test;
+
+import static de.tbressler.waterrower.io.msg.AbstractMessage.NOT_RECEIVED;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class AbstractMessage.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestAbstractMessage {
+
+    // Receive time:
+
+    @Test
+    public void new_returnsNotReceived() {
+        AbstractMessage msg = new AbstractMessage();
+
+        assertFalse(msg.isReceived());
+        assertEquals(NOT_RECEIVED, msg.getReceivedNanos());
+        assertEquals(NOT_RECEIVED, msg.getReceivedEpochMillis());
+    }
+
+    @Test
+    public void setReceivedNanos_returnsReceiveTime() {
+        AbstractMessage msg = new AbstractMessage();
+
+        msg.setReceivedNanos(1234L);
+
+        assertTrue(msg.isReceived());
+        assertEquals(1234L, msg.getReceivedNanos());
+    }
+
+    @Test
+    public void getReceivedEpochMillis_withCurrentTime_returnsWallClockTime() {
+        AbstractMessage msg = new AbstractMessage();
+        long before = System.currentTimeMillis();
+
+        msg.setReceivedNanos(System.nanoTime());
+
+        assertTrue(Math.abs(msg.getReceivedEpochMillis() - before) < 1000);
+    }
+
+    // Epoch millis:
+
+    @Test
+    public void toEpochMillis_withElapsedTime_returnsElapsedMillis() {
+        long now = System.nanoTime();
+
+        assertEquals(1500, AbstractMessage.toEpochMillis(now + 1_500_000_000L) - AbstractMessage.toEpochMillis(now), 1);
+    }
+
+    @Test
+    public void toEpochMillis_withNotReceived_returnsNotReceived() {
+        assertEquals(NOT_RECEIVED, AbstractMessage.toEpochMillis(NOT_RECEIVED));
+    }
+
+}
@@ -2,7 +2,11 @@ package de.tbressler.waterrower.io.msg.in;
 
 import org.junit.jupiter.api.Test;
 
+import static de.tbressler.waterrower.io.msg.AbstractMessage.NOT_RECEIVED;
+import static de.tbressler.waterrower.io.msg.Memory.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
 
 /**
  * Tests for class DataSingleMemoryMessage.
@@ -158,6 +162,65 @@ public class TestDataMemoryMessage {
     }
 
 
+    // Extract:
+
+    @Test
+    public void extract_withNullMemory_throwsNPE() {
+        DataMemoryMessage msg = new DataMemoryMessage(1, 3, 2, 1);
+        assertThrows(NullPointerException.class, () -> msg.extract(null, 1));
+    }
+
+    @Test
+    public void extract_withLocationBeforeMessage_throwsIAE() {
+        DataMemoryMessage msg = new DataMemoryMessage(10, 3, 2, 1);
+        assertThrows(IllegalArgumentException.class, () -> msg.extract(SINGLE_MEMORY, 9));
+    }
+
+    @Test
+    public void extract_withLocationsAfterMessage_throwsIAE() {
+        DataMemoryMessage msg = new DataMemoryMessage(10, 3, 2, 1);
+        assertThrows(IllegalArgumentException.class, () -> msg.extract(DOUBLE_MEMORY, 12));
+    }
+
+    @Test
+    public void extract_withSingleMemoryAtOffset2_returnsValue3() {
+        DataMemoryMessage msg = new DataMemoryMessage(10, 3, 2, 1);
+
+        DataMemoryMessage extracted = msg.extract(SINGLE_MEMORY, 12);
+
+        assertEquals(SINGLE_MEMORY, extracted.getMemory());
+        assertEquals(12, extracted.getLocation());
+        assertEquals(3, extracted.getValue1());
+    }
+
+    @Test
+    public void extract_withDoubleMemoryAtOffset1_returnsValue3AndValue2() {
+        DataMemoryMessage msg = new DataMemoryMessage(10, 3, 2, 1);
+
+        DataMemoryMessage extracted = msg.extract(DOUBLE_MEMORY, 11);
+
+        assertEquals(DOUBLE_MEMORY, extracted.getMemory());
+        assertEquals(11, extracted.getLocation());
+        assertEquals(3, extracted.getValue2());
+        assertEquals(2, extracted.getValue1());
+    }
+
+    @Test
+    public void extract_withNotReceivedMessage_returnsNotReceivedMessage() {
+        DataMemoryMessage msg = new DataMemoryMessage(10, 2, 1);
+
+        assertEquals(NOT_RECEIVED, msg.extract(SINGLE_MEMORY, 11).getReceivedNanos());
+    }
+
+    @Test
+    public void extract_withReceivedMessage_keepsReceiveTime() {
+        DataMemoryMessage msg = spy(new DataMemoryMessage(10, 2, 1));
+        when(msg.getReceivedNanos()).thenReturn(1234L);
+
+        assertEquals(1234L, msg.extract(SINGLE_MEMORY, 11).getReceivedNanos());
+    }
+
+
     // toString:
 
     @Test
@@ -8,11 +8,14 @@ import de.tbressler.waterrower.io.msg.in.ModelInformationMessage;
 import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
 import de.tbressler.waterrower.io.msg.out.RequestModelInformationMessage;
 import de.tbressler.waterrower.model.MonitorType;
+import io.netty.buffer.ByteBuf;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static de.tbressler.waterrower.io.msg.Memory.*;
 import static de.tbressler.waterrower.model.MonitorType.*;
+import static io.netty.buffer.Unpooled.copiedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
 
@@ -87,6 +90,23 @@ public class TestInformationRequestMessageInterpreter {
         assertModelInformationMessage(msg, WATER_ROWER_S4, "12.34");
     }
 
+    @Test
+    public void decode_withTruncatedIV4_returnsNull() {
+        InformationRequestMessage msg = interpreter.decode("IV4");
+        assertNull(msg);
+    }
+
+    @Test
+    public void decode_withTruncatedIV4FollowedByNextFrame_doesntDecodeNextFrame() {
+        // The decoder narrows the writer index to the frame, the next frame is still in the buffer:
+        ByteBuf buffer = copiedBuffer("IV4\r\nIV40200\r\n", US_ASCII);
+        buffer.writerIndex(3);
+
+        InformationRequestMessage msg = interpreter.decode(buffer);
+
+        assertNull(msg);
+    }
+
     // Decode single memory locations:
 
     @Test
@@ -2,7 +2,16 @@ package de.tbressler.waterrower.io.msg.out;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 import static de.tbressler.waterrower.io.msg.Memory.*;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -68,6 +77,64 @@ public class TestReadMemoryMessage {
     }
 
 
+    @Test
+    public void of_withNullMemory_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> ReadMemoryMessage.of(null, 1));
+    }
+
+    @Test
+    public void of_withLocationGreaterThan4095_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> ReadMemoryMessage.of(SINGLE_MEMORY, 4096));
+    }
+
+    @Test
+    public void of_calledTwice_returnsSameMessage() {
+        ReadMemoryMessage msg = ReadMemoryMessage.of(DOUBLE_MEMORY, 100);
+
+        assertSame(msg, ReadMemoryMessage.of(DOUBLE_MEMORY, 100));
+        assertEquals(DOUBLE_MEMORY, msg.getMemory());
+        assertEquals(100, msg.getLocation());
+    }
+
+    @Test
+    public void of_calledConcurrently_returnsSameMessage() throws Exception {
+        ExecutorService executor = newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Callable<ReadMemoryMessage> task = () -> {
+                start.await();
+                return ReadMemoryMessage.of(TRIPLE_MEMORY, 200);
+            };
+            List<Future<ReadMemoryMessage>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++)
+                futures.add(executor.submit(task));
+            start.countDown();
+
+            ReadMemoryMessage msg = futures.get(0).get(5, SECONDS);
+            for (Future<ReadMemoryMessage> future : futures)
+                assertSame(msg, future.get(5, SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void of_withOtherMemory_returnsOtherMessage() {
+        assertNotSame(ReadMemoryMessage.of(SINGLE_MEMORY, 100), ReadMemoryMessage.of(DOUBLE_MEMORY, 100));
+    }
+
+    @Test
+    public void keyOf_withOtherMemoryOrLocation_returnsOtherKey() {
+        assertNotEquals(ReadMemoryMessage.keyOf(SINGLE_MEMORY, 100), ReadMemoryMessage.keyOf(DOUBLE_MEMORY, 100));
+        assertNotEquals(ReadMemoryMessage.keyOf(TRIPLE_MEMORY, 100), ReadMemoryMessage.keyOf(SINGLE_MEMORY, 101));
+    }
+
+    @Test
+    public void keyOf_withLastLocation_returnsKeyLessThanNumberOfKeys() {
+        assertTrue(ReadMemoryMessage.keyOf(TRIPLE_MEMORY, 4095) < ReadMemoryMessage.NUMBER_OF_KEYS);
+    }
+
+
     @Test
     public void toString_returnsObjectInfo() {
         ReadMemoryMessage msg = new ReadMemoryMessage(SINGLE_MEMORY, 1);
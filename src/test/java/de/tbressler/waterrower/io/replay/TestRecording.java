@@ -0,0 +1,87 @@
+package de.tbressler.waterrower.io.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.tbressler.waterrower.io.replay.RecordingFormat.TYPE_HARDWARE_TYPE;
+import static de.tbressler.waterrower.io.replay.RecordingFormat.TYPE_PING;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class Recording.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestRecording {
+
+    @TempDir
+    Path directory;
+
+
+    @Test
+    public void new_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new Recording(null));
+    }
+
+    @Test
+    public void new_copiesFrames() {
+        List<RecordedFrame> frames = new ArrayList<>();
+        frames.add(new RecordedFrame(1, TYPE_PING, "PING".getBytes(US_ASCII)));
+
+        Recording recording = new Recording(frames);
+        frames.clear();
+
+        assertEquals(1, recording.size());
+        assertThrows(UnsupportedOperationException.class, () -> recording.getFrames().clear());
+    }
+
+    @Test
+    public void load_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> Recording.load(null));
+    }
+
+    @Test
+    public void load_withJsonLines_returnsFramesInOrder() throws Exception {
+        Path file = directory.resolve("recording.txt");
+        Files.write(file, List.of(
+                "{\"time\":1468559128188,\"type\":\"hardwaretype\",\"data\":\"_WR_\\r\"}",
+                "",
+                "{\"time\":1468559174909,\"type\":\"ping\",\"data\":\"PING\\r\"}"), US_ASCII);
+
+        Recording recording = Recording.load(file);
+
+        assertEquals(2, recording.size());
+        assertEquals(1468559128188L, recording.get(0).getTime());
+        assertEquals(TYPE_HARDWARE_TYPE, recording.get(0).getType());
+        assertEquals("PING", new String(recording.get(1).getFrame(), US_ASCII));
+    }
+
+    @Test
+    public void load_withInvalidLine_throwsIOException() throws Exception {
+        Path file = directory.resolve("recording.txt");
+        Files.write(file, List.of("{\"time\":1468559128188,\"type\":\"hardwaretype\",\"data\":\"_WR_\\r\"}", "invalid"), US_ASCII);
+
+        IOException exception = assertThrows(IOException.class, () -> Recording.load(file));
+        assertTrue(exception.getMessage().contains("Line 2"));
+    }
+
+    @Test
+    public void load_withSimulationData_returnsAllFrames() throws Exception {
+        Path file = Paths.get("docs/simulationdata.txt");
+        org.junit.jupiter.api.Assumptions.assumeTrue(Files.exists(file));
+
+        Recording recording = Recording.load(file);
+
+        assertEquals(Files.readAllLines(file).size(), recording.size());
+    }
+
+}
@@ -0,0 +1,107 @@
+package de.tbressler.waterrower.io.replay;
+
+import org.junit.jupiter.api.Test;
+
+import static de.tbressler.waterrower.io.replay.RecordingFormat.*;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class RecordingFormat.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestRecordingFormat {
+
+    // Type:
+
+    @Test
+    public void typeOf_returnsTypesOfSimulationData() {
+        assertEquals(TYPE_HARDWARE_TYPE, typeOf("_WR_"));
+        assertEquals(TYPE_PING, typeOf("PING"));
+        assertEquals(TYPE_STROKE_START, typeOf("SS"));
+        assertEquals(TYPE_STROKE_END, typeOf("SE"));
+        assertEquals(TYPE_DATAPOINT, typeOf("IDD0550007"));
+        assertEquals(TYPE_DATAPOINT, typeOf("S"));
+    }
+
+    // Append line:
+
+    @Test
+    public void appendLine_appendsLineOfSimulationData() {
+        StringBuilder line = new StringBuilder();
+        byte[] frame = "IDD0550007".getBytes(US_ASCII);
+
+        appendLine(line, 1468559128386L, TYPE_DATAPOINT, frame, frame.length);
+
+        assertEquals("{\"time\":1468559128386,\"type\":\"datapoint\",\"data\":\"IDD0550007\\r\"}\n", line.toString());
+    }
+
+    @Test
+    public void appendLine_withSpecialCharacters_escapesData() {
+        StringBuilder line = new StringBuilder();
+        byte[] frame = "A\"B\\C\tD".getBytes(US_ASCII);
+
+        appendLine(line, 1, TYPE_DATAPOINT, frame, frame.length);
+
+        assertEquals("{\"time\":1,\"type\":\"datapoint\",\"data\":\"A\\\"B\\\\C\\u0009D\\r\"}\n", line.toString());
+    }
+
+    // Parse line:
+
+    @Test
+    public void parseLine_withLineOfSimulationData_returnsFrame() {
+        RecordedFrame frame = parseLine("{\"time\":1468559128386,\"type\":\"datapoint\",\"data\":\"IDD0550007\\r\"}");
+
+        assertNotNull(frame);
+        assertEquals(1468559128386L, frame.getTime());
+        assertEquals(TYPE_DATAPOINT, frame.getType());
+        assertEquals("IDD0550007", new String(frame.getFrame(), US_ASCII));
+    }
+
+    @Test
+    public void parseLine_withEscapedData_returnsUnescapedFrame() {
+        RecordedFrame frame = parseLine("{\"time\":1,\"type\":\"datapoint\",\"data\":\"A\\\"B\\\\C\\u0009D\\r\\n\"}");
+
+        assertNotNull(frame);
+        assertEquals("A\"B\\C\tD", new String(frame.getFrame(), US_ASCII));
+    }
+
+    @Test
+    public void parseLine_withAppendedLine_returnsSameFrame() {
+        StringBuilder line = new StringBuilder();
+        byte[] bytes = "SS".getBytes(US_ASCII);
+        appendLine(line, 42, TYPE_STROKE_START, bytes, bytes.length);
+
+        RecordedFrame frame = parseLine(line.toString().trim());
+
+        assertNotNull(frame);
+        assertEquals(42, frame.getTime());
+        assertEquals(TYPE_STROKE_START, frame.getType());
+        assertArrayEquals(bytes, frame.getFrame());
+    }
+
+    @Test
+    public void parseLine_withoutData_returnsNull() {
+        assertNull(parseLine("{\"time\":1,\"type\":\"datapoint\"}"));
+    }
+
+    @Test
+    public void parseLine_withInvalidTime_returnsNull() {
+        assertNull(parseLine("{\"time\":x,\"type\":\"datapoint\",\"data\":\"PING\\r\"}"));
+    }
+
+    @Test
+    public void parseLine_withUnterminatedData_returnsNull() {
+        assertNull(parseLine("{\"time\":1,\"type\":\"datapoint\",\"data\":\"PING"));
+    }
+
+
+    /* Returns the type of the given frame. */
+    private static String typeOf(String frame) {
+        byte[] bytes = frame.getBytes(US_ASCII);
+        return RecordingFormat.typeOf(bytes, bytes.length);
+    }
+
+}
@@ -0,0 +1,55 @@
+package de.tbressler.waterrower.io.replay;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class ReplayAddress.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestReplayAddress {
+
+    /* The recorded session. */
+    private final Recording recording = new Recording(List.of());
+
+
+    @Test
+    public void new_withNullRecording_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new ReplayAddress(null, 1));
+    }
+
+    @Test
+    public void new_withSpeed0_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplayAddress(recording, 0));
+    }
+
+    @Test
+    public void new_withSpeedNaN_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplayAddress(recording, Double.NaN));
+    }
+
+    @Test
+    public void realTime_returnsAddressWithSpeed1() {
+        ReplayAddress address = ReplayAddress.realTime(recording);
+
+        assertSame(recording, address.getRecording());
+        assertEquals(1, address.getSpeed());
+        assertFalse(address.isAsFastAsPossible());
+    }
+
+    @Test
+    public void accelerated_returnsAddressWithFactor() {
+        assertEquals(10, ReplayAddress.accelerated(recording, 10).getSpeed());
+    }
+
+    @Test
+    public void asFastAsPossible_returnsAddressWithInfiniteSpeed() {
+        assertTrue(ReplayAddress.asFastAsPossible(recording).isAsFastAsPossible());
+    }
+
+}
@@ -0,0 +1,219 @@
+package de.tbressler.waterrower.io.replay;
+
+import de.tbressler.waterrower.IWaterRowerConnectionListener;
+import de.tbressler.waterrower.WaterRower;
+import de.tbressler.waterrower.WaterRowerInitializer;
+import de.tbressler.waterrower.WaterRowerRuntime;
+import de.tbressler.waterrower.model.ErrorCode;
+import de.tbressler.waterrower.model.ModelInformation;
+import de.tbressler.waterrower.model.StrokeType;
+import de.tbressler.waterrower.subscriptions.values.StrokeSubscription;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioIoHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.tbressler.waterrower.io.replay.RecordingFormat.*;
+import static io.netty.buffer.Unpooled.copiedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class ReplayChannel.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestReplayChannel {
+
+    /* The recorded session. */
+    private final Recording recording = new Recording(List.of(
+            frame(1000, TYPE_HARDWARE_TYPE, "_WR_"),
+            frame(1000, TYPE_REQUEST, "IRD055"),
+            frame(1010, TYPE_DATAPOINT, "IDD0550007"),
+            frame(1020, TYPE_STROKE_START, "SS"),
+            frame(1100, TYPE_STROKE_END, "SE"),
+            frame(1200, TYPE_PING, "PING")
+    ));
+
+    /* The event loop group of the channels. */
+    private EventLoopGroup eventLoopGroup;
+
+    /* The received bytes, one entry per read. */
+    private final LinkedBlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+
+    @BeforeEach
+    public void setUp() {
+        eventLoopGroup = new MultiThreadIoEventLoopGroup(1, NioIoHandler.newFactory());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        eventLoopGroup.shutdownGracefully(0, 1, SECONDS).syncUninterruptibly();
+    }
+
+
+    // Connect:
+
+    @Test
+    public void connect_withOtherAddress_fails() {
+        ChannelFuture future = bootstrap().connect(new InetSocketAddress(1234)).awaitUninterruptibly();
+        assertFalse(future.isSuccess());
+    }
+
+    @Test
+    public void connect_withReplayAddress_activatesChannel() {
+        Channel channel = connect(ReplayAddress.asFastAsPossible(recording));
+
+        assertTrue(channel.isActive());
+        assertTrue(channel.remoteAddress() instanceof ReplayAddress);
+    }
+
+    // Handshake:
+
+    @Test
+    public void write_withStartCommunication_answersHardwareType() throws Exception {
+        Channel channel = connect(ReplayAddress.asFastAsPossible(recording));
+
+        channel.writeAndFlush(copiedBuffer("USB\r\n", US_ASCII));
+
+        assertEquals("_WR_\r\n", received.poll(5, SECONDS));
+        assertTrue(channel.isActive());
+    }
+
+    @Test
+    public void write_withRequestOfModelInformation_answersModelInformationAndReplaysFrames() throws Exception {
+        Channel channel = connect(ReplayAddress.asFastAsPossible(recording));
+
+        channel.writeAndFlush(copiedBuffer("IV?\r\n", US_ASCII));
+
+        assertEquals("IV40210\r\n", received.poll(5, SECONDS));
+        assertEquals("IDD0550007\r\nSS\r\nSE\r\nPING\r\n", received.poll(5, SECONDS));
+        assertTrue(channel.closeFuture().await(5, SECONDS));
+    }
+
+    @Test
+    public void write_withOtherRequest_answersNothing() throws Exception {
+        Channel channel = connect(ReplayAddress.asFastAsPossible(recording));
+
+        channel.writeAndFlush(copiedBuffer("IRD055\r\n", US_ASCII)).sync();
+
+        assertNull(received.poll(100, MILLISECONDS));
+    }
+
+    // Replay:
+
+    @Test
+    public void replay_withAcceleratedSpeed_replaysFramesAtTheirTime() throws Exception {
+        Channel channel = connect(ReplayAddress.accelerated(recording, 2));
+
+        long start = System.nanoTime();
+        channel.writeAndFlush(copiedBuffer("IV?\r\n", US_ASCII));
+        assertTrue(channel.closeFuture().await(5, SECONDS));
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // The recording takes 200 ms, the last frame is replayed after 100 ms:
+        assertTrue(durationMillis >= 100, "duration " + durationMillis);
+
+        StringBuilder frames = new StringBuilder();
+        String read;
+        while ((read = received.poll()) != null)
+            frames.append(read);
+        assertEquals("IV40210\r\nIDD0550007\r\nSS\r\nSE\r\nPING\r\n", frames.toString());
+    }
+
+    @Test
+    public void replay_withExitCommunication_stopsReplay() throws Exception {
+        Channel channel = connect(ReplayAddress.realTime(recording));
+
+        channel.writeAndFlush(copiedBuffer("IV?\r\nEXIT\r\n", US_ASCII));
+
+        assertEquals("IV40210\r\n", received.poll(5, SECONDS));
+        assertNull(received.poll(300, MILLISECONDS));
+        assertTrue(channel.isActive());
+    }
+
+    // Live WaterRower:
+
+    @Test
+    public void replay_withWaterRower_notifiesSubscriptionsAndDisconnects() throws Exception {
+        WaterRowerRuntime runtime = new WaterRowerRuntime();
+        try {
+            WaterRower waterRower = new WaterRower(new WaterRowerInitializer(runtime, ofMillis(200), ofSeconds(5), ReplayChannel::new));
+
+            CountDownLatch connected = new CountDownLatch(1);
+            CountDownLatch disconnected = new CountDownLatch(1);
+            waterRower.addConnectionListener(new IWaterRowerConnectionListener() {
+                @Override
+                public void onConnected(ModelInformation modelInformation) {
+                    connected.countDown();
+                }
+
+                @Override
+                public void onDisconnected() {
+                    disconnected.countDown();
+                }
+
+                @Override
+                public void onError(ErrorCode errorCode) {}
+            });
+
+            AtomicInteger strokes = new AtomicInteger();
+            waterRower.subscribe(new StrokeSubscription() {
+                @Override
+                protected void onStroke(StrokeType strokeType) {
+                    strokes.incrementAndGet();
+                }
+            });
+
+            waterRower.connect(ReplayAddress.accelerated(recording, 10));
+
+            assertTrue(connected.await(5, SECONDS));
+            assertTrue(disconnected.await(5, SECONDS));
+            assertEquals(2, strokes.get());
+        } finally {
+            runtime.shutdown();
+        }
+    }
+
+
+    /* Returns the bootstrap of a replay channel, which collects the received bytes. */
+    private Bootstrap bootstrap() {
+        return new Bootstrap()
+                .group(eventLoopGroup)
+                .channel(ReplayChannel.class)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ByteBuf buffer = (ByteBuf) msg;
+                        received.add(buffer.toString(US_ASCII));
+                        buffer.release();
+                    }
+                });
+    }
+
+    /* Connects a replay channel with the given address. */
+    private Channel connect(ReplayAddress address) {
+        return bootstrap().connect(address).syncUninterruptibly().channel();
+    }
+
+    /* Returns a recorded frame. */
+    private static RecordedFrame frame(long time, String type, String frame) {
+        return new RecordedFrame(time, type, frame.getBytes(US_ASCII));
+    }
+
+}
@@ -0,0 +1,169 @@
+package de.tbressler.waterrower.io.replay;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+
+import static io.netty.buffer.Unpooled.copiedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for class SessionRecorder.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestSessionRecorder {
+
+    // Class under test.
+    private SessionRecorder sessionRecorder;
+
+    /* The channel with the recorder. */
+    private EmbeddedChannel channel;
+
+    /* The recording. */
+    private StringWriter out = new StringWriter();
+
+
+    @BeforeEach
+    public void setUp() {
+        sessionRecorder = new SessionRecorder();
+        channel = new EmbeddedChannel(sessionRecorder);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+
+    @Test
+    public void start_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> sessionRecorder.start(null));
+    }
+
+    @Test
+    public void isRecording_returnsStateOfRecording() throws Exception {
+        assertFalse(sessionRecorder.isRecording());
+        sessionRecorder.start(out);
+        assertTrue(sessionRecorder.isRecording());
+        sessionRecorder.stop();
+        assertFalse(sessionRecorder.isRecording());
+    }
+
+    @Test
+    public void channelRead_passesBytesOnUnchanged() {
+        sessionRecorder.start(out);
+
+        channel.writeInbound(copiedBuffer("PING\r\n", US_ASCII));
+
+        ByteBuf read = channel.readInbound();
+        assertEquals("PING\r\n", read.toString(US_ASCII));
+        read.release();
+    }
+
+    @Test
+    public void channelRead_withoutRecording_recordsNothing() {
+        channel.writeInbound(copiedBuffer("PING\r\n", US_ASCII));
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    public void channelRead_withRecording_writesJsonLines() throws Exception {
+        sessionRecorder.start(out);
+
+        channel.writeInbound(copiedBuffer("_WR_\r\nIDD05", US_ASCII));
+        channel.writeInbound(copiedBuffer("50007\r\n\r\nSS\n", US_ASCII));
+        sessionRecorder.stop();
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].matches("\\{\"time\":\\d+,\"type\":\"hardwaretype\",\"data\":\"_WR_\\\\r\"}"), lines[0]);
+        assertTrue(lines[1].endsWith(",\"type\":\"datapoint\",\"data\":\"IDD0550007\\r\"}"), lines[1]);
+        assertTrue(lines[2].endsWith(",\"type\":\"strokestart\",\"data\":\"SS\\r\"}"), lines[2]);
+    }
+
+    @Test
+    public void channelRead_afterStop_recordsNothing() throws Exception {
+        sessionRecorder.start(out);
+        sessionRecorder.stop();
+
+        channel.writeInbound(copiedBuffer("PING\r\n", US_ASCII));
+
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    public void channelRead_whenWriterFails_stopsRecording() throws Exception {
+        Writer writer = mock(Writer.class, "writer");
+        when(writer.append(any())).thenThrow(new IOException("mocked exception"));
+        sessionRecorder.start(writer);
+
+        channel.writeInbound(copiedBuffer("PING\r\n", US_ASCII));
+
+        assertNotNull(channel.readInbound());
+        for (int i = 0; (i < 500) && sessionRecorder.isRecording(); i++)
+            Thread.sleep(10);
+        assertFalse(sessionRecorder.isRecording());
+    }
+
+    @Test
+    public void channelRead_withRecording_writesFramesByWriterThread() throws Exception {
+        Writer writer = mock(Writer.class, "writer");
+        CompletableFuture<Thread> writerThread = new CompletableFuture<>();
+        when(writer.append(any())).thenAnswer(invocation -> {
+            writerThread.complete(Thread.currentThread());
+            return writer;
+        });
+        sessionRecorder.start(writer);
+
+        channel.writeInbound(copiedBuffer("PING\r\n", US_ASCII));
+        sessionRecorder.stop();
+
+        assertNotSame(Thread.currentThread(), writerThread.get(5, SECONDS));
+        InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer, times(1)).append(any());
+        inOrder.verify(writer, times(1)).flush();
+    }
+
+    @Test
+    public void start_afterPartialFrame_doesntRecordBytesOfPreviousRecording() throws Exception {
+        StringWriter previous = new StringWriter();
+        sessionRecorder.start(previous);
+        channel.writeInbound(copiedBuffer("IDD05", US_ASCII));
+
+        sessionRecorder.start(out);
+        channel.writeInbound(copiedBuffer("SS\r\n", US_ASCII));
+        sessionRecorder.stop();
+
+        assertEquals("", previous.toString());
+        assertTrue(out.toString().endsWith(",\"type\":\"strokestart\",\"data\":\"SS\\r\"}\n"), out.toString());
+    }
+
+    @Test
+    public void recording_canBeLoaded() throws Exception {
+        sessionRecorder.start(out);
+        channel.writeInbound(copiedBuffer("SS\r\nSE\r\n", US_ASCII));
+        sessionRecorder.stop();
+
+        Recording recording = new Recording(java.util.List.of(
+                RecordingFormat.parseLine(out.toString().split("\n")[0]),
+                RecordingFormat.parseLine(out.toString().split("\n")[1])));
+
+        assertEquals("SS", new String(recording.get(0).getFrame(), US_ASCII));
+        assertEquals("SE", new String(recording.get(1).getFrame(), US_ASCII));
+    }
+
+}
@@ -0,0 +1,153 @@
+package de.tbressler.waterrower.io.trace;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static de.tbressler.waterrower.io.trace.WireTrace.*;
+import static de.tbressler.waterrower.io.trace.WireTrace.Direction.INBOUND;
+import static de.tbressler.waterrower.io.trace.WireTrace.Direction.OUTBOUND;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class WireTrace.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestWireTrace {
+
+    // Class under test.
+    private WireTrace wireTrace;
+
+    @TempDir
+    Path directory;
+
+
+    @BeforeEach
+    public void setUp() {
+        wireTrace = new WireTrace(4);
+    }
+
+
+    // Constructor:
+
+    @Test
+    public void new_withCapacity0_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new WireTrace(0));
+    }
+
+    @Test
+    public void new_withCapacityWhichIsNoPowerOfTwo_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new WireTrace(3));
+    }
+
+    @Test
+    public void new_withoutCapacity_hasDefaultCapacity() {
+        assertEquals(DEFAULT_CAPACITY, new WireTrace().getCapacity());
+    }
+
+    // Record:
+
+    @Test
+    public void record_countsRecordedFrames() {
+        record(INBOUND, "IDD0550007");
+        record(OUTBOUND, "IRD055");
+
+        assertEquals(2, wireTrace.getRecordedFrames());
+    }
+
+    @Test
+    public void record_doesntChangeReaderIndexOfBuffer() {
+        ByteBuf buffer = wrappedBuffer("xIDD0550007\r\n".getBytes(US_ASCII));
+
+        wireTrace.record(INBOUND, buffer, 1, 10);
+
+        assertEquals(0, buffer.readerIndex());
+    }
+
+    // Dump:
+
+    @Test
+    public void dump_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> wireTrace.dump(null));
+    }
+
+    @Test
+    public void dump_withoutFrames_writesHeader() throws Exception {
+        Path file = directory.resolve("trace.bin");
+
+        assertEquals(0, wireTrace.dump(file));
+
+        ByteBuffer dump = ByteBuffer.wrap(Files.readAllBytes(file));
+        assertEquals(HEADER_LENGTH, dump.limit());
+        assertEquals(MAGIC, dump.getInt(0));
+        assertEquals(VERSION, dump.getShort(4));
+        assertEquals(RECORD_LENGTH, dump.getShort(6));
+        assertEquals(0, dump.getInt(8));
+    }
+
+    @Test
+    public void dump_withFrames_writesFramesInOrder() throws Exception {
+        record(OUTBOUND, "IRD055");
+        record(INBOUND, "IDD0550007");
+
+        Path file = directory.resolve("trace.bin");
+        assertEquals(2, wireTrace.dump(file));
+
+        ByteBuffer dump = ByteBuffer.wrap(Files.readAllBytes(file));
+        assertEquals(2, dump.getInt(8));
+        assertFrame(dump, 0, OUTBOUND, "IRD055");
+        assertFrame(dump, 1, INBOUND, "IDD0550007");
+        assertTrue(dump.getLong(HEADER_LENGTH) <= dump.getLong(HEADER_LENGTH + RECORD_LENGTH));
+    }
+
+    @Test
+    public void dump_whenRingBufferIsFull_writesNewestFrames() throws Exception {
+        for (int i = 0; i < 6; i++)
+            record(INBOUND, "FRAME" + i);
+
+        Path file = directory.resolve("trace.bin");
+        assertEquals(4, wireTrace.dump(file));
+
+        ByteBuffer dump = ByteBuffer.wrap(Files.readAllBytes(file));
+        assertFrame(dump, 0, INBOUND, "FRAME2");
+        assertFrame(dump, 3, INBOUND, "FRAME5");
+    }
+
+    @Test
+    public void dump_withTooLongFrame_writesTruncatedFrame() throws Exception {
+        String frame = "X".repeat(MAX_FRAME_LENGTH + 8);
+        record(INBOUND, frame);
+
+        Path file = directory.resolve("trace.bin");
+        wireTrace.dump(file);
+
+        assertFrame(ByteBuffer.wrap(Files.readAllBytes(file)), 0, INBOUND, frame.substring(0, MAX_FRAME_LENGTH));
+    }
+
+
+    /* Records the given frame. */
+    private void record(Direction direction, String frame) {
+        ByteBuf buffer = wrappedBuffer((frame + "\r\n").getBytes(US_ASCII));
+        wireTrace.record(direction, buffer, 0, buffer.readableBytes() - 2);
+    }
+
+    /* Checks the record with the given index in the dump. */
+    private void assertFrame(ByteBuffer dump, int index, Direction direction, String frame) {
+        int offset = HEADER_LENGTH + index * RECORD_LENGTH;
+        assertEquals(direction.ordinal(), dump.get(offset + 8));
+        assertEquals(frame.length(), dump.get(offset + 9));
+        byte[] bytes = new byte[frame.length()];
+        dump.get(offset + 10, bytes);
+        assertEquals(frame, new String(bytes, US_ASCII));
+    }
+
+}
@@ -0,0 +1,135 @@
+package de.tbressler.waterrower.io.trace;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static de.tbressler.waterrower.io.trace.WireTrace.Direction.INBOUND;
+import static de.tbressler.waterrower.io.trace.WireTrace.Direction.OUTBOUND;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class WireTraceConverter.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestWireTraceConverter {
+
+    /* The wire trace, which is dumped. */
+    private WireTrace wireTrace;
+
+    /* The file of the dump. */
+    private Path file;
+
+    @TempDir
+    Path directory;
+
+
+    @BeforeEach
+    public void setUp() {
+        wireTrace = new WireTrace(16);
+        file = directory.resolve("trace.bin");
+    }
+
+
+    @Test
+    public void toJsonLines_withNullDump_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> WireTraceConverter.toJsonLines(null, new StringWriter()));
+    }
+
+    @Test
+    public void toJsonLines_withNullWriter_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> WireTraceConverter.toJsonLines(file, null));
+    }
+
+    @Test
+    public void toJsonLines_withFileWhichIsNoDump_throwsIOException() throws Exception {
+        Files.write(file, "{\"time\":1468559128188,\"type\":\"hardwaretype\",\"data\":\"_WR_\\r\"}".getBytes(US_ASCII));
+        assertThrows(IOException.class, () -> WireTraceConverter.toJsonLines(file, new StringWriter()));
+    }
+
+    @Test
+    public void toJsonLines_withEmptyDump_writesNothing() throws Exception {
+        wireTrace.dump(file);
+
+        StringWriter out = new StringWriter();
+        assertEquals(0, WireTraceConverter.toJsonLines(file, out));
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    public void toJsonLines_withReceivedFrames_writesTypesOfSimulationData() throws Exception {
+        record(INBOUND, "_WR_");
+        record(INBOUND, "PING");
+        record(INBOUND, "SS");
+        record(INBOUND, "SE");
+        record(INBOUND, "IDD0550007");
+
+        String[] lines = convert();
+
+        assertEquals(5, lines.length);
+        assertLine(lines[0], "hardwaretype", "_WR_\\r");
+        assertLine(lines[1], "ping", "PING\\r");
+        assertLine(lines[2], "strokestart", "SS\\r");
+        assertLine(lines[3], "strokeend", "SE\\r");
+        assertLine(lines[4], "datapoint", "IDD0550007\\r");
+    }
+
+    @Test
+    public void toJsonLines_withSentFrame_writesTypeRequest() throws Exception {
+        record(OUTBOUND, "IRD055");
+
+        assertLine(convert()[0], "request", "IRD055\\r");
+    }
+
+    @Test
+    public void toJsonLines_withSpecialCharacters_escapesData() throws Exception {
+        record(INBOUND, "A\"B\\C\tD");
+
+        assertLine(convert()[0], "datapoint", "A\\\"B\\\\C\\u0009D\\r");
+    }
+
+    @Test
+    public void toJsonLines_writesEpochMillisOfFrames() throws Exception {
+        long before = System.currentTimeMillis();
+        record(INBOUND, "PING");
+        long after = System.currentTimeMillis();
+
+        String line = convert()[0];
+        long time = Long.parseLong(line.substring("{\"time\":".length(), line.indexOf(',')));
+
+        // The epoch millis are calculated from System.nanoTime(), allow a small drift:
+        assertTrue((time >= before - 50) && (time <= after + 50), line);
+    }
+
+
+    /* Records the given frame. */
+    private void record(WireTrace.Direction direction, String frame) {
+        ByteBuf buffer = wrappedBuffer(frame.getBytes(US_ASCII));
+        wireTrace.record(direction, buffer, 0, buffer.readableBytes());
+    }
+
+    /* Dumps the wire trace and returns the JSON lines. */
+    private String[] convert() throws IOException {
+        wireTrace.dump(file);
+        StringWriter out = new StringWriter();
+        WireTraceConverter.toJsonLines(file, out);
+        return out.toString().split("\n");
+    }
+
+    /* Checks the type and the data of the JSON line. */
+    private void assertLine(String line, String type, String data) {
+        assertTrue(line.matches("\\{\"time\":\\d+,.*"), line);
+        assertTrue(line.endsWith(",\"type\":\"" + type + "\",\"data\":\"" + data + "\"}"), line);
+    }
+
+}
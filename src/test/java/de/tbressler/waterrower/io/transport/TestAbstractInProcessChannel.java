@@ -0,0 +1,170 @@
+package de.tbressler.waterrower.io.transport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioIoHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.netty.buffer.Unpooled.copiedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class AbstractInProcessChannel.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestAbstractInProcessChannel {
+
+    /* The address of the channel under test. */
+    private final SocketAddress address = new SerialDeviceAddress("in-process");
+
+    /* The event loop group of the channels. */
+    private EventLoopGroup eventLoopGroup;
+
+    /* The requests, which were handled by the channel. */
+    private final LinkedBlockingQueue<String> requests = new LinkedBlockingQueue<>();
+
+    /* The number of calls of onClose(). */
+    private final AtomicInteger closed = new AtomicInteger();
+
+
+    @BeforeEach
+    public void setUp() {
+        eventLoopGroup = new MultiThreadIoEventLoopGroup(1, NioIoHandler.newFactory());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        eventLoopGroup.shutdownGracefully(0, 1, SECONDS).syncUninterruptibly();
+    }
+
+
+    // Connect:
+
+    @Test
+    public void new_withNullName_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new InProcessChannel(null));
+    }
+
+    @Test
+    public void connect_withSupportedAddress_activatesChannel() {
+        Channel channel = connect();
+
+        assertTrue(channel.isActive());
+        assertSame(address, channel.remoteAddress());
+        assertEquals("test", channel.localAddress().toString());
+    }
+
+    @Test
+    public void connect_withUnsupportedAddress_fails() {
+        ChannelFuture future = bootstrap().connect(new InetSocketAddress(1234)).awaitUninterruptibly();
+
+        assertFalse(future.isSuccess());
+        assertFalse(future.channel().isActive());
+    }
+
+    // Write:
+
+    @Test
+    public void write_withRequests_handlesRequestsWithoutDelimiter() throws Exception {
+        Channel channel = connect();
+
+        channel.writeAndFlush(copiedBuffer("US", US_ASCII));
+        channel.writeAndFlush(copiedBuffer("B\r\n\r\nIV?\r\n", US_ASCII)).syncUninterruptibly();
+
+        assertEquals("USB", requests.poll(5, SECONDS));
+        assertEquals("IV?", requests.poll(5, SECONDS));
+        assertNull(requests.poll());
+    }
+
+    @Test
+    public void write_withTooLongRequest_truncatesRequest() throws Exception {
+        Channel channel = connect();
+
+        channel.writeAndFlush(copiedBuffer("0123456789012345678901234567890123456789\r\n", US_ASCII)).syncUninterruptibly();
+
+        assertEquals("01234567890123456789012345678901", requests.poll(5, SECONDS));
+    }
+
+    // Close:
+
+    @Test
+    public void close_callsOnClose() {
+        Channel channel = connect();
+
+        channel.close().syncUninterruptibly();
+
+        assertFalse(channel.isOpen());
+        assertFalse(channel.isActive());
+        assertEquals(1, closed.get());
+    }
+
+    // Fire frames:
+
+    @Test
+    public void fireFrames_whenClosed_releasesFrames() throws Exception {
+        InProcessChannel channel = (InProcessChannel) connect();
+        channel.close().syncUninterruptibly();
+        ByteBuf frames = copiedBuffer("PING\r\n", US_ASCII);
+
+        channel.eventLoop().submit(() -> channel.fire(frames)).get(5, SECONDS);
+
+        assertEquals(0, frames.refCnt());
+    }
+
+
+    /* Connects a channel with the address. */
+    private Channel connect() {
+        return bootstrap().connect(address).syncUninterruptibly().channel();
+    }
+
+    /* Returns a bootstrap for the channel under test. */
+    private Bootstrap bootstrap() {
+        return new Bootstrap()
+                .group(eventLoopGroup)
+                .channelFactory(() -> new InProcessChannel("test"))
+                .handler(new ChannelInboundHandlerAdapter());
+    }
+
+
+    /* An in-process channel, which records the requests. */
+    private final class InProcessChannel extends AbstractInProcessChannel {
+
+        private InProcessChannel(String name) {
+            super(name);
+        }
+
+        @Override
+        protected void doConnect(SocketAddress remoteAddress) throws IOException {
+            if (remoteAddress != address)
+                throw new IOException("Unsupported address!");
+        }
+
+        @Override
+        protected void handleRequest(String frame) {
+            requests.add(frame);
+        }
+
+        @Override
+        protected void onClose() {
+            closed.incrementAndGet();
+        }
+
+        private void fire(ByteBuf frames) {
+            fireFrames(frames);
+        }
+    }
+
+}
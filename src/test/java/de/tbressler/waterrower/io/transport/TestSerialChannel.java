@@ -0,0 +1,178 @@
+package de.tbressler.waterrower.io.transport;
+
+import com.fazecast.jSerialComm.SerialPort;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.nio.NioIoHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.fazecast.jSerialComm.SerialPort.TIMEOUT_NONBLOCKING;
+import static io.netty.buffer.Unpooled.copiedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for class SerialChannel.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestSerialChannel {
+
+    /* The event loop group of the channel. */
+    private EventLoopGroup eventLoopGroup;
+
+    /* The fake serial port. */
+    private final SerialPort serialPort = mock(SerialPort.class);
+
+    /* The bytes, which were written to the serial port. */
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+
+    @BeforeEach
+    public void setUp() {
+        eventLoopGroup = new MultiThreadIoEventLoopGroup(1, NioIoHandler.newFactory());
+
+        when(serialPort.openPort()).thenReturn(true);
+        when(serialPort.addDataListener(any())).thenReturn(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        eventLoopGroup.shutdownGracefully(0, 1, SECONDS).syncUninterruptibly();
+    }
+
+
+    // Connect:
+
+    @Test
+    public void new_withNullPortFactory_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new SerialChannel(null));
+    }
+
+    @Test
+    public void connect_setsNonBlockingTimeouts() {
+        Channel channel = connect();
+
+        assertTrue(channel.isActive());
+        verify(serialPort).setComPortTimeouts(TIMEOUT_NONBLOCKING, 0, 0);
+    }
+
+    // Write:
+
+    @Test
+    public void write_withCompleteWrite_writesFrame() {
+        when(serialPort.writeBytes(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> accept(invocation.getArgument(0), invocation.getArgument(2), invocation.getArgument(1)));
+
+        Channel channel = connect();
+        ChannelFuture future = channel.writeAndFlush(copiedBuffer("USB\r\n", US_ASCII));
+
+        assertTrue(future.awaitUninterruptibly(5, SECONDS));
+        assertTrue(future.isSuccess());
+        assertEquals("USB\r\n", written.toString(US_ASCII));
+    }
+
+    @Test
+    public void write_withPartialWrite_retriesRemainingBytes() {
+        AtomicInteger writes = new AtomicInteger();
+        when(serialPort.writeBytes(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+            // The first write accepts 2 bytes, the second write doesn't accept any byte:
+            int length = invocation.getArgument(1);
+            switch (writes.incrementAndGet()) {
+                case 1: length = 2; break;
+                case 2: length = 0; break;
+            }
+            return accept(invocation.getArgument(0), invocation.getArgument(2), length);
+        });
+
+        Channel channel = connect();
+        ChannelFuture future = channel.writeAndFlush(copiedBuffer("USB\r\n", US_ASCII));
+
+        assertTrue(future.awaitUninterruptibly(5, SECONDS));
+        assertTrue(future.isSuccess());
+        assertEquals("USB\r\n", written.toString(US_ASCII));
+        assertEquals(3, writes.get());
+    }
+
+    @Test
+    public void write_withPartialWriteOfGatheredFrames_retriesRemainingBytes() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        when(serialPort.writeBytes(any(byte[].class), anyInt())).thenAnswer(invocation -> {
+            // The first write of the gathered frames accepts 4 bytes:
+            int length = (writes.incrementAndGet() == 1) ? 4 : invocation.getArgument(1);
+            return accept(invocation.getArgument(0), 0, length);
+        });
+        when(serialPort.writeBytes(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+            writes.incrementAndGet();
+            return accept(invocation.getArgument(0), invocation.getArgument(2), invocation.getArgument(1));
+        });
+
+        Channel channel = connect();
+        ChannelFuture[] futures = channel.eventLoop().submit(() -> new ChannelFuture[] {
+                channel.write(copiedBuffer("USB\r\n", US_ASCII)),
+                channel.write(copiedBuffer("IV?\r\n", US_ASCII)),
+                channel.writeAndFlush(copiedBuffer("PING\r\n", US_ASCII))
+        }).get(5, SECONDS);
+
+        for (ChannelFuture future : futures) {
+            assertTrue(future.awaitUninterruptibly(5, SECONDS));
+            assertTrue(future.isSuccess());
+        }
+        assertEquals("USB\r\nIV?\r\nPING\r\n", written.toString(US_ASCII));
+    }
+
+    @Test
+    public void write_withFullOutputBuffer_defersWriteUntilBufferIsDrained() {
+        when(serialPort.bytesAwaitingWrite()).thenReturn(4096, 4096, 0);
+        when(serialPort.writeBytes(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> accept(invocation.getArgument(0), invocation.getArgument(2), invocation.getArgument(1)));
+
+        Channel channel = connect();
+        ChannelFuture future = channel.writeAndFlush(copiedBuffer("USB\r\n", US_ASCII));
+
+        assertTrue(future.awaitUninterruptibly(5, SECONDS));
+        assertTrue(future.isSuccess());
+        assertEquals("USB\r\n", written.toString(US_ASCII));
+        verify(serialPort, times(3)).bytesAwaitingWrite();
+        verify(serialPort, times(1)).writeBytes(any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    public void write_withFailedWrite_failsWrite() {
+        when(serialPort.writeBytes(any(byte[].class), anyInt(), anyInt())).thenReturn(-1);
+
+        Channel channel = connect();
+        ChannelFuture future = channel.writeAndFlush(copiedBuffer("USB\r\n", US_ASCII));
+
+        assertTrue(future.awaitUninterruptibly(5, SECONDS));
+        assertFalse(future.isSuccess());
+    }
+
+
+    /* Connects a channel with the fake serial port. */
+    private Channel connect() {
+        return new Bootstrap()
+                .group(eventLoopGroup)
+                .channelFactory(() -> new SerialChannel(portName -> serialPort))
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(new SerialDeviceAddress("COM1")).syncUninterruptibly().channel();
+    }
+
+    /* Accepts the given number of bytes of the fake serial port and returns the number. */
+    private int accept(byte[] bytes, int offset, int length) {
+        written.write(bytes, offset, length);
+        return length;
+    }
+
+}
@@ -0,0 +1,227 @@
+package de.tbressler.waterrower.io.transport;
+
+import de.tbressler.waterrower.IWaterRowerConnectionListener;
+import de.tbressler.waterrower.WaterRower;
+import de.tbressler.waterrower.WaterRowerInitializer;
+import de.tbressler.waterrower.WaterRowerRuntime;
+import de.tbressler.waterrower.io.ChannelInitializer;
+import de.tbressler.waterrower.io.CommunicationService;
+import de.tbressler.waterrower.io.bridge.TcpSerialBridge;
+import de.tbressler.waterrower.io.emulator.EmulatorAddress;
+import de.tbressler.waterrower.io.emulator.EmulatorChannel;
+import de.tbressler.waterrower.model.ErrorCode;
+import de.tbressler.waterrower.model.ModelInformation;
+import de.tbressler.waterrower.subscriptions.values.StrokeCountSubscription;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.resolver.AddressResolverGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static de.tbressler.waterrower.model.MonitorType.WATER_ROWER_S4;
+import static io.netty.buffer.Unpooled.copiedBuffer;
+import static java.net.InetAddress.getLoopbackAddress;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class TcpChannel.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestTcpChannel {
+
+    /* The event loop group of the channels. */
+    private EventLoopGroup eventLoopGroup;
+
+    /* The received bytes of the server. */
+    private final LinkedBlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+
+    @BeforeEach
+    public void setUp() {
+        eventLoopGroup = new MultiThreadIoEventLoopGroup(1, NioIoHandler.newFactory());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        eventLoopGroup.shutdownGracefully(0, 1, SECONDS).syncUninterruptibly();
+    }
+
+
+    // Connect:
+
+    @Test
+    public void new_disablesNagleAndEnablesKeepAlive() {
+        TcpChannel channel = new TcpChannel();
+
+        assertTrue(channel.config().isTcpNoDelay());
+        assertTrue(channel.config().isKeepAlive());
+    }
+
+    @Test
+    public void connect_withResolvedAddress_connectsToServer() throws Exception {
+        Channel server = bindServer();
+        int port = ((InetSocketAddress) server.localAddress()).getPort();
+
+        Channel channel = bootstrap().connect(new InetSocketAddress(getLoopbackAddress(), port))
+                .syncUninterruptibly().channel();
+        assertTrue(channel.isActive());
+
+        channel.writeAndFlush(copiedBuffer("USB\r\n", US_ASCII));
+
+        assertEquals("USB\r\n", received.poll(5, SECONDS));
+    }
+
+    @Test
+    public void connect_withoutServer_fails() throws Exception {
+        Channel server = bindServer();
+        int port = ((InetSocketAddress) server.localAddress()).getPort();
+        server.close().sync();
+
+        ChannelFuture future = bootstrap().connect(new InetSocketAddress(getLoopbackAddress(), port))
+                .awaitUninterruptibly();
+
+        assertFalse(future.isSuccess());
+    }
+
+    @Test
+    public void connect_withTcpDeviceAddress_failsWithoutLookup() throws Exception {
+        Channel server = bindServer();
+        int port = ((InetSocketAddress) server.localAddress()).getPort();
+
+        ChannelFuture future = bootstrap().connect(new TcpDeviceAddress("localhost", port))
+                .awaitUninterruptibly();
+
+        assertFalse(future.isSuccess());
+    }
+
+    @Test
+    public void open_withHostName_resolvesHostByResolverAndConnectsToServer() throws Exception {
+        Channel server = bindServer();
+        int port = ((InetSocketAddress) server.localAddress()).getPort();
+
+        CommunicationService service = new CommunicationService(new Bootstrap(), new ChannelInitializer(), eventLoopGroup,
+                Runnable::run, TcpChannel::new);
+        service.open(new TcpDeviceAddress("localhost", port));
+        try {
+            assertTrue(service.isConnected());
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void open_withHostNameAndResolverGroup_resolvesHostBySharedResolverGroup() throws Exception {
+        Channel server = bindServer();
+        int port = ((InetSocketAddress) server.localAddress()).getPort();
+
+        AddressResolverGroup<InetSocketAddress> resolverGroup = TcpChannel.newResolverGroup();
+        CommunicationService service = new CommunicationService(new Bootstrap(), new ChannelInitializer(), eventLoopGroup,
+                Runnable::run, TcpChannel::new, resolverGroup);
+        try {
+            service.open(new TcpDeviceAddress("localhost", port));
+            assertTrue(service.isConnected());
+            service.close();
+        } finally {
+            resolverGroup.close();
+        }
+    }
+
+    // Live WaterRower:
+
+    @Test
+    public void tcp_withWaterRowerAndBridge_notifiesSubscriptions() throws Exception {
+        TcpSerialBridge bridge = new TcpSerialBridge(new EmulatorAddress("rower", WATER_ROWER_S4, 60, 4),
+                EmulatorChannel::new, new InetSocketAddress(getLoopbackAddress(), 0));
+        WaterRowerRuntime runtime = new WaterRowerRuntime();
+        try {
+            bridge.start();
+
+            WaterRower waterRower = new WaterRower(new WaterRowerInitializer(runtime, ofMillis(50), ofSeconds(5), TcpChannel::new));
+
+            AtomicReference<ModelInformation> connected = new AtomicReference<>();
+            AtomicReference<ErrorCode> error = new AtomicReference<>();
+            CountDownLatch disconnected = new CountDownLatch(1);
+            waterRower.addConnectionListener(new IWaterRowerConnectionListener() {
+                @Override
+                public void onConnected(ModelInformation modelInformation) {
+                    connected.set(modelInformation);
+                }
+
+                @Override
+                public void onDisconnected() {
+                    disconnected.countDown();
+                }
+
+                @Override
+                public void onError(ErrorCode errorCode) {
+                    error.set(errorCode);
+                }
+            });
+
+            CountDownLatch strokes = new CountDownLatch(1);
+            waterRower.subscribe(new StrokeCountSubscription() {
+                @Override
+                protected void onStrokeCountUpdated(int strokeCount) {
+                    if (strokeCount > 0)
+                        strokes.countDown();
+                }
+            });
+
+            waterRower.connect(new TcpDeviceAddress(getLoopbackAddress().getHostAddress(), bridge.getLocalAddress().getPort()));
+
+            assertTrue(strokes.await(5, SECONDS));
+            assertNotNull(connected.get());
+            assertEquals(WATER_ROWER_S4, connected.get().getMonitorType());
+            assertTrue(bridge.isClientConnected());
+
+            waterRower.disconnect();
+            assertTrue(disconnected.await(5, SECONDS));
+            assertNull(error.get());
+        } finally {
+            bridge.stop();
+            runtime.shutdown();
+        }
+    }
+
+
+    /* Returns the bootstrap of a TCP channel. */
+    private Bootstrap bootstrap() {
+        return new Bootstrap()
+                .group(eventLoopGroup)
+                .channel(TcpChannel.class)
+                .handler(new ChannelInboundHandlerAdapter());
+    }
+
+    /* Binds a server on an ephemeral port of the loopback address, which collects the received bytes. */
+    private Channel bindServer() {
+        return new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ByteBuf buffer = (ByteBuf) msg;
+                        received.add(buffer.toString(US_ASCII));
+                        buffer.release();
+                    }
+                })
+                .bind(new InetSocketAddress(getLoopbackAddress(), 0)).syncUninterruptibly().channel();
+    }
+
+}
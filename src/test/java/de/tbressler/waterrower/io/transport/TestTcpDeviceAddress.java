@@ -0,0 +1,82 @@
+package de.tbressler.waterrower.io.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class TcpDeviceAddress.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestTcpDeviceAddress {
+
+    @Test
+    public void new_withNullHost_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> new TcpDeviceAddress(null, 4001));
+    }
+
+    @Test
+    public void new_withEmptyHost_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new TcpDeviceAddress("", 4001));
+    }
+
+    @Test
+    public void new_withInvalidPort_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new TcpDeviceAddress("localhost", 0));
+        assertThrows(IllegalArgumentException.class, () -> new TcpDeviceAddress("localhost", 65536));
+    }
+
+    @Test
+    public void new_withHostAndPort_returnsValue() {
+        TcpDeviceAddress address = new TcpDeviceAddress("rower-1.local", 4001);
+
+        assertEquals("rower-1.local", address.host());
+        assertEquals(4001, address.port());
+        assertEquals("rower-1.local:4001", address.value());
+        assertEquals("rower-1.local:4001", address.toString());
+    }
+
+    @Test
+    public void parse_withHostAndPort_returnsAddress() {
+        assertEquals(new TcpDeviceAddress("rower-1.local", 4001), TcpDeviceAddress.parse("rower-1.local:4001"));
+    }
+
+    @Test
+    public void parse_withIPv6Address_returnsAddress() {
+        TcpDeviceAddress address = TcpDeviceAddress.parse("[::1]:4001");
+
+        assertEquals("::1", address.host());
+        assertEquals(4001, address.port());
+        assertEquals("[::1]:4001", address.value());
+    }
+
+    @Test
+    public void parse_withInvalidValue_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> TcpDeviceAddress.parse("rower-1.local"));
+        assertThrows(IllegalArgumentException.class, () -> TcpDeviceAddress.parse(":4001"));
+        assertThrows(IllegalArgumentException.class, () -> TcpDeviceAddress.parse("rower-1.local:"));
+        assertThrows(IllegalArgumentException.class, () -> TcpDeviceAddress.parse("rower-1.local:port"));
+    }
+
+    @Test
+    public void toInetSocketAddress_returnsSocketAddress() {
+        InetSocketAddress address = new TcpDeviceAddress("127.0.0.1", 4001).toInetSocketAddress();
+
+        assertEquals("127.0.0.1", address.getHostString());
+        assertEquals(4001, address.getPort());
+    }
+
+    @Test
+    public void toUnresolvedSocketAddress_returnsUnresolvedSocketAddress() {
+        InetSocketAddress address = new TcpDeviceAddress("rower-1.example.org", 4001).toUnresolvedSocketAddress();
+
+        assertTrue(address.isUnresolved());
+        assertEquals("rower-1.example.org", address.getHostString());
+        assertEquals(4001, address.getPort());
+    }
+
+}
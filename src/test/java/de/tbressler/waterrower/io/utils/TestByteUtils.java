@@ -0,0 +1,212 @@
+package de.tbressler.waterrower.io.utils;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static de.tbressler.waterrower.io.utils.ByteUtils.*;
+import static io.netty.buffer.Unpooled.buffer;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class ByteUtils.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestByteUtils {
+
+    // Starts with:
+
+    @Test
+    public void startsWith_withNullBuffer_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> startsWith(null, "I"));
+    }
+
+    @Test
+    public void startsWith_withNullPrefix_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> startsWith(newBuffer("IDS"), null));
+    }
+
+    @Test
+    public void startsWith_withMatchingPrefix_returnsTrue() {
+        assertTrue(startsWith(newBuffer("IDS00101"), "IDS"));
+    }
+
+    @Test
+    public void startsWith_withEmptyPrefix_returnsTrue() {
+        assertTrue(startsWith(newBuffer("IDS00101"), ""));
+    }
+
+    @Test
+    public void startsWith_withDifferentPrefix_returnsFalse() {
+        assertFalse(startsWith(newBuffer("IDS00101"), "IDD"));
+    }
+
+    @Test
+    public void startsWith_withPrefixLongerThanBuffer_returnsFalse() {
+        assertFalse(startsWith(newBuffer("P"), "PING"));
+    }
+
+    @Test
+    public void startsWith_withReaderIndex1_comparesFromReaderIndex() {
+        ByteBuf buffer = newBuffer("XPING");
+        buffer.readByte();
+
+        assertTrue(startsWith(buffer, "PING"));
+        assertEquals(1, buffer.readerIndex());
+    }
+
+
+    // ACH to int:
+
+    @Test
+    public void achToInt_withNullBuffer_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> achToInt(null, 0, 2));
+    }
+
+    @Test
+    public void achToInt_with0Chars_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> achToInt(newBuffer("01"), 0, 0));
+    }
+
+    @Test
+    public void achToInt_withText_throwsNumberFormatException() {
+        assertThrows(NumberFormatException.class, () -> achToInt(newBuffer("XY"), 0, 2));
+    }
+
+    @Test
+    public void achToInt_withTooFewCharacters_throwsIndexOutOfBoundsException() {
+        assertThrows(IndexOutOfBoundsException.class, () -> achToInt(newBuffer("IDS0"), 3, 3));
+    }
+
+    @Test
+    public void achToInt_withHex01_returnsInteger1() {
+        assertEquals(1, achToInt(newBuffer("01"), 0, 2));
+    }
+
+    @Test
+    public void achToInt_withHexFF_returnsInteger255() {
+        assertEquals(255, achToInt(newBuffer("FF"), 0, 2));
+    }
+
+    @Test
+    public void achToInt_withLowerCaseHexff_returnsInteger255() {
+        assertEquals(255, achToInt(newBuffer("ff"), 0, 2));
+    }
+
+    @Test
+    public void achToInt_withHexFFFAtIndex3_returnsInteger4095() {
+        assertEquals(4095, achToInt(newBuffer("IDSFFF01"), 3, 3));
+    }
+
+    @Test
+    public void achToInt_withHex1A2_returnsInteger418() {
+        ByteBuf buffer = newBuffer("IDT1A2010203");
+
+        assertEquals(0x1A2, achToInt(buffer, 3, 3));
+        assertEquals(0, buffer.readerIndex());
+    }
+
+
+
+    // Write ACH:
+
+    @Test
+    public void writeAch_withNullBuffer_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> writeAch(null, 1, 3));
+    }
+
+    @Test
+    public void writeAch_with0Chars_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> writeAch(buffer(), 1, 0));
+    }
+
+    @Test
+    public void writeAch_withNegativeValue_throwsNumberFormatException() {
+        assertThrows(NumberFormatException.class, () -> writeAch(buffer(), -1, 3));
+    }
+
+    @Test
+    public void writeAch_with3328ValueAnd2Chars_throwsNumberFormatException() {
+        assertThrows(NumberFormatException.class, () -> writeAch(buffer(), 3328, 2));
+    }
+
+    @Test
+    public void writeAch_with0xFFFAnd3Chars_writesFFF() {
+        assertEquals("FFF", writeAchToString(0xFFF, 3));
+    }
+
+    @Test
+    public void writeAch_with0x1A9And4Chars_writes01A9() {
+        assertEquals("01A9", writeAchToString(0x1A9, 4));
+    }
+
+    @Test
+    public void writeAch_with0And1Char_writes0() {
+        assertEquals("0", writeAchToString(0, 1));
+    }
+
+    @Test
+    public void writeAch_withBufferWithBytes_appendsValue() {
+        ByteBuf buffer = buffer(3).writeBytes("IRD".getBytes(UTF_8));
+
+        writeAch(buffer, 0x1A9, 3);
+
+        assertEquals("IRD1A9", buffer.toString(UTF_8));
+    }
+
+
+    // Write ACD:
+
+    @Test
+    public void writeAcd_withNullBuffer_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> writeAcd(null, 1, 3));
+    }
+
+    @Test
+    public void writeAcd_with10Chars_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> writeAcd(buffer(), 1, 10));
+    }
+
+    @Test
+    public void writeAcd_withNegativeValue_throwsNumberFormatException() {
+        assertThrows(NumberFormatException.class, () -> writeAcd(buffer(), -1, 3));
+    }
+
+    @Test
+    public void writeAcd_with123ValueAnd2Chars_throwsNumberFormatException() {
+        assertThrows(NumberFormatException.class, () -> writeAcd(buffer(), 123, 2));
+    }
+
+    @Test
+    public void writeAcd_with12And3Chars_writes012() {
+        assertEquals("012", writeAcdToString(12, 3));
+    }
+
+    @Test
+    public void writeAcd_with999999999And9Chars_writes999999999() {
+        assertEquals("999999999", writeAcdToString(999_999_999, 9));
+    }
+
+
+    // Helper methods:
+
+    private ByteBuf newBuffer(String content) {
+        return wrappedBuffer(content.getBytes(UTF_8));
+    }
+
+    private String writeAchToString(int value, int chars) {
+        ByteBuf buffer = buffer();
+        writeAch(buffer, value, chars);
+        return buffer.toString(UTF_8);
+    }
+
+    private String writeAcdToString(int value, int chars) {
+        ByteBuf buffer = buffer();
+        writeAcd(buffer, value, chars);
+        return buffer.toString(UTF_8);
+    }
+
+}
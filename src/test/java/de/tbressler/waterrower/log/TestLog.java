@@ -0,0 +1,143 @@
+package de.tbressler.waterrower.log;
+
+import de.tbressler.waterrower.io.SerialHandler;
+import de.tbressler.waterrower.io.codec.MessageFrameEncoder;
+import de.tbressler.waterrower.io.codec.MessageLineDecoder;
+import de.tbressler.waterrower.io.codec.MessageParser;
+import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.tbressler.waterrower.io.msg.Memory.DOUBLE_MEMORY;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for class Log.
+ *
+ * The log level of the tests is info (see simplelogger.properties), therefore debug is disabled.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestLog {
+
+    /* The number of frames, which are measured. */
+    private static final int NUMBER_OF_FRAMES = 10_000;
+
+
+    @Test
+    public void isDebugEnabled_withLevelInfo_returnsFalse() {
+        assertFalse(Log.isDebugEnabled());
+    }
+
+    @Test
+    public void refreshLevels_withLevelInfo_keepsDebugDisabled() {
+        Log.refreshLevels();
+        assertFalse(Log.isDebugEnabled());
+    }
+
+    @Test
+    public void debug_whenDebugIsDisabled_allocatesNoBytesPerFrame() {
+        com.sun.management.ThreadMXBean threadBean = getThreadBean();
+
+        ReadMemoryMessage msg = ReadMemoryMessage.of(DOUBLE_MEMORY, 0x1A9);
+
+        // Warm up, so that class loading is not measured:
+        logFrames(msg, 1_000);
+
+        long allocatedBytes = threadBean.getCurrentThreadAllocatedBytes();
+        logFrames(msg, NUMBER_OF_FRAMES);
+        allocatedBytes = threadBean.getCurrentThreadAllocatedBytes() - allocatedBytes;
+
+        assertEquals(0, allocatedBytes);
+    }
+
+    @Test
+    public void pipeline_whenDebugIsDisabled_doesntFormatMessages() {
+        MessageParser parser = new MessageParser();
+        List<AbstractMessage> receivedMessages = new ArrayList<>();
+        AtomicInteger formattedMessages = new AtomicInteger();
+
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new MessageLineDecoder(parser, 64),
+                new MessageFrameEncoder(parser),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        // Replace the decoded message by a spy, which counts the calls of toString():
+                        AbstractMessage receivedMessage = spy((AbstractMessage) msg);
+                        countToString(receivedMessage, formattedMessages);
+                        receivedMessages.add(receivedMessage);
+                        ctx.fireChannelRead(receivedMessage);
+                    }
+                },
+                new SerialHandler() {
+                    @Override
+                    protected void onMessageReceived(AbstractMessage message) {}
+
+                    @Override
+                    protected void onConnected() {}
+
+                    @Override
+                    protected void onDisconnected() {}
+
+                    @Override
+                    protected void onError() {}
+                });
+
+        ReadMemoryMessage read = spy(new ReadMemoryMessage(DOUBLE_MEMORY, 0x1A9));
+        countToString(read, formattedMessages);
+
+        for (int i = 0; i < 100; i++) {
+            channel.writeOutbound(read);
+            channel.writeInbound(wrappedBuffer("IDD1A90102\r\nSS\r\nP0A\r\n".getBytes(US_ASCII)));
+        }
+
+        assertEquals(300, receivedMessages.size());
+        assertEquals(0, formattedMessages.get());
+
+        channel.finishAndReleaseAll();
+    }
+
+    /* Counts the calls of toString() of the given spy. */
+    private void countToString(AbstractMessage msg, AtomicInteger counter) {
+        doAnswer(invocation -> {
+            counter.incrementAndGet();
+            return invocation.callRealMethod();
+        }).when(msg).toString();
+    }
+
+    /* Logs the debug messages of the hot path for the given number of frames. */
+    private void logFrames(ReadMemoryMessage msg, int frames) {
+        for (int i = 0; i < frames; i++) {
+            Log.debug("Parsing message to object.");
+            Log.debug("Parsing message '{}' to bytes.", msg);
+            Log.debug("Read {} failed: {}", msg, "timeout");
+            Log.debug("Not all messages were answered by the WaterRower (missing {} message(s)).", 1_000 + i);
+        }
+    }
+
+    /* Returns the thread bean or skips the test, if the allocations can not be measured. */
+    private com.sun.management.ThreadMXBean getThreadBean() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+        // The first call may allocate:
+        threadBean.getCurrentThreadAllocatedBytes();
+        return threadBean;
+    }
+
+}
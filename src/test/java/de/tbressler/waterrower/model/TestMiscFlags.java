@@ -117,6 +117,25 @@ public class TestMiscFlags {
 
     // Equals / hash code:
 
+    // Static decoders:
+
+    @Test
+    public void staticDecoders_withAllValues_returnSameFlagsAsInstance() {
+        for (int value = 0x00; value <= 0xFF; value++) {
+            MiscFlags flags = new MiscFlags(value);
+            assertEquals(value, flags.getValue());
+            assertEquals(flags.isZoneWork(), MiscFlags.isZoneWork(value));
+            assertEquals(flags.isZoneRest(), MiscFlags.isZoneRest(value));
+            assertEquals(flags.isBatteryLow(), MiscFlags.isBatteryLow(value));
+            assertEquals(flags.isPCConnected(), MiscFlags.isPCConnected(value));
+            assertEquals(flags.isMiscLine(), MiscFlags.isMiscLine(value));
+            assertEquals(flags.isMiscMmcCd(), MiscFlags.isMiscMmcCd(value));
+            assertEquals(flags.isMiscMmcUp(), MiscFlags.isMiscMmcUp(value));
+            assertEquals(flags.isMiscMmcDn(), MiscFlags.isMiscMmcDn(value));
+        }
+    }
+
+
     @Test
     public void equals_testEqualsContract() {
         MiscFlags a = new MiscFlags(1);
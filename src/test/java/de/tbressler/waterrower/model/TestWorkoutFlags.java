@@ -117,6 +117,25 @@ public class TestWorkoutFlags {
 
     // Equals / hash code:
 
+    // Static decoders:
+
+    @Test
+    public void staticDecoders_withAllValues_returnSameFlagsAsInstance() {
+        for (int value = 0x00; value <= 0xFF; value++) {
+            WorkoutFlags flags = new WorkoutFlags(value);
+            assertEquals(value, flags.getValue());
+            assertEquals(flags.isWorkingInHeartRateZone(), WorkoutFlags.isWorkingInHeartRateZone(value));
+            assertEquals(flags.isWorkingInIntensityZone(), WorkoutFlags.isWorkingInIntensityZone(value));
+            assertEquals(flags.isWorkingInStrokeRateZone(), WorkoutFlags.isWorkingInStrokeRateZone(value));
+            assertEquals(flags.isPrognosticsActive(), WorkoutFlags.isPrognosticsActive(value));
+            assertEquals(flags.isWorkoutDistanceMode(), WorkoutFlags.isWorkoutDistanceMode(value));
+            assertEquals(flags.isWorkoutDurationMode(), WorkoutFlags.isWorkoutDurationMode(value));
+            assertEquals(flags.isWorkoutDistanceIntervalMode(), WorkoutFlags.isWorkoutDistanceIntervalMode(value));
+            assertEquals(flags.isWorkoutDurationIntervalMode(), WorkoutFlags.isWorkoutDurationIntervalMode(value));
+        }
+    }
+
+
     @Test
     public void equals_testEqualsContract() {
         WorkoutFlags a = new WorkoutFlags(1);
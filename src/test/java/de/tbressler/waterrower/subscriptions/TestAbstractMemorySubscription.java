@@ -14,6 +14,7 @@ import static de.tbressler.waterrower.io.msg.Memory.SINGLE_MEMORY;
 import static de.tbressler.waterrower.model.MemoryLocation.*;
 import static de.tbressler.waterrower.subscriptions.Priority.HIGH;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -81,6 +82,14 @@ public class TestAbstractMemorySubscription {
     }
 
 
+    @Test
+    public void poll_calledTwice_returnsSameMessage() {
+        subscription = newAbstractMemorySubscription(HIGH, DOUBLE_MEMORY, M_S_PROJH_AVG);
+
+        assertSame(subscription.poll(), subscription.poll());
+    }
+
+
     // Handle:
 
     @Test
@@ -127,6 +136,61 @@ public class TestAbstractMemorySubscription {
     }
 
 
+    @Test
+    public void handle_withMergedTripleMessageAtSameLocation_notifiesInternalHandlerWithOwnValues() {
+        subscription = newAbstractMemorySubscription(HIGH, DOUBLE_MEMORY, STROKES_CNT_LOW);
+
+        subscription.handle((AbstractMessage) new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x03, 0x02, 0x01));
+
+        verify(internalSubscription, times(1)).handle(argThat(msg ->
+                (msg.getMemory() == DOUBLE_MEMORY)
+                && (msg.getLocation() == STROKES_CNT_LOW.getLocation())
+                && (msg.getValue2() == 0x02)
+                && (msg.getValue1() == 0x01)));
+    }
+
+    @Test
+    public void handle_withMergedTripleMessageAtPreviousLocation_notifiesInternalHandlerWithOwnValues() {
+        subscription = newAbstractMemorySubscription(HIGH, SINGLE_MEMORY, STROKE_AVERAGE);
+
+        subscription.handle((AbstractMessage) new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x03, 0x02, 0x01));
+
+        verify(internalSubscription, times(1)).handle(argThat(msg ->
+                (msg.getMemory() == SINGLE_MEMORY)
+                && (msg.getLocation() == STROKE_AVERAGE.getLocation())
+                && (msg.getValue1() == 0x03)));
+    }
+
+    @Test
+    public void handle_withMergedTripleMessageAtPreviousLocation_keepsReceiveTime() {
+        subscription = newAbstractMemorySubscription(HIGH, SINGLE_MEMORY, STROKE_AVERAGE);
+        DataMemoryMessage msg = spy(new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x03, 0x02, 0x01));
+        when(msg.getReceivedNanos()).thenReturn(1234L);
+
+        subscription.handle((AbstractMessage) msg);
+
+        verify(internalSubscription, times(1)).handle(argThat(extracted -> extracted.getReceivedNanos() == 1234L));
+    }
+
+    @Test
+    public void handle_withMergedMessageNotContainingAllLocations_doesntNotifyInternalHandler() {
+        subscription = newAbstractMemorySubscription(HIGH, DOUBLE_MEMORY, STROKES_CNT_HI);
+
+        subscription.handle((AbstractMessage) new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x02, 0x01));
+
+        verify(internalSubscription, never()).handle(any(DataMemoryMessage.class));
+    }
+
+    @Test
+    public void handle_withMessageAtFollowingLocation_doesntNotifyInternalHandler() {
+        subscription = newAbstractMemorySubscription(HIGH, DOUBLE_MEMORY, STROKES_CNT_LOW);
+
+        subscription.handle((AbstractMessage) new DataMemoryMessage(STROKES_CNT_HI.getLocation(), 0x03, 0x02, 0x01));
+
+        verify(internalSubscription, never()).handle(any(DataMemoryMessage.class));
+    }
+
+
     // Helper methods:
 
     private AbstractMemorySubscription newAbstractMemorySubscription(Priority priority, Memory memory, MemoryLocation location) {
@@ -0,0 +1,132 @@
+package de.tbressler.waterrower.subscriptions;
+
+import de.tbressler.waterrower.io.msg.Memory;
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.model.MemoryLocation;
+import org.junit.jupiter.api.Test;
+
+import static de.tbressler.waterrower.io.msg.Memory.*;
+import static de.tbressler.waterrower.model.MemoryLocation.*;
+import static de.tbressler.waterrower.subscriptions.Priority.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class MemoryMirror.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestMemoryMirror {
+
+    // Class under test.
+    private MemoryMirror memoryMirror = new MemoryMirror();
+
+
+    // Values:
+
+    @Test
+    public void update_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> memoryMirror.update(null));
+    }
+
+    @Test
+    public void getValue_withoutUpdate_returnsMinus1() {
+        assertEquals(-1, memoryMirror.getValue(STROKES_CNT_LOW));
+    }
+
+    @Test
+    public void getAge_withoutUpdate_returnsNull() {
+        assertNull(memoryMirror.getAge(STROKES_CNT_LOW));
+    }
+
+    @Test
+    public void update_withSingleMemory_updatesLocation() {
+        memoryMirror.update(new DataMemoryMessage(TANK_VOLUME.getLocation(), 0xAB));
+
+        assertEquals(0xAB, memoryMirror.getValue(TANK_VOLUME));
+        assertNotNull(memoryMirror.getAge(TANK_VOLUME));
+    }
+
+    @Test
+    public void update_withDoubleMemory_updatesBothLocations() {
+        memoryMirror.update(new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01, 0x02));
+
+        assertEquals(0x02, memoryMirror.getValue(STROKES_CNT_LOW));
+        assertEquals(0x01, memoryMirror.getValue(STROKES_CNT_HI));
+        assertEquals(-1, memoryMirror.getValue(STROKE_AVERAGE));
+    }
+
+    @Test
+    public void update_withTripleMemory_updatesAllLocations() {
+        memoryMirror.update(new DataMemoryMessage(MS_DISTANCE_DEC.getLocation(), 0x01, 0x02, 0x03));
+
+        assertEquals(0x03, memoryMirror.getValue(MS_DISTANCE_DEC));
+        assertEquals(0x02, memoryMirror.getValue(MS_DISTANCE_LOW));
+        assertEquals(0x01, memoryMirror.getValue(MS_DISTANCE_HI));
+    }
+
+    @Test
+    public void update_twice_keepsLatestValue() {
+        memoryMirror.update(new DataMemoryMessage(TANK_VOLUME.getLocation(), 0x01));
+        long timestamp = memoryMirror.getTimestamp(TANK_VOLUME);
+        memoryMirror.update(new DataMemoryMessage(TANK_VOLUME.getLocation(), 0x02));
+
+        assertEquals(0x02, memoryMirror.getValue(TANK_VOLUME));
+        assertTrue(memoryMirror.getTimestamp(TANK_VOLUME) >= timestamp);
+    }
+
+
+    // Interests:
+
+    @Test
+    public void register_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> memoryMirror.register(null));
+    }
+
+    @Test
+    public void unregister_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> memoryMirror.unregister(null));
+    }
+
+    @Test
+    public void getPriority_withoutSubscriptions_returnsNoPolling() {
+        assertEquals(NO_POLLING, memoryMirror.getPriority(DOUBLE_MEMORY, STROKES_CNT_LOW));
+    }
+
+    @Test
+    public void getPriority_withSubscriptions_returnsHighestPriority() {
+        memoryMirror.register(newSubscription(LOW, DOUBLE_MEMORY, STROKES_CNT_LOW));
+        memoryMirror.register(newSubscription(MEDIUM, DOUBLE_MEMORY, STROKES_CNT_LOW));
+
+        assertEquals(MEDIUM, memoryMirror.getPriority(DOUBLE_MEMORY, STROKES_CNT_LOW));
+    }
+
+    @Test
+    public void getPriority_withOtherMemoryType_returnsNoPolling() {
+        memoryMirror.register(newSubscription(HIGH, DOUBLE_MEMORY, STROKES_CNT_LOW));
+
+        assertEquals(NO_POLLING, memoryMirror.getPriority(SINGLE_MEMORY, STROKES_CNT_LOW));
+    }
+
+    @Test
+    public void getPriority_afterUnregister_returnsRemainingPriority() {
+        AbstractMemorySubscription subscription = newSubscription(HIGH, DOUBLE_MEMORY, STROKES_CNT_LOW);
+        memoryMirror.register(subscription);
+        memoryMirror.register(newSubscription(LOW, DOUBLE_MEMORY, STROKES_CNT_LOW));
+
+        memoryMirror.unregister(subscription);
+
+        assertEquals(LOW, memoryMirror.getPriority(DOUBLE_MEMORY, STROKES_CNT_LOW));
+    }
+
+
+    // Helper methods:
+
+    private AbstractMemorySubscription newSubscription(Priority priority, Memory memory, MemoryLocation location) {
+        return new AbstractMemorySubscription(priority, memory, location) {
+            @Override
+            protected void handle(DataMemoryMessage msg) {}
+        };
+    }
+
+}
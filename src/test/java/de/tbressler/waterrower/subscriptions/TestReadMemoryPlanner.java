@@ -0,0 +1,168 @@
+package de.tbressler.waterrower.subscriptions;
+
+import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.Memory;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
+import de.tbressler.waterrower.model.MemoryLocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static de.tbressler.waterrower.io.msg.Memory.*;
+import static de.tbressler.waterrower.model.MemoryLocation.*;
+import static de.tbressler.waterrower.subscriptions.ReadMemoryPlanner.merge;
+import static de.tbressler.waterrower.subscriptions.ReadMemoryPlanner.plan;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for class ReadMemoryPlanner.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestReadMemoryPlanner {
+
+    // Mocks:
+    private AbstractMessage someMessage1 = mock(AbstractMessage.class, "someMessage1");
+    private AbstractMessage someMessage2 = mock(AbstractMessage.class, "someMessage2");
+
+
+    @Test
+    public void plan_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> plan(null));
+    }
+
+    @Test
+    public void plan_withoutReads_returnsMessagesInSameOrder() {
+        List<AbstractMessage> result = plan(asList(someMessage1, someMessage2));
+
+        assertEquals(asList(someMessage1, someMessage2), result);
+    }
+
+    @Test
+    public void plan_withSingleRead_returnsSameRead() {
+        List<AbstractMessage> result = plan(asList(read(DOUBLE_MEMORY, KCAL_WATTS_LOW)));
+
+        assertEquals(1, result.size());
+        assertRead(result.get(0), DOUBLE_MEMORY, KCAL_WATTS_LOW);
+    }
+
+    @Test
+    public void plan_withSameReadTwice_returnsOneRead() {
+        List<AbstractMessage> result = plan(asList(read(DOUBLE_MEMORY, KCAL_WATTS_LOW), read(DOUBLE_MEMORY, KCAL_WATTS_LOW)));
+
+        assertEquals(1, result.size());
+        assertRead(result.get(0), DOUBLE_MEMORY, KCAL_WATTS_LOW);
+    }
+
+    @Test
+    public void plan_withStrokeCountAndStrokeAverage_returnsOneTripleRead() {
+        List<AbstractMessage> result = plan(asList(read(SINGLE_MEMORY, STROKE_AVERAGE), read(DOUBLE_MEMORY, STROKES_CNT_LOW)));
+
+        assertEquals(1, result.size());
+        assertRead(result.get(0), TRIPLE_MEMORY, STROKES_CNT_LOW);
+    }
+
+    @Test
+    public void plan_withOverlappingReads_returnsOneRead() {
+        List<AbstractMessage> result = plan(asList(read(TRIPLE_MEMORY, MS_DISTANCE_DEC), read(DOUBLE_MEMORY, MS_DISTANCE_LOW)));
+
+        assertEquals(1, result.size());
+        assertRead(result.get(0), TRIPLE_MEMORY, MS_DISTANCE_DEC);
+    }
+
+    @Test
+    public void plan_withAdjacentSingleReads_returnsOneDoubleRead() {
+        List<AbstractMessage> result = plan(asList(read(SINGLE_MEMORY, M_S_STORED), read(SINGLE_MEMORY, M_S_PROJL_AVG)));
+
+        assertEquals(1, result.size());
+        assertRead(result.get(0), DOUBLE_MEMORY, M_S_STORED);
+    }
+
+    @Test
+    public void plan_withReadsWithGap_returnsSeparateReads() {
+        List<AbstractMessage> result = plan(asList(read(SINGLE_MEMORY, STROKES_CNT_LOW), read(SINGLE_MEMORY, STROKE_AVERAGE)));
+
+        assertEquals(2, result.size());
+        assertRead(result.get(0), SINGLE_MEMORY, STROKES_CNT_LOW);
+        assertRead(result.get(1), SINGLE_MEMORY, STROKE_AVERAGE);
+    }
+
+    @Test
+    public void plan_withAdjacentDoubleReads_doesntSplitValues() {
+        List<AbstractMessage> result = plan(asList(read(DOUBLE_MEMORY, M_S_LOW_AVERAGE), read(DOUBLE_MEMORY, M_S_LOW_TOTAL)));
+
+        assertEquals(2, result.size());
+        assertRead(result.get(0), DOUBLE_MEMORY, M_S_LOW_TOTAL);
+        assertRead(result.get(1), DOUBLE_MEMORY, M_S_LOW_AVERAGE);
+    }
+
+    @Test
+    public void plan_withDistanceAndDisplayedDistance_returnsTwoReads() {
+        List<AbstractMessage> result = plan(asList(read(TRIPLE_MEMORY, MS_DISTANCE_DEC), read(DOUBLE_MEMORY, DISTANCE_LOW)));
+
+        assertEquals(2, result.size());
+        assertRead(result.get(0), TRIPLE_MEMORY, MS_DISTANCE_DEC);
+        assertRead(result.get(1), DOUBLE_MEMORY, DISTANCE_LOW);
+    }
+
+    @Test
+    public void plan_withReadsAndOtherMessages_returnsOtherMessagesFirst() {
+        List<AbstractMessage> result = plan(asList(read(SINGLE_MEMORY, TANK_VOLUME), someMessage1, someMessage2));
+
+        assertEquals(3, result.size());
+        assertEquals(someMessage1, result.get(0));
+        assertEquals(someMessage2, result.get(1));
+        assertRead(result.get(2), SINGLE_MEMORY, TANK_VOLUME);
+    }
+
+
+    // Merge:
+
+    @Test
+    public void merge_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> merge(null, read(SINGLE_MEMORY, TANK_VOLUME)));
+        assertThrows(NullPointerException.class, () -> merge(read(SINGLE_MEMORY, TANK_VOLUME), null));
+    }
+
+    @Test
+    public void merge_withAdjacentReads_returnsMergedSharedRead() {
+        ReadMemoryMessage result = merge(read(SINGLE_MEMORY, STROKE_AVERAGE), read(DOUBLE_MEMORY, STROKES_CNT_LOW));
+
+        assertRead(result, TRIPLE_MEMORY, STROKES_CNT_LOW);
+        assertSame(ReadMemoryMessage.of(TRIPLE_MEMORY, STROKES_CNT_LOW.getLocation()), result);
+    }
+
+    @Test
+    public void merge_withSameReads_returnsRead() {
+        ReadMemoryMessage result = merge(read(DOUBLE_MEMORY, KCAL_WATTS_LOW), read(DOUBLE_MEMORY, KCAL_WATTS_LOW));
+
+        assertRead(result, DOUBLE_MEMORY, KCAL_WATTS_LOW);
+    }
+
+    @Test
+    public void merge_withTooLargeMergedRead_returnsNull() {
+        assertNull(merge(read(TRIPLE_MEMORY, MS_DISTANCE_DEC), read(DOUBLE_MEMORY, DISTANCE_LOW)));
+    }
+
+    @Test
+    public void merge_withReadsWithGap_returnsNull() {
+        assertNull(merge(read(SINGLE_MEMORY, STROKES_CNT_LOW), read(SINGLE_MEMORY, STROKE_AVERAGE)));
+    }
+
+
+    // Helper methods:
+
+    private ReadMemoryMessage read(Memory memory, MemoryLocation location) {
+        return new ReadMemoryMessage(memory, location.getLocation());
+    }
+
+    private void assertRead(AbstractMessage msg, Memory memory, MemoryLocation location) {
+        assertTrue(msg instanceof ReadMemoryMessage);
+        assertEquals(memory, ((ReadMemoryMessage) msg).getMemory());
+        assertEquals(location.getLocation(), ((ReadMemoryMessage) msg).getLocation());
+    }
+
+}
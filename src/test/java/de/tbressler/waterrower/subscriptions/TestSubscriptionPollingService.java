@@ -1,19 +1,33 @@
 package de.tbressler.waterrower.subscriptions;
 
 import de.tbressler.waterrower.io.IConnectionListener;
+import de.tbressler.waterrower.io.ReadRequest;
 import de.tbressler.waterrower.io.WaterRowerConnector;
 import de.tbressler.waterrower.io.msg.AbstractMessage;
+import de.tbressler.waterrower.io.msg.Memory;
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
+import de.tbressler.waterrower.model.MemoryLocation;
+import de.tbressler.waterrower.subscriptions.metrics.PollMetrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 
+import static de.tbressler.waterrower.io.msg.Memory.DOUBLE_MEMORY;
+import static de.tbressler.waterrower.io.msg.Memory.SINGLE_MEMORY;
+import static de.tbressler.waterrower.model.MemoryLocation.*;
+import static de.tbressler.waterrower.subscriptions.Priority.*;
 import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentCaptor.forClass;
 import static org.mockito.Mockito.*;
 
@@ -40,6 +54,11 @@ public class TestSubscriptionPollingService {
     private AbstractMessage someMessage2 = mock(AbstractMessage.class, "someMessage2");
     private AbstractMessage someMessage3 = mock(AbstractMessage.class, "someMessage3");
 
+    private ReadRequest readRequest = mock(ReadRequest.class, "readRequest");
+
+    // The time of the clock (in ns).
+    private long time = 0;
+
     // Capture:
     private ArgumentCaptor<Runnable> pollTask = forClass(Runnable.class);
     private ArgumentCaptor<Runnable> sendTask1 = forClass(Runnable.class);
@@ -48,9 +67,14 @@ public class TestSubscriptionPollingService {
 
 
     @BeforeEach
-    public void setUp() {
-        pollingService = new SubscriptionPollingService(connector, executorService, Duration.ofMillis(200));
+    public void setUp() throws IOException {
+        pollingService = new SubscriptionPollingService(connector, executorService, Duration.ofMillis(200), () -> time);
         verify(connector).addConnectionListener(listener.capture());
+        when(connector.send(any(AbstractMessage.class))).thenReturn(completedFuture(null));
+        when(connector.read(any(ReadMemoryMessage.class))).thenReturn(readRequest);
+        when(connector.getMaxInFlightReads()).thenReturn(1);
+        when(readRequest.getSentFuture()).thenReturn(completedFuture(null));
+        when(readRequest.getAnswerFuture()).thenReturn(completedFuture(null));
     }
 
     // Constructor:
@@ -92,7 +116,8 @@ public class TestSubscriptionPollingService {
 
         pollTask.getValue().run();
 
-        verify(executorService, times(2)).schedule(sendTask1.capture(), eq((long) 200), eq(MILLISECONDS));
+        // The next message is sent immediately after the previous message was sent.
+        verify(executorService, times(1)).schedule(sendTask1.capture(), eq((long) 0), eq(MILLISECONDS));
 
         sendTask1.getValue().run();
 
@@ -129,6 +154,8 @@ public class TestSubscriptionPollingService {
         verify(executorService, times(1)).schedule(pollTask.capture(), eq((long) 200), eq(MILLISECONDS));
 
         pollTask.getValue().run();
+
+        verify(executorService, times(2)).schedule(any(Runnable.class), eq((long) 200), eq(MILLISECONDS));
     }
 
     // Message received:
@@ -198,9 +225,350 @@ public class TestSubscriptionPollingService {
     }
 
 
+    // Scheduling:
+
+    @Test
+    public void callRunnable_withSingleHighSubscription_pollsEveryCycle() throws IOException {
+
+        subscribe(subscription1, someMessage1);
+
+        pollingService.start();
+        runNextTasks(11);
+
+        verify(connector, times(11)).send(someMessage1);
+        assertFalse(pollingService.isOverSubscribed());
+    }
+
+    @Test
+    public void callRunnable_withSingleMediumSubscription_pollsEverySecondCycle() throws IOException {
+
+        subscribe(subscription1, someMessage1);
+        when(subscription1.getPriority()).thenReturn(MEDIUM);
+
+        pollingService.start();
+        runNextTasks(10);
+
+        verify(connector, times(5)).send(someMessage1);
+        assertFalse(pollingService.isOverSubscribed());
+    }
+
+    @Test
+    public void callRunnable_withHighAndLowSubscription_pollsByPriority() throws IOException {
+
+        subscribe(subscription1, someMessage1);
+        subscribe(subscription2, someMessage2);
+        when(subscription2.getPriority()).thenReturn(LOW);
+
+        pollingService.start();
+        runNextTasks(26);
+
+        verify(connector, times(21)).send(someMessage1);
+        verify(connector, times(5)).send(someMessage2);
+    }
+
+    @Test
+    public void callRunnable_withNoPollingSubscription_doesntPollSubscription() throws IOException {
+
+        subscribe(subscription1, someMessage1);
+        when(subscription1.getPriority()).thenReturn(NO_POLLING);
+
+        pollingService.start();
+        runNextTasks(3);
+
+        verify(connector, never()).send(someMessage1);
+    }
+
+    @Test
+    public void callRunnable_withManySubscriptions_pollsAllSubscriptionsAndReportsOverSubscription() throws IOException {
+
+        List<AbstractMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            AbstractMessage msg = mock(AbstractMessage.class, "message" + i);
+            subscribe(mock(ISubscription.class, "subscription" + i), msg);
+            messages.add(msg);
+        }
+
+        pollingService.start();
+        runNextTasks(25);
+
+        for (AbstractMessage msg : messages)
+            verify(connector, times(1)).send(msg);
+        assertTrue(pollingService.isOverSubscribed());
+    }
+
+    @Test
+    public void callRunnable_afterStallOfSeveralPeriods_pollsEachSubscriptionOnce() throws IOException {
+
+        subscribe(subscription1, someMessage1);
+        subscribe(subscription2, someMessage2);
+
+        pollingService.start();
+        runNextTasks(2);
+
+        // The polling stalls for 10 cycles (e.g. a GC pause), the clock doesn't advance afterwards:
+        time += MILLISECONDS.toNanos(2000);
+        runNextTasks(5, 0);
+
+        verify(connector, times(2)).send(someMessage1);
+        verify(connector, times(2)).send(someMessage2);
+    }
+
+
+    // Reads:
+
+    @Test
+    public void callRunnable_withUnansweredRead_waitsForAnswer() throws IOException {
+
+        CompletableFuture<DataMemoryMessage> answer = new CompletableFuture<>();
+        when(readRequest.getAnswerFuture()).thenReturn(answer);
+        pollingService.subscribe(newMemorySubscription(HIGH));
+
+        pollingService.start();
+        runNextTasks(1);
+
+        verify(executorService, times(1)).schedule(any(Runnable.class), anyLong(), eq(MILLISECONDS));
+
+        answer.complete(new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01, 0x02));
+
+        verify(executorService, times(1)).schedule(any(Runnable.class), eq((long) 0), eq(MILLISECONDS));
+    }
+
+    @Test
+    public void callRunnable_withWindowOfTwoReads_sendsNextReadImmediately() throws IOException {
+
+        when(connector.getMaxInFlightReads()).thenReturn(2);
+        when(readRequest.getAnswerFuture()).thenReturn(new CompletableFuture<>());
+        pollingService.subscribe(newMemorySubscription(HIGH));
+
+        pollingService.start();
+        runNextTasks(1);
+
+        verify(executorService, times(1)).schedule(any(Runnable.class), eq((long) 0), eq(MILLISECONDS));
+    }
+
+
+    // Routing:
+
+    @Test
+    public void onMessageReceived_withDataMemoryMessage_handsMessageOnlyToSubscriptionsOfLocation() {
+
+        AbstractMemorySubscription memorySubscription1 = mockMemorySubscription(SINGLE_MEMORY, STROKES_CNT_LOW);
+        AbstractMemorySubscription memorySubscription2 = mockMemorySubscription(SINGLE_MEMORY, TANK_VOLUME);
+        pollingService.subscribe(memorySubscription1);
+        pollingService.subscribe(memorySubscription2);
+        pollingService.subscribe(subscription1);
+
+        pollingService.start();
+
+        DataMemoryMessage msg = new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01);
+        listener.getValue().onMessageReceived(msg);
+
+        verify(memorySubscription1, times(1)).handle(msg);
+        verify(memorySubscription2, never()).handle(any(AbstractMessage.class));
+        verify(subscription1, times(1)).handle(msg);
+    }
+
+    @Test
+    public void onMessageReceived_withMergedDataMemoryMessage_handsMessageToSubscriptionsOfAllLocations() {
+
+        AbstractMemorySubscription memorySubscription1 = mockMemorySubscription(DOUBLE_MEMORY, STROKES_CNT_LOW);
+        AbstractMemorySubscription memorySubscription2 = mockMemorySubscription(SINGLE_MEMORY, STROKE_AVERAGE);
+        pollingService.subscribe(memorySubscription1);
+        pollingService.subscribe(memorySubscription2);
+
+        pollingService.start();
+
+        DataMemoryMessage msg = new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01, 0x02, 0x03);
+        listener.getValue().onMessageReceived(msg);
+
+        verify(memorySubscription1, times(1)).handle(msg);
+        verify(memorySubscription2, times(1)).handle(msg);
+    }
+
+    @Test
+    public void onMessageReceived_withOtherMessage_doesntHandMessageToMemorySubscriptions() {
+
+        AbstractMemorySubscription memorySubscription = mockMemorySubscription(SINGLE_MEMORY, STROKES_CNT_LOW);
+        pollingService.subscribe(memorySubscription);
+        pollingService.subscribe(subscription1);
+
+        pollingService.start();
+
+        listener.getValue().onMessageReceived(someMessage1);
+
+        verify(memorySubscription, never()).handle(any(AbstractMessage.class));
+        verify(subscription1, times(1)).handle(someMessage1);
+    }
+
+    @Test
+    public void onMessageReceived_afterUnsubscribe_doesntHandMessageToMemorySubscription() {
+
+        AbstractMemorySubscription memorySubscription = mockMemorySubscription(SINGLE_MEMORY, STROKES_CNT_LOW);
+        pollingService.subscribe(memorySubscription);
+        pollingService.unsubscribe(memorySubscription);
+
+        pollingService.start();
+
+        listener.getValue().onMessageReceived(new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01));
+
+        verify(memorySubscription, never()).handle(any(AbstractMessage.class));
+    }
+
+
+    // Metrics:
+
+    @Test
+    public void getMetrics_returnsMetrics() {
+        assertNotNull(pollingService.getMetrics());
+    }
+
+    @Test
+    public void callRunnable_withMemorySubscription_recordsPollAndAnswer() throws IOException {
+
+        pollingService.subscribe(newMemorySubscription(HIGH));
+
+        pollingService.start();
+        runNextTasks(1);
+
+        PollMetrics locationMetrics = pollingService.getMetrics().getMetrics(STROKES_CNT_LOW);
+        assertEquals(1, locationMetrics.getPolls());
+        assertEquals(0, locationMetrics.getAnsweredPolls());
+        assertEquals(1, locationMetrics.getQueueWait().getCount());
+
+        listener.getValue().onMessageReceived(new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01, 0x02));
+
+        assertEquals(1, locationMetrics.getAnsweredPolls());
+        assertEquals(1, locationMetrics.getLatency().getCount());
+        assertEquals(1, pollingService.getMetrics().getMetrics(HIGH).getAnsweredPolls());
+    }
+
+    @Test
+    public void callRunnable_withMergedDistanceReads_recordsPollAndAnswerOfBothLocations() throws IOException {
+
+        pollingService.subscribe(newMemorySubscription(HIGH, SINGLE_MEMORY, DISTANCE_LOW));
+        pollingService.subscribe(newMemorySubscription(HIGH, SINGLE_MEMORY, DISTANCE_HI));
+
+        pollingService.start();
+        runNextTasks(1);
+
+        verify(connector, times(1)).read(argThat(read -> (read.getMemory() == DOUBLE_MEMORY) && (read.getLocation() == DISTANCE_LOW.getLocation())));
+        PollMetrics lowMetrics = pollingService.getMetrics().getMetrics(DISTANCE_LOW);
+        PollMetrics hiMetrics = pollingService.getMetrics().getMetrics(DISTANCE_HI);
+        assertEquals(1, lowMetrics.getPolls());
+        assertEquals(1, hiMetrics.getPolls());
+
+        listener.getValue().onMessageReceived(new DataMemoryMessage(DISTANCE_LOW.getLocation(), 0x02, 0x01));
+
+        assertEquals(1, lowMetrics.getAnsweredPolls());
+        assertEquals(1, hiMetrics.getAnsweredPolls());
+        assertEquals(2, pollingService.getMetrics().getMetrics(HIGH).getAnsweredPolls());
+    }
+
+
+    // Memory mirror:
+
+    @Test
+    public void getMemoryMirror_returnsMemoryMirror() {
+        assertNotNull(pollingService.getMemoryMirror());
+    }
+
+    @Test
+    public void callRunnable_withTwoSubscriptionsForSameMemoryRead_pollsMemoryReadOnce() throws IOException {
+
+        pollingService.subscribe(newMemorySubscription(HIGH));
+        pollingService.subscribe(newMemorySubscription(HIGH));
+
+        pollingService.start();
+        runNextTasks(1);
+
+        verify(connector, times(1)).read(any(ReadMemoryMessage.class));
+    }
+
+    @Test
+    public void callRunnable_withLowAndHighSubscriptionForSameMemoryRead_pollsWithHighPriority() throws IOException {
+
+        pollingService.subscribe(newMemorySubscription(LOW));
+        pollingService.subscribe(newMemorySubscription(HIGH));
+
+        pollingService.start();
+        runNextTasks(5);
+
+        verify(connector, times(5)).read(any(ReadMemoryMessage.class));
+    }
+
+    @Test
+    public void callRunnable_withLowSubscription_doesntPollInEveryCycle() throws IOException {
+
+        pollingService.subscribe(newMemorySubscription(LOW));
+
+        pollingService.start();
+        runNextTasks(5);
+
+        verify(connector, times(1)).read(any(ReadMemoryMessage.class));
+    }
+
+    @Test
+    public void callRunnable_afterUnsubscribeOfHighSubscription_pollsWithLowPriority() throws IOException {
+
+        AbstractMemorySubscription highSubscription = newMemorySubscription(HIGH);
+        pollingService.subscribe(newMemorySubscription(LOW));
+        pollingService.subscribe(highSubscription);
+        pollingService.unsubscribe(highSubscription);
+
+        pollingService.start();
+        runNextTasks(5);
+
+        verify(connector, times(1)).read(any(ReadMemoryMessage.class));
+    }
+
+    @Test
+    public void onMessageReceived_withDataMemoryMessage_updatesMemoryMirror() {
+
+        pollingService.start();
+
+        listener.getValue().onMessageReceived(new DataMemoryMessage(STROKES_CNT_LOW.getLocation(), 0x01, 0x02));
+
+        assertEquals(0x02, pollingService.getMemoryMirror().getValue(STROKES_CNT_LOW));
+        assertEquals(0x01, pollingService.getMemoryMirror().getValue(STROKES_CNT_HI));
+    }
+
+
     // Helper methods:
 
+    private AbstractMemorySubscription newMemorySubscription(Priority priority) {
+        return newMemorySubscription(priority, DOUBLE_MEMORY, STROKES_CNT_LOW);
+    }
+
+    private AbstractMemorySubscription newMemorySubscription(Priority priority, Memory memory, MemoryLocation location) {
+        return new AbstractMemorySubscription(priority, memory, location) {
+            @Override
+            protected void handle(DataMemoryMessage msg) {}
+        };
+    }
+
+    private AbstractMemorySubscription mockMemorySubscription(Memory memory, MemoryLocation location) {
+        AbstractMemorySubscription subscription = mock(AbstractMemorySubscription.class, "memorySubscription");
+        when(subscription.getPriority()).thenReturn(HIGH);
+        when(subscription.getMemory()).thenReturn(memory);
+        when(subscription.getLocation()).thenReturn(location);
+        return subscription;
+    }
+
+    private void runNextTasks(int numberOfTasks) {
+        runNextTasks(numberOfTasks, MILLISECONDS.toNanos(200));
+    }
+
+    private void runNextTasks(int numberOfTasks, long timePerTask) {
+        for (int i = 0; i < numberOfTasks; i++) {
+            ArgumentCaptor<Runnable> task = forClass(Runnable.class);
+            verify(executorService, atLeastOnce()).schedule(task.capture(), anyLong(), eq(MILLISECONDS));
+            task.getValue().run();
+            time += timePerTask;
+        }
+    }
+
     private void subscribe(ISubscription subscription, AbstractMessage msg) {
+        when(subscription.getPriority()).thenReturn(HIGH);
         when(subscription.poll()).thenReturn(msg);
         pollingService.subscribe(subscription);
     }
@@ -8,6 +8,8 @@ import de.tbressler.waterrower.model.MiscFlags;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatcher;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static de.tbressler.waterrower.io.msg.Memory.SINGLE_MEMORY;
 import static de.tbressler.waterrower.model.MemoryLocation.FMISC_FLAGS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -88,6 +90,27 @@ public class TestMiscFlagsSubscription {
     }
 
 
+    @Test
+    public void handle_withPrimitiveCallback_notifiesFlagsAsByte() {
+        AtomicInteger received = new AtomicInteger(-1);
+        subscription = new MiscFlagsSubscription() {
+            @Override
+            protected void onMiscFlagsUpdated(int flags) {
+                received.set(flags);
+            }
+
+            @Override
+            protected void onMiscFlagsUpdated(MiscFlags flags) {
+                internalSubscription.onMiscFlagsUpdated(flags);
+            }
+        };
+
+        subscription.handle((AbstractMessage) new DataMemoryMessage(FMISC_FLAGS.getLocation(), 0xB6));
+
+        assertEquals(0xB6, received.get());
+        verify(internalSubscription, never()).onMiscFlagsUpdated(any(MiscFlags.class));
+    }
+
 
     // Helper methods:
 
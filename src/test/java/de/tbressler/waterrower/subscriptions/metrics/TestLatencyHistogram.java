@@ -0,0 +1,91 @@
+package de.tbressler.waterrower.subscriptions.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static de.tbressler.waterrower.subscriptions.metrics.LatencyHistogram.NUMBER_OF_BUCKETS;
+import static java.time.Duration.ZERO;
+import static java.time.Duration.ofMillis;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class LatencyHistogram.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestLatencyHistogram {
+
+    // Class under test.
+    private LatencyHistogram histogram = new LatencyHistogram();
+
+
+    @Test
+    public void new_returnsEmptyHistogram() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(ZERO, histogram.getMean());
+        assertEquals(ZERO, histogram.getMax());
+        assertEquals(ZERO, histogram.getPercentile(0.5));
+    }
+
+    @Test
+    public void record_countsDurationsInBuckets() {
+        histogram.record(ofMillis(0).toNanos());
+        histogram.record(ofMillis(1).toNanos());
+        histogram.record(ofMillis(3).toNanos());
+        histogram.record(ofMillis(100).toNanos());
+
+        long[] buckets = histogram.getBucketCounts();
+        assertEquals(NUMBER_OF_BUCKETS, buckets.length);
+        assertEquals(1, buckets[0]);
+        assertEquals(1, buckets[1]);
+        assertEquals(1, buckets[2]);
+        assertEquals(1, buckets[7]);
+    }
+
+    @Test
+    public void record_withVeryLongDuration_countsDurationInLastBucket() {
+        histogram.record(ofMillis(1_000_000).toNanos());
+
+        assertEquals(1, histogram.getBucketCounts()[NUMBER_OF_BUCKETS - 1]);
+        assertEquals(ofMillis(1_000_000), histogram.getPercentile(1.0));
+    }
+
+    @Test
+    public void record_withNegativeDuration_recordsZero() {
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getBucketCounts()[0]);
+        assertEquals(ZERO, histogram.getMax());
+    }
+
+    @Test
+    public void record_updatesCountMeanAndMax() {
+        histogram.record(ofMillis(10).toNanos());
+        histogram.record(ofMillis(30).toNanos());
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(ofMillis(20), histogram.getMean());
+        assertEquals(ofMillis(30), histogram.getMax());
+    }
+
+    @Test
+    public void getPercentile_returnsUpperBoundOfBucket() {
+        for (int i = 0; i < 9; i++)
+            histogram.record(ofMillis(10).toNanos());
+        histogram.record(ofMillis(100).toNanos());
+
+        assertEquals(ofMillis(16), histogram.getPercentile(0.5));
+        assertEquals(ofMillis(128), histogram.getPercentile(0.95));
+    }
+
+    @Test
+    public void getPercentile_withInvalidPercentile_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(1.5));
+    }
+
+    @Test
+    public void getUpperBound_withInvalidBucket_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> LatencyHistogram.getUpperBound(NUMBER_OF_BUCKETS - 1));
+    }
+
+}
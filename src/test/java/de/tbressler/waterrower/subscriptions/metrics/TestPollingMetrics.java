@@ -0,0 +1,171 @@
+package de.tbressler.waterrower.subscriptions.metrics;
+
+import de.tbressler.waterrower.io.msg.in.DataMemoryMessage;
+import de.tbressler.waterrower.io.msg.out.ReadMemoryMessage;
+import de.tbressler.waterrower.model.MemoryLocation;
+import de.tbressler.waterrower.subscriptions.Priority;
+import org.junit.jupiter.api.Test;
+
+import static de.tbressler.waterrower.io.msg.Memory.DOUBLE_MEMORY;
+import static de.tbressler.waterrower.io.msg.Memory.SINGLE_MEMORY;
+import static de.tbressler.waterrower.model.MemoryLocation.DISTANCE_HI;
+import static de.tbressler.waterrower.model.MemoryLocation.DISTANCE_LOW;
+import static de.tbressler.waterrower.model.MemoryLocation.STROKES_CNT_LOW;
+import static de.tbressler.waterrower.model.MemoryLocation.TANK_VOLUME;
+import static de.tbressler.waterrower.subscriptions.Priority.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for class PollingMetrics.
+ *
+ * @author Tobias Bressler
+ * @version 1.0
+ */
+public class TestPollingMetrics {
+
+    /* The memory location of the reads. */
+    private static final int READ_LOCATION = STROKES_CNT_LOW.getLocation();
+
+    /* The read of the memory location. */
+    private static final ReadMemoryMessage READ = new ReadMemoryMessage(DOUBLE_MEMORY, READ_LOCATION);
+
+    // Class under test.
+    private PollingMetrics metrics = new PollingMetrics();
+
+    // Mocks:
+    private IMetricsExporter exporter = mock(IMetricsExporter.class, "exporter");
+
+
+    @Test
+    public void getMetrics_withUnpolledLocation_returnsNull() {
+        assertNull(metrics.getMetrics(STROKES_CNT_LOW));
+    }
+
+    @Test
+    public void getMetrics_withNoPolling_returnsNull() {
+        assertNull(metrics.getMetrics(NO_POLLING));
+    }
+
+    @Test
+    public void pollQueued_withNoPolling_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> metrics.pollQueued(STROKES_CNT_LOW, NO_POLLING));
+    }
+
+    @Test
+    public void pollQueued_countsPoll() {
+        metrics.pollQueued(STROKES_CNT_LOW, HIGH);
+
+        assertEquals(1, metrics.getMetrics(STROKES_CNT_LOW).getPolls());
+        assertEquals(1, metrics.getMetrics(HIGH).getPolls());
+        assertEquals(0, metrics.getMetrics(LOW).getPolls());
+        assertEquals(1, metrics.getMetrics(STROKES_CNT_LOW).getUnansweredPolls());
+    }
+
+    @Test
+    public void pollSent_recordsQueueWaitOnce() {
+        metrics.pollQueued(STROKES_CNT_LOW, HIGH);
+        metrics.pollSent(READ);
+        metrics.pollSent(READ);
+
+        assertEquals(1, metrics.getMetrics(STROKES_CNT_LOW).getQueueWait().getCount());
+        assertEquals(1, metrics.getMetrics(HIGH).getQueueWait().getCount());
+    }
+
+    @Test
+    public void answerReceived_recordsAnswerAndLatency() {
+        metrics.pollQueued(STROKES_CNT_LOW, MEDIUM);
+        metrics.pollSent(READ);
+        metrics.answerReceived(new DataMemoryMessage(READ_LOCATION, 0x01, 0x02));
+
+        PollMetrics locationMetrics = metrics.getMetrics(STROKES_CNT_LOW);
+        assertEquals(1, locationMetrics.getAnsweredPolls());
+        assertEquals(1.0, locationMetrics.getAnsweredRatio());
+        assertEquals(1, locationMetrics.getLatency().getCount());
+        assertEquals(0, locationMetrics.getRefreshPeriod().getCount());
+        assertEquals(1, metrics.getMetrics(MEDIUM).getAnsweredPolls());
+    }
+
+    @Test
+    public void answerReceived_withoutPoll_isIgnored() {
+        metrics.answerReceived(new DataMemoryMessage(READ_LOCATION, 0x01, 0x02));
+
+        assertNull(metrics.getMetrics(STROKES_CNT_LOW));
+        assertEquals(0, metrics.getMetrics(HIGH).getAnsweredPolls());
+    }
+
+    @Test
+    public void answerReceived_twice_recordsRefreshPeriod() {
+        poll(STROKES_CNT_LOW, HIGH);
+        poll(STROKES_CNT_LOW, HIGH);
+
+        assertEquals(1, metrics.getMetrics(STROKES_CNT_LOW).getRefreshPeriod().getCount());
+        assertEquals(1, metrics.getMetrics(HIGH).getRefreshPeriod().getCount());
+    }
+
+    @Test
+    public void pollQueued_twiceWithoutAnswer_countsUnansweredPoll() {
+        metrics.pollQueued(STROKES_CNT_LOW, HIGH);
+        metrics.pollQueued(STROKES_CNT_LOW, HIGH);
+        metrics.answerReceived(new DataMemoryMessage(READ_LOCATION, 0x01, 0x02));
+
+        assertEquals(2, metrics.getMetrics(STROKES_CNT_LOW).getPolls());
+        assertEquals(1, metrics.getMetrics(STROKES_CNT_LOW).getUnansweredPolls());
+        assertEquals(0.5, metrics.getMetrics(STROKES_CNT_LOW).getAnsweredRatio());
+    }
+
+    @Test
+    public void answerReceived_withMergedRead_recordsAnswerOfEveryLocation() {
+        metrics.pollQueued(DISTANCE_LOW, HIGH);
+        metrics.pollQueued(DISTANCE_HI, LOW);
+        metrics.pollSent(new ReadMemoryMessage(DOUBLE_MEMORY, DISTANCE_LOW.getLocation()));
+        metrics.answerReceived(new DataMemoryMessage(DISTANCE_LOW.getLocation(), 0x01, 0x02));
+
+        assertEquals(1, metrics.getMetrics(DISTANCE_LOW).getAnsweredPolls());
+        assertEquals(1, metrics.getMetrics(DISTANCE_LOW).getQueueWait().getCount());
+        assertEquals(1, metrics.getMetrics(DISTANCE_HI).getAnsweredPolls());
+        assertEquals(1, metrics.getMetrics(DISTANCE_HI).getQueueWait().getCount());
+        assertEquals(1, metrics.getMetrics(HIGH).getAnsweredPolls());
+        assertEquals(1, metrics.getMetrics(LOW).getAnsweredPolls());
+    }
+
+    @Test
+    public void answerReceived_withSingleRead_doesntRecordAnswerOfNextLocation() {
+        metrics.pollQueued(DISTANCE_LOW, HIGH);
+        metrics.pollQueued(DISTANCE_HI, HIGH);
+        metrics.answerReceived(new DataMemoryMessage(DISTANCE_LOW.getLocation(), 0x01));
+
+        assertEquals(1, metrics.getMetrics(DISTANCE_LOW).getAnsweredPolls());
+        assertEquals(0, metrics.getMetrics(DISTANCE_HI).getAnsweredPolls());
+    }
+
+    @Test
+    public void export_exportsLocationsAndPriorities() {
+        poll(TANK_VOLUME, LOW);
+
+        metrics.export(exporter);
+
+        verify(exporter, times(1)).export(eq(TANK_VOLUME), any(PollMetrics.class));
+        verify(exporter, times(1)).export(eq(HIGH), any(PollMetrics.class));
+        verify(exporter, times(1)).export(eq(MEDIUM), any(PollMetrics.class));
+        verify(exporter, times(1)).export(eq(LOW), any(PollMetrics.class));
+        verify(exporter, never()).export(eq(NO_POLLING), any(PollMetrics.class));
+    }
+
+    @Test
+    public void export_withNull_throwsNPE() {
+        assertThrows(NullPointerException.class, () -> metrics.export(null));
+    }
+
+
+    // Helper methods:
+
+    private void poll(MemoryLocation location, Priority priority) {
+        metrics.pollQueued(location, priority);
+        metrics.pollSent(new ReadMemoryMessage(SINGLE_MEMORY, location.getLocation()));
+        metrics.answerReceived(new DataMemoryMessage(location.getLocation(), 0x01));
+    }
+
+}
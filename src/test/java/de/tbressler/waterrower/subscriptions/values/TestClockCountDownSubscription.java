@@ -6,9 +6,11 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatcher;
 
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static de.tbressler.waterrower.model.MemoryLocation.CLOCK_DOWN_DEC;
 import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 /**
@@ -59,6 +61,27 @@ public class TestClockCountDownSubscription {
         verify(internalSubscription, never()).onClockCountDownUpdated(any(Duration.class));
     }
 
+    @Test
+    public void handle_withPrimitiveCallback_notifiesTenthsOfSeconds() {
+        AtomicLong received = new AtomicLong(-1);
+        subscription = new ClockCountDownSubscription() {
+            @Override
+            protected void onClockCountDownUpdated(long tenthsOfSeconds) {
+                received.set(tenthsOfSeconds);
+            }
+
+            @Override
+            protected void onClockCountDownUpdated(Duration duration) {
+                internalSubscription.onClockCountDownUpdated(duration);
+            }
+        };
+
+        subscription.handle(new DataMemoryMessage(CLOCK_DOWN_DEC.getLocation(), 0x01, 0xFF, 0x03));
+
+        assertEquals(5113, received.get());
+        verify(internalSubscription, never()).onClockCountDownUpdated(any(Duration.class));
+    }
+
 
     // Helper methods:
 
@@ -6,9 +6,11 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatcher;
 
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static de.tbressler.waterrower.model.MemoryLocation.DISPLAY_SEC;
 import static java.time.Duration.ofHours;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 /**
@@ -59,6 +61,41 @@ public class TestDisplayedDurationSubscription {
         verify(internalSubscription, never()).onDurationUpdated(any(Duration.class));
     }
 
+    @Test
+    public void handle_withBcdMessage_notifiesDecimalDuration() {
+        subscription = newDisplayedDurationSubscription();
+        subscription.handle(new DataMemoryMessage(DISPLAY_SEC.getLocation(), 0x01, 0x59, 0x45));
+        verify(internalSubscription, times(1)).onDurationUpdated(argThat(matchesDuration(1, 59, 45)));
+    }
+
+    @Test
+    public void handle_withPrimitiveCallback_notifiesTenthsOfSeconds() {
+        AtomicLong received = new AtomicLong(-1);
+        subscription = new DisplayedDurationSubscription() {
+            @Override
+            protected void onDurationUpdated(long tenthsOfSeconds) {
+                received.set(tenthsOfSeconds);
+            }
+
+            @Override
+            protected void onDurationUpdated(Duration duration) {
+                internalSubscription.onDurationUpdated(duration);
+            }
+        };
+
+        subscription.handle(new DataMemoryMessage(DISPLAY_SEC.getLocation(), 0x01, 0x02, 0x03));
+
+        assertEquals(37230, received.get());
+        verify(internalSubscription, never()).onDurationUpdated(any(Duration.class));
+    }
+
+    @Test
+    public void toTenthsOfSeconds_withBcdValues_returnsTenthsOfSeconds() {
+        assertEquals(0, DisplayedDurationSubscription.toTenthsOfSeconds(0x00, 0x00, 0x00));
+        assertEquals(35990, DisplayedDurationSubscription.toTenthsOfSeconds(0x00, 0x59, 0x59));
+        assertEquals(71990, DisplayedDurationSubscription.toTenthsOfSeconds(0x01, 0x59, 0x59));
+    }
+
 
     // Helper methods:
 
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import static de.tbressler.waterrower.subscriptions.Priority.NO_POLLING;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -21,6 +22,9 @@ public class TestPulseCountSubscription {
     // Class under test.
     private PulseCountSubscription subscription;
 
+    /* The receive time of the last pulse count. */
+    private long receivedNanos;
+
     // Mocks:
     private PulseCountSubscription internalSubscription = mock(PulseCountSubscription.class, "internalSubscription");
     private PulseCountMessage pulseCountMessage = mock(PulseCountMessage.class, "pulseCountMessage");
@@ -28,6 +32,12 @@ public class TestPulseCountSubscription {
     @BeforeEach
     public void setUp() {
         subscription = new PulseCountSubscription() {
+            @Override
+            protected void onPulseCount(int pulsesCount, long receivedNanos) {
+                TestPulseCountSubscription.this.receivedNanos = receivedNanos;
+                super.onPulseCount(pulsesCount, receivedNanos);
+            }
+
             @Override
             protected void onPulseCount(int pulsesCount) {
                 internalSubscription.onPulseCount(pulsesCount);
@@ -71,6 +81,16 @@ public class TestPulseCountSubscription {
         verify(internalSubscription, times(1)).onPulseCount(30);
     }
 
+    @Test
+    public void handle_withReceivedPulseCountMessage_passesReceiveTime() {
+        PulseCountMessage msg = spy(new PulseCountMessage(10));
+        when(msg.getReceivedNanos()).thenReturn(1234L);
+
+        subscription.handle(msg);
+
+        assertEquals(1234L, receivedNanos);
+    }
+
     @Test
     public void handle_withUnsupportedMessage_doesntCallOnPulseCount() {
         AbstractMessage someMessage = mock(AbstractMessage.class, "someMessage");
@@ -24,6 +24,9 @@ public class TestStrokeSubscription {
     // Class under test.
     private StrokeSubscription subscription;
 
+    /* The receive time of the last stroke. */
+    private long receivedNanos;
+
     // Mocks:
     private StrokeSubscription internalSubscription = mock(StrokeSubscription.class, "internalSubscription");
     private StrokeMessage strokeMessage = mock(StrokeMessage.class, "strokeMessage");
@@ -31,6 +34,12 @@ public class TestStrokeSubscription {
     @BeforeEach
     public void setUp() {
         subscription = new StrokeSubscription() {
+            @Override
+            protected void onStroke(StrokeType strokeType, long receivedNanos) {
+                TestStrokeSubscription.this.receivedNanos = receivedNanos;
+                super.onStroke(strokeType, receivedNanos);
+            }
+
             @Override
             protected void onStroke(StrokeType strokeType) {
                 internalSubscription.onStroke(strokeType);
@@ -74,6 +83,16 @@ public class TestStrokeSubscription {
         verify(internalSubscription, times(1)).onStroke(END_OF_STROKE);
     }
 
+    @Test
+    public void handle_withReceivedStrokeMessage_passesReceiveTime() {
+        StrokeMessage msg = spy(new StrokeMessage(START_OF_STROKE));
+        when(msg.getReceivedNanos()).thenReturn(1234L);
+
+        subscription.handle(msg);
+
+        assertEquals(1234L, receivedNanos);
+    }
+
     @Test
     public void handle_withUnsupportedMessage_doesntCallStroke() {
         AbstractMessage someMessage = mock(AbstractMessage.class, "someMessage");
@@ -6,9 +6,11 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatcher;
 
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static de.tbressler.waterrower.model.MemoryLocation.WORKOUT_TIMEL;
 import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 /**
@@ -59,6 +61,27 @@ public class TestTotalWorkoutTimeSubscription {
         verify(internalSubscription, never()).onTimeUpdated(any(Duration.class));
     }
 
+    @Test
+    public void handle_withPrimitiveCallback_notifiesSeconds() {
+        AtomicInteger received = new AtomicInteger(-1);
+        subscription = new TotalWorkoutTimeSubscription() {
+            @Override
+            protected void onTimeUpdated(int seconds) {
+                received.set(seconds);
+            }
+
+            @Override
+            protected void onTimeUpdated(Duration time) {
+                internalSubscription.onTimeUpdated(time);
+            }
+        };
+
+        subscription.handle(new DataMemoryMessage(WORKOUT_TIMEL.getLocation(), 0x30, 0xC6));
+
+        assertEquals(12486, received.get());
+        verify(internalSubscription, never()).onTimeUpdated(any(Duration.class));
+    }
+
 
     // Helper methods:
 
@@ -8,6 +8,8 @@ import de.tbressler.waterrower.model.WorkoutFlags;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatcher;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static de.tbressler.waterrower.io.msg.Memory.SINGLE_MEMORY;
 import static de.tbressler.waterrower.model.MemoryLocation.FEXTENDED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -88,6 +90,27 @@ public class TestWorkoutFlagsSubscription {
     }
 
 
+    @Test
+    public void handle_withPrimitiveCallback_notifiesFlagsAsByte() {
+        AtomicInteger received = new AtomicInteger(-1);
+        subscription = new WorkoutFlagsSubscription() {
+            @Override
+            protected void onWorkoutFlagsUpdated(int flags) {
+                received.set(flags);
+            }
+
+            @Override
+            protected void onWorkoutFlagsUpdated(WorkoutFlags flags) {
+                internalSubscription.onWorkoutFlagsUpdated(flags);
+            }
+        };
+
+        subscription.handle((AbstractMessage) new DataMemoryMessage(FEXTENDED.getLocation(), 0xB6));
+
+        assertEquals(0xB6, received.get());
+        verify(internalSubscription, never()).onWorkoutFlagsUpdated(any(WorkoutFlags.class));
+    }
+
 
     // Helper methods:
 
@@ -258,6 +258,30 @@ public class TestMessageUtils {
 
     // Int from LOW and HIGH:
 
+    @Test
+    public void intFromBcd_withTooLowValue_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> intFromBcd(-1));
+    }
+
+    @Test
+    public void intFromBcd_withTooHighValue_throwsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> intFromBcd(0x100));
+    }
+
+    @Test
+    public void intFromBcd_with0x59_returns59() {
+        assertEquals(59, intFromBcd(0x59));
+    }
+
+    @Test
+    public void intFromBcd_withAllDecimalValues_returnsSameValueAsAchToAcd() {
+        for (int value = 0; value <= 99; value++) {
+            int bcd = ((value / 10) << 4) | (value % 10);
+            assertEquals(acdToInt(intToAch(bcd, 2)), intFromBcd(bcd));
+        }
+    }
+
+
     @Test
     public void getIntFromHighAndLow_withTooLowHighValue_throwsIAE() {
         assertThrows(IllegalArgumentException.class, () -> intFromHighAndLow(-1, 0x00));